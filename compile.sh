@@ -17,13 +17,32 @@ if [ ! -d "$JAVAFX_PATH" ]; then
     exit 1
 fi
 
+# The PostgreSQL JDBC driver is needed at compile time for the bulk loader (COPY API).
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+if [ -z "${PG_JDBC_JAR}" ] && [ -d "$SCRIPT_DIR/lib" ]; then
+  PG_JDBC_JAR="$(find "$SCRIPT_DIR/lib" -maxdepth 1 -name 'postgresql-*.jar' 2>/dev/null | head -1)"
+fi
+PG_JDBC_JAR=${PG_JDBC_JAR:-/Users/adavi/development/postgresql-42.7.10.jar}
+
+if [ ! -f "$PG_JDBC_JAR" ]; then
+    echo "Error: PostgreSQL JDBC driver not found at $PG_JDBC_JAR"
+    echo "Put postgresql-*.jar in lib/ or set PG_JDBC_JAR (see lib/README.md)"
+    exit 1
+fi
+
 javac --module-path "$JAVAFX_PATH" \
       --add-modules javafx.controls,javafx.fxml \
+      -cp "$PG_JDBC_JAR" \
       -d build/classes \
       src/main/java/com/team62/model/*.java \
+      src/main/java/com/team62/metrics/*.java \
       src/main/java/com/team62/db/*.java \
+      src/main/java/com/team62/repository/*.java \
+      src/main/java/com/team62/repository/postgres/*.java \
       src/main/java/com/team62/view/*.java \
       src/main/java/com/team62/controller/*.java \
+      src/main/java/com/team62/api/*.java \
+      src/main/java/com/team62/tools/*.java \
       src/main/java/com/team62/*.java
 
 if [ $? -eq 0 ]; then
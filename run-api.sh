@@ -0,0 +1,23 @@
+#!/bin/bash
+
+# Run script for the headless HTTP/JSON API (no JavaFX needed at runtime)
+# Usage: ./run-api.sh [port]
+# Compile first with ./compile.sh. Tune with JAVA_OPTS, e.g.
+#   JAVA_OPTS="-Dteam62.api.dbPermits=32" ./run-api.sh 8080
+# It listens on 127.0.0.1 only; add -Dteam62.api.host=0.0.0.0 to serve other machines,
+# and -Dteam62.api.token=... to enable the customer lookup.
+
+PORT=${1:-8080}
+
+# Path to the PostgreSQL JDBC driver JAR. Prefer lib/postgresql-*.jar if present.
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+if [ -z "${PG_JDBC_JAR}" ] && [ -d "$SCRIPT_DIR/lib" ]; then
+  PG_JDBC_JAR="$(find "$SCRIPT_DIR/lib" -maxdepth 1 -name 'postgresql-*.jar' 2>/dev/null | head -1)"
+fi
+PG_JDBC_JAR=${PG_JDBC_JAR:-/Users/adavi/development/postgresql-42.7.10.jar}
+
+echo "Starting API on port $PORT..."
+
+java $JAVA_OPTS \
+     -cp "build/classes:$PG_JDBC_JAR" \
+     com.team62.api.ApiServer "$PORT"
@@ -0,0 +1,176 @@
+-- Monthly range partitioning for "Order" and "Order_Item".
+--
+-- Run once with psql after schema.sql (fresh database) or against an existing
+-- database: the functions are (re)created, and if "Order" is still a plain table
+-- it is converted in place (one transaction; orders are copied).
+--
+-- Partitions are named order_pYYYY_MM / order_item_pYYYY_MM and cover one UTC
+-- calendar month. "Order_Item" carries order_date (= its order's date) so both
+-- tables split on the same boundaries and a date range prunes both.
+--
+-- The app calls pos_create_order_partitions every day to stay a few months ahead
+-- (com.team62.db.OrderPartitions); archival is opt-in.
+
+CREATE SCHEMA IF NOT EXISTS pos_archive;
+
+-- -------------------------
+-- Create the partitions for every month touching [p_from, p_to].
+-- Returns the number of tables created.
+-- -------------------------
+CREATE OR REPLACE FUNCTION pos_create_order_partitions(p_from DATE, p_to DATE)
+RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+  m       DATE := date_trunc('month', p_from)::DATE;
+  lo      TEXT;
+  hi      TEXT;
+  suffix  TEXT;
+  created INTEGER := 0;
+BEGIN
+  PERFORM pg_advisory_xact_lock(hashtext('pos_order_partitions'));
+  WHILE m <= p_to LOOP
+    suffix := to_char(m, 'YYYY_MM');
+    lo := m::TEXT || ' 00:00:00+00';
+    hi := (m + INTERVAL '1 month')::DATE::TEXT || ' 00:00:00+00';
+    IF to_regclass('order_p' || suffix) IS NULL THEN
+      EXECUTE format('CREATE TABLE %I PARTITION OF "Order" FOR VALUES FROM (%L) TO (%L)',
+                     'order_p' || suffix, lo, hi);
+      created := created + 1;
+    END IF;
+    IF to_regclass('order_item_p' || suffix) IS NULL THEN
+      EXECUTE format('CREATE TABLE %I PARTITION OF "Order_Item" FOR VALUES FROM (%L) TO (%L)',
+                     'order_item_p' || suffix, lo, hi);
+      created := created + 1;
+    END IF;
+    m := (m + INTERVAL '1 month')::DATE;
+  END LOOP;
+  RETURN created;
+END
+$$;
+
+-- -------------------------
+-- Detach every month that ends on or before p_before and move it to the
+-- pos_archive schema (Order_Item first, since it references "Order").
+-- The archived tables keep their rows; drop or dump them as needed.
+-- Returns the names of the archived tables.
+-- -------------------------
+CREATE OR REPLACE FUNCTION pos_archive_order_partitions(p_before DATE)
+RETURNS SETOF TEXT
+LANGUAGE plpgsql AS $$
+DECLARE
+  cutoff DATE := date_trunc('month', p_before)::DATE;
+  part   RECORD;
+  fk     RECORD;
+  item   TEXT;
+BEGIN
+  PERFORM pg_advisory_xact_lock(hashtext('pos_order_partitions'));
+  FOR part IN
+      SELECT c.relname, to_date(substr(c.relname, 8), 'YYYY_MM') AS month
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+       WHERE i.inhparent = '"Order"'::REGCLASS
+         AND c.relname ~ '^order_p[0-9]{4}_[0-9]{2}$'
+       ORDER BY 2
+  LOOP
+    EXIT WHEN part.month >= cutoff;
+    item := 'order_item_p' || to_char(part.month, 'YYYY_MM');
+    IF to_regclass(item) IS NOT NULL THEN
+      EXECUTE format('ALTER TABLE "Order_Item" DETACH PARTITION %I', item);
+      FOR fk IN
+          SELECT conname FROM pg_constraint
+           WHERE conrelid = to_regclass(item) AND contype = 'f'
+             AND confrelid = '"Order"'::REGCLASS
+      LOOP
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', item, fk.conname);
+      END LOOP;
+      EXECUTE format('ALTER TABLE %I SET SCHEMA pos_archive', item);
+      RETURN NEXT item;
+    END IF;
+    EXECUTE format('ALTER TABLE "Order" DETACH PARTITION %I', part.relname);
+    EXECUTE format('ALTER TABLE %I SET SCHEMA pos_archive', part.relname);
+    RETURN NEXT part.relname::TEXT;
+  END LOOP;
+END
+$$;
+
+-- -------------------------
+-- One-time conversion of plain "Order" / "Order_Item" tables.
+-- Keeps whatever columns the live tables have (LIKE ...), adds order_date.
+-- -------------------------
+DO $$
+DECLARE
+  r RECORD;
+  first_day DATE;
+  last_day  DATE;
+BEGIN
+  IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = '"Order"'::REGCLASS) THEN
+    RAISE NOTICE '"Order" is already partitioned; nothing to migrate';
+    RETURN;
+  END IF;
+
+  LOCK TABLE "Order", "Order_Item" IN ACCESS EXCLUSIVE MODE;
+  ALTER TABLE "Order_Item" RENAME TO order_item_unpartitioned;
+  ALTER TABLE "Order" RENAME TO order_unpartitioned;
+
+  -- Free the constraint and index names for the new tables.
+  FOR r IN
+      SELECT conrelid::REGCLASS AS tbl, conname FROM pg_constraint
+       WHERE conrelid IN ('order_item_unpartitioned'::REGCLASS, 'order_unpartitioned'::REGCLASS)
+         AND contype IN ('f', 'p', 'u')
+       ORDER BY CASE contype WHEN 'f' THEN 0 ELSE 1 END
+  LOOP
+    EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', r.tbl, r.conname);
+  END LOOP;
+  FOR r IN
+      SELECT indexrelid::REGCLASS AS idx FROM pg_index
+       WHERE indrelid IN ('order_item_unpartitioned'::REGCLASS, 'order_unpartitioned'::REGCLASS)
+  LOOP
+    EXECUTE format('DROP INDEX %s', r.idx);
+  END LOOP;
+
+  CREATE TABLE "Order" (LIKE order_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (date);
+  ALTER TABLE "Order"
+    ADD PRIMARY KEY (order_id, date),
+    ADD CONSTRAINT fk_order_employee FOREIGN KEY (employee_id)
+      REFERENCES "Employee"(employee_id) ON UPDATE CASCADE ON DELETE RESTRICT,
+    ADD CONSTRAINT fk_order_customer FOREIGN KEY (customer_id)
+      REFERENCES "Customer"(customer_id) ON UPDATE CASCADE ON DELETE RESTRICT;
+
+  CREATE TABLE "Order_Item" (
+    LIKE order_item_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    order_date TIMESTAMPTZ NOT NULL
+  ) PARTITION BY RANGE (order_date);
+  ALTER TABLE "Order_Item"
+    ADD PRIMARY KEY (id, order_date),
+    ADD CONSTRAINT fk_order_item_order FOREIGN KEY (order_id, order_date)
+      REFERENCES "Order"(order_id, date) ON UPDATE CASCADE ON DELETE CASCADE,
+    ADD CONSTRAINT fk_order_item_item FOREIGN KEY (item_id)
+      REFERENCES "Item"(item_id) ON UPDATE CASCADE ON DELETE RESTRICT;
+
+  SELECT COALESCE(MIN(date AT TIME ZONE 'UTC')::DATE, CURRENT_DATE),
+         GREATEST(COALESCE(MAX(date AT TIME ZONE 'UTC')::DATE, CURRENT_DATE), CURRENT_DATE)
+    INTO first_day, last_day
+    FROM order_unpartitioned;
+  PERFORM pos_create_order_partitions(first_day, (last_day + INTERVAL '3 months')::DATE);
+
+  INSERT INTO "Order" SELECT * FROM order_unpartitioned;
+  INSERT INTO "Order_Item"
+  SELECT oi.*, o.date
+    FROM order_item_unpartitioned oi
+    JOIN order_unpartitioned o ON o.order_id = oi.order_id;
+
+  DROP TABLE order_item_unpartitioned, order_unpartitioned;
+
+  CREATE INDEX idx_order_date ON "Order"(date);
+  CREATE INDEX idx_order_customer_date ON "Order"(customer_id, date DESC);
+  CREATE INDEX idx_order_employee ON "Order"(employee_id);
+  CREATE INDEX idx_order_item_order ON "Order_Item"(order_id);
+  CREATE INDEX idx_order_item_item ON "Order_Item"(item_id);
+  CREATE INDEX idx_order_item_date ON "Order_Item"(order_date);
+  CREATE UNIQUE INDEX uq_order_item_pair ON "Order_Item"(order_id, item_id, order_date);
+
+  ANALYZE "Order";
+  ANALYZE "Order_Item";
+END
+$$;
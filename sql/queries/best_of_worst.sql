@@ -20,7 +20,7 @@ item_sales_on_worst AS (
          SUM(oi.quantity) AS qty_sold
   FROM worst_day wd
   JOIN "Order" o ON o.date::date = wd.worst_day
-  JOIN "Order_Item" oi ON oi.order_id = o.order_id
+  JOIN "Order_Item" oi ON oi.order_id = o.order_id AND oi.order_date = o.date
   JOIN "Item" i ON i.item_id = oi.item_id
   GROUP BY wd.week_start, wd.worst_day, i.name
 ),
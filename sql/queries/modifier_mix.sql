@@ -0,0 +1,12 @@
+-- Units sold with each milk, ice, sugar and topping choice. Each line's choices are one
+-- bit mask (Order_Item.modifiers, bit n = pos_modifier.modifier_id n); 0 on lines from
+-- before modifiers existed.
+SELECT m.group_name,
+       m.name,
+       SUM(oi.quantity) AS units_sold
+FROM "Order_Item" oi
+JOIN pos_modifier m ON m.store_id = oi.store_id
+                   AND oi.modifiers & (1::BIGINT << m.modifier_id) <> 0
+WHERE oi.modifiers <> 0
+GROUP BY m.modifier_id, m.group_name, m.name
+ORDER BY m.modifier_id;
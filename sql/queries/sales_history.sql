@@ -1,6 +1,42 @@
-SELECT date_trunc('hour', o.date) AS hour_bucket,
-       COUNT(*) AS order_count,
-       SUM(o.total_price) AS total_sales
-FROM "Order" o
-GROUP BY 1
+-- Sales per hour from the sales series, including orders not yet folded into it
+-- (pos_series_pending). Hour buckets are only kept for team62.series.hourDays (default 90)
+-- days, so a day whose hours no longer add up to its day bucket comes back as one row
+-- (bucket_size = 'day', at midnight) instead. Day boundaries follow the session's time
+-- zone, so run it in the app's.
+WITH pending AS (
+  SELECT event_time, orders, amount
+  FROM pos_series_pending
+  WHERE kind = 'order'
+),
+hours AS (
+  SELECT bucket, SUM(orders) AS orders, SUM(sales) AS sales
+  FROM (SELECT bucket, orders, sales FROM pos_sales_series WHERE resolution = 'hour'
+        UNION ALL
+        SELECT date_trunc('hour', event_time), orders, amount FROM pending) h
+  GROUP BY bucket
+),
+days AS (
+  SELECT bucket, SUM(orders) AS orders, SUM(sales) AS sales
+  FROM (SELECT bucket, orders, sales FROM pos_sales_series WHERE resolution = 'day'
+        UNION ALL
+        SELECT date_trunc('day', event_time), orders, amount FROM pending) d
+  GROUP BY bucket
+),
+hourly_days AS (
+  SELECT date_trunc('day', bucket) AS day, SUM(orders) AS orders
+  FROM hours
+  GROUP BY 1
+)
+SELECT h.bucket AS hour_bucket,
+       'hour' AS bucket_size,
+       h.orders AS order_count,
+       h.sales AS total_sales
+FROM hours h
+JOIN hourly_days hd ON hd.day = date_trunc('day', h.bucket)
+JOIN days d ON d.bucket = hd.day AND d.orders = hd.orders
+UNION ALL
+SELECT d.bucket, 'day', d.orders, d.sales
+FROM days d
+LEFT JOIN hourly_days hd ON hd.day = d.bucket
+WHERE hd.orders IS DISTINCT FROM d.orders
 ORDER BY 1;
\ No newline at end of file
@@ -0,0 +1,57 @@
+-- Read replica for reports (Database.getReadConnection, see README).
+--
+-- Any streaming replica of the primary works as it is: put its URL in db.properties
+--   db.read.url=jdbc:postgresql://replica-host:5432/team_62_db
+-- (db.read.user / db.read.password default to db.user / db.password).
+--
+-- For a test setup without a standby, a second Postgres database fed by logical
+-- replication also works. The primary needs wal_level = logical (restart required).
+-- The app stamps pos_replica_heartbeat on the primary every second and reads it back on
+-- the replica to measure lag, so that table must be replicated too.
+
+-- -------------------------
+-- 1. On the primary
+-- -------------------------
+CREATE TABLE IF NOT EXISTS pos_replica_heartbeat (
+  id       SMALLINT PRIMARY KEY,
+  beat_at  TIMESTAMPTZ NOT NULL
+);
+
+-- Everything the replica-routed reports read (sales report, usage chart, restock
+-- report, closed-days report, sql/queries). publish_via_partition_root lets the replica partition "Order"
+-- and "Order_Item" differently, or not at all.
+CREATE PUBLICATION team62_reports
+  FOR TABLE "Order", "Order_Item", "Item", "Customer", "Employee",
+            "Inventory_Quantity", "Item_Inventory",
+            pos_inventory_escrow, pos_inventory_meta, pos_inventory_usage, pos_menu_inventory,
+            pos_replica_heartbeat, pos_day_snapshot,
+            pos_series_pending, pos_sales_series, pos_item_series, pos_usage_series, pos_modifier
+  WITH (publish_via_partition_root = true);
+-- An existing publication from before day-close snapshots needs:
+--   ALTER PUBLICATION team62_reports ADD TABLE pos_day_snapshot;
+-- and from before the sales series:
+--   ALTER PUBLICATION team62_reports ADD TABLE pos_series_pending, pos_sales_series, pos_item_series, pos_usage_series;
+-- and from before modifiers (sql/queries/modifier_mix.sql):
+--   ALTER PUBLICATION team62_reports ADD TABLE pos_modifier;
+--
+-- With several stores in one database the replica also needs the store_id columns,
+-- pos_store() and the row-level security policies (run the app against it once, or use
+-- a schema-only pg_dump taken after the app has started). Report connections set
+-- team62.store like primary ones, so they see only their own store there too.
+
+-- -------------------------
+-- 2. On the replica
+-- -------------------------
+-- Create the same tables first (schema.sql, or a schema-only pg_dump of the primary),
+-- then subscribe; existing rows are copied once, after that changes stream in.
+--
+-- CREATE SUBSCRIPTION team62_reports
+--   CONNECTION 'host=primary-host port=5432 dbname=team_62_db user=... password=...'
+--   PUBLICATION team62_reports;
+--
+-- When both databases live in the same Postgres cluster, CREATE SUBSCRIPTION cannot
+-- create its own slot; create it on the primary first:
+--   SELECT pg_create_logical_replication_slot('team62_reports', 'pgoutput');
+-- and subscribe WITH (create_slot = false, slot_name = 'team62_reports').
+--
+-- Give the app's database user SELECT only; Database opens replica connections read-only.
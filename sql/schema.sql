@@ -24,6 +24,11 @@ CREATE TABLE "Customer" (
   points            INTEGER NOT NULL DEFAULT 0 CHECK (points >= 0),
   purchase_history  UUID[] NOT NULL DEFAULT '{}'::UUID[]
 );
+-- points is the opening loyalty balance; the app keeps the live balance in
+-- pos_loyalty_balance and no longer writes purchase_history.
+
+CREATE INDEX idx_customer_phone ON "Customer"(phone_number);
+CREATE INDEX idx_customer_email ON "Customer"(LOWER(email));
 
 -- -------------------------
 -- Employee
@@ -103,15 +108,20 @@ CREATE UNIQUE INDEX uq_item_inventory_inventory
 -- Includes BOTH:
 --  - item_quantity JSONB (UML)
 --  - total_price (MainController)
+-- Partitioned by month on date; the partitions themselves are created by
+-- pos_create_order_partitions() in partitioning.sql (run it next).
 -- -------------------------
 CREATE TABLE "Order" (
-  order_id       UUID PRIMARY KEY,
+  order_id       UUID NOT NULL,
   item_quantity  JSONB NOT NULL DEFAULT '{}'::JSONB,
   employee_id    UUID NOT NULL,
   customer_id    UUID NOT NULL,
   date           TIMESTAMPTZ NOT NULL,
   total_price    NUMERIC(12,2) NOT NULL DEFAULT 0 CHECK (total_price >= 0),
 
+  -- The partition key must be part of the primary key.
+  PRIMARY KEY (order_id, date),
+
   CONSTRAINT fk_order_employee
     FOREIGN KEY (employee_id)
     REFERENCES "Employee"(employee_id)
@@ -123,28 +133,34 @@ CREATE TABLE "Order" (
     REFERENCES "Customer"(customer_id)
     ON UPDATE CASCADE
     ON DELETE RESTRICT
-);
+) PARTITION BY RANGE (date);
 
 CREATE INDEX idx_order_date ON "Order"(date);
-CREATE INDEX idx_order_customer ON "Order"(customer_id);
+CREATE INDEX idx_order_customer_date ON "Order"(customer_id, date DESC);
 CREATE INDEX idx_order_employee ON "Order"(employee_id);
 
 -- -------------------------
 -- Order_Item (junction)
 -- Includes BOTH:
---  - (order_id, item_id) row per distinct item (UML)
+--  - one row per item and customization in an order (UML)
 --  - quantity + unit_price (MainController + reporting)
+-- order_date copies "Order".date so each line lives in its order's month.
+-- modifiers is the bit set of pos_modifier ids chosen for the line (0 = defaults).
 -- -------------------------
 CREATE TABLE "Order_Item" (
-  id         UUID PRIMARY KEY,
+  id         UUID NOT NULL,
   order_id   UUID NOT NULL,
+  order_date TIMESTAMPTZ NOT NULL,
   item_id    UUID NOT NULL,
   quantity   INTEGER NOT NULL CHECK (quantity > 0),
   unit_price NUMERIC(10,2) NOT NULL CHECK (unit_price >= 0),
+  modifiers  BIGINT NOT NULL DEFAULT 0,
+
+  PRIMARY KEY (id, order_date),
 
   CONSTRAINT fk_order_item_order
-    FOREIGN KEY (order_id)
-    REFERENCES "Order"(order_id)
+    FOREIGN KEY (order_id, order_date)
+    REFERENCES "Order"(order_id, date)
     ON UPDATE CASCADE
     ON DELETE CASCADE,
 
@@ -153,12 +169,16 @@ CREATE TABLE "Order_Item" (
     REFERENCES "Item"(item_id)
     ON UPDATE CASCADE
     ON DELETE RESTRICT
-);
+) PARTITION BY RANGE (order_date);
 
 CREATE INDEX idx_order_item_order ON "Order_Item"(order_id);
 CREATE INDEX idx_order_item_item ON "Order_Item"(item_id);
+CREATE INDEX idx_order_item_date ON "Order_Item"(order_date);
+
+CREATE UNIQUE INDEX uq_order_item_line
+  ON "Order_Item"(order_id, item_id, modifiers, order_date);
 
-CREATE UNIQUE INDEX uq_order_item_pair
-  ON "Order_Item"(order_id, item_id);
+-- store_id, the per-store row policies and the store-first indexes are added by
+-- the app on startup (Stores.DDL), since they need pos_store() from the session.
 
 COMMIT;
\ No newline at end of file
@@ -24,6 +24,9 @@ Defaults for team size 6:
 Important:
 - "Order" includes item_quantity JSONB AND total_price
 - "Order_Item" includes quantity and unit_price (matches MainController + reporting)
+
+For 10x-100x this volume use the Java loader (com.team62.tools.BulkLoader),
+which reproduces these distributions and streams rows with binary COPY.
 """
 
 from __future__ import annotations
@@ -454,6 +457,14 @@ def execute_seed(cfg: GenConfig, dsn: str, truncate_first: bool = False) -> None
                 page_size=500,
             )
 
+            # "Order"/"Order_Item" are partitioned by month (partitioning.sql): create the
+            # months this run covers, and give each line its order's timestamp.
+            cur.execute("SELECT to_regprocedure('pos_create_order_partitions(date, date)') IS NOT NULL")
+            partitioned = cur.fetchone()[0]
+            if partitioned:
+                end = cfg.start + dt.timedelta(days=cfg.weeks * 7 - 1)
+                cur.execute("SELECT pos_create_order_partitions(%s, %s)", (cfg.start, end))
+
             execute_values(
                 cur,
                 """
@@ -464,15 +475,27 @@ def execute_seed(cfg: GenConfig, dsn: str, truncate_first: bool = False) -> None
                 page_size=2000,
             )
 
-            execute_values(
-                cur,
-                """
-                INSERT INTO "Order_Item"(id, order_id, item_id, quantity, unit_price)
-                VALUES %s
-                """,
-                order_item_rows,
-                page_size=5000,
-            )
+            if partitioned:
+                order_dates = {oid: ts for (oid, _iq, _eid, _cid, ts, _total) in order_rows}
+                execute_values(
+                    cur,
+                    """
+                    INSERT INTO "Order_Item"(id, order_id, item_id, quantity, unit_price, order_date)
+                    VALUES %s
+                    """,
+                    [row + (order_dates[row[1]],) for row in order_item_rows],
+                    page_size=5000,
+                )
+            else:
+                execute_values(
+                    cur,
+                    """
+                    INSERT INTO "Order_Item"(id, order_id, item_id, quantity, unit_price)
+                    VALUES %s
+                    """,
+                    order_item_rows,
+                    page_size=5000,
+                )
 
             execute_values(
                 cur,
@@ -0,0 +1,582 @@
+package com.team62.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.team62.controller.MainController;
+import com.team62.controller.OrderPricing;
+import com.team62.db.Database;
+import com.team62.db.StatementRegistry;
+import com.team62.db.Stores;
+import com.team62.metrics.Metrics;
+import com.team62.model.Customer;
+import com.team62.model.InventoryItem;
+import com.team62.model.MenuItem;
+import com.team62.model.Modifiers;
+import com.team62.model.Money;
+import com.team62.model.SalesOrder;
+import com.team62.model.SalesOrderItem;
+import com.team62.repository.OrderResult;
+import com.team62.repository.Repositories;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless HTTP/JSON front end for {@link MainController}, for clients other than the
+ * desktop app (kiosks, online ordering).
+ *
+ * Every request runs on its own virtual thread, so thousands of slow or idle clients
+ * cost almost nothing. Work that touches the database is gated by a fair semaphore of
+ * {@code team62.api.dbPermits} (default 16) permits; a request that cannot get a
+ * permit within {@code team62.api.dbWaitMillis} (default 2000) gets a 503 instead of
+ * piling more load onto Postgres.
+ *
+ * Endpoints:
+ * <pre>
+ * GET  /api/health           (includes the read replica's lag when one is configured)
+ * GET  /api/menu              (each item with how many the stock can still make, and its modifiers' upcharges)
+ * GET  /api/menu/makeable?item=uuid
+ * GET  /api/menu/modifiers     (milk, ice, sugar and topping choices, with defaults)
+ * POST /api/orders            {"orderId":"uuid","paymentMethod":"Card","customerId":"uuid","items":[{"itemId":"uuid","quantity":2,"modifiers":[1,13,32]}]}
+ * GET  /api/customers/lookup?q=phone-or-email   (needs Authorization: Bearer team62.api.token)
+ * GET  /api/inventory
+ * GET  /api/reports/x?date=YYYY-MM-DD
+ * GET  /api/reports/z?date=YYYY-MM-DD
+ * GET  /api/reports/sales?start=YYYY-MM-DD&amp;end=YYYY-MM-DD
+ * GET  /api/reports/sales-history?start=YYYY-MM-DD&amp;end=YYYY-MM-DD&amp;resolution=auto|minute|hour|day
+ * GET  /api/reports/days?start=YYYY-MM-DD&amp;end=YYYY-MM-DD
+ * GET  /api/reports/restock
+ * GET  /api/reports/restock-forecast
+ * GET  /api/metrics           (plain text, with statement reuse and connection pool; needs the token)
+ * </pre>
+ * Order prices always come from the menu, never from the client.
+ *
+ * A request works on the store ({@link Stores}) named by its {@code X-Store} header or
+ * {@code store} query parameter, or else the server's own store; an unknown store is a 404.
+ *
+ * The server listens on {@code team62.api.host} (default {@code 127.0.0.1}), so only
+ * this machine can reach it unless another address is set. Customer data is served only
+ * to requests carrying {@code Authorization: Bearer} with the {@code team62.api.token}
+ * value, and so are the metrics; with no token set, those endpoints are turned off.
+ */
+public final class ApiServer {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.api");
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final MainController controller;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore dbPermits;
+    private final long dbWaitMillis = Long.getLong("team62.api.dbWaitMillis", 2000L);
+    private final long menuTtlMillis = Long.getLong("team62.api.menuTtlMillis", 5000L);
+    private final byte[] token = System.getProperty("team62.api.token", "").getBytes(StandardCharsets.UTF_8);
+    // ReentrantLock rather than synchronized so a virtual thread waiting on a reload does not pin its carrier.
+    private final ReentrantLock menuLock = new ReentrantLock();
+    private final Map<String, MenuSnapshot> menus = new ConcurrentHashMap<>();
+
+    public ApiServer(MainController controller, int port, int permits) throws IOException {
+        this.controller = controller;
+        this.dbPermits = new Semaphore(Math.max(1, permits), true);
+        String host = System.getProperty("team62.api.host", "127.0.0.1");
+        this.server = HttpServer.create(new InetSocketAddress(host, port), Integer.getInteger("team62.api.backlog", 1024));
+        server.setExecutor(executor);
+        // Items that sold out come off the cached menu right away, not after menuTtlMillis.
+        controller.addMenuListener(itemIds -> menus.clear());
+        route("/api/health", "GET", ex -> ok(health()));
+        route("/api/menu", "GET", ex -> ok(menuJson(currentMenu())));
+        route("/api/menu/makeable", "GET", this::makeable);
+        route("/api/menu/modifiers", "GET", ex -> ok(modifiersJson(currentMenu().modifiers)));
+        route("/api/orders", "POST", this::submitOrder);
+        route("/api/customers/lookup", "GET", this::lookupCustomer);
+        route("/api/inventory", "GET", ex -> ok(inventoryJson(withDb(controller::getAllInventoryItems))));
+        route("/api/reports/x", "GET", ex -> report(withDb(() -> controller.getXReport(date(ex, "date")))));
+        route("/api/reports/z", "GET", ex -> report(withDb(() -> controller.getZReport(date(ex, "date")))));
+        route("/api/reports/sales", "GET", ex -> {
+            LocalDate start = date(ex, "start");
+            LocalDate end = date(ex, "end");
+            return report(withDb(() -> controller.getSalesReport(start, end)));
+        });
+        route("/api/reports/sales-history", "GET", ex -> {
+            LocalDate start = date(ex, "start");
+            LocalDate end = date(ex, "end");
+            String resolution = query(ex).getOrDefault("resolution", "auto");
+            if (!List.of("auto", "minute", "hour", "day").contains(resolution)) {
+                throw new BadRequestException("Bad resolution (expected auto, minute, hour or day): " + resolution);
+            }
+            return report(withDb(() -> controller.getSalesHistoryChart(start, end, resolution)));
+        });
+        route("/api/reports/days", "GET", ex -> {
+            LocalDate start = date(ex, "start");
+            LocalDate end = date(ex, "end");
+            return report(withDb(() -> controller.getClosedDaysReport(start, end)));
+        });
+        route("/api/reports/restock", "GET", ex -> report(withDb(controller::getRestockReport)));
+        route("/api/reports/restock-forecast", "GET", ex -> report(withDb(controller::getRestockForecastReport)));
+        route("/api/metrics", "GET", ex -> {
+            // Names every statement the server runs, so it is kept to token holders.
+            Response denied = authorize(ex);
+            if (denied != null) {
+                return denied;
+            }
+            return ok(withDb(() -> Metrics.report() + "\n" + StatementRegistry.report()));
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("team62.api.port", 8080);
+        int permits = Integer.getInteger("team62.api.dbPermits", 16);
+        ApiServer api = new ApiServer(new MainController(), port, permits);
+        Runtime.getRuntime().addShutdownHook(new Thread(api::stop, "api-shutdown"));
+        api.start();
+        LOG.info("Team 62 POS API listening on " + System.getProperty("team62.api.host", "127.0.0.1") + ":" + port
+                + " with " + permits + " DB permits");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // ============================
+    // Handlers
+    // ============================
+
+    private Response submitOrder(HttpExchange ex) throws Exception {
+        Object parsed;
+        try {
+            parsed = Json.parse(readBody(ex));
+        } catch (IllegalArgumentException e) {
+            return error(400, "Invalid JSON: " + e.getMessage());
+        }
+        if (!(parsed instanceof Map<?, ?> body) || !(body.get("items") instanceof List<?> lines) || lines.isEmpty()) {
+            return error(400, "Body must be an object with a non-empty \"items\" array");
+        }
+        String paymentMethod = body.get("paymentMethod") instanceof String s && !s.isBlank() ? s : "Cash";
+
+        MenuSnapshot snapshot = currentMenu();
+        SalesOrder order = new SalesOrder(System.currentTimeMillis(),
+                new Timestamp(System.currentTimeMillis()), null, paymentMethod);
+        long subtotal = 0;
+        long lineId = 1;
+        // Lines with the same item and customization become one, as on the register.
+        Map<String, SalesOrderItem> sameLine = new HashMap<>();
+        for (Object o : lines) {
+            if (!(o instanceof Map<?, ?> line) || !(line.get("itemId") instanceof String itemId)
+                    || !(line.get("quantity") instanceof BigDecimal qty)) {
+                return error(400, "Each item needs a string \"itemId\" and a numeric \"quantity\"");
+            }
+            int quantity;
+            try {
+                quantity = qty.intValueExact();
+            } catch (ArithmeticException e) {
+                return error(400, "Quantity must be a whole number: " + qty);
+            }
+            if (quantity <= 0) {
+                return error(400, "Quantity must be positive for item " + itemId);
+            }
+            MenuItem item = snapshot.byDbId.get(itemId);
+            if (item == null) {
+                return error(404, "Unknown or inactive menu item: " + itemId);
+            }
+            List<Integer> modifierIds = new ArrayList<>();
+            if (line.get("modifiers") instanceof List<?> ids) {
+                for (Object id : ids) {
+                    if (!(id instanceof BigDecimal n) || n.scale() > 0 || n.signum() < 0
+                            || n.compareTo(BigDecimal.valueOf(Modifiers.MAX_ID)) > 0) {
+                        return error(400, "Modifiers must be modifier ids (see /api/menu/modifiers): " + id);
+                    }
+                    modifierIds.add(n.intValue());
+                }
+            } else if (line.get("modifiers") != null) {
+                return error(400, "\"modifiers\" must be an array of modifier ids");
+            }
+            long mask = snapshot.modifiers.mask(modifierIds);
+            if (mask < 0) {
+                return error(400, "Unknown modifier in " + modifierIds + " (see /api/menu/modifiers)");
+            }
+            mask = snapshot.modifiers.complete(itemId, mask);
+            String problem = snapshot.modifiers.check(itemId, mask);
+            if (problem != null) {
+                return error(400, "Invalid modifiers for " + item.getName() + ": " + problem);
+            }
+            // Items newer than the snapshot's modifier table keep their menu price.
+            long unitCents = snapshot.modifiers.knows(itemId)
+                    ? snapshot.modifiers.unitCents(itemId, mask) : item.getBasePriceCents();
+            SalesOrderItem oi = sameLine.get(itemId + ":" + mask);
+            if (oi == null) {
+                oi = new SalesOrderItem(lineId++, order.getOrderId(), item.getMenuItemId(), quantity, unitCents);
+                oi.setItemDbId(item.getDbId());
+                oi.setModifiers(mask);
+                order.addOrderItem(oi);
+                sameLine.put(itemId + ":" + mask, oi);
+            } else if (oi.getQuantity() > Integer.MAX_VALUE - quantity) {
+                return error(400, "Quantity too large for item " + itemId);
+            } else {
+                oi.setQuantity(oi.getQuantity() + quantity);
+            }
+            subtotal += OrderPricing.lineTotal(unitCents, quantity);
+        }
+        order.setTotalCents(OrderPricing.total(subtotal));
+        if (body.get("customerId") instanceof String customerId && !customerId.isBlank()) {
+            order.setCustomerDbId(customerId);
+        }
+        // Clients should send their own key, so a retry cannot record the order twice.
+        if (body.get("orderId") instanceof String orderId && !orderId.isBlank()) {
+            order.setOrderKey(orderId);
+        }
+
+        OrderResult result = withDb(() -> controller.processOrder(order));
+        if (!result.recorded()) {
+            int status = switch (result.status()) {
+                case INSUFFICIENT_STOCK -> 409;
+                case INVALID -> 400;
+                default -> 500;
+            };
+            return error(status, result.message());
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", "ok");
+        json.put("orderId", order.getOrderKey());
+        json.put("message", result.message());
+        json.put("subtotal", Money.toBigDecimal(subtotal));
+        json.put("taxTip", Money.toBigDecimal(OrderPricing.taxTip(subtotal)));
+        json.put("total", order.getTotalAmount());
+        return new Response(result.status() == OrderResult.Status.ALREADY_RECORDED ? 200 : 201, json);
+    }
+
+    private Response makeable(HttpExchange ex) throws Exception {
+        String itemId = query(ex).get("item");
+        if (itemId == null || itemId.isBlank()) {
+            throw new BadRequestException("Missing item (menu item id)");
+        }
+        MenuItem item = currentMenu().byDbId.get(itemId);
+        if (item == null) {
+            return error(404, "Unknown menu item " + itemId);
+        }
+        int count = withDb(() -> controller.getMakeableCount(item));
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("itemId", itemId);
+        json.put("name", item.getName());
+        json.put("makeable", count < 0 ? null : count);
+        return ok(json);
+    }
+
+    private Response lookupCustomer(HttpExchange ex) throws Exception {
+        Response denied = authorize(ex);
+        if (denied != null) {
+            return denied;
+        }
+        String q = query(ex).get("q");
+        if (q == null || q.isBlank()) {
+            throw new BadRequestException("Missing q (phone number or email)");
+        }
+        Customer customer = withDb(() -> controller.findCustomer(q));
+        if (customer == null) {
+            return error(404, "No matching customer");
+        }
+        List<Map<String, Object>> recent = new ArrayList<>();
+        for (SalesOrder o : withDb(() -> controller.getRecentPurchases(customer.getDbId(), 5))) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("date", o.getOrderDatetime().toInstant().toString());
+            m.put("total", o.getTotalAmount());
+            m.put("paymentMethod", o.getPaymentMethod());
+            recent.add(m);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("customerId", customer.getDbId());
+        json.put("name", customer.getName());
+        json.put("points", customer.getPoints());
+        json.put("recentPurchases", recent);
+        return ok(json);
+    }
+
+    private Map<String, Object> health() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("status", "ok");
+        json.put("backend", controller.getBackend());
+        json.put("dbPermitsAvailable", dbPermits.availablePermits());
+        double lag = controller.getBackend().equals(Repositories.POSTGRES) ? Database.replicaLagSeconds() : Double.NaN;
+        if (!Double.isNaN(lag)) {
+            // null while the replica is unreachable or not yet measured (reports use the primary)
+            json.put("replicaLagSeconds", Double.isInfinite(lag) ? null : BigDecimal.valueOf(lag).setScale(1, RoundingMode.HALF_UP));
+        }
+        return json;
+    }
+
+    private MenuSnapshot currentMenu() throws Exception {
+        String store = Stores.current();
+        MenuSnapshot snapshot = menus.get(store);
+        if (snapshot != null && System.currentTimeMillis() - snapshot.loadedAt < menuTtlMillis) {
+            return snapshot;
+        }
+        menuLock.lock();
+        try {
+            snapshot = menus.get(store);
+            if (snapshot == null || System.currentTimeMillis() - snapshot.loadedAt >= menuTtlMillis) {
+                snapshot = new MenuSnapshot(withDb(controller::getAllMenuItems), withDb(controller::getModifiers));
+                menus.put(store, snapshot);
+            }
+            return snapshot;
+        } finally {
+            menuLock.unlock();
+        }
+    }
+
+    private static List<Map<String, Object>> menuJson(MenuSnapshot snapshot) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (MenuItem mi : snapshot.items) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("itemId", mi.getDbId());
+            m.put("name", mi.getName());
+            m.put("category", mi.getCategory());
+            m.put("price", mi.getBasePrice());
+            m.put("outOfStock", mi.isOutOfStock());
+            // null when no tracked ingredient limits the item
+            m.put("makeable", mi.getMakeable() < 0 ? null : mi.getMakeable());
+            // modifier id -> upcharge on this item
+            Map<String, Object> upcharges = new LinkedHashMap<>();
+            for (Modifiers.Modifier modifier : snapshot.modifiers.allowed(mi.getDbId())) {
+                upcharges.put(String.valueOf(modifier.id()), snapshot.modifiers.upcharge(mi.getDbId(), modifier));
+            }
+            m.put("modifiers", upcharges);
+            list.add(m);
+        }
+        return list;
+    }
+
+    private static List<Map<String, Object>> modifiersJson(Modifiers.Table table) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Modifiers.Modifier modifier : table.modifiers()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", modifier.id());
+            m.put("group", modifier.group().name().toLowerCase());
+            m.put("name", modifier.name());
+            m.put("upcharge", BigDecimal.valueOf(modifier.upchargeCents(), 2));
+            m.put("default", modifier.isDefault());
+            list.add(m);
+        }
+        return list;
+    }
+
+    private static List<Map<String, Object>> inventoryJson(List<InventoryItem> items) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (InventoryItem ii : items) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("inventoryId", ii.getDbId());
+            m.put("name", ii.getName());
+            m.put("unit", ii.getUnit());
+            m.put("quantity", ii.getCurrentQuantity());
+            m.put("reorderPoint", ii.getReorderPoint());
+            m.put("onMenu", ii.isOnMenu());
+            list.add(m);
+        }
+        return list;
+    }
+
+    private static Response report(String text) {
+        return ok(Map.of("report", text));
+    }
+
+    // ============================
+    // Plumbing
+    // ============================
+
+    /**
+     * @return a 401 or 403 response unless {@code ex} carries the API token, else null
+     */
+    private Response authorize(HttpExchange ex) {
+        if (token.length == 0) {
+            return error(403, "Customer and metrics endpoints are disabled on this server");
+        }
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        byte[] given = header != null && header.startsWith("Bearer ")
+                ? header.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        if (!MessageDigest.isEqual(token, given)) {
+            ex.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            return error(401, "Missing or wrong API token");
+        }
+        return null;
+    }
+
+    /**
+     * Runs {@code work} while holding one of the DB permits.
+     */
+    private <T> T withDb(Callable<T> work) throws Exception {
+        if (!dbPermits.tryAcquire(dbWaitMillis, TimeUnit.MILLISECONDS)) {
+            throw new BusyException();
+        }
+        try {
+            return work.call();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private void route(String path, String method, Handler handler) {
+        server.createContext(path, ex -> {
+            Response response;
+            try {
+                if (!ex.getRequestURI().getPath().equals(path)) {
+                    response = error(404, "Not found");
+                } else if (!method.equals(ex.getRequestMethod())) {
+                    ex.getResponseHeaders().set("Allow", method);
+                    response = error(405, "Use " + method);
+                } else {
+                    String store = store(ex);
+                    response = controller.getStores().contains(store)
+                            ? Stores.call(store, () -> handler.handle(ex))
+                            : error(404, "Unknown store: " + store);
+                }
+            } catch (BusyException e) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                response = error(503, "Server busy, try again");
+            } catch (BadRequestException e) {
+                response = error(400, e.getMessage());
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Request failed: " + ex.getRequestMethod() + " " + ex.getRequestURI(), e);
+                response = error(500, "Internal error");
+            }
+            send(ex, response);
+        });
+    }
+
+    // A String body goes out as plain text, anything else as JSON.
+    private static void send(HttpExchange ex, Response response) throws IOException {
+        boolean text = response.body instanceof String;
+        byte[] body = (text ? (String) response.body : Json.write(response.body)).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", (text ? "text/plain" : "application/json") + "; charset=utf-8");
+        ex.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new BadRequestException("Request body too large");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static LocalDate date(HttpExchange ex, String name) {
+        String value = query(ex).get(name);
+        if (value == null || value.isBlank()) {
+            return LocalDate.now();
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Bad " + name + " (expected YYYY-MM-DD): " + value);
+        }
+    }
+
+    private static String store(HttpExchange ex) {
+        String store = ex.getRequestHeaders().getFirst("X-Store");
+        if (store == null || store.isBlank()) {
+            store = query(ex).get("store");
+        }
+        if (store == null || store.isBlank()) {
+            return Stores.terminal();
+        }
+        if (!Stores.isValid(store)) {
+            throw new BadRequestException("Bad store code: " + store);
+        }
+        return store;
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Map.of("error", message));
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange ex) throws Exception;
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    private static final class MenuSnapshot {
+        final long loadedAt = System.currentTimeMillis();
+        final List<MenuItem> items;
+        final Map<String, MenuItem> byDbId = new HashMap<>();
+        final Modifiers.Table modifiers;
+
+        MenuSnapshot(List<MenuItem> items, Modifiers.Table modifiers) {
+            this.items = items;
+            this.modifiers = modifiers;
+            for (MenuItem mi : items) {
+                if (mi.getDbId() != null) {
+                    byDbId.putIfAbsent(mi.getDbId(), mi);
+                }
+            }
+        }
+    }
+
+    private static final class BusyException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        BusyException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class BadRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+}
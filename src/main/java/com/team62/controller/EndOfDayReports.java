@@ -0,0 +1,213 @@
+package com.team62.controller;
+
+import com.team62.db.Stores;
+import com.team62.metrics.Metrics;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds a day's end-of-day reports ahead of time, so the manager's tabs open without
+ * waiting on the database.
+ *
+ * {@link #precompute} builds every report for one store and date in parallel on
+ * {@code team62.reports.threads} (default 3) background threads. {@link MainController}
+ * calls it after a Z close, and every day at {@code team62.reports.closeTime}
+ * ({@code HH:mm}, unset by default) for every store. A close time before
+ * {@code team62.reports.openTime} (default 06:00) closes the previous day. A report that
+ * already has a result for the same store and date is skipped.
+ *
+ * Each result records the date's version ({@code ReportRepository.version}) it was built
+ * under. {@link #get} returns it while that version is still current and the result is
+ * younger than {@code team62.reports.maxAgeSeconds} (default 1800), waiting for it if it
+ * is still being built; otherwise the caller's report is built as before. So a sale, Z
+ * close or stock change made by another process is never hidden, and one made through
+ * this process drops the store's results at once ({@link #invalidate}).
+ * {@code -Dteam62.reports.precompute=false} turns all of it off.
+ */
+final class EndOfDayReports {
+
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("team62.reports.precompute"));
+
+    private static final Logger LOG = Logger.getLogger("com.team62.reports");
+    private static final int THREADS = Math.max(1, Integer.getInteger("team62.reports.threads", 3));
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("team62.reports.maxAgeSeconds", 1800L));
+    private static final String CLOSE_TIME = System.getProperty("team62.reports.closeTime", "").trim();
+    private static final LocalTime OPEN_TIME = LocalTime.parse(System.getProperty("team62.reports.openTime", "06:00").trim());
+
+    /**
+     * Builds one report for a date, or throws if it cannot read the data.
+     */
+    interface Report {
+        String build(LocalDate date) throws SQLException;
+    }
+
+    private record Key(String store, String report, LocalDate date) {
+    }
+
+    private record Built(String version, String text) {
+    }
+
+    private record Result(long madeAt, CompletableFuture<Built> built) {
+        boolean fresh() {
+            return System.nanoTime() - madeAt < MAX_AGE_NANOS;
+        }
+    }
+
+    private final Map<String, Report> reports;
+    private final Report version;
+    private final Map<Key, Result> results = new ConcurrentHashMap<>();
+    private final ExecutorService pool;
+
+    /**
+     * @param reports how to build each report for a date, by name
+     * @param version the current store's version of a date's data
+     */
+    EndOfDayReports(Map<String, Report> reports, Report version) {
+        this.reports = new LinkedHashMap<>(reports);
+        this.version = version;
+        AtomicInteger threads = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "report-precompute-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return the precomputed {@code report} for the current store and {@code date} if it
+     *         is still current, else the report built now
+     */
+    String get(String report, LocalDate date) throws SQLException {
+        Report build = reports.get(report);
+        if (!ENABLED) {
+            return build.build(date);
+        }
+        Key key = new Key(Stores.current(), report, date);
+        Result result = results.get(key);
+        if (result == null || !result.fresh()) {
+            return build.build(date);
+        }
+        Built built;
+        try {
+            built = result.built().join();
+        } catch (CompletionException e) {
+            return build.build(date);
+        }
+        if (!built.version().equals(version.build(date))) {
+            results.remove(key, result);
+            return build.build(date);
+        }
+        return built.text();
+    }
+
+    /**
+     * Starts building every report for {@code store} and {@code date} that has no fresh
+     * result yet, and returns without waiting.
+     *
+     * @return how many reports were started
+     */
+    int precompute(String store, LocalDate date) {
+        if (!ENABLED) {
+            return 0;
+        }
+        int started = 0;
+        for (var report : reports.entrySet()) {
+            Key key = new Key(store, report.getKey(), date);
+            Result old = results.get(key);
+            if (old != null && old.fresh()) {
+                continue;
+            }
+            Result made = new Result(System.nanoTime(), new CompletableFuture<>());
+            boolean claimed = old == null ? results.putIfAbsent(key, made) == null : results.replace(key, old, made);
+            if (!claimed) {
+                continue; // another close got there first
+            }
+            started++;
+            pool.execute(() -> build(key, made, report.getValue()));
+        }
+        return started;
+    }
+
+    // The version is read first, so a change made while the report is built only makes it look older.
+    private void build(Key key, Result made, Report report) {
+        Metrics.Scope op = Metrics.begin("precompute." + key.report());
+        try {
+            made.built().complete(Stores.call(key.store(), () -> new Built(version.build(key.date()), report.build(key.date()))));
+        } catch (SQLException | RuntimeException e) {
+            // Built again when it is opened.
+            op.fail();
+            LOG.log(Level.WARNING, "Precomputing the " + key.report() + " report failed for store " + key.store(), e);
+            results.remove(key, made);
+            made.built().completeExceptionally(e);
+        } finally {
+            op.close();
+        }
+    }
+
+    /**
+     * Drops the current store's results; the data they were built from has changed.
+     */
+    void invalidate() {
+        if (!results.isEmpty()) {
+            String store = Stores.current();
+            results.keySet().removeIf(key -> key.store().equals(store));
+        }
+    }
+
+    /**
+     * Precomputes the day's reports for every store at {@code team62.reports.closeTime}
+     * each day, if it is set.
+     */
+    void scheduleClose(Supplier<Collection<String>> stores) {
+        if (!ENABLED || CLOSE_TIME.isEmpty()) {
+            return;
+        }
+        LocalTime at = LocalTime.parse(CLOSE_TIME);
+        ScheduledExecutorService closer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "report-close");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleNext(closer, at, stores);
+    }
+
+    // One run at a time, each scheduling the next, so a day that is 23 or 25 hours long still closes at the same time.
+    private void scheduleNext(ScheduledExecutorService closer, LocalTime at, Supplier<Collection<String>> stores) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        // Closing after midnight, before the store opens again, closes the day before.
+        LocalDate day = at.isBefore(OPEN_TIME) ? next.toLocalDate().minusDays(1) : next.toLocalDate();
+        closer.schedule(() -> {
+            try {
+                for (String store : stores.get()) {
+                    int started = precompute(store, day);
+                    LOG.info("Close time: precomputing " + started + " reports for store " + store + ", " + day);
+                }
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Close-time report precompute failed", e);
+            } finally {
+                scheduleNext(closer, at, stores);
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
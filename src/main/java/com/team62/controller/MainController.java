@@ -1,247 +1,249 @@
 package com.team62.controller;
 
-import com.team62.db.Database;
+import com.team62.db.Stores;
+import com.team62.db.Uuid7;
+import com.team62.metrics.Metrics;
+import com.team62.model.Customer;
 import com.team62.model.Employee;
 import com.team62.model.InventoryItem;
 import com.team62.model.MenuItem;
+import com.team62.model.Modifiers;
+import com.team62.model.Money;
 import com.team62.model.SalesOrder;
+import com.team62.repository.InMemoryRepositories;
+import com.team62.repository.ModifierRepository;
+import com.team62.repository.OrderResult;
+import com.team62.repository.ReportRepository;
+import com.team62.repository.Repositories;
+import com.team62.repository.postgres.PostgresRepositories;
+import com.team62.repository.postgres.RestockForecast;
+import com.team62.repository.postgres.SalesSeries;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.sql.SQLException;
-import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.sql.Connection;          
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Controller class - handles business logic and coordinates between Model and View.
- * This implementation backs the UI with the shared Postgres database.
+ * Data is reached only through {@link Repositories}: the shared Postgres database by
+ * default, or memory with {@code -Dteam62.backend=memory}.
+ *
+ * Every public method runs inside a {@link Metrics} scope, so latency, call/error
+ * counts and SQL round trips are recorded per method (see {@code com.team62.metrics}).
  */
 public class MainController {
 
-    private final List<SalesOrder> salesOrders = new ArrayList<>();
+    private final Repositories repositories;
 
+    // Synchronized: the HTTP API calls processOrder from many threads at once.
+    private final List<SalesOrder> salesOrders = Collections.synchronizedList(new ArrayList<>());
+
+    // Group commit for processOrder, one writer per store; unused when -Dteam62.orders.groupCommit=false
+    // and in memory, where there is no commit to share.
+    private final Map<String, OrderWriter> orderWriters = new ConcurrentHashMap<>();
+
+    // The reports EndOfDayReports builds ahead of time, by name.
+    private static final String X_REPORT = "x";
+    private static final String Z_REPORT = "z";
+    private static final String SALES_REPORT = "sales";
+    private static final String USAGE_REPORT = "usage";
+    private static final String RESTOCK_REPORT = "restock";
+    private static final String PEAK_HOURS_REPORT = "peak-hours";
+
+    private final EndOfDayReports endOfDay;
+
+    /**
+     * Uses the backend named by {@code -Dteam62.backend}.
+     */
     public MainController() {
-        bootstrapPosExtensions();
+        this(configured());
+    }
+
+    public MainController(Repositories repositories) {
+        this.repositories = repositories;
+        Map<String, EndOfDayReports.Report> reports = new LinkedHashMap<>();
+        reports.put(X_REPORT, this::buildXReport);
+        reports.put(Z_REPORT, this::buildZReport);
+        reports.put(SALES_REPORT, date -> buildSalesReport(date, date));
+        reports.put(USAGE_REPORT, date -> buildInventoryUsageChart(date, date));
+        reports.put(RESTOCK_REPORT, date -> buildRestockReport());
+        reports.put(PEAK_HOURS_REPORT, date -> buildSalesHistoryChart(date, date, "hour"));
+        this.endOfDay = new EndOfDayReports(reports, date -> repositories.reports().version(date));
+        endOfDay.scheduleClose(repositories::stores);
+    }
+
+    private static Repositories configured() {
+        String backend = Repositories.configured();
+        return switch (backend) {
+            case Repositories.POSTGRES -> PostgresRepositories.create();
+            case Repositories.MEMORY -> InMemoryRepositories.create();
+            default -> throw new IllegalArgumentException("Unknown team62.backend: " + backend);
+        };
     }
 
-    private void bootstrapPosExtensions() {
-        String[] ddl = new String[] {
-                """
-                CREATE TABLE IF NOT EXISTS pos_inventory_meta (
-                    inventory_id UUID PRIMARY KEY REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
-                    display_name TEXT NOT NULL,
-                    unit TEXT NOT NULL DEFAULT '',
-                    min_quantity INTEGER NOT NULL DEFAULT 0 CHECK (min_quantity >= 0)
-                )
-                """,
-                """
-                CREATE TABLE IF NOT EXISTS pos_menu_inventory (
-                    menu_item_id UUID NOT NULL REFERENCES \"Item\"(item_id) ON DELETE CASCADE,
-                    inventory_id UUID NOT NULL REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
-                    quantity_used INTEGER NOT NULL DEFAULT 1 CHECK (quantity_used > 0),
-                    PRIMARY KEY (menu_item_id, inventory_id)
-                )
-                """,
-                """
-                CREATE TABLE IF NOT EXISTS pos_sales_activity (
-                    activity_id UUID PRIMARY KEY,
-                    business_date DATE NOT NULL,
-                    event_time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
-                    activity_type TEXT NOT NULL,
-                    order_id UUID,
-                    amount NUMERIC(12,2) NOT NULL DEFAULT 0,
-                    tax_amount NUMERIC(12,2) NOT NULL DEFAULT 0,
-                    payment_method TEXT NOT NULL DEFAULT 'Cash',
-                    item_count INTEGER NOT NULL DEFAULT 0
-                )
-                """,
-                """
-                CREATE TABLE IF NOT EXISTS pos_inventory_usage (
-                    usage_id UUID PRIMARY KEY,
-                    usage_time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
-                    business_date DATE NOT NULL,
-                    order_id UUID,
-                    menu_item_id UUID,
-                    inventory_id UUID NOT NULL REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
-                    quantity_used INTEGER NOT NULL CHECK (quantity_used > 0)
-                )
-                """,
-                """
-                CREATE TABLE IF NOT EXISTS pos_z_report (
-                    report_date DATE PRIMARY KEY,
-                    generated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
-                    report_text TEXT NOT NULL
-                )
-                """
-        };
+    /**
+     * @return {@link Repositories#POSTGRES} or {@link Repositories#MEMORY}
+     */
+    public String getBackend() {
+        return repositories.backend();
+    }
 
-        try (var conn = Database.getConnection()) {
-            for (String sql : ddl) {
-                try (var ps = conn.prepareStatement(sql)) {
-                    ps.executeUpdate();
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * @return the store codes the backend serves
+     */
+    public Set<String> getStores() {
+        return repositories.stores();
     }
 
     // ============================
     // Menu items
     // ============================
 
+    /**
+     * Active items, each with how many the stock on hand can still make. An item is
+     * out of stock when it can make none, or any ingredient is at or below its minimum.
+     */
     public List<MenuItem> getAllMenuItems() {
-        List<MenuItem> items = new ArrayList<>();
-        String sql = """
-            SELECT i.item_id, i.name, i.category, i.price, i.is_active,
-                CASE WHEN iq.quantity <= COALESCE(meta.min_quantity, 0) THEN TRUE ELSE FALSE END AS out_of_stock
-            FROM "Item" i
-        LEFT JOIN "Item_Inventory" ii ON ii.item_id = i.item_id
-        LEFT JOIN "Inventory_Quantity" iq ON iq.inventory_id = ii.inventory_id
-        LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = ii.inventory_id
-            WHERE i.is_active = TRUE
-            ORDER BY i.name
-            """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql);
-                var rs = ps.executeQuery()) {
-
-            int uiId = 1;
-            while (rs.next()) {
-                MenuItem mi = new MenuItem(
-                        uiId++,
-                        rs.getString("name"),
-                        rs.getString("category"),
-                        rs.getBigDecimal("price"),
-                        rs.getBoolean("is_active"));
-                Object dbId = rs.getObject("item_id");
-                mi.setDbId(dbId != null ? dbId.toString() : null);
-                mi.setOutOfStock(rs.getBoolean("out_of_stock"));
-                items.add(mi);
+        return Metrics.time("getAllMenuItems", () -> {
+            List<MenuItem> items = new ArrayList<>();
+            try {
+                items = repositories.menu().findActive();
+                repositories.recipes().applyStock(items);
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return items;
+            return items;
+        });
+    }
+
+    /**
+     * @return how many of {@code item} the stock on hand (including sales not yet folded
+     *         in) can still make, or -1 if no tracked ingredient limits it or it is unknown
+     */
+    public int getMakeableCount(MenuItem item) {
+        return Metrics.time("getMakeableCount", () -> {
+            if (item == null || item.getDbId() == null || !isUuid(item.getDbId())) {
+                return -1;
+            }
+            try {
+                return repositories.recipes().makeable(item.getDbId());
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return -1;
+            }
+        });
+    }
+
+    /**
+     * @return the modifiers (milk, ice, sugar, toppings) with every item's compiled
+     *         prices; empty if they cannot be read, and always empty in memory
+     */
+    public Modifiers.Table getModifiers() {
+        return Metrics.time("getModifiers", () -> {
+            try {
+                return repositories.modifiers().table();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return Modifiers.EMPTY;
+            }
+        });
+    }
+
+    /**
+     * @return units sold per item id over the last {@code team62.search.popularityDays}
+     *         days (default 7, today included), from the sales series; the register's menu
+     *         search ranks by it
+     */
+    public Map<String, Integer> getRecentUnitsSold() {
+        return Metrics.time("getRecentUnitsSold", () -> {
+            try {
+                return repositories.reports().recentUnitsSold(Integer.getInteger("team62.search.popularityDays", 7));
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return new HashMap<>();
+            }
+        });
     }
 
     public void addMenuItem(MenuItem item) {
-        String sql = """
-                INSERT INTO "Item" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-
-            UUID id = UUID.randomUUID();
-            item.setDbId(id.toString());
-
-            ps.setObject(1, id);
-            ps.setString(2, item.getName());
-            ps.setString(3, item.getCategory());
-            ps.setBigDecimal(4, item.getBasePrice());
-            ps.setBoolean(5, item.isActive());
-            ps.setString(6, "whole");
-            ps.setInt(7, 1);
-            ps.setFloat(8, 1.0f);
-            ps.setArray(9, conn.createArrayOf("text", new Object[] {}));
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        Metrics.run("addMenuItem", () -> {
+            try {
+                repositories.menu().add(item);
+                endOfDay.invalidate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
     }
 
     public String addSeasonalMenuItem(String name, String category, BigDecimal price,
             String ingredientCsv, int quantityUsedPerSale, int startingInventory, int minInventory) {
-        if (name == null || name.isBlank()) {
-            return "Seasonal item name is required.";
-        }
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-
-            UUID menuItemId = UUID.randomUUID();
-            try (var ps = conn.prepareStatement("""
-                    INSERT INTO "Item" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)
-                    VALUES (?, ?, ?, ?, TRUE, 'whole', 1, 1.0, '{}'::text[])
-                    """)) {
-                ps.setObject(1, menuItemId);
-                ps.setString(2, name.trim());
-                ps.setString(3, category == null || category.isBlank() ? "Seasonal" : category.trim());
-                ps.setBigDecimal(4, price);
-                ps.executeUpdate();
+        return Metrics.time("addSeasonalMenuItem", () -> {
+            if (name == null || name.isBlank()) {
+                return "Seasonal item name is required.";
             }
-
+            MenuItem item = new MenuItem(0, name.trim(),
+                    category == null || category.isBlank() ? "Seasonal" : category.trim(), price, true);
+            List<String> ingredients = new ArrayList<>();
             String[] parts = ingredientCsv == null ? new String[0] : ingredientCsv.split(",");
             for (String raw : parts) {
-                String ingredientName = raw.trim();
-                if (ingredientName.isEmpty()) {
-                    continue;
-                }
-                UUID inventoryId = findOrCreateInventory(conn, ingredientName, "units", startingInventory, minInventory);
-                try (var ps = conn.prepareStatement("""
-                        INSERT INTO pos_menu_inventory (menu_item_id, inventory_id, quantity_used)
-                        VALUES (?, ?, ?)
-                        ON CONFLICT (menu_item_id, inventory_id)
-                        DO UPDATE SET quantity_used = EXCLUDED.quantity_used
-                        """)) {
-                    ps.setObject(1, menuItemId);
-                    ps.setObject(2, inventoryId);
-                    ps.setInt(3, quantityUsedPerSale);
-                    ps.executeUpdate();
+                if (!raw.isBlank()) {
+                    ingredients.add(raw.trim());
                 }
             }
-            conn.commit();
-            return "Seasonal item added successfully.";
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Failed to add seasonal item: " + e.getMessage();
-        }
+            try {
+                repositories.menu().addWithIngredients(item, ingredients, quantityUsedPerSale, startingInventory,
+                        minInventory);
+                endOfDay.invalidate();
+                return "Seasonal item added successfully.";
+            } catch (Exception e) {
+                e.printStackTrace();
+                return "Failed to add seasonal item: " + e.getMessage();
+            }
+        });
     }
 
     public void updateMenuItem(MenuItem item) {
-        if (item.getDbId() == null) {
-            return;
-        }
-        String sql = """
-                UPDATE "Item"
-                   SET name = ?, category = ?, price = ?, is_active = ?
-                 WHERE item_id = ?
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setString(1, item.getName());
-            ps.setString(2, item.getCategory());
-            ps.setBigDecimal(3, item.getBasePrice());
-            ps.setBoolean(4, item.isActive());
-            ps.setObject(5, UUID.fromString(item.getDbId()));
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        Metrics.run("updateMenuItem", () -> {
+            if (item.getDbId() == null) {
+                return;
+            }
+            try {
+                repositories.menu().update(item);
+                endOfDay.invalidate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
     }
 
     public String deleteMenuItem(MenuItem item) {
-        if (item.getDbId() == null) {
-            return "No database id.";
-        }
-        String sql = "DELETE FROM \"Item\" WHERE item_id = ?";
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, UUID.fromString(item.getDbId()));
-            ps.executeUpdate();
-            return null;
-        } catch (SQLException e) {
-            if (e.getMessage() != null && e.getMessage().contains("fk_order_item_item")) {
-                return "Cannot delete: this item appears in existing orders.";
+        return Metrics.time("deleteMenuItem", () -> {
+            if (item.getDbId() == null) {
+                return "No database id.";
             }
-            e.printStackTrace();
-            return e.getMessage() != null ? e.getMessage() : "Delete failed.";
-        }
+            try {
+                if (!repositories.menu().delete(item.getDbId())) {
+                    return "Cannot delete: this item appears in existing orders.";
+                }
+                endOfDay.invalidate();
+                return null;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return e.getMessage() != null ? e.getMessage() : "Delete failed.";
+            }
+        });
     }
 
     // ============================
@@ -249,375 +251,204 @@ public class MainController {
     // ============================
 
     public List<InventoryItem> getAllInventoryItems() {
-        List<InventoryItem> items = new ArrayList<>(); // changed unit to i.category
-        String sql = """
-            SELECT DISTINCT ON (iq.inventory_id)
-                iq.inventory_id,
-                COALESCE(meta.display_name, i.name, 'Inventory Item') AS name,
-                COALESCE(meta.unit, i.category, '') AS unit,
-                iq.quantity,
-                COALESCE(meta.min_quantity, 0) AS min_quantity,
-                COALESCE(meta.is_on_menu, FALSE) AS is_on_menu,
-                COALESCE(meta.base_price, 0) AS base_price
-            FROM "Inventory_Quantity" iq
-        LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
-        LEFT JOIN "Item_Inventory" ii ON ii.inventory_id = iq.inventory_id
-        LEFT JOIN "Item" i ON i.item_id = ii.item_id
-            ORDER BY iq.inventory_id, name
-            """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql);
-                var rs = ps.executeQuery()) {
-            int uiId = 1;
-            while (rs.next()) {
-                InventoryItem inv = new InventoryItem(
-                        uiId++,
-                        rs.getString("name"),
-                        rs.getString("unit"),
-                        rs.getInt("quantity"),
-                        rs.getInt("min_quantity"),
-                        rs.getInt("min_quantity"),
-                        true);
-                Object dbId = rs.getObject("inventory_id");
-                inv.setDbId(dbId != null ? dbId.toString() : null);
-                items.add(inv);
-                inv.setOnMenu(rs.getBoolean("is_on_menu"));
-                inv.setBasePrice(rs.getBigDecimal("base_price"));
+        return Metrics.time("getAllInventoryItems", () -> {
+            try {
+                return repositories.inventory().findAll();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return new ArrayList<>();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return items;
+        });
     }
 
     public void addInventoryItem(InventoryItem item) {
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-            UUID inventoryId = UUID.randomUUID();
-            try (var ps = conn.prepareStatement("""
-                    INSERT INTO "Inventory_Quantity" (inventory_id, quantity, last_restocked, last_quantity)
-                    VALUES (?, ?, CURRENT_DATE, CURRENT_DATE)
-                    """)) {
-                ps.setObject(1, inventoryId);
-                ps.setInt(2, item.getCurrentQuantity());
-                ps.executeUpdate();
-            }
-            try (var ps = conn.prepareStatement("""
-                    INSERT INTO pos_inventory_meta (inventory_id, display_name, unit, min_quantity)
-                    VALUES (?, ?, ?, ?)
-                    """)) {
-                ps.setObject(1, inventoryId);
-                ps.setString(2, item.getName());
-                ps.setString(3, item.getUnit() == null ? "" : item.getUnit());
-                ps.setInt(4, item.getParLevel());
-                ps.executeUpdate();
+        Metrics.run("addInventoryItem", () -> {
+            try {
+                repositories.inventory().add(item);
+                endOfDay.invalidate();
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-            conn.commit();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     public void updateInventoryItem(InventoryItem item) {
-        if (item.getDbId() == null) {
-            return;
-        }
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-            try (var ps = conn.prepareStatement("""
-                    UPDATE "Inventory_Quantity"
-                       SET quantity = ?, last_quantity = CURRENT_DATE
-                     WHERE inventory_id = ?
-                    """)) {
-                ps.setInt(1, item.getCurrentQuantity());
-                ps.setObject(2, UUID.fromString(item.getDbId()));
-                ps.executeUpdate();
+        Metrics.run("updateInventoryItem", () -> {
+            if (item.getDbId() == null) {
+                return;
             }
-            try (var ps = conn.prepareStatement("""
-                    INSERT INTO pos_inventory_meta (inventory_id, display_name, unit, min_quantity)
-                    VALUES (?, ?, ?, ?)
-                    ON CONFLICT (inventory_id)
-                    DO UPDATE SET display_name = EXCLUDED.display_name,
-                                  unit = EXCLUDED.unit,
-                                  min_quantity = EXCLUDED.min_quantity
-                    """)) {
-                ps.setObject(1, UUID.fromString(item.getDbId()));
-                ps.setString(2, item.getName());
-                ps.setString(3, item.getUnit() == null ? "" : item.getUnit());
-                ps.setInt(4, item.getParLevel());
-                ps.executeUpdate();
+            try {
+                repositories.inventory().update(item);
+                endOfDay.invalidate();
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-            conn.commit();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     public String deleteInventoryItem(InventoryItem item) {
-        if (item.getDbId() == null) {
-            return "No database id.";
-        }
-        String sql = "DELETE FROM \"Inventory_Quantity\" WHERE inventory_id = ?";
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, UUID.fromString(item.getDbId()));
-            ps.executeUpdate();
-            return null;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return e.getMessage() != null ? e.getMessage() : "Delete failed.";
-        }
+        return Metrics.time("deleteInventoryItem", () -> {
+            if (item.getDbId() == null) {
+                return "No database id.";
+            }
+            try {
+                repositories.inventory().delete(item.getDbId());
+                endOfDay.invalidate();
+                return null;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return e.getMessage() != null ? e.getMessage() : "Delete failed.";
+            }
+        });
     }
 
     public String addToMenu(InventoryItem item, BigDecimal price) {
-        if (item.getDbId() == null) return "No database id.";
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-
-            // Check if an Item already exists for this inventory entry
-            UUID existingMenuItemId = null;
-            try (var ps = conn.prepareStatement("""
-                    SELECT item_id FROM "Item_Inventory" WHERE inventory_id = ? LIMIT 1
-                    """)) {
-                ps.setObject(1, UUID.fromString(item.getDbId()));
-                try (var rs = ps.executeQuery()) {
-                    if (rs.next()) existingMenuItemId = (UUID) rs.getObject("item_id");
-                }
+        return Metrics.time("addToMenu", () -> {
+            if (item.getDbId() == null) return "No database id.";
+            try {
+                repositories.menu().addFromInventory(item.getDbId(), item.getName(), item.getUnit(), price);
+                endOfDay.invalidate();
+                return "success";
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return "Failed to add to menu: " + e.getMessage();
             }
+        });
+    }
 
-            if (existingMenuItemId != null) {
-                // Reactivate and update price
-                try (var ps = conn.prepareStatement("""
-                        UPDATE "Item" SET is_active = TRUE, price = ? WHERE item_id = ?
-                        """)) {
-                    ps.setBigDecimal(1, price);
-                    ps.setObject(2, existingMenuItemId);
-                    ps.executeUpdate();
-                }
-            } else {
-                // Create new Item record
-                UUID menuItemId = UUID.randomUUID();
-                try (var ps = conn.prepareStatement("""
-                        INSERT INTO "Item" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)
-                        VALUES (?, ?, ?, ?, TRUE, 'whole', 1, 1.0, '{}'::text[])
-                        """)) {
-                    ps.setObject(1, menuItemId);
-                    ps.setString(2, item.getName());
-                    ps.setString(3, item.getUnit());
-                    ps.setBigDecimal(4, price);
-                    ps.executeUpdate();
-                }
-                try (var ps = conn.prepareStatement("""
-                        INSERT INTO "Item_Inventory" (id, inventory_id, item_id)
-                        VALUES (?, ?, ?)
-                        ON CONFLICT DO NOTHING
-                        """)) {
-                    ps.setObject(1, UUID.randomUUID());
-                    ps.setObject(2, UUID.fromString(item.getDbId()));
-                    ps.setObject(3, menuItemId);
-                    ps.executeUpdate();
-                }
-                try (var ps = conn.prepareStatement("""
-                        INSERT INTO pos_menu_inventory (menu_item_id, inventory_id, quantity_used)
-                        VALUES (?, ?, 1)
-                        ON CONFLICT DO NOTHING
-                        """)) {
-                    ps.setObject(1, menuItemId);
-                    ps.setObject(2, UUID.fromString(item.getDbId()));
-                    ps.executeUpdate();
-                }
+    public String removeFromMenu(InventoryItem item) {
+        return Metrics.time("removeFromMenu", () -> {
+            if (item.getDbId() == null) return "No database id.";
+            try {
+                repositories.menu().removeFromInventory(item.getDbId());
+                endOfDay.invalidate();
+                return "success";
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return "Failed to remove from menu: " + e.getMessage();
             }
+        });
+    }
 
-            // Flip is_on_menu and base_price
-            try (var ps = conn.prepareStatement("""
-                    UPDATE pos_inventory_meta
-                    SET is_on_menu = TRUE, base_price = ?
-                    WHERE inventory_id = ?
-                    """)) {
-                ps.setBigDecimal(1, price);
-                ps.setObject(2, UUID.fromString(item.getDbId()));
-                ps.executeUpdate();
-            }
+    // ============================
+    // Employees
+    // ============================
 
-            conn.commit();
-            return "success";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "Failed to add to menu: " + e.getMessage();
-        }
+    public List<Employee> getAllEmployees() {
+        return Metrics.time("getAllEmployees", () -> {
+            try {
+                return repositories.employees().findAll();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        });
     }
 
-    public String removeFromMenu(InventoryItem item) {
-        if (item.getDbId() == null) return "No database id.";
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-
-            UUID menuItemId = null;
-            try (var ps = conn.prepareStatement("""
-                    SELECT item_id FROM "Item_Inventory" WHERE inventory_id = ? LIMIT 1
-                    """)) {
-                ps.setObject(1, UUID.fromString(item.getDbId()));
-                try (var rs = ps.executeQuery()) {
-                    if (rs.next()) menuItemId = (UUID) rs.getObject("item_id");
-                }
+    public void addEmployee(Employee employee) {
+        Metrics.run("addEmployee", () -> {
+            try {
+                repositories.employees().add(employee);
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
+        });
+    }
 
-            if (menuItemId != null) {
-                try (var ps = conn.prepareStatement("""
-                        UPDATE "Item" SET is_active = FALSE WHERE item_id = ?
-                        """)) {
-                    ps.setObject(1, menuItemId);
-                    ps.executeUpdate();
-                }
+    public void updateEmployee(Employee employee) {
+        Metrics.run("updateEmployee", () -> {
+            if (employee.getDbId() == null) {
+                return;
             }
-
-            try (var ps = conn.prepareStatement("""
-                    UPDATE pos_inventory_meta SET is_on_menu = FALSE WHERE inventory_id = ?
-                    """)) {
-                ps.setObject(1, UUID.fromString(item.getDbId()));
-                ps.executeUpdate();
+            try {
+                repositories.employees().update(employee);
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-
-            conn.commit();
-            return "success";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "Failed to remove from menu: " + e.getMessage();
-        }
+        });
     }
 
-    private UUID findOrCreateInventory(java.sql.Connection conn, String name, String unit, int quantity, int minQty)
-            throws SQLException {
-        try (var ps = conn.prepareStatement("""
-                SELECT inventory_id
-                  FROM pos_inventory_meta
-                 WHERE LOWER(display_name) = LOWER(?)
-                 LIMIT 1
-                """)) {
-            ps.setString(1, name);
-            try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return (UUID) rs.getObject("inventory_id");
-                }
+    public String deleteEmployee(Employee employee) {
+        return Metrics.time("deleteEmployee", () -> {
+            if (employee.getDbId() == null) {
+                return "No database id.";
             }
-        }
-        UUID inventoryId = UUID.randomUUID();
-        try (var ps = conn.prepareStatement("""
-                INSERT INTO "Inventory_Quantity" (inventory_id, quantity, last_restocked, last_quantity)
-                VALUES (?, ?, CURRENT_DATE, CURRENT_DATE)
-                """)) {
-            ps.setObject(1, inventoryId);
-            ps.setInt(2, quantity);
-            ps.executeUpdate();
-        }
-        try (var ps = conn.prepareStatement("""
-                INSERT INTO pos_inventory_meta (inventory_id, display_name, unit, min_quantity)
-                VALUES (?, ?, ?, ?)
-                """)) {
-            ps.setObject(1, inventoryId);
-            ps.setString(2, name);
-            ps.setString(3, unit == null ? "" : unit);
-            ps.setInt(4, minQty);
-            ps.executeUpdate();
-        }
-        return inventoryId;
+            try {
+                return repositories.employees().delete(employee.getDbId())
+                        ? null
+                        : "Cannot delete: this employee appears in existing orders.";
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return e.getMessage() != null ? e.getMessage() : "Delete failed.";
+            }
+        });
     }
 
     // ============================
-    // Employees
+    // Customers / loyalty
     // ============================
 
-    public List<Employee> getAllEmployees() {
-        List<Employee> list = new ArrayList<>();
-        String sql = """
-                SELECT employee_id,
-                       name,
-                       work_history->>'role' AS role,
-                       COALESCE((work_history->>'active')::boolean, TRUE) AS active
-                  FROM "Employee"
-                 ORDER BY name
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql);
-                var rs = ps.executeQuery()) {
-            int uiId = 1;
-            while (rs.next()) {
-                Employee emp = new Employee(
-                        uiId++,
-                        rs.getString("name"),
-                        rs.getString("role"),
-                        rs.getBoolean("active"));
-                Object dbId = rs.getObject("employee_id");
-                emp.setDbId(dbId != null ? dbId.toString() : null);
-                list.add(emp);
+    /**
+     * Looks a customer up at checkout by email (anything containing '@') or phone number.
+     *
+     * @return the customer with their current points, or null if there is none
+     */
+    public Customer findCustomer(String phoneOrEmail) {
+        return Metrics.time("findCustomer", () -> {
+            if (phoneOrEmail == null || phoneOrEmail.isBlank()) {
+                return null;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return list;
+            try {
+                return repositories.customers().find(phoneOrEmail.trim());
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
     }
 
-    public void addEmployee(Employee employee) {
-        String sql = """
-                INSERT INTO "Employee" (employee_id, name, start_date, work_history)
-                VALUES (?, ?, CURRENT_DATE, ?::jsonb)
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            UUID id = UUID.randomUUID();
-            employee.setDbId(id.toString());
-            ps.setObject(1, id);
-            ps.setString(2, employee.getName());
-            String json = String.format("{\"role\":\"%s\",\"active\":%s}",
-                    employee.getRole() == null ? "" : employee.getRole(),
-                    employee.isActive());
-            ps.setString(3, json);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Enrolls a new loyalty customer with a zero balance.
+     *
+     * @return null on success, otherwise an error message
+     */
+    public String addCustomer(Customer customer) {
+        return Metrics.time("addCustomer", () -> {
+            if (customer.getName() == null || customer.getName().isBlank()) {
+                return "Name is required.";
+            }
+            customer.setName(customer.getName().trim());
+            customer.setPhoneNumber(blankToNull(customer.getPhoneNumber()));
+            customer.setEmail(blankToNull(customer.getEmail()));
+            try {
+                repositories.customers().add(customer);
+                return null;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return e.getMessage() != null ? e.getMessage() : "Could not add customer.";
+            }
+        });
     }
 
-    public void updateEmployee(Employee employee) {
-        if (employee.getDbId() == null) {
-            return;
-        }
-        String sql = """
-                UPDATE "Employee"
-                   SET name = ?, work_history = ?::jsonb
-                 WHERE employee_id = ?
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setString(1, employee.getName());
-            String json = String.format("{\"role\":\"%s\",\"active\":%s}",
-                    employee.getRole() == null ? "" : employee.getRole(),
-                    employee.isActive());
-            ps.setString(2, json);
-            ps.setObject(3, UUID.fromString(employee.getDbId()));
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * @return the customer's latest {@code limit} orders, newest first (order id is a row number)
+     */
+    public List<SalesOrder> getRecentPurchases(String customerDbId, int limit) {
+        return Metrics.time("getRecentPurchases", () -> {
+            if (customerDbId == null) {
+                return new ArrayList<>();
+            }
+            try {
+                return repositories.customers().recentOrders(customerDbId, Math.max(1, limit));
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        });
     }
 
-    public String deleteEmployee(Employee employee) {
-        if (employee.getDbId() == null) {
-            return "No database id.";
-        }
-        String sql = "DELETE FROM \"Employee\" WHERE employee_id = ?";
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, UUID.fromString(employee.getDbId()));
-            ps.executeUpdate();
-            return null;
-        } catch (SQLException e) {
-            if (e.getMessage() != null && e.getMessage().contains("fk_order_employee")) {
-                return "Cannot delete: this employee appears in existing orders.";
-            }
-            e.printStackTrace();
-            return e.getMessage() != null ? e.getMessage() : "Delete failed.";
-        }
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 
     // ============================
@@ -625,45 +456,25 @@ public class MainController {
     // ============================
 
     public BigDecimal getTotalSalesForDate(LocalDate date) {
-        String sql = """
-                SELECT COALESCE(SUM(oi.quantity * oi.unit_price), 0) AS total
-                  FROM "Order" o
-                  JOIN "Order_Item" oi ON oi.order_id = o.order_id
-                 WHERE o.date::date = ?
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, date);
-            try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    BigDecimal total = rs.getBigDecimal("total");
-                    return total != null ? total : BigDecimal.ZERO;
-                }
+        return Metrics.time("getTotalSalesForDate", () -> {
+            try {
+                return Money.toBigDecimal(repositories.reports().salesForDate(date));
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return BigDecimal.ZERO;
+            return BigDecimal.ZERO;
+        });
     }
 
     public long getOrderCountForDate(LocalDate date) {
-        String sql = """
-                SELECT COUNT(*) AS cnt
-                  FROM "Order"
-                 WHERE date::date = ?
-                """;
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, date);
-            try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("cnt");
-                }
+        return Metrics.time("getOrderCountForDate", () -> {
+            try {
+                return repositories.reports().orderCountForDate(date);
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0L;
+            return 0L;
+        });
     }
 
     /**
@@ -672,47 +483,43 @@ public class MainController {
     * Each bar is scaled proportionally to the item with the highest usage in this period, with the numeric value shown at the left of the bar.
     * If no usage is logged in this period, returns a message indicating so.
     */
-    
+
     // INVENTORY USAGE CHART
     public String getInventoryUsageChart(LocalDate start, LocalDate end) {
-        String sql = """
-                SELECT COALESCE(meta.display_name, 'Inventory Item') AS item_name,
-                       SUM(u.quantity_used) AS used_total
-                  FROM pos_inventory_usage u
-             LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = u.inventory_id
-                 WHERE u.business_date BETWEEN ? AND ?
-              GROUP BY item_name
-              ORDER BY used_total DESC, item_name
-                """;
+        return Metrics.time("getInventoryUsageChart", () -> {
+            return report("Failed to build usage chart: ", () -> start.equals(end) ? endOfDay.get(USAGE_REPORT, start)
+                    : buildInventoryUsageChart(start, end));
+        });
+    }
+
+    private String buildInventoryUsageChart(LocalDate start, LocalDate end) throws SQLException {
         StringBuilder sb = new StringBuilder();
         sb.append("PRODUCT USAGE CHART\n")
                 .append(start).append(" to ").append(end).append("\n\n")
                 // Keep the numeric value, but embed it into the bar column to avoid a redundant "Used" column.
                 // Layout: Inventory Item | Bar (with number shown at the left of the bar)
                 .append(String.format("%-24s  %s\n", "Inventory Item", "Bar"));
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, start);
-            ps.setObject(2, end);
-            try (var rs = ps.executeQuery()) {
-                boolean any = false;
-                while (rs.next()) {
-                    any = true;
-                    int used = rs.getInt("used_total");
-                    sb.append(String.format("%-24s  %6d %s\n",
-                            rs.getString("item_name"),
-                            used,
-                            bar(used)));
-                }
-                if (!any) {
-                    sb.append("No inventory usage logged in this time window.\n");
-                }
-            }
+        var usage = repositories.reports().usage(start, end);
+        for (var row : usage) {
+            sb.append(String.format("%-24s  %6d %s\n",
+                    row.getItemName(),
+                    row.getAmountUsed(),
+                    bar(row.getAmountUsed())));
+        }
+        if (usage.isEmpty()) {
+            sb.append("No inventory usage logged in this time window.\n");
+        }
+        return sb.toString();
+    }
+
+    // A report that cannot read its data shows why instead.
+    private static String report(String failure, Stores.Work<String, SQLException> build) {
+        try {
+            return build.get();
         } catch (SQLException e) {
             e.printStackTrace();
-            sb.append("Failed to build usage chart: ").append(e.getMessage());
+            return failure + e.getMessage();
         }
-        return sb.toString();
     }
 
     /**
@@ -723,140 +530,84 @@ public class MainController {
      * @return list of InventoryUsage rows ordered by quantity used (desc), then name.
      */
     public java.util.List<com.team62.model.InventoryUsage> getInventoryUsageData(LocalDate start, LocalDate end) {
-        String sql = """
-                SELECT COALESCE(meta.display_name, 'Inventory Item') AS item_name,
-                       SUM(u.quantity_used) AS used_total
-                  FROM pos_inventory_usage u
-             LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = u.inventory_id
-                 WHERE u.business_date BETWEEN ? AND ?
-              GROUP BY item_name
-              ORDER BY used_total DESC, item_name
-                """;
-
-        var out = new java.util.ArrayList<com.team62.model.InventoryUsage>();
-
-        if (start == null || end == null) {
-            return out;
-        }
-
-        try (var conn = Database.getConnection();
-             var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, start);
-            ps.setObject(2, end);
-            try (var rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    out.add(new com.team62.model.InventoryUsage(
-                            rs.getString("item_name"),
-                            rs.getInt("used_total")
-                    ));
-                }
+        return Metrics.time("getInventoryUsageData", () -> {
+            if (start == null || end == null) {
+                return new java.util.ArrayList<>();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
 
-        return out;
+            try {
+                return repositories.reports().usage(start, end);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return new java.util.ArrayList<>();
+            }
+        });
     }
 
 
     // X REPORT
+    /**
+     * Sales so far for {@code date}. A past day that has been closed is read from its
+     * day-close snapshot instead of the activity rows.
+     */
     public String getXReport(LocalDate date) {
+        return Metrics.time("getXReport", () -> {
+            return report("Failed to build X-report: ", () -> endOfDay.get(X_REPORT, date));
+        });
+    }
+
+    private String buildXReport(LocalDate date) throws SQLException {
         StringBuilder sb = new StringBuilder();
         sb.append("X REPORT\n")
                 .append("Business date: ").append(date).append("\n\n");
-
-        String hourlySql = """
-                SELECT EXTRACT(HOUR FROM event_time) AS hr,
-                       COUNT(*) AS sales_count,
-                       COALESCE(SUM(amount), 0) AS sales_total,
-                       COALESCE(SUM(tax_amount), 0) AS tax_total
-                  FROM pos_sales_activity
-                 WHERE business_date = ? AND activity_type = 'SALE'
-              GROUP BY hr
-              ORDER BY hr
-                """;
-        String totalsSql = """
-                SELECT COUNT(*) AS sales_count,
-                       COALESCE(SUM(amount), 0) AS sales_total,
-                       COALESCE(SUM(tax_amount), 0) AS tax_total,
-                       COALESCE(SUM(CASE WHEN LOWER(payment_method) = 'cash' THEN amount ELSE 0 END), 0) AS cash_total,
-                       COALESCE(SUM(CASE WHEN LOWER(payment_method) <> 'cash' THEN amount ELSE 0 END), 0) AS non_cash_total,
-                       COALESCE(SUM(item_count), 0) AS item_count
-                  FROM pos_sales_activity
-                 WHERE business_date = ? AND activity_type = 'SALE'
-                """;
-
+        ReportRepository reports = repositories.reports();
+        ReportRepository.ClosedDay closed = date.isBefore(LocalDate.now()) ? reports.closedDay(date) : null;
+        ReportRepository.DayTotals totals = closed != null ? closed.totals() : reports.liveTotals(date);
         sb.append(String.format("%-6s %-8s %-12s %-10s\n", "Hour", "Sales", "Revenue", "Tax"));
-        try (var conn = Database.getConnection()) {
-            try (var ps = conn.prepareStatement(hourlySql)) {
-                ps.setObject(1, date);
-                try (var rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        sb.append(String.format("%02d:00  %-8d $%-11s $%-9s\n",
-                                rs.getInt("hr"),
-                                rs.getInt("sales_count"),
-                                money(rs.getBigDecimal("sales_total")),
-                                money(rs.getBigDecimal("tax_total"))));
-                    }
-                }
-            }
-            try (var ps = conn.prepareStatement(totalsSql)) {
-                ps.setObject(1, date);
-                try (var rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        sb.append("\nTotals\n");
-                        sb.append("Sales: ").append(rs.getInt("sales_count")).append("\n");
-                        sb.append("Items sold: ").append(rs.getInt("item_count")).append("\n");
-                        sb.append("Revenue: $").append(money(rs.getBigDecimal("sales_total"))).append("\n");
-                        sb.append("Tax: $").append(money(rs.getBigDecimal("tax_total"))).append("\n");
-                        sb.append("Returns: 0\nVoids: 0\nDiscards: 0\n");
-                        sb.append("Cash payments: $").append(money(rs.getBigDecimal("cash_total"))).append("\n");
-                        sb.append("Other payments: $").append(money(rs.getBigDecimal("non_cash_total"))).append("\n");
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            sb.append("Failed to build X-report: ").append(e.getMessage());
+        for (int hr = 0; hr < 24; hr++) {
+            if (totals.hourlyCount()[hr] > 0) {
+                sb.append(String.format("%02d:00  %-8d $%-11s $%-9s\n",
+                        hr,
+                        totals.hourlyCount()[hr],
+                        money(totals.hourlySales()[hr]),
+                        money(totals.hourlyTax()[hr])));
+            }
+        }
+        sb.append("\nTotals\n");
+        sb.append("Sales: ").append(totals.salesCount()).append("\n");
+        sb.append("Items sold: ").append(totals.itemCount()).append("\n");
+        sb.append("Revenue: $").append(money(totals.sales())).append("\n");
+        sb.append("Tax: $").append(money(totals.tax())).append("\n");
+        sb.append("Returns: 0\nVoids: 0\nDiscards: 0\n");
+        sb.append("Cash payments: $").append(money(totals.cash())).append("\n");
+        sb.append("Other payments: $").append(money(totals.nonCash())).append("\n");
+        if (closed != null) {
+            sb.append("\n(Closed ").append(closed.closedAt().toLocalDateTime().withNano(0))
+                    .append("; read from the day-close snapshot.)\n");
         }
         return sb.toString();
     }
 
     public String runZReport(LocalDate date) {
-        String checkSql = "SELECT report_text FROM pos_z_report WHERE report_date = ?";
-        try (var conn = Database.getConnection()) {
-            try (var check = conn.prepareStatement(checkSql)) {
-                check.setObject(1, date);
-                try (var rs = check.executeQuery()) {
-                    if (rs.next()) {
-                        String existing = rs.getString("report_text");
-                        if (existing == null || existing.isBlank()) {
-                            existing = "Z REPORT\nBusiness date: " + date + "\n\n(Existing report text was empty.)\n";
-                        }
-                        return existing + "\n\n(Already generated earlier today — Z can only be run once per business date.)\n";
+        return Metrics.time("runZReport", () -> {
+            try {
+                String existing = repositories.reports().zReport(date);
+                if (existing != null) {
+                    if (existing.isBlank()) {
+                        existing = "Z REPORT\nBusiness date: " + date + "\n\n(Existing report text was empty.)\n";
                     }
+                    return existing + "\n\n(Already generated earlier today — Z can only be run once per business date.)\n";
                 }
+                String reportText = repositories.reports().closeDay(date, totals -> buildZReportText(date, totals));
+                endOfDay.invalidate();
+                endOfDay.precompute(Stores.current(), date);
+                return reportText + "\nX/Z counters for this business date were reset to zero after close"
+                        + " (the day's activity is kept in its day-close snapshot).\n";
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return "Failed to run Z-report: " + e.getMessage();
             }
-            String reportText = buildZReportText(conn, date);
-            conn.setAutoCommit(false);
-            try (var insert = conn.prepareStatement("""
-                    INSERT INTO pos_z_report (report_date, report_text)
-                    VALUES (?, ?)
-                    """)) {
-                insert.setObject(1, date);
-                insert.setString(2, reportText);
-                insert.executeUpdate();
-            }
-            try (var delete = conn.prepareStatement("DELETE FROM pos_sales_activity WHERE business_date = ?")) {
-                delete.setObject(1, date);
-                delete.executeUpdate();
-            }
-            conn.commit();
-            return reportText + "\nX/Z counters for this business date were reset to zero after close.\n";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "Failed to run Z-report: " + e.getMessage();
-        }
+        });
     }
 
     /**
@@ -864,543 +615,364 @@ public class MainController {
      * Does NOT generate or reset anything.
      */
     public String getZReport(LocalDate date) {
-        String sql = "SELECT report_text FROM pos_z_report WHERE report_date = ?";
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, date);
-            try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    String txt = rs.getString("report_text");
-                    if (txt == null || txt.isBlank()) {
-                        return "Z REPORT\nBusiness date: " + date + "\n\n(Report exists but is empty.)\n";
-                    }
-                    return txt;
-                }
-            }
+        return Metrics.time("getZReport", () -> {
+            return report("Failed to load Z-report: ", () -> endOfDay.get(Z_REPORT, date));
+        });
+    }
+
+    private String buildZReport(LocalDate date) throws SQLException {
+        String txt = repositories.reports().zReport(date);
+        if (txt == null) {
             return "Z REPORT\nBusiness date: " + date + "\n\nNo Z-report has been generated for today yet.\n";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "Failed to load Z-report: " + e.getMessage();
         }
+        if (txt.isBlank()) {
+            return "Z REPORT\nBusiness date: " + date + "\n\n(Report exists but is empty.)\n";
+        }
+        return txt;
     }
 
     /**
      * Testing/mistake recovery helper.
      *
-     * POS Z-report close-out deletes the day's rows from pos_sales_activity, which drives X/Z reporting.
-     * For development/testing, this method deletes the Z-report record for the given date and rebuilds
-     * pos_sales_activity from historical orders for that date.
+     * POS Z-report close-out moves the day's sales activity, which drives X/Z reporting,
+     * into a day-close snapshot. This method deletes the Z-report record for the given date and loads
+     * the snapshot's rows back. Days closed before snapshots existed are rebuilt from historical orders.
      *
-     * NOTE: Payment method is not stored in the shared schema's Order tables, so rebuilt rows default
-     * to "Cash".
+     * NOTE: Payment method is not stored in the shared schema's Order tables, so rows rebuilt from
+     * orders default to "Cash".
      */
     public String resetZReport(LocalDate date) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("RESET Z REPORT (TESTING)\n")
-                .append("Business date: ").append(date).append("\n\n");
-
-        String deleteZ = "DELETE FROM pos_z_report WHERE report_date = ?";
-        String deleteActivity = "DELETE FROM pos_sales_activity WHERE business_date = ?";
-
-        String ordersSql = """
-                SELECT order_id, date, total_price
-                  FROM \"Order\"
-                 WHERE date::date = ?
-                 ORDER BY date
-                """;
-        String orderAggSql = """
-                SELECT COALESCE(SUM(quantity * unit_price), 0) AS subtotal,
-                       COALESCE(SUM(quantity), 0) AS item_count
-                  FROM \"Order_Item\"
-                 WHERE order_id = ?
-                """;
-
-        int rebuilt = 0;
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-
-            try (var ps = conn.prepareStatement(deleteZ)) {
-                ps.setObject(1, date);
-                int deleted = ps.executeUpdate();
-                sb.append(deleted > 0
+        return Metrics.time("resetZReport", () -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("RESET Z REPORT (TESTING)\n")
+                    .append("Business date: ").append(date).append("\n\n");
+            try {
+                ReportRepository.Reopened reopened = repositories.reports().reopenDay(date);
+                endOfDay.invalidate();
+                sb.append(reopened.reportDeleted()
                         ? "Deleted existing Z-report record for the date.\n"
                         : "No Z-report record existed for the date (nothing to delete).\n");
-            }
-
-            try (var ps = conn.prepareStatement(deleteActivity)) {
-                ps.setObject(1, date);
-                ps.executeUpdate();
-            }
-
-            try (var ordersPs = conn.prepareStatement(ordersSql);
-                    var aggPs = conn.prepareStatement(orderAggSql);
-                    var insertPs = conn.prepareStatement("""
-                            INSERT INTO pos_sales_activity
-                            (activity_id, business_date, event_time, activity_type, order_id, amount, tax_amount, payment_method, item_count)
-                            VALUES (?, ?, ?, 'SALE', ?, ?, ?, ?, ?)
-                            """)) {
-
-                ordersPs.setObject(1, date);
-                try (var rs = ordersPs.executeQuery()) {
-                    while (rs.next()) {
-                        Object orderIdObj = rs.getObject("order_id");
-                        if (orderIdObj == null) {
-                            continue;
-                        }
-
-                        java.util.UUID orderId = (java.util.UUID) orderIdObj;
-                        java.sql.Timestamp ts = rs.getTimestamp("date");
-                        if (ts == null) {
-                            ts = Timestamp.valueOf(date.atStartOfDay());
-                        }
-                        BigDecimal total = rs.getBigDecimal("total_price");
-                        if (total == null) {
-                            total = BigDecimal.ZERO;
-                        }
-
-                        aggPs.setObject(1, orderId);
-                        BigDecimal subtotal = BigDecimal.ZERO;
-                        int itemCount = 0;
-                        try (var aggRs = aggPs.executeQuery()) {
-                            if (aggRs.next()) {
-                                subtotal = aggRs.getBigDecimal("subtotal");
-                                if (subtotal == null) subtotal = BigDecimal.ZERO;
-                                itemCount = aggRs.getInt("item_count");
-                            }
-                        }
-                        BigDecimal tax = total.subtract(subtotal).max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
-
-                        insertPs.setObject(1, java.util.UUID.randomUUID());
-                        insertPs.setObject(2, date);
-                        insertPs.setTimestamp(3, ts);
-                        insertPs.setObject(4, orderId);
-                        insertPs.setBigDecimal(5, total.setScale(2, RoundingMode.HALF_UP));
-                        insertPs.setBigDecimal(6, tax);
-                        insertPs.setString(7, "Cash");
-                        insertPs.setInt(8, itemCount);
-                        insertPs.addBatch();
-                        rebuilt++;
-                    }
+                if (reopened.fromSnapshot()) {
+                    sb.append("\nRestored ").append(reopened.rows()).append(" activity rows from the day-close snapshot for ")
+                            .append(date).append(".\n")
+                            .append("You should now be able to view the X-report and run the Z-report again for this date.\n");
+                } else {
+                    sb.append("\nRebuilt ").append(reopened.rows()).append(" sale activity rows from orders for ").append(date).append(".\n")
+                            .append("You should now be able to view the X-report and run the Z-report again for this date.\n")
+                            .append("(Rebuilt payment method defaults to 'Cash' due to schema limitations.)\n");
                 }
-
-                insertPs.executeBatch();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                sb.append("Failed to reset Z-report: ").append(e.getMessage());
             }
 
-            conn.commit();
-
-            sb.append("\nRebuilt ").append(rebuilt).append(" sale activity rows from orders for ").append(date).append(".\n")
-                    .append("You should now be able to view the X-report and run the Z-report again for this date.\n")
-                    .append("(Rebuilt payment method defaults to 'Cash' due to schema limitations.)\n");
-        } catch (SQLException e) {
-            e.printStackTrace();
-            sb.append("Failed to reset Z-report: ").append(e.getMessage());
-        }
-
-        return sb.toString();
+            return sb.toString();
+        });
     }
 
-    private String buildZReportText(java.sql.Connection conn, LocalDate date) throws SQLException {
-        String sql = """
-                SELECT COUNT(*) AS sales_count,
-                       COALESCE(SUM(amount), 0) AS sales_total,
-                       COALESCE(SUM(tax_amount), 0) AS tax_total,
-                       COALESCE(SUM(CASE WHEN LOWER(payment_method) = 'cash' THEN amount ELSE 0 END), 0) AS cash_total,
-                       COALESCE(SUM(CASE WHEN LOWER(payment_method) <> 'cash' THEN amount ELSE 0 END), 0) AS non_cash_total,
-                       COALESCE(SUM(item_count), 0) AS item_count
-                  FROM pos_sales_activity
-                 WHERE business_date = ? AND activity_type = 'SALE'
-                """;
+    private String buildZReportText(LocalDate date, ReportRepository.DayTotals totals) {
         StringBuilder sb = new StringBuilder();
         sb.append("Z REPORT\nBusiness date: ").append(date).append("\n\n");
-        try (var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, date);
-            try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    sb.append("Sales count: ").append(rs.getInt("sales_count")).append("\n");
-                    sb.append("Items sold: ").append(rs.getInt("item_count")).append("\n");
-                    sb.append("Gross sales: $").append(money(rs.getBigDecimal("sales_total"))).append("\n");
-                    sb.append("Tax information: $").append(money(rs.getBigDecimal("tax_total"))).append("\n");
-                    sb.append("Cash total: $").append(money(rs.getBigDecimal("cash_total"))).append("\n");
-                    sb.append("Other payment methods: $").append(money(rs.getBigDecimal("non_cash_total"))).append("\n");
-                    sb.append("Discounts: $0.00\nVoids: 0\nService charges: $0.00\n");
-                    sb.append("Employee signatures: __________________________\n");
+        sb.append("Sales count: ").append(totals.salesCount()).append("\n");
+        sb.append("Items sold: ").append(totals.itemCount()).append("\n");
+        sb.append("Gross sales: $").append(money(totals.sales())).append("\n");
+        sb.append("Tax information: $").append(money(totals.tax())).append("\n");
+        sb.append("Cash total: $").append(money(totals.cash())).append("\n");
+        sb.append("Other payment methods: $").append(money(totals.nonCash())).append("\n");
+        sb.append("Discounts: $0.00\nVoids: 0\nService charges: $0.00\n");
+        sb.append("Employee signatures: __________________________\n");
+        return sb.toString();
+    }
+
+    /**
+     * One line per closed business day from {@code start} through {@code end}, read from the
+     * day-close snapshots only.
+     */
+    public String getClosedDaysReport(LocalDate start, LocalDate end) {
+        return Metrics.time("getClosedDaysReport", () -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("CLOSED DAYS\n")
+                    .append(start).append(" to ").append(end).append("\n\n")
+                    .append(String.format("%-12s %8s %8s %12s %10s %12s %12s\n",
+                            "Date", "Sales", "Items", "Revenue", "Tax", "Cash", "Other"));
+            try {
+                List<ReportRepository.ClosedDay> days = repositories.reports().closedDays(start, end);
+                for (ReportRepository.ClosedDay day : days) {
+                    ReportRepository.DayTotals t = day.totals();
+                    sb.append(String.format("%-12s %8d %8d $%11s $%9s $%11s $%11s\n",
+                            day.date(), t.salesCount(), t.itemCount(), money(t.sales()), money(t.tax()),
+                            money(t.cash()), money(t.nonCash())));
+                }
+                if (days.isEmpty()) {
+                    sb.append("No closed days in this range.\n");
                 }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                sb.append("Failed to build closed-days report: ").append(e.getMessage());
             }
-        }
-        return sb.toString();
+            return sb.toString();
+        });
     }
 
+    /**
+     * Quantity and revenue per menu item over {@code start..end} (inclusive), from the
+     * daily item totals ({@link SalesSeries}).
+     */
     public String getSalesReport(LocalDate start, LocalDate end) {
-        String sql = """
-                SELECT i.name,
-                       SUM(oi.quantity) AS qty,
-                       SUM(oi.quantity * oi.unit_price) AS revenue
-                  FROM "Order" o
-                  JOIN "Order_Item" oi ON oi.order_id = o.order_id
-                  JOIN "Item" i ON i.item_id = oi.item_id
-                 WHERE o.date::date BETWEEN ? AND ?
-              GROUP BY i.name
-              ORDER BY revenue DESC, qty DESC, i.name
-                """;
+        return Metrics.time("getSalesReport", () -> {
+            return report("Failed to build sales report: ", () -> start.equals(end) ? endOfDay.get(SALES_REPORT, start)
+                    : buildSalesReport(start, end));
+        });
+    }
+
+    private String buildSalesReport(LocalDate start, LocalDate end) throws SQLException {
         StringBuilder sb = new StringBuilder();
         sb.append("SALES REPORT\n")
                 .append(start).append(" to ").append(end).append("\n\n")
                 .append(String.format("%-24s %8s %12s\n", "Item", "Qty", "Revenue"));
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql)) {
-            ps.setObject(1, start);
-            ps.setObject(2, end);
-            try (var rs = ps.executeQuery()) {
-                boolean any = false;
-                while (rs.next()) {
-                    any = true;
-                    sb.append(String.format("%-24s %8d $%11s\n",
-                            rs.getString("name"),
-                            rs.getInt("qty"),
-                            money(rs.getBigDecimal("revenue"))));
-                }
-                if (!any) {
-                    sb.append("No sales found for this time window.\n");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            sb.append("Failed to build sales report: ").append(e.getMessage());
+        List<ReportRepository.ItemSales> rows = repositories.reports().itemSales(start, end);
+        for (ReportRepository.ItemSales row : rows) {
+            sb.append(String.format("%-24s %8d $%11s\n",
+                    row.name(),
+                    row.quantity(),
+                    money(row.revenue())));
+        }
+        if (rows.isEmpty()) {
+            sb.append("No sales found for this time window.\n");
         }
         return sb.toString();
     }
 
-    public String getRestockReport() {
-        String sql = """
-                SELECT COALESCE(meta.display_name, 'Inventory Item') AS item_name,
-                       iq.quantity,
-                       COALESCE(meta.min_quantity, 0) AS min_qty,
-                       COALESCE(meta.unit, '') AS unit
-                  FROM "Inventory_Quantity" iq
-                  JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
-                 WHERE iq.quantity < COALESCE(meta.min_quantity, 0)
-              ORDER BY (COALESCE(meta.min_quantity, 0) - iq.quantity) DESC, item_name
-                """;
+    /**
+     * Orders and sales over {@code start..end} (inclusive) per minute, hour or day
+     * ({@code resolution}, or {@code "auto"}), as a text bar chart. A resolution whose
+     * buckets no longer reach back to {@code start} falls back to a coarser one.
+     */
+    public String getSalesHistoryChart(LocalDate start, LocalDate end, String resolution) {
+        return Metrics.time("getSalesHistoryChart", () -> {
+            return report("Failed to build sales history: ", () -> start.equals(end) && "hour".equalsIgnoreCase(resolution)
+                    ? endOfDay.get(PEAK_HOURS_REPORT, start)
+                    : buildSalesHistoryChart(start, end, resolution));
+        });
+    }
+
+    private String buildSalesHistoryChart(LocalDate start, LocalDate end, String resolution) throws SQLException {
+        String used = SalesSeries.resolution(resolution, start, end);
         StringBuilder sb = new StringBuilder();
-        sb.append("RESTOCK REPORT\n\n")
-                .append(String.format("%-24s %10s %10s %10s\n", "Item", "Current", "Minimum", "Category"));
-        try (var conn = Database.getConnection();
-                var ps = conn.prepareStatement(sql);
-                var rs = ps.executeQuery()) {
-            boolean any = false;
-            while (rs.next()) {
-                any = true;
-                sb.append(String.format("%-24s %10d %10d %10s\n",
-                        rs.getString("item_name"),
-                        rs.getInt("quantity"),
-                        rs.getInt("min_qty"),
-                        rs.getString("unit")));
-            }
-            if (!any) {
-                sb.append("Nothing is currently below its minimum stock level.\n");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            sb.append("Failed to build restock report: ").append(e.getMessage());
+        sb.append("SALES HISTORY\n")
+                .append(start).append(" to ").append(end).append(", by ").append(used).append("\n");
+        if (resolution != null && !"auto".equalsIgnoreCase(resolution) && !used.equalsIgnoreCase(resolution)) {
+            sb.append("(").append(resolution.toLowerCase()).append(" buckets are kept for ")
+                    .append(SalesSeries.keepDays(resolution.toLowerCase())).append(" days)\n");
+        }
+        sb.append("\n").append(String.format("%-16s %7s %7s %12s  %s\n", "Period", "Orders", "Items", "Sales", "Bar"));
+        String pattern = switch (used) {
+            case "minute" -> "yyyy-MM-dd HH:mm";
+            case "hour" -> "yyyy-MM-dd HH:00";
+            default -> "yyyy-MM-dd";
+        };
+        var format = DateTimeFormatter.ofPattern(pattern);
+        List<ReportRepository.SalesBucket> buckets = repositories.reports().salesHistory(used, start, end);
+        long max = 0;
+        for (ReportRepository.SalesBucket bucket : buckets) {
+            max = Math.max(max, bucket.sales());
+        }
+        if (max == 0) {
+            sb.append("No sales found for this time window.\n");
+        }
+        for (int i = 0; max > 0 && i < buckets.size(); i++) {
+            ReportRepository.SalesBucket bucket = buckets.get(i);
+            int len = (int) ((bucket.sales() * 40 + max / 2) / max);
+            sb.append(String.format("%-16s %7s %7s $%11s  %s\n",
+                    bucket.start().atZoneSameInstant(ZoneId.systemDefault()).format(format),
+                    bucket.orders(), bucket.items(), money(bucket.sales()), "#".repeat(len)));
         }
         return sb.toString();
     }
 
-    private boolean isStockAvailable(SalesOrder order, Connection conn) throws SQLException {
-        // Note: Changed pos_menu_inventory to "Item_Inventory"
-        String sql = """
-            SELECT iq.quantity
-            FROM "Inventory_Quantity" iq
-            JOIN "Item_Inventory" ii ON iq.inventory_id = ii.inventory_id
-            WHERE ii.item_id = ?
-        """;
-
-        for (var item : order.getOrderItems()) {
-            if (item.getItemDbId() == null) continue;
-            
-            boolean mappingFound = false;
-            try (var ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, UUID.fromString(item.getItemDbId()));
-                
-                try (var rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        mappingFound = true;
-                        // Since your schema doesn't have a 'quantity_used' column yet,
-                        // we assume 1 unit is used per item ordered.
-                        if (rs.getInt("quantity") < item.getQuantity()) {
-                            return false; 
-                        }
-                    }
-                }
-            }
-            // If the item isn't even in the Item_Inventory table, block the sale
-            if (!mappingFound) return false;
-        }
-        return true;
+    public String getRestockReport() {
+        return Metrics.time("getRestockReport", () -> {
+            return report("Failed to build restock report: ", () -> endOfDay.get(RESTOCK_REPORT, LocalDate.now()));
+        });
     }
 
-    public String processOrder(SalesOrder order) {
-        if (order == null || order.getOrderItems().isEmpty()) {
-            return "Error: Invalid order";
-        }
-        if (order.getTotalAmount() == null || order.getTotalAmount().doubleValue() <= 0) {
-            return "Error: Order total must be greater than zero";
+    private String buildRestockReport() throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("RESTOCK REPORT\n\n")
+                .append(String.format("%-24s %10s %10s %10s\n", "Item", "Current", "Minimum", "Category"));
+        List<ReportRepository.Shortage> shortages = repositories.reports().belowMinimum();
+        for (ReportRepository.Shortage s : shortages) {
+            sb.append(String.format("%-24s %10d %10d %10s\n",
+                    s.name(),
+                    s.quantity(),
+                    s.minimum(),
+                    s.unit()));
         }
-        //check stock availability before processing the order
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-            
-            if (!isStockAvailable(order, conn)) {
-                return "Error: Insufficient inventory for one or more items.";
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "Error checking inventory: " + e.getMessage();
+        if (shortages.isEmpty()) {
+            sb.append("Nothing is currently below its minimum stock level.\n");
         }
+        return sb.toString();
+    }
 
-        String insertOrderSql = """
-                INSERT INTO "Order" (order_id, employee_id, customer_id, date, total_price, item_quantity, payment_method)
-                VALUES (?, ?, ?, NOW(), ?, ?, ?)
-                """;        // Added parameters item_quantity and payment_method
-        String insertOrderItemSql = """
-                INSERT INTO "Order_Item" (id, order_id, item_id, quantity, unit_price)
-                VALUES (?, ?, ?, ?, ?)
-                """;
-
-        try (var conn = Database.getConnection()) {
-            conn.setAutoCommit(false);
-
-            UUID orderId = UUID.randomUUID();
-            UUID employeeId = ensureDemoEmployee(conn);
-            UUID customerId = ensureDemoCustomer(conn);
-            BigDecimal subtotal = BigDecimal.ZERO;
-            int itemCount = 0;
-            for (var item : order.getOrderItems()) {
-                subtotal = subtotal.add(item.getLineTotal());
-                itemCount += item.getQuantity();
-            }
-            BigDecimal tax = order.getTotalAmount().subtract(subtotal).max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
-
-            try (var ps = conn.prepareStatement(insertOrderSql)) {
-                ps.setObject(1, orderId);
-                ps.setObject(2, employeeId);
-                ps.setObject(3, customerId);
-                ps.setBigDecimal(4, order.getTotalAmount());
-                ps.setInt(5, itemCount); // implementation of item_quantity addition
-                ps.setString(6, order.getPaymentMethod() == null ? "Cash" : order.getPaymentMethod());
-                                                 // ^ implementation of getting payment method
-                ps.executeUpdate();
-            }
-
-            try (var ps = conn.prepareStatement(insertOrderItemSql)) {
-                for (var item : order.getOrderItems()) {
-                    if (item.getItemDbId() == null) {
-                        continue;
-                    }
-                    ps.setObject(1, UUID.randomUUID());
-                    ps.setObject(2, orderId);
-                    ps.setObject(3, UUID.fromString(item.getItemDbId()));
-                    ps.setInt(4, item.getQuantity());
-                    ps.setBigDecimal(5, item.getUnitPrice());
-                    ps.addBatch();
+    /**
+     * Days until each ingredient runs out at its usual rate for the time of week, and how
+     * much to order now.
+     */
+    public String getRestockForecastReport() {
+        return Metrics.time("getRestockForecastReport", () -> {
+            StringBuilder sb = new StringBuilder();
+            sb.append("RESTOCK FORECAST\n")
+                    .append(String.format("Order quantities cover %d days of delivery lead time plus %d days of use.\n\n",
+                            RestockForecast.leadDays(), RestockForecast.coverDays()))
+                    .append(String.format("%-24s %9s %9s %9s %10s %9s  %s\n",
+                            "Item", "On hand", "Minimum", "Use/day", "Days left", "Order", "Unit"));
+            try {
+                List<ReportRepository.RestockLine> lines = repositories.reports().restockForecast();
+                boolean late = false;
+                for (ReportRepository.RestockLine line : lines) {
+                    boolean beforeDelivery = line.daysLeft() <= RestockForecast.leadDays();
+                    late |= beforeDelivery;
+                    String daysLeft = Double.isInfinite(line.daysLeft()) ? "> 28"
+                            : String.format("%.1f%s", line.daysLeft(), beforeDelivery ? " *" : "");
+                    sb.append(String.format("%-24s %9d %9d %9.1f %10s %9d  %s\n",
+                            line.name(), line.onHand(), line.minimum(), line.perDay(), daysLeft, line.suggested(), line.unit()));
                 }
-                ps.executeBatch();
-            }
-
-            for (var item : order.getOrderItems()) {
-                if (item.getItemDbId() == null) {
-                    continue;
+                if (lines.isEmpty()) {
+                    sb.append("No ingredient usage in the last few weeks, and nothing is below its minimum.\n");
+                } else if (late) {
+                    sb.append("\n* runs out before an order placed now would arrive\n");
                 }
-                applyInventoryUsage(conn, orderId, UUID.fromString(item.getItemDbId()), item.getQuantity());
-            }
-
-            try (var ps = conn.prepareStatement("""
-                    INSERT INTO pos_sales_activity
-                    (activity_id, business_date, event_time, activity_type, order_id, amount, tax_amount, payment_method, item_count)
-                    VALUES (?, CURRENT_DATE, NOW(), 'SALE', ?, ?, ?, ?, ?)
-                    """)) {
-                ps.setObject(1, UUID.randomUUID());
-                ps.setObject(2, orderId);
-                ps.setBigDecimal(3, order.getTotalAmount());
-                ps.setBigDecimal(4, tax);
-                ps.setString(5, order.getPaymentMethod() == null ? "Cash" : order.getPaymentMethod());
-                ps.setInt(6, itemCount);
-                ps.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                sb.append("Failed to build restock forecast: ").append(e.getMessage());
             }
+            return sb.toString();
+        });
+    }
 
-            conn.commit();
-            salesOrders.add(order);
-            return "Order processed successfully";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "Error: " + e.getMessage();
-        }
+    /**
+     * Calls {@code listener} with the {@code "Item"} ids taken off the menu whenever an
+     * ingredient they use falls to its minimum, on this register or any other. Called on
+     * a background thread.
+     */
+    public void addMenuListener(Consumer<Set<String>> listener) {
+        repositories.orders().addSoldOutListener(listener);
     }
 
-    private void applyInventoryUsage(Connection conn, UUID orderId, UUID menuItemId, int quantitySold) throws SQLException {
-        // Prefer the POS recipe mapping because it includes quantity_used per sale.
-        // Fall back to the legacy Item_Inventory mapping with a default quantity of 1.
-        String recipeSql = """
-                SELECT inventory_id, quantity_used
-                  FROM pos_menu_inventory
-                 WHERE menu_item_id = ?
-                """;
-        String legacySql = """
-                SELECT inventory_id, 1 AS quantity_used
-                  FROM "Item_Inventory"
-                 WHERE item_id = ?
-                """;
-        String updateSql = """
-                UPDATE "Inventory_Quantity"
-                   SET quantity = GREATEST(quantity - ?, 0)
-                 WHERE inventory_id = ?
-                """;
-        String insertUsageSql = """
-                INSERT INTO pos_inventory_usage
-                    (usage_id, usage_time, business_date, order_id, menu_item_id, inventory_id, quantity_used)
-                VALUES (?, NOW(), CURRENT_DATE, ?, ?, ?, ?)
-                """;
-
-        boolean anyRecipeRows = false;
-
-        try (var ps = conn.prepareStatement(recipeSql)) {
-            ps.setObject(1, menuItemId);
-            try (var rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    anyRecipeRows = true;
-                    UUID inventoryId = (UUID) rs.getObject("inventory_id");
-                    int perSale = Math.max(1, rs.getInt("quantity_used"));
-                    int totalUsed = Math.max(1, quantitySold * perSale);
-                    decrementInventoryAndLogUsage(conn, updateSql, insertUsageSql, orderId, menuItemId, inventoryId, totalUsed);
-                }
+    /**
+     * Records {@code order} once per {@link SalesOrder#getOrderKey() order key}. Submitting
+     * a key that is already recorded, e.g. a retry after a timeout, writes nothing and
+     * returns success again. An order without a key is given a new one.
+     */
+    public OrderResult processOrder(SalesOrder order) {
+        try (var op = Metrics.begin("processOrder")) {
+            OrderResult result = validate(order);
+            if (result == null) {
+                result = OrderWriter.ENABLED && repositories.isPostgres()
+                        ? orderWriter(Stores.current()).submit(order)
+                        : writeOrders(List.of(order)).get(0);
             }
+            if (!result.recorded()) {
+                op.fail();
+            }
+            return result;
         }
+    }
 
-        if (anyRecipeRows) {
-            return;
+    /**
+     * Checks the order and gives it a key if it has none, then fills in and checks each
+     * line's modifiers ({@link #completeModifiers}).
+     *
+     * @return why the order cannot be written, or null if it can
+     */
+    private OrderResult validate(SalesOrder order) {
+        if (order == null || order.getOrderItems().isEmpty()) {
+            return OrderResult.invalid("Invalid order");
         }
-
-        try (var ps = conn.prepareStatement(legacySql)) {
-            ps.setObject(1, menuItemId);
-            try (var rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    UUID inventoryId = (UUID) rs.getObject("inventory_id");
-                    int totalUsed = Math.max(1, quantitySold * rs.getInt("quantity_used"));
-                    decrementInventoryAndLogUsage(conn, updateSql, insertUsageSql, orderId, menuItemId, inventoryId, totalUsed);
-                }
-            }
+        if (order.getTotalCents() <= 0) {
+            return OrderResult.invalid("Order total must be greater than zero");
         }
+        if (order.getCustomerDbId() != null && !isUuid(order.getCustomerDbId())) {
+            return OrderResult.invalid("Invalid customer id");
+        }
+        if (order.getOrderKey() == null) {
+            order.setOrderKey(Uuid7.next().toString());
+        } else if (!isUuid(order.getOrderKey())) {
+            return OrderResult.invalid("Invalid order key");
+        }
+        return completeModifiers(order);
     }
 
-    private void decrementInventoryAndLogUsage(Connection conn,
-                                               String updateSql,
-                                               String insertUsageSql,
-                                               UUID orderId,
-                                               UUID menuItemId,
-                                               UUID inventoryId,
-                                               int totalUsed) throws SQLException {
-        try (var up = conn.prepareStatement(updateSql)) {
-            up.setInt(1, totalUsed);
-            up.setObject(2, inventoryId);
-            up.executeUpdate();
+    /**
+     * Fills in each line's default milk, ice and sugar, and checks its modifiers against
+     * the item's, from the {@link ModifierRepository}'s table. In memory there are no
+     * modifiers, so only lines without any pass.
+     *
+     * @return the first bad line, or null if every line is valid
+     */
+    private OrderResult completeModifiers(SalesOrder order) {
+        List<String> itemIds = new ArrayList<>();
+        for (var item : order.getOrderItems()) {
+            if (item.getItemDbId() != null) {
+                itemIds.add(item.getItemDbId());
+            }
         }
-
-        // Auto-remove from menu if quantity hit minimum
-        try (var check = conn.prepareStatement("""
-                SELECT iq.quantity, COALESCE(meta.min_quantity, 0) AS min_qty
-                FROM "Inventory_Quantity" iq
-                JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
-                WHERE iq.inventory_id = ? AND meta.is_on_menu = TRUE
-                """)) {
-            check.setObject(1, inventoryId);
-            try (var rs = check.executeQuery()) {
-                if (rs.next() && rs.getInt("quantity") <= rs.getInt("min_qty")) {
-                    try (var findItem = conn.prepareStatement("""
-                            SELECT item_id FROM "Item_Inventory" WHERE inventory_id = ? LIMIT 1
-                            """)) {
-                        findItem.setObject(1, inventoryId);
-                        try (var itemRs = findItem.executeQuery()) {
-                            if (itemRs.next()) {
-                                UUID itemToDeactivate = (UUID) itemRs.getObject("item_id");
-                                try (var deactivate = conn.prepareStatement("""
-                                        UPDATE "Item" SET is_active = FALSE WHERE item_id = ?
-                                        """)) {
-                                    deactivate.setObject(1, itemToDeactivate);
-                                    deactivate.executeUpdate();
-                                }
-                            }
-                        }
-                    }
-                    try (var flip = conn.prepareStatement("""
-                            UPDATE pos_inventory_meta SET is_on_menu = FALSE WHERE inventory_id = ?
-                            """)) {
-                        flip.setObject(1, inventoryId);
-                        flip.executeUpdate();
-                    }
+        Modifiers.Table table;
+        try {
+            table = repositories.modifiers().table(itemIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return OrderResult.failed(e.getMessage());
+        }
+        int lineNo = 1;
+        for (var item : order.getOrderItems()) {
+            if (item.getItemDbId() != null) {
+                item.setModifiers(table.complete(item.getItemDbId(), item.getModifiers()));
+                String problem = table.check(item.getItemDbId(), item.getModifiers());
+                if (problem != null) {
+                    return OrderResult.invalid("Invalid modifiers on line " + lineNo + ": " + problem);
                 }
             }
+            lineNo++;
         }
+        return null;
+    }
 
-        try (var ins = conn.prepareStatement(insertUsageSql)) {
-            ins.setObject(1, UUID.randomUUID());
-            ins.setObject(2, orderId);
-            ins.setObject(3, menuItemId);
-            ins.setObject(4, inventoryId);
-            ins.setInt(5, totalUsed);
-            ins.executeUpdate();
+    // A writer whose thread died is replaced, so only the orders it held fail.
+    private OrderWriter orderWriter(String store) {
+        OrderWriter writer = orderWriters.get(store);
+        if (writer != null && !writer.isStopped()) {
+            return writer;
         }
+        return orderWriters.compute(store, (s, w) -> w != null && !w.isStopped() ? w
+                : new OrderWriter(batch -> Stores.call(s, () -> writeOrders(batch))));
     }
 
-    private UUID ensureDemoEmployee(java.sql.Connection conn) throws SQLException {
-        String select = """
-                SELECT employee_id
-                  FROM "Employee"
-                 ORDER BY start_date
-                 LIMIT 1
-                """;
-        try (var ps = conn.prepareStatement(select);
-                var rs = ps.executeQuery()) {
-            if (rs.next()) {
-                return (UUID) rs.getObject("employee_id");
+    /**
+     * @return one result per order, in order
+     */
+    private List<OrderResult> writeOrders(List<SalesOrder> orders) {
+        List<OrderResult> results = repositories.orders().write(orders);
+        boolean written = false;
+        for (int i = 0; i < orders.size(); i++) {
+            if (results.get(i).status() == OrderResult.Status.PROCESSED) {
+                salesOrders.add(orders.get(i));
+                written = true;
             }
         }
-        UUID id = UUID.randomUUID();
-        String json = "{\"role\":\"Cashier\",\"active\":true}";
-        try (var ps = conn.prepareStatement("""
-                INSERT INTO "Employee" (employee_id, name, start_date, work_history)
-                VALUES (?, ?, CURRENT_DATE, ?::jsonb)
-                """)) {
-            ps.setObject(1, id);
-            ps.setString(2, "Demo Employee");
-            ps.setString(3, json);
-            ps.executeUpdate();
+        if (written) {
+            endOfDay.invalidate();
         }
-        return id;
+        return results;
     }
 
-    private UUID ensureDemoCustomer(java.sql.Connection conn) throws SQLException {
-        String select = """
-                SELECT customer_id
-                  FROM "Customer"
-                 ORDER BY customer_id
-                 LIMIT 1
-                """;
-        try (var ps = conn.prepareStatement(select);
-                var rs = ps.executeQuery()) {
-            if (rs.next()) {
-                return (UUID) rs.getObject("customer_id");
-            }
-        }
-        UUID id = UUID.randomUUID();
-        try (var ps = conn.prepareStatement("""
-                INSERT INTO "Customer" (customer_id, name, phone_number, email, points, purchase_history)
-                VALUES (?, ?, NULL, NULL, 0, '{}'::uuid[])
-                """)) {
-            ps.setObject(1, id);
-            ps.setString(2, "Walk-up Customer");
-            ps.executeUpdate();
+    private static boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
-        return id;
     }
 
     private String bar(int value) {
@@ -1408,7 +980,7 @@ public class MainController {
         return "#".repeat(len);
     }
 
-    private String money(BigDecimal value) {
-        return (value == null ? BigDecimal.ZERO : value).setScale(2, RoundingMode.HALF_UP).toString();
+    private String money(long cents) {
+        return Money.format(cents);
     }
 }
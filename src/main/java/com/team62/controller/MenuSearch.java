@@ -0,0 +1,184 @@
+package com.team62.controller;
+
+import com.team62.model.MenuItem;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Type-ahead search over the menu the register already loaded, with no database access.
+ *
+ * Names and categories are split into lower-case words, accents removed. Two indexes
+ * are built once per menu: the words in sorted order, for prefix matches, and each
+ * word's trigrams (padded like {@code pg_trgm}: {@code "  t", " ta", "tap", ...}) with
+ * the items that contain them, for typos.
+ *
+ * An item matches when every word of the query starts one of its words ("taro mi"
+ * finds Taro Milk Tea), or else when at least {@value #MIN_SIMILARITY} of the query's
+ * trigrams occur in it ("tapoica" finds Tapioca). Prefix matches rank above fuzzy ones.
+ * Within that order, items sold more recently rank higher: each item's recent unit sales,
+ * as a share of the best seller's, add up to {@value #POPULARITY_WEIGHT} to its score.
+ *
+ * Not thread-safe; the cashier screen uses it from the FX thread only.
+ */
+public final class MenuSearch {
+
+    private static final double MIN_SIMILARITY = 0.45;
+    private static final double POPULARITY_WEIGHT = 0.25;
+    // Fuzzy matching needs this many characters; shorter queries only match prefixes.
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private final List<MenuItem> items;
+    private final String[] words;        // every distinct word, sorted
+    private final int[][] wordItems;     // per word, the items containing it
+    private final Map<String, int[]> gramItems = new HashMap<>();
+    private final double[] popularity;
+    private double maxPopularity;
+
+    /**
+     * @param items      the menu, in its display order
+     * @param unitsSold  recent units sold per item id ({@code "Item".item_id}); items not in it count as zero
+     */
+    public MenuSearch(List<MenuItem> items, Map<String, Integer> unitsSold) {
+        this.items = List.copyOf(items);
+        this.popularity = new double[items.size()];
+        TreeMap<String, Set<Integer>> byWord = new TreeMap<>();
+        Map<String, Set<Integer>> byGram = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            MenuItem item = items.get(i);
+            for (String word : words(item.getName() + " " + (item.getCategory() == null ? "" : item.getCategory()))) {
+                byWord.computeIfAbsent(word, k -> new LinkedHashSet<>()).add(i);
+                for (String gram : trigrams(word)) {
+                    byGram.computeIfAbsent(gram, k -> new LinkedHashSet<>()).add(i);
+                }
+            }
+            Integer sold = item.getDbId() == null ? null : unitsSold.get(item.getDbId());
+            popularity[i] = sold == null ? 0 : sold;
+            maxPopularity = Math.max(maxPopularity, popularity[i]);
+        }
+        this.words = byWord.keySet().toArray(new String[0]);
+        this.wordItems = new int[words.length][];
+        for (int w = 0; w < words.length; w++) {
+            wordItems[w] = toArray(byWord.get(words[w]));
+        }
+        byGram.forEach((gram, set) -> gramItems.put(gram, toArray(set)));
+    }
+
+    /**
+     * @return the items matching {@code query}, best first; the whole menu, in display
+     *         order, for a blank query
+     */
+    public List<MenuItem> find(String query) {
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty()) {
+            return items;
+        }
+        double[] score = new double[items.size()];
+
+        // Prefix matches: every query word starts some word of the item.
+        int[] wordsMatched = new int[items.size()];
+        for (String q : queryWords) {
+            boolean[] seen = new boolean[items.size()];
+            int from = Arrays.binarySearch(words, q);
+            for (int w = from < 0 ? -from - 1 : from; w < words.length && words[w].startsWith(q); w++) {
+                for (int i : wordItems[w]) {
+                    if (!seen[i]) {
+                        seen[i] = true;
+                        wordsMatched[i]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < score.length; i++) {
+            if (wordsMatched[i] == queryWords.size()) {
+                score[i] = 2;
+            }
+        }
+
+        // Fuzzy matches: share of the query's trigrams found in the item.
+        List<String> grams = new ArrayList<>();
+        for (String q : queryWords) {
+            if (q.length() >= MIN_FUZZY_LENGTH) {
+                grams.addAll(trigrams(q));
+            }
+        }
+        if (!grams.isEmpty()) {
+            int[] shared = new int[items.size()];
+            for (String gram : grams) {
+                for (int i : gramItems.getOrDefault(gram, new int[0])) {
+                    shared[i]++;
+                }
+            }
+            for (int i = 0; i < score.length; i++) {
+                double similarity = shared[i] / (double) grams.size();
+                if (score[i] == 0 && similarity >= MIN_SIMILARITY) {
+                    score[i] = 1 + similarity * 0.5;
+                }
+            }
+        }
+
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < score.length; i++) {
+            if (score[i] > 0) {
+                score[i] += maxPopularity > 0 ? POPULARITY_WEIGHT * popularity[i] / maxPopularity : 0;
+                hits.add(i);
+            }
+        }
+        hits.sort((a, b) -> Double.compare(score[b], score[a]));
+        List<MenuItem> result = new ArrayList<>(hits.size());
+        for (int i : hits) {
+            result.add(items.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Counts units this register just sold, so popular items rise without reloading.
+     */
+    public void recordSale(MenuItem item, int quantity) {
+        int i = items.indexOf(item);
+        if (i >= 0) {
+            popularity[i] += quantity;
+            maxPopularity = Math.max(maxPopularity, popularity[i]);
+        }
+    }
+
+    static List<String> words(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        String plain = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+        for (String word : SEPARATORS.split(plain)) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    static List<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            String gram = padded.substring(i, i + 3);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    private static int[] toArray(Set<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
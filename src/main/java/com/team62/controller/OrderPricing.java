@@ -0,0 +1,57 @@
+package com.team62.controller;
+
+import com.team62.model.Money;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Shared order pricing rules so the cashier screen and the HTTP API charge the same
+ * amounts for the same basket.
+ *
+ * The {@code long} methods work in cents ({@link Money}) and are what the order path
+ * uses. The {@link BigDecimal} methods are the original rules, kept as the reference the
+ * cents versions must match ({@code tools.MoneyBench} checks that they do).
+ */
+public final class OrderPricing {
+
+    public static final BigDecimal TAX_RATE = new BigDecimal("0.08");
+    public static final BigDecimal TIP_RATE = new BigDecimal("0.00");
+
+    // Tax and tip are added before rounding, so they round as one rate.
+    private static final long TAX_TIP_BASIS_POINTS = Money.basisPoints(TAX_RATE) + Money.basisPoints(TIP_RATE);
+
+    private OrderPricing() {
+    }
+
+    public static BigDecimal lineTotal(BigDecimal unitPrice, int quantity) {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * @return tax plus tip on {@code subtotal}, rounded to cents
+     */
+    public static BigDecimal taxTip(BigDecimal subtotal) {
+        return subtotal.multiply(TAX_RATE)
+                .add(subtotal.multiply(TIP_RATE))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static BigDecimal total(BigDecimal subtotal) {
+        return subtotal.add(taxTip(subtotal)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static long lineTotal(long unitCents, int quantity) {
+        return Money.times(unitCents, quantity);
+    }
+
+    /**
+     * @return tax plus tip on {@code subtotalCents}, in cents
+     */
+    public static long taxTip(long subtotalCents) {
+        return Money.rate(subtotalCents, TAX_TIP_BASIS_POINTS);
+    }
+
+    public static long total(long subtotalCents) {
+        return Math.addExact(subtotalCents, taxTip(subtotalCents));
+    }
+}
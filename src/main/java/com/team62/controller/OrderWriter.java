@@ -0,0 +1,149 @@
+package com.team62.controller;
+
+import com.team62.metrics.Metrics;
+import com.team62.model.SalesOrder;
+import com.team62.repository.OrderResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Group commit for orders. Orders submitted from any thread (registers, the HTTP API)
+ * are queued; one writer thread takes whatever arrived within
+ * {@code team62.orders.batchDelayMillis} (default 2) of the first, up to
+ * {@code team62.orders.maxBatch} (default 50), and hands them to the controller to write
+ * in one transaction. Each caller still gets its own order's result.
+ *
+ * A caller waits at most {@code team62.orders.submitTimeoutMillis} (default 30000) and
+ * then gets a failure; the order may still be written, so a retry must reuse its key.
+ * If the writer thread dies, the orders it had and any submitted after fail at once,
+ * and {@link #isStopped()} tells the controller to start a new writer.
+ *
+ * {@code -Dteam62.orders.groupCommit=false} turns this off; every order is then its
+ * own transaction on the caller's thread.
+ */
+final class OrderWriter {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("team62.orders.groupCommit", "true"));
+    private static final long DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0L, Long.getLong("team62.orders.batchDelayMillis", 2L)));
+    private static final int MAX_BATCH = Math.max(1, Integer.getInteger("team62.orders.maxBatch", 50));
+    private static final long TIMEOUT_MILLIS = Math.max(1L, Long.getLong("team62.orders.submitTimeoutMillis", 30000L));
+
+    private record Pending(SalesOrder order, CompletableFuture<OrderResult> result) {
+    }
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Function<List<SalesOrder>, List<OrderResult>> writer;
+    // Why the writer thread stopped, or null while it runs.
+    private volatile Throwable stopped;
+
+    /**
+     * @param writer writes a group of orders and returns one result per order, in order
+     */
+    OrderWriter(Function<List<SalesOrder>, List<OrderResult>> writer) {
+        this.writer = writer;
+        Thread t = new Thread(this::run, "order-writer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Queues {@code order} and waits until its group has been written.
+     *
+     * @return the same result {@link MainController#processOrder} returns
+     */
+    OrderResult submit(SalesOrder order) {
+        Pending pending = new Pending(order, new CompletableFuture<>());
+        queue.add(pending);
+        // The writer may have stopped before it could see this order.
+        if (stopped != null) {
+            failQueued();
+        }
+        try {
+            return pending.result().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return OrderResult.failed("No answer from the order writer within " + TIMEOUT_MILLIS
+                    + " ms; the order may still be recorded, retry it with the same key");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return OrderResult.failed("Interrupted while waiting for the order writer");
+        } catch (ExecutionException e) {
+            return OrderResult.failed(e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * @return true once the writer thread has died; submits then fail at once
+     */
+    boolean isStopped() {
+        return stopped != null;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + DELAY_NANOS;
+                while (batch.size() < MAX_BATCH) {
+                    queue.drainTo(batch, MAX_BATCH - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= MAX_BATCH || wait <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+            }
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            } else {
+                e.printStackTrace();
+            }
+            stopped = e;
+            for (Pending p : batch) {
+                p.result().complete(stoppedResult());
+            }
+            failQueued();
+        }
+    }
+
+    private void failQueued() {
+        for (Pending p = queue.poll(); p != null; p = queue.poll()) {
+            p.result().complete(stoppedResult());
+        }
+    }
+
+    private OrderResult stoppedResult() {
+        return OrderResult.failed("Order writer stopped: " + stopped);
+    }
+
+    private void write(List<Pending> batch) {
+        List<SalesOrder> orders = batch.stream().map(Pending::order).toList();
+        try {
+            Metrics.run("writeOrderBatch", () -> {
+                List<OrderResult> results = writer.apply(orders);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(results.get(i));
+                }
+            });
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            for (Pending p : batch) {
+                p.result().complete(OrderResult.failed(e.getMessage()));
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.team62.db;
+
+import com.team62.metrics.Metrics;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps up to {@code team62.db.poolSize} (default 16) primary connections open so
+ * operations stop paying for a TCP connect and login each time, and so statements
+ * prepared on a connection (see {@link StatementRegistry}) survive to be reused.
+ *
+ * Idle connections are handed out most-recently-used first, which keeps the busiest
+ * statements hot on a few connections. A caller that finds every connection in use
+ * waits up to {@code team62.db.poolWaitMillis} (default 5000). A connection idle for
+ * more than 30 seconds is checked before it is handed out again.
+ *
+ * There is one pool per store ({@link Stores}); its connections are opened for that store.
+ *
+ * Closing a borrowed connection rolls back any open transaction, restores auto-commit
+ * and read-write, and returns it. Session settings ({@code SET ...}) would survive, so
+ * work that changes them uses {@link Database#getUnpooledConnection()}.
+ */
+final class ConnectionPool {
+
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private record Idle(Connection connection, long since) {
+    }
+
+    private final int size;
+    private final long waitMillis;
+    private final String store;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<Idle> idle = new LinkedBlockingDeque<>();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    ConnectionPool(int size, long waitMillis, String store) {
+        this.size = Math.max(1, size);
+        this.waitMillis = Math.max(0, waitMillis);
+        this.store = store;
+        this.permits = new Semaphore(this.size, true);
+    }
+
+    int size() {
+        return size;
+    }
+
+    Connection borrow() throws SQLException {
+        if (!permits.tryAcquire()) {
+            waited.incrementAndGet();
+            try {
+                if (!permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                    timeouts.incrementAndGet();
+                    throw new SQLException("Timed out after " + waitMillis + " ms waiting for one of "
+                            + size + " database connections", "08001");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection", "08001", e);
+            }
+        }
+        try {
+            Connection physical = take();
+            borrowed.incrementAndGet();
+            return lend(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs {@code work} on each connection that is idle right now, without making
+     * anyone wait for it; used to sample per-session statistics.
+     */
+    void forEachIdle(SqlConsumer work) {
+        List<Idle> taken = new ArrayList<>();
+        Idle next;
+        while (permits.tryAcquire()) {
+            next = idle.pollFirst();
+            if (next == null) {
+                permits.release();
+                break;
+            }
+            taken.add(next);
+        }
+        for (Idle i : taken) {
+            try {
+                work.accept(i.connection());
+                idle.offerFirst(i);
+            } catch (SQLException e) {
+                close(i.connection());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    interface SqlConsumer {
+        void accept(Connection connection) throws SQLException;
+    }
+
+    String describe() {
+        return String.format("%d of %d connections open (%d idle); %,d borrows, %,d waited, %,d timed out",
+                opened.get(), size, idle.size(), borrowed.get(), waited.get(), timeouts.get());
+    }
+
+    private Connection take() throws SQLException {
+        Idle next;
+        while ((next = idle.pollFirst()) != null) {
+            Connection conn = next.connection();
+            if (System.nanoTime() - next.since() < VALIDATE_AFTER_NANOS || conn.isValid(2)) {
+                return conn;
+            }
+            close(conn);
+        }
+        Connection conn = Database.openPrimary(store);
+        opened.incrementAndGet();
+        Metrics.recordConnectionOpened();
+        return conn;
+    }
+
+    private void giveBack(Connection conn) {
+        try {
+            if (!conn.isClosed()) {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+                if (conn.isReadOnly()) {
+                    conn.setReadOnly(false);
+                }
+                conn.clearWarnings();
+                idle.offerFirst(new Idle(conn, System.nanoTime()));
+            } else {
+                opened.decrementAndGet();
+            }
+        } catch (SQLException e) {
+            close(conn);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void close(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {
+            // already broken
+        }
+        opened.decrementAndGet();
+    }
+
+    /**
+     * A proxy whose {@code close()} returns {@code physical} to the pool once; every
+     * other call goes straight through until then.
+     */
+    private Connection lend(Connection physical) {
+        AtomicBoolean returned = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (returned.compareAndSet(false, true)) {
+                                giveBack(physical);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned.get() || physical.isClosed();
+                        }
+                        default -> {
+                            if (returned.get()) {
+                                throw new SQLException("Connection was already returned to the pool", "08003");
+                            }
+                        }
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
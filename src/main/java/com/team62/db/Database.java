@@ -1,9 +1,15 @@
 package com.team62.db;
 
+import com.team62.metrics.Metrics;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.io.FileInputStream;
 import java.io.IOException;
 
@@ -12,6 +18,21 @@ import java.io.IOException;
  *
  * This uses the credentials provided for the CSCE 315 class database.
  * Make sure the PostgreSQL JDBC driver (org.postgresql.Driver) is on the classpath.
+ *
+ * Connections come from a {@link ConnectionPool} unless {@code -Dteam62.db.pool=false}.
+ *
+ * Optionally, {@code db.read.url} (with {@code db.read.user} / {@code db.read.password},
+ * defaulting to the primary's) in {@code db.properties} names a read-only replica that
+ * {@link #getReadConnection} hands out to reports; see {@link ReadReplica}.
+ * {@code db.load.user} / {@code db.load.password} is the login {@link #getLoadConnection}
+ * uses for bulk loads.
+ *
+ * Every connection belongs to the current store ({@link Stores#current()}). The stores
+ * this process may serve are listed as {@code stores=main,downtown} in
+ * {@code db.properties} (default: just {@code -Dteam62.store}). A store can live in a
+ * database of its own with {@code store.CODE.url} (and optionally {@code store.CODE.user}
+ * / {@code store.CODE.password}); otherwise it shares the primary with the other stores.
+ * Each store has its own pool.
  */
 public class Database {
 
@@ -20,6 +41,16 @@ public class Database {
             "jdbc:postgresql://csce-315-db.engr.tamu.edu:5432/team_62_db";
     private static final String USER;
     private static final String PASSWORD;
+    private static final String LOAD_USER;
+    private static final String LOAD_PASSWORD;
+    private static final int MAX_LAG_SECONDS = Integer.getInteger("team62.db.read.maxLagSeconds", 30);
+    private static final ReadReplica REPLICA;
+    private static final boolean POOLED = Boolean.parseBoolean(System.getProperty("team62.db.pool", "true"));
+    private static final Map<String, StoreDb> STORES = new LinkedHashMap<>();
+
+    // Where one store's rows live, and its pool (null when pooling is off).
+    private record StoreDb(String url, String user, String password, ConnectionPool pool) {
+    }
 
     static {
         try {
@@ -27,16 +58,202 @@ public class Database {
             props.load(new FileInputStream("db.properties")); 
             USER = props.getProperty("db.user"); 
             PASSWORD = props.getProperty("db.password"); 
+            LOAD_USER = props.getProperty("db.load.user");
+            LOAD_PASSWORD = props.getProperty("db.load.password");
             Class.forName("org.postgresql.Driver");
+            String readUrl = props.getProperty("db.read.url", "").trim();
+            REPLICA = readUrl.isEmpty() ? null
+                    : new ReadReplica(readUrl, props.getProperty("db.read.user", USER),
+                            props.getProperty("db.read.password", PASSWORD));
+            Stores.check(Stores.terminal());
+            for (String code : (props.getProperty("stores", "").trim() + "," + Stores.terminal()).split(",")) {
+                code = code.trim();
+                if (code.isEmpty() || STORES.containsKey(code)) {
+                    continue;
+                }
+                Stores.check(code);
+                STORES.put(code, new StoreDb(props.getProperty("store." + code + ".url", URL),
+                        props.getProperty("store." + code + ".user", USER),
+                        props.getProperty("store." + code + ".password", PASSWORD),
+                        POOLED ? new ConnectionPool(Integer.getInteger("team62.db.poolSize", 16),
+                                Long.getLong("team62.db.poolWaitMillis", 5000L), code) : null));
+            }
         } catch (ClassNotFoundException | IOException e) {
             throw new RuntimeException("Failed to load database config", e);
         }
     }
 
     /**
-     * Get a new JDBC connection. Caller is responsible for closing it.
+     * Get a JDBC connection from the pool. Caller is responsible for closing it, which
+     * returns it to the pool. The connection is instrumented so SQL round trips are
+     * attributed to the current {@link Metrics} operation.
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        ConnectionPool pool = store(Stores.current()).pool();
+        if (pool == null) {
+            return getUnpooledConnection();
+        }
+        try {
+            return InstrumentedConnection.wrap(pool.borrow());
+        } catch (SQLException e) {
+            Metrics.recordError();
+            throw e;
+        }
+    }
+
+    /**
+     * Get a new connection of its own, really closed afterwards. For bulk work that
+     * would tie up pooled connections, or that changes session settings.
+     */
+    public static Connection getUnpooledConnection() throws SQLException {
+        try {
+            Connection conn = openPrimary();
+            Metrics.recordConnectionOpened();
+            return InstrumentedConnection.wrap(conn);
+        } catch (SQLException e) {
+            Metrics.recordError();
+            throw e;
+        }
+    }
+
+    /**
+     * Get a new connection for bulk loads, logged in as {@code db.load.user} when
+     * {@code db.properties} names one (otherwise as the store's own login). COPY into a
+     * store's tables needs a role that bypasses their row-level security
+     * ({@link Stores#bypassesRowSecurity}); giving that to a separate login keeps the
+     * policies in force for the app's own sessions.
+     */
+    public static Connection getLoadConnection() throws SQLException {
+        String store = Stores.current();
+        StoreDb db = store(store);
+        try {
+            Connection conn = DriverManager.getConnection(db.url(), LOAD_USER == null
+                    ? sessionProperties(store, db.user(), db.password())
+                    : sessionProperties(store, LOAD_USER, LOAD_PASSWORD));
+            Metrics.recordConnectionOpened();
+            return InstrumentedConnection.wrap(conn);
+        } catch (SQLException e) {
+            Metrics.recordError();
+            throw e;
+        }
+    }
+
+    /**
+     * Connection for reports and analytics that may be up to
+     * {@code team62.db.read.maxLagSeconds} (default 30) behind the primary.
+     *
+     * @see #getReadConnection(int)
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return getReadConnection(MAX_LAG_SECONDS);
+    }
+
+    /**
+     * Connection for read-only work that tolerates data up to {@code maxLagSeconds} old:
+     * the replica when one is configured and known to be that fresh, otherwise the
+     * primary. Anything that must see its own writes uses {@link #getConnection}.
+     */
+    public static Connection getReadConnection(int maxLagSeconds) throws SQLException {
+        // The replica follows the primary, so it only serves stores that live there.
+        if (REPLICA != null && REPLICA.lagSeconds() <= maxLagSeconds && store(Stores.current()).url().equals(URL)) {
+            try {
+                Connection conn = REPLICA.connect(Stores.current());
+                Metrics.recordConnectionOpened();
+                return InstrumentedConnection.wrap(conn);
+            } catch (SQLException e) {
+                // Fall back; the report still succeeds on the primary.
+                e.printStackTrace();
+            }
+        }
+        return getConnection();
+    }
+
+    /**
+     * @return the replica's last measured lag in seconds, infinity while it is unknown,
+     *         or NaN when no replica is configured
+     */
+    public static double replicaLagSeconds() {
+        return REPLICA == null ? Double.NaN : REPLICA.lagSeconds();
+    }
+
+    /**
+     * @return the stores this process may serve, the terminal's store included
+     */
+    public static Set<String> stores() {
+        return Collections.unmodifiableSet(STORES.keySet());
+    }
+
+    /**
+     * @return one store per distinct database, for upkeep that is per database rather
+     *         than per store (e.g. partitions)
+     */
+    public static List<String> oneStorePerDatabase() {
+        Map<String, String> byUrl = new LinkedHashMap<>();
+        STORES.forEach((code, db) -> byUrl.putIfAbsent(db.url(), code));
+        return List.copyOf(byUrl.values());
+    }
+
+    static int poolSize() {
+        StoreDb db = STORES.get(Stores.current());
+        return db == null || db.pool() == null ? 0 : db.pool().size();
+    }
+
+    static String poolDescription() {
+        if (!POOLED) {
+            return "disabled (-Dteam62.db.pool=false)";
+        }
+        if (STORES.size() == 1) {
+            return STORES.values().iterator().next().pool().describe();
+        }
+        StringBuilder sb = new StringBuilder();
+        STORES.forEach((code, db) -> sb.append("\n  ").append(code).append(": ").append(db.pool().describe()));
+        return sb.toString();
+    }
+
+    static void forEachIdlePooled(ConnectionPool.SqlConsumer work) {
+        for (StoreDb db : STORES.values()) {
+            if (db.pool() != null) {
+                db.pool().forEachIdle(work);
+            }
+        }
+    }
+
+    /**
+     * Uninstrumented primary connection for the current store, for background upkeep.
+     */
+    static Connection openPrimary() throws SQLException {
+        return openPrimary(Stores.current());
+    }
+
+    /**
+     * Uninstrumented connection to {@code store}'s database, with the session bound to it.
+     */
+    static Connection openPrimary(String store) throws SQLException {
+        StoreDb db = store(store);
+        return DriverManager.getConnection(db.url(), sessionProperties(store, db.user(), db.password()));
+    }
+
+    /**
+     * Login properties that also set {@code team62.store} for the whole session, as a
+     * startup option so it costs no extra round trip.
+     */
+    static Properties sessionProperties(String store, String user, String password) {
+        Properties info = new Properties();
+        if (user != null) {
+            info.setProperty("user", user);
+        }
+        if (password != null) {
+            info.setProperty("password", password);
+        }
+        info.setProperty("options", "-c team62.store=" + store);
+        return info;
+    }
+
+    private static StoreDb store(String code) throws SQLException {
+        StoreDb db = STORES.get(code);
+        if (db == null) {
+            throw new SQLException("Unknown store " + code + "; list it under stores= in db.properties");
+        }
+        return db;
     }
 }
@@ -0,0 +1,187 @@
+package com.team62.db;
+
+import com.team62.metrics.Metrics;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps JDBC connections so that every statement execution, commit and rollback is
+ * reported to {@link Metrics} as a SQL round trip, and every {@link SQLException}
+ * marks the current operation as failed. When {@link SqlTrace} is enabled each
+ * execution is also recorded with its SQL, bind count, duration and row count.
+ *
+ * The wrappers are plain dynamic proxies; all calls are forwarded unchanged, so
+ * {@code unwrap(PGConnection.class)} and friends keep working.
+ */
+final class InstrumentedConnection {
+
+    private static final AtomicInteger CONNECTION_IDS = new AtomicInteger();
+
+    private InstrumentedConnection() {
+    }
+
+    static Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ConnectionHandler(target, CONNECTION_IDS.incrementAndGet()));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                Metrics.recordError();
+            }
+            throw cause;
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final int id;
+
+        ConnectionHandler(Connection target, int id) {
+            this.target = target;
+            this.id = id;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("commit") || name.equals("rollback")) {
+                Metrics.recordSqlRoundTrip();
+                long start = System.nanoTime();
+                Object result = InstrumentedConnection.invoke(target, method, args);
+                if (SqlTrace.ENABLED) {
+                    SqlTrace.get().record(id, name.toUpperCase(), 0, 0, System.nanoTime() - start, 0);
+                }
+                return result;
+            }
+            Object result = InstrumentedConnection.invoke(target, method, args);
+            if (result instanceof Statement statement
+                    && (name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                String sql = SqlTrace.ENABLED && args != null && args.length > 0 && args[0] instanceof String s
+                        ? SqlTrace.normalize(s) : null;
+                return wrapStatement(statement, id, sql);
+            }
+            return result;
+        }
+    }
+
+    private static Statement wrapStatement(Statement target, int connectionId, String sql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[] { type },
+                new StatementHandler(target, connectionId, sql));
+    }
+
+    /**
+     * Counts binds ({@code setXxx(index, ...)}) and batch rows between executions.
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final int connectionId;
+        private final String sql;
+        private int binds;
+        private int batchBinds;
+        private int batchSize;
+        private SqlTrace.StatementRecord lastRecord;
+
+        StatementHandler(Statement target, int connectionId, String sql) {
+            this.target = target;
+            this.connectionId = connectionId;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (SqlTrace.ENABLED) {
+                    trackBinds(name, args);
+                    if (name.equals("getResultSet")) {
+                        return wrapResultSet((ResultSet) InstrumentedConnection.invoke(target, method, args), lastRecord);
+                    }
+                }
+                return InstrumentedConnection.invoke(target, method, args);
+            }
+
+            Metrics.recordSqlRoundTrip();
+            if (!SqlTrace.ENABLED) {
+                return InstrumentedConnection.invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            Object result = InstrumentedConnection.invoke(target, method, args);
+            long nanos = System.nanoTime() - start;
+
+            String text = sql != null ? sql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? SqlTrace.normalize(s) : "";
+            int rows = 0;
+            int recordedBinds = binds;
+            int recordedBatch = 0;
+            if (result instanceof int[] counts) {
+                for (int c : counts) {
+                    rows += Math.max(0, c);
+                }
+                recordedBinds = batchBinds;
+                recordedBatch = batchSize;
+                batchBinds = 0;
+                batchSize = 0;
+            } else if (result instanceof Integer count) {
+                rows = Math.max(0, count);
+            } else if (result instanceof Long count) {
+                rows = (int) Math.max(0, count);
+            }
+            lastRecord = SqlTrace.get().record(connectionId, text, recordedBinds, recordedBatch, nanos, rows);
+            if (result instanceof ResultSet rs) {
+                return wrapResultSet(rs, lastRecord);
+            }
+            return result;
+        }
+
+        private void trackBinds(String name, Object[] args) {
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                binds = Math.max(binds, index);
+            } else if (name.equals("clearParameters")) {
+                binds = 0;
+            } else if (name.equals("addBatch")) {
+                batchBinds += binds;
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchBinds = 0;
+                batchSize = 0;
+            }
+        }
+    }
+
+    private static ResultSet wrapResultSet(ResultSet target, SqlTrace.StatementRecord record) {
+        if (target == null || record == null) {
+            return target;
+        }
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    Object result = InstrumentedConnection.invoke(target, method, args);
+                    if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                        record.rows++;
+                    }
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,152 @@
+package com.team62.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Upkeep for the monthly partitions of {@code "Order"} and {@code "Order_Item"}
+ * (see {@code sql/partitioning.sql}, which defines the functions called here).
+ *
+ * {@link #maintain} creates partitions {@code team62.partitions.monthsAhead} months
+ * ahead (default 3) so inserts never hit a missing month, and, when
+ * {@code team62.partitions.retainMonths} is above 0, archives months older than that
+ * into the {@code pos_archive} schema. Everything is a no-op on a database where
+ * {@code "Order"} is still a plain table.
+ */
+public final class OrderPartitions {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.sql");
+    private static final int MONTHS_AHEAD = Math.max(1, Integer.getInteger("team62.partitions.monthsAhead", 3));
+    private static final int RETAIN_MONTHS = Integer.getInteger("team62.partitions.retainMonths", 0);
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+
+    private OrderPartitions() {
+    }
+
+    /**
+     * @return true when {@code "Order"} is partitioned and the maintenance functions exist
+     */
+    public static boolean isPartitioned(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('"Order"'))
+                       AND to_regprocedure('pos_create_order_partitions(date, date)') IS NOT NULL
+                """);
+                var rs = ps.executeQuery()) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * Creates any missing partitions for the months touching {@code from .. to}.
+     *
+     * @return number of tables created (0 when not partitioned)
+     */
+    public static int ensure(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        return isPartitioned(conn) ? create(conn, from, to) : 0;
+    }
+
+    private static int create(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        try (var ps = conn.prepareStatement("SELECT pos_create_order_partitions(?, ?)")) {
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Detaches every month ending on or before {@code before} into {@code pos_archive}.
+     * Archived orders no longer show up in reports.
+     *
+     * @return the archived table names
+     */
+    public static List<String> archiveBefore(Connection conn, LocalDate before) throws SQLException {
+        return isPartitioned(conn) ? archive(conn, before) : List.of();
+    }
+
+    private static List<String> archive(Connection conn, LocalDate before) throws SQLException {
+        List<String> archived = new ArrayList<>();
+        try (var ps = conn.prepareStatement("SELECT * FROM pos_archive_order_partitions(?)")) {
+            ps.setObject(1, before);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    archived.add(rs.getString(1));
+                }
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Runs one round of upkeep: partitions through {@code monthsAhead}, then archival
+     * if a retention window is configured.
+     *
+     * @return a one-line summary
+     */
+    public static String maintain(Connection conn) throws SQLException {
+        if (!isPartitioned(conn)) {
+            return "Order is not partitioned; nothing to do";
+        }
+        LocalDate today = LocalDate.now();
+        int created = create(conn, today.withDayOfMonth(1), today.plusMonths(MONTHS_AHEAD));
+        List<String> archived = RETAIN_MONTHS > 0
+                ? archive(conn, today.withDayOfMonth(1).minusMonths(RETAIN_MONTHS))
+                : List.of();
+        return "Created " + created + " partitions, archived " + archived.size()
+                + (archived.isEmpty() ? "" : " " + archived);
+    }
+
+    /**
+     * Runs {@link #maintain} once a day on a daemon thread. Safe to call more than
+     * once; only the first call schedules anything.
+     */
+    public static void scheduleDaily() {
+        if (!SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-partitions");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(OrderPartitions::maintainQuietly, 1, 1, TimeUnit.DAYS);
+    }
+
+    /**
+     * Runs one round of upkeep from the command line, e.g. from cron:
+     * {@code OrderPartitions [--archive-before YYYY-MM-DD]}.
+     */
+    public static void main(String[] args) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            if (args.length == 2 && args[0].equals("--archive-before")) {
+                System.out.println("Archived " + archiveBefore(conn, LocalDate.parse(args[1])));
+            } else {
+                System.out.println(maintain(conn));
+            }
+        }
+    }
+
+    private static void maintainQuietly() {
+        for (String store : Database.oneStorePerDatabase()) {
+            try {
+                LOG.info(Stores.call(store, () -> {
+                    try (Connection conn = Database.getConnection()) {
+                        return maintain(conn);
+                    }
+                }));
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Partition maintenance failed for store " + store, e);
+            }
+        }
+    }
+}
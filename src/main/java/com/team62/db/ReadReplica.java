@@ -0,0 +1,136 @@
+package com.team62.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lag tracking for the read-only endpoint behind {@link Database#getReadConnection}.
+ *
+ * Every {@code team62.db.read.heartbeatSeconds} (default 1) a daemon thread stamps
+ * {@code pos_replica_heartbeat} on the primary and reads the stamp back from the
+ * replica; the difference is the replica's lag. This works for streaming replicas and
+ * for a Postgres fed by logical replication alike (see {@code sql/read_replica.sql}),
+ * and unlike {@code pg_last_xact_replay_timestamp()} it does not grow while the
+ * primary is idle. It assumes both servers' clocks agree.
+ *
+ * Until the first measurement, while the replica is unreachable, or once the last
+ * measurement is more than three heartbeats old, the lag is unknown and every read
+ * goes to the primary.
+ */
+final class ReadReplica {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.sql");
+    private static final int HEARTBEAT_SECONDS = Math.max(1, Integer.getInteger("team62.db.read.heartbeatSeconds", 1));
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final ScheduledExecutorService scheduler;
+    private Connection primaryConn;
+    private Connection replicaConn;
+    private volatile double lagSeconds = Double.POSITIVE_INFINITY;
+    private volatile long measuredAtNanos;
+    private volatile boolean warned;
+
+    ReadReplica(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::beat, 0, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the replica's lag in seconds, or infinity when it is unknown
+     */
+    double lagSeconds() {
+        if (System.nanoTime() - measuredAtNanos > TimeUnit.SECONDS.toNanos(3L * HEARTBEAT_SECONDS)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return lagSeconds;
+    }
+
+    /**
+     * Opens a read-only connection to the replica for {@code store}.
+     */
+    Connection connect(String store) throws SQLException {
+        try {
+            Connection conn = DriverManager.getConnection(url, Database.sessionProperties(store, user, password));
+            conn.setReadOnly(true);
+            return conn;
+        } catch (SQLException e) {
+            // Don't route anything else here until the heartbeat reaches the replica again.
+            lagSeconds = Double.POSITIVE_INFINITY;
+            throw e;
+        }
+    }
+
+    private void beat() {
+        try {
+            if (primaryConn == null || primaryConn.isClosed()) {
+                primaryConn = Database.openPrimary();
+                try (var st = primaryConn.createStatement()) {
+                    st.execute("""
+                            CREATE TABLE IF NOT EXISTS pos_replica_heartbeat (
+                                id SMALLINT PRIMARY KEY,
+                                beat_at TIMESTAMPTZ NOT NULL
+                            )
+                            """);
+                }
+            }
+            try (var ps = primaryConn.prepareStatement("""
+                    INSERT INTO pos_replica_heartbeat (id, beat_at) VALUES (1, clock_timestamp())
+                    ON CONFLICT (id) DO UPDATE SET beat_at = EXCLUDED.beat_at
+                    """)) {
+                ps.executeUpdate();
+            }
+        } catch (SQLException e) {
+            close(primaryConn);
+            primaryConn = null;
+            LOG.log(Level.FINE, "Replica heartbeat: primary unavailable", e);
+        }
+        try {
+            if (replicaConn == null || replicaConn.isClosed()) {
+                replicaConn = DriverManager.getConnection(url, user, password);
+            }
+            try (var ps = replicaConn.prepareStatement("""
+                    SELECT EXTRACT(EPOCH FROM clock_timestamp() - beat_at)::FLOAT8
+                      FROM pos_replica_heartbeat
+                     WHERE id = 1
+                    """);
+                    var rs = ps.executeQuery()) {
+                lagSeconds = rs.next() ? Math.max(0, rs.getDouble(1)) : Double.POSITIVE_INFINITY;
+                measuredAtNanos = System.nanoTime();
+                warned = false;
+            }
+        } catch (SQLException e) {
+            close(replicaConn);
+            replicaConn = null;
+            lagSeconds = Double.POSITIVE_INFINITY;
+            if (!warned) {
+                warned = true;
+                LOG.log(Level.WARNING, "Read replica unavailable; reads fall back to the primary: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void close(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // already broken
+            }
+        }
+    }
+}
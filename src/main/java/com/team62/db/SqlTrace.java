@@ -0,0 +1,354 @@
+package com.team62.db;
+
+import com.team62.metrics.Metrics;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+/**
+ * Statement-level tracing for every connection handed out by {@link Database}.
+ *
+ * Each statement execution (plus commit/rollback) is recorded with its SQL, bind
+ * count, batch size, duration, row count and connection. Statements are grouped
+ * under the user action that caused them, which is the outermost
+ * {@link Metrics} operation on the thread (e.g. {@code processOrder} for a
+ * cashier's Submit click). When an action finishes, the same SQL executed at least
+ * {@code team62.sql.nPlusOneThreshold} times (default 5) outside a batch is reported
+ * as an N+1 pattern. Statements run outside any action (warm-up, background jobs) are
+ * grouped under "(no action)" when they execute, so the rows read from them are never
+ * counted.
+ *
+ * Statements slower than {@code team62.sql.slowMillis} (default 250) are written to
+ * the {@code com.team62.sql.slow} logger. Tracing is off by default, leaving only the
+ * round-trip counters; run with {@code -Dteam62.sql.trace=true} to turn it on. The report
+ * is available through JMX ({@code com.team62:type=SqlTrace}) and {@link #report()}.
+ */
+public final class SqlTrace implements SqlTraceMXBean, Metrics.ActionObserver {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("team62.sql.trace", "false"));
+
+    private static final Logger LOG = Logger.getLogger("com.team62.sql");
+    private static final Logger SLOW_LOG = Logger.getLogger("com.team62.sql.slow");
+    private static final int N_PLUS_ONE_THRESHOLD = Math.max(2, Integer.getInteger("team62.sql.nPlusOneThreshold", 5));
+    private static final int RECENT_CAPACITY = 500;
+    private static final int NORMALIZED_CAPACITY = 2048;
+    private static final String NO_ACTION = "(no action)";
+    private static final SqlTrace INSTANCE = new SqlTrace();
+
+    static {
+        if (ENABLED) {
+            Metrics.addActionObserver(INSTANCE);
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(INSTANCE, new ObjectName("com.team62:type=SqlTrace"));
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Could not register SqlTrace MBean", e);
+            }
+        }
+    }
+
+    // Statement text is mostly constants, so each distinct text is normalized once.
+    private static final Map<String, String> NORMALIZED = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<ActionTrace> current = new ThreadLocal<>();
+    private final Map<String, ActionStats> actions = new ConcurrentHashMap<>();
+    private final Map<String, NPlusOne> nPlusOnes = new ConcurrentHashMap<>();
+    private final StatementRecord[] recent = new StatementRecord[RECENT_CAPACITY];
+    private final AtomicLong recentCursor = new AtomicLong();
+    private final LongAdder statementCount = new LongAdder();
+    private final LongAdder slowCount = new LongAdder();
+    private volatile long slowThresholdMillis = Long.getLong("team62.sql.slowMillis", 250L);
+
+    private SqlTrace() {
+    }
+
+    public static SqlTrace get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Collapses whitespace so the same text block always maps to the same key.
+     */
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String cached = NORMALIZED.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String text = sql.strip().replaceAll("\\s+", " ");
+        // Ad hoc SQL with inlined values would grow the map without bound.
+        if (NORMALIZED.size() < NORMALIZED_CAPACITY) {
+            NORMALIZED.put(sql, text);
+        }
+        return text;
+    }
+
+    StatementRecord record(int connectionId, String sql, int binds, int batchSize, long nanos, int rows) {
+        ActionTrace action = current.get();
+        if (action == null && Metrics.currentAction() != null) {
+            // The first action can start before this class registers its observer.
+            action = new ActionTrace(Metrics.currentAction());
+            current.set(action);
+        }
+        StatementRecord rec = new StatementRecord(
+                action == null ? NO_ACTION : action.name, connectionId, sql, binds, batchSize, nanos, rows);
+        statementCount.increment();
+        recent[(int) (recentCursor.getAndIncrement() % RECENT_CAPACITY)] = rec;
+        if (action != null) {
+            action.records.add(rec);
+            action.connections.add(connectionId);
+        } else {
+            ActionStats stats = actions.computeIfAbsent(NO_ACTION, ActionStats::new);
+            stats.add(List.of(rec), Set.of(connectionId));
+        }
+        long millis = nanos / 1_000_000;
+        if (millis >= slowThresholdMillis) {
+            slowCount.increment();
+            SLOW_LOG.warning(String.format("Slow SQL: %d ms, %d binds, action %s, conn #%d: %s",
+                    millis, binds, rec.action, connectionId, sql));
+        }
+        return rec;
+    }
+
+    @Override
+    public void actionStarted(String action) {
+        current.set(new ActionTrace(action));
+    }
+
+    @Override
+    public void actionFinished(String action, boolean failed) {
+        ActionTrace trace = current.get();
+        current.remove();
+        if (trace == null || trace.records.isEmpty()) {
+            return;
+        }
+        actions.computeIfAbsent(trace.name, ActionStats::new).add(trace.records, trace.connections);
+
+        Map<String, Integer> repeats = new HashMap<>();
+        for (StatementRecord rec : trace.records) {
+            if (rec.batchSize == 0 && rec.binds > 0) {
+                repeats.merge(rec.sql, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> e : repeats.entrySet()) {
+            if (e.getValue() < N_PLUS_ONE_THRESHOLD) {
+                continue;
+            }
+            NPlusOne pattern = nPlusOnes.computeIfAbsent(trace.name + '\u0000' + e.getKey(),
+                    k -> new NPlusOne(trace.name, e.getKey()));
+            if (pattern.record(e.getValue())) {
+                LOG.warning(String.format("N+1 pattern in %s: %d executions of: %s",
+                        trace.name, e.getValue(), e.getKey()));
+            }
+        }
+    }
+
+    @Override
+    public long getStatementCount() {
+        return statementCount.sum();
+    }
+
+    @Override
+    public long getSlowStatementCount() {
+        return slowCount.sum();
+    }
+
+    @Override
+    public long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    @Override
+    public void setSlowThresholdMillis(long millis) {
+        slowThresholdMillis = Math.max(0, millis);
+    }
+
+    @Override
+    public String getReport() {
+        return report();
+    }
+
+    /**
+     * @return per-action averages, the heaviest statements per action and all N+1 patterns seen
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SQL TRACE\n\n")
+                .append(String.format("%-28s %7s %10s %10s %10s %9s\n",
+                        "Action", "Runs", "Stmts/run", "Conns/run", "DB ms/run", "Rows/run"));
+        List<ActionStats> list = new ArrayList<>(actions.values());
+        list.sort(Comparator.comparing((ActionStats a) -> a.name));
+        for (ActionStats a : list) {
+            synchronized (a) {
+                double runs = Math.max(1, a.runs);
+                sb.append(String.format("%-28s %7d %10.1f %10.1f %10.2f %9.1f\n",
+                        a.name, a.runs, a.statements / runs, a.connections / runs,
+                        a.nanos / runs / 1_000_000.0, a.rows / runs));
+            }
+        }
+        for (ActionStats a : list) {
+            synchronized (a) {
+                double runs = Math.max(1, a.runs);
+                sb.append("\n").append(a.name).append(" - statements by total time\n");
+                a.bySql.values().stream()
+                        .sorted(Comparator.comparingLong((SqlStats s) -> s.nanos).reversed())
+                        .limit(8)
+                        .forEach(s -> sb.append(String.format("  %6.1f execs/run %8.2f ms/run %8.1f rows/run  %s\n",
+                                s.executions / runs, s.nanos / runs / 1_000_000.0, s.rows / runs, abbreviate(s.sql))));
+            }
+        }
+        sb.append("\nN+1 PATTERNS\n");
+        if (nPlusOnes.isEmpty()) {
+            sb.append("None detected.\n");
+        }
+        for (NPlusOne p : nPlusOnes.values()) {
+            sb.append(String.format("%s: up to %d executions per run (%d runs affected)\n  %s\n",
+                    p.action, p.maxRepeats, p.occurrences, abbreviate(p.sql)));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String getRecentStatements() {
+        List<StatementRecord> list = new ArrayList<>();
+        for (StatementRecord rec : recent) {
+            if (rec != null) {
+                list.add(rec);
+            }
+        }
+        list.sort(Comparator.comparingLong(r -> r.sequence));
+        StringBuilder sb = new StringBuilder();
+        for (StatementRecord rec : list) {
+            sb.append(String.format("%s %-22s conn#%-4d %8.2f ms binds=%-3d batch=%-3d rows=%-5d %s\n",
+                    Instant.ofEpochMilli(rec.epochMillis), rec.action, rec.connectionId,
+                    rec.nanos / 1_000_000.0, rec.binds, rec.batchSize, rec.rows, abbreviate(rec.sql)));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        actions.clear();
+        nPlusOnes.clear();
+        statementCount.reset();
+        slowCount.reset();
+        for (int i = 0; i < recent.length; i++) {
+            recent[i] = null;
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= 160 ? sql : sql.substring(0, 157) + "...";
+    }
+
+    /**
+     * One executed statement. {@code rows} is filled in as a query's result set is read.
+     */
+    static final class StatementRecord {
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        final long sequence = SEQUENCE.incrementAndGet();
+        final long epochMillis = System.currentTimeMillis();
+        final String action;
+        final int connectionId;
+        final String sql;
+        final int binds;
+        final int batchSize;
+        final long nanos;
+        int rows;
+
+        StatementRecord(String action, int connectionId, String sql, int binds, int batchSize, long nanos, int rows) {
+            this.action = action;
+            this.connectionId = connectionId;
+            this.sql = sql;
+            this.binds = binds;
+            this.batchSize = batchSize;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+    }
+
+    private static final class ActionTrace {
+        final String name;
+        final List<StatementRecord> records = new ArrayList<>();
+        final Set<Integer> connections = new HashSet<>();
+
+        ActionTrace(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class SqlStats {
+        final String sql;
+        long executions;
+        long nanos;
+        long rows;
+
+        SqlStats(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private static final class ActionStats {
+        final String name;
+        final Map<String, SqlStats> bySql = new HashMap<>();
+        long runs;
+        long statements;
+        long connections;
+        long nanos;
+        long rows;
+
+        ActionStats(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(List<StatementRecord> records, Set<Integer> connectionIds) {
+            runs++;
+            statements += records.size();
+            connections += connectionIds.size();
+            for (StatementRecord rec : records) {
+                nanos += rec.nanos;
+                rows += rec.rows;
+                SqlStats s = bySql.computeIfAbsent(rec.sql, SqlStats::new);
+                s.executions++;
+                s.nanos += rec.nanos;
+                s.rows += rec.rows;
+            }
+        }
+    }
+
+    private static final class NPlusOne {
+        final String action;
+        final String sql;
+        long occurrences;
+        int maxRepeats;
+
+        NPlusOne(String action, String sql) {
+            this.action = action;
+            this.sql = sql;
+        }
+
+        /**
+         * @return true the first time this pattern is seen
+         */
+        synchronized boolean record(int repeats) {
+            occurrences++;
+            maxRepeats = Math.max(maxRepeats, repeats);
+            return occurrences == 1;
+        }
+    }
+}
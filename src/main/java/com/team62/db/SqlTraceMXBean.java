@@ -0,0 +1,27 @@
+package com.team62.db;
+
+/**
+ * JMX view of {@link SqlTrace}, registered as {@code com.team62:type=SqlTrace}.
+ */
+public interface SqlTraceMXBean {
+
+    long getStatementCount();
+
+    long getSlowStatementCount();
+
+    long getSlowThresholdMillis();
+
+    void setSlowThresholdMillis(long millis);
+
+    /**
+     * @return per-action statement/round-trip/connection summary plus detected N+1 patterns
+     */
+    String getReport();
+
+    /**
+     * @return the most recent statements, newest last
+     */
+    String getRecentStatements();
+
+    void reset();
+}
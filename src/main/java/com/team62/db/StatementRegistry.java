@@ -0,0 +1,179 @@
+package com.team62.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGStatement;
+
+/**
+ * Named SQL that is prepared once per pooled connection and reused after that.
+ *
+ * Statements are declared once as constants ({@link #declare}) and opened with
+ * {@link #prepare}. pgjdbc keeps a per-connection cache of server-side prepared
+ * statements keyed by SQL text; {@code prepare} asks for a server-side prepare from the
+ * first execution (pgjdbc otherwise waits for the fifth), so every later use of the
+ * same statement on that connection skips Postgres's parse and analysis and can use a
+ * cached plan.
+ *
+ * {@link #warmUp} prepares the statements declared with {@code warm = true} on several
+ * pooled connections at startup. {@link #report} shows, per statement, how often it was
+ * prepared fresh versus reused, and the generic/custom plan counts Postgres reports in
+ * {@code pg_prepared_statements} for the connections that are idle at the time.
+ */
+public final class StatementRegistry {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.sql");
+    private static final Map<String, Named> STATEMENTS = Collections.synchronizedMap(new LinkedHashMap<>());
+    // Per physical connection, the statements already prepared on it.
+    private static final Map<PGConnection, Set<Named>> PREPARED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * A statement declared in the registry.
+     */
+    public static final class Named {
+        private final String name;
+        private final String sql;
+        private final boolean warm;
+        private final LongAdder prepared = new LongAdder();
+        private final LongAdder reused = new LongAdder();
+
+        private Named(String name, String sql, boolean warm) {
+            this.name = name;
+            this.sql = sql;
+            this.warm = warm;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String sql() {
+            return sql;
+        }
+    }
+
+    private StatementRegistry() {
+    }
+
+    /**
+     * @param warm prepare this statement on startup (see {@link #warmUp})
+     * @throws IllegalStateException if {@code name} is already declared
+     */
+    public static Named declare(String name, String sql, boolean warm) {
+        Named statement = new Named(name, sql, warm);
+        if (STATEMENTS.putIfAbsent(name, statement) != null) {
+            throw new IllegalStateException("SQL statement " + name + " is declared twice");
+        }
+        return statement;
+    }
+
+    /**
+     * Opens {@code statement} on {@code conn}, reusing its server-side prepared form
+     * when this connection has run it before.
+     */
+    public static PreparedStatement prepare(Connection conn, Named statement) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(statement.sql);
+        ps.unwrap(PGStatement.class).setPrepareThreshold(1);
+        Set<Named> done = PREPARED.computeIfAbsent(conn.unwrap(PGConnection.class), c -> ConcurrentHashMap.newKeySet());
+        (done.add(statement) ? statement.prepared : statement.reused).increment();
+        return ps;
+    }
+
+    /**
+     * Prepares every warm statement on up to {@code connections} pooled connections
+     * (held at the same time, so they are distinct) before the first customer arrives.
+     * Postgres parses and analyzes each one; it plans them on first execution.
+     *
+     * @return number of statements prepared
+     */
+    public static int warmUp(int connections) {
+        List<Named> warm;
+        synchronized (STATEMENTS) {
+            warm = STATEMENTS.values().stream().filter(s -> s.warm).toList();
+        }
+        int count = Math.min(Math.max(0, connections), Database.poolSize());
+        List<Connection> held = new ArrayList<>();
+        int prepared = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                Connection conn = Database.getConnection();
+                held.add(conn);
+                for (Named statement : warm) {
+                    try (var ps = prepare(conn, statement)) {
+                        // Describing the statement sends its Parse without executing it.
+                        ps.getParameterMetaData();
+                        prepared++;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "Statement warm-up stopped early", e);
+        } finally {
+            for (Connection conn : held) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                    // returned to the pool either way
+                }
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * @return a table of every declared statement's reuse and plan-cache counts
+     */
+    public static String report() {
+        List<Named> all;
+        synchronized (STATEMENTS) {
+            all = new ArrayList<>(STATEMENTS.values());
+        }
+        Map<String, long[]> plans = new ConcurrentHashMap<>();
+        Database.forEachIdlePooled(conn -> {
+            try (var ps = conn.prepareStatement("""
+                    SELECT statement, generic_plans, custom_plans
+                      FROM pg_prepared_statements
+                     WHERE NOT from_sql
+                    """);
+                    var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long[] counts = plans.computeIfAbsent(normalize(rs.getString(1)), k -> new long[2]);
+                    counts[0] += rs.getLong(2);
+                    counts[1] += rs.getLong(3);
+                }
+            }
+        });
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Connection pool: ").append(Database.poolDescription()).append('\n');
+        sb.append(String.format("%-28s %5s %10s %10s %7s %9s %9s%n",
+                "Statement", "Warm", "Prepared", "Reused", "Reuse%", "Generic*", "Custom*"));
+        for (Named s : all) {
+            long prepared = s.prepared.sum();
+            long reused = s.reused.sum();
+            long[] counts = plans.getOrDefault(normalize(s.sql), new long[2]);
+            sb.append(String.format("%-28s %5s %,10d %,10d %6.1f%% %,9d %,9d%n",
+                    s.name, s.warm ? "yes" : "", prepared, reused,
+                    prepared + reused == 0 ? 0.0 : 100.0 * reused / (prepared + reused), counts[0], counts[1]));
+        }
+        sb.append("* plans built so far on the connections idle right now (pg_prepared_statements)\n");
+        return sb.toString();
+    }
+
+    // pgjdbc sends ? placeholders as $1, $2, ...
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\$\\d+", "?").replaceAll("\\s+", " ").strip();
+    }
+}
@@ -0,0 +1,184 @@
+package com.team62.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Which store (location) the current work belongs to, and the row-level security that
+ * keeps stores apart when they share a database.
+ *
+ * A terminal is bound to one store with {@code -Dteam62.store=CODE} (default
+ * {@value #DEFAULT}). Code serving several stores (the HTTP API) runs each request
+ * inside {@link #call} for the store it names. {@link Database} opens every connection
+ * for the current store: to that store's own database when {@code db.properties} gives
+ * it one, and always with the session setting {@code team62.store} set to its code.
+ *
+ * In a shared database, every store-specific table ({@link #SCOPED_TABLES}) has a
+ * {@code store_id} column and a row-level security policy matching it against
+ * {@code pos_store()}, the session's store. Queries therefore see, update and insert
+ * only the current store's rows without naming the store, and new rows take the
+ * session's store by default. Customers, employees and loyalty are shared by all stores.
+ * A session without the setting (psql, {@code sql/queries}) works on {@value #DEFAULT}.
+ */
+public final class Stores {
+
+    /** The store that rows from before stores existed belong to. */
+    public static final String DEFAULT = "main";
+
+    // Goes into the connection's startup options, so nothing but these characters.
+    private static final Pattern CODE = Pattern.compile("[a-z0-9][a-z0-9_-]{0,31}");
+    private static final String TERMINAL = System.getProperty("team62.store", DEFAULT);
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /** Tables whose rows belong to one store. */
+    public static final List<String> SCOPED_TABLES = List.of(
+            "Item", "Inventory_Quantity", "Order", "Order_Item",
+            "pos_inventory_meta", "pos_menu_inventory", "pos_sales_activity", "pos_inventory_usage",
+            "pos_z_report", "pos_day_snapshot", "pos_modifier", "pos_item_modifier",
+            "pos_series_pending", "pos_sales_series", "pos_item_series", "pos_usage_series");
+
+    // Keyed per store: their primary keys get store_id in front.
+    private static final List<String> STORE_KEYED = List.of(
+            "pos_z_report", "pos_day_snapshot", "pos_modifier", "pos_sales_series", "pos_item_series", "pos_usage_series");
+
+    /** Run on startup, once every scoped table exists. */
+    public static final String[] DDL = {
+            """
+            CREATE OR REPLACE FUNCTION pos_store() RETURNS TEXT LANGUAGE sql STABLE PARALLEL SAFE AS $$
+                SELECT COALESCE(NULLIF(current_setting('team62.store', true), ''), 'main')
+            $$
+            """,
+            // Only alters a table the first time, so restarts take no table locks.
+            """
+            DO $$
+            DECLARE
+                t TEXT;
+            BEGIN
+                FOREACH t IN ARRAY ARRAY['%s'] LOOP
+                    IF NOT EXISTS (SELECT 1 FROM pg_attribute
+                                    WHERE attrelid = quote_ident(t)::regclass AND attname = 'store_id' AND NOT attisdropped) THEN
+                        -- Existing rows belong to the default store.
+                        EXECUTE format('ALTER TABLE %%I ADD COLUMN store_id TEXT NOT NULL DEFAULT %%L', t, 'main');
+                        EXECUTE format('ALTER TABLE %%I ALTER COLUMN store_id SET DEFAULT pos_store()', t);
+                    END IF;
+                    IF NOT EXISTS (SELECT 1 FROM pg_policy
+                                    WHERE polrelid = quote_ident(t)::regclass AND polname = 'pos_store_scope') THEN
+                        EXECUTE format('CREATE POLICY pos_store_scope ON %%I USING (store_id = pos_store())'
+                                || ' WITH CHECK (store_id = pos_store())', t);
+                        EXECUTE format('ALTER TABLE %%I ENABLE ROW LEVEL SECURITY, FORCE ROW LEVEL SECURITY', t);
+                    END IF;
+                END LOOP;
+            END
+            $$
+            """.formatted(String.join("', '", SCOPED_TABLES)),
+            // One Z report, day-close snapshot, modifier or series bucket per store and key.
+            """
+            DO $$
+            DECLARE
+                r RECORD;
+            BEGIN
+                FOR r IN SELECT c.conrelid::regclass::TEXT AS tbl, c.conname,
+                                (SELECT string_agg(quote_ident(a.attname), ', ' ORDER BY k.n)
+                                   FROM unnest(c.conkey) WITH ORDINALITY AS k(attnum, n)
+                                   JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = k.attnum) AS cols
+                           FROM pg_constraint c
+                          WHERE c.conrelid = ANY (ARRAY['%s']::regclass[])
+                            AND c.contype = 'p'
+                            AND NOT EXISTS (SELECT 1 FROM pg_attribute a
+                                             WHERE a.attrelid = c.conrelid AND a.attname = 'store_id'
+                                               AND a.attnum = ANY (c.conkey)) LOOP
+                    EXECUTE format('ALTER TABLE %%s DROP CONSTRAINT %%I, ADD PRIMARY KEY (store_id, %%s)', r.tbl, r.conname, r.cols);
+                END LOOP;
+            END
+            $$
+            """.formatted(String.join("', '", STORE_KEYED)),
+            // Store first, so one store's range scans never read another store's rows.
+            """
+            CREATE INDEX IF NOT EXISTS idx_order_store_date ON \"Order\" (store_id, date)
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_order_item_store_date ON \"Order_Item\" (store_id, order_date)
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_sales_activity_store_date ON pos_sales_activity (store_id, business_date)
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_inventory_usage_store_time ON pos_inventory_usage (store_id, usage_time)
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_item_store_name ON \"Item\" (store_id, name)
+            """
+    };
+
+    /**
+     * Work to run for one store; see {@link #call}.
+     */
+    public interface Work<T, E extends Exception> {
+        T get() throws E;
+    }
+
+    private Stores() {
+    }
+
+    /**
+     * @return the store this process is bound to ({@code -Dteam62.store})
+     */
+    public static String terminal() {
+        return TERMINAL;
+    }
+
+    /**
+     * @return the store the current thread is working for
+     */
+    public static String current() {
+        String store = CURRENT.get();
+        return store != null ? store : TERMINAL;
+    }
+
+    /**
+     * @return true if {@code code} can name a store: 1-32 of lower-case letters, digits,
+     *         {@code _} and {@code -}
+     */
+    public static boolean isValid(String code) {
+        return code != null && CODE.matcher(code).matches();
+    }
+
+    /**
+     * Runs {@code work} with {@link #current()} returning {@code store}, so the
+     * connections it opens belong to that store.
+     */
+    public static <T, E extends Exception> T call(String store, Work<T, E> work) throws E {
+        check(store);
+        String previous = CURRENT.get();
+        CURRENT.set(store);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return true if {@code conn}'s role skips the store policies (a superuser, or a
+     *         role with {@code BYPASSRLS}), which COPY into a scoped table requires
+     */
+    public static boolean bypassesRowSecurity(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("SELECT rolsuper OR rolbypassrls FROM pg_roles WHERE rolname = current_user");
+                var rs = ps.executeQuery()) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    static void check(String code) {
+        if (!isValid(code)) {
+            throw new IllegalArgumentException("Invalid store code: " + code
+                    + " (1-32 of a-z, 0-9, _ and -, starting with a letter or digit)");
+        }
+    }
+}
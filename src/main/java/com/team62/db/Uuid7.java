@@ -0,0 +1,76 @@
+package com.team62.db;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered primary keys in the UUID version 7 layout (RFC 9562).
+ *
+ * <pre>
+ *  48 bits  Unix time in milliseconds
+ *   4 bits  version (7)
+ *  12 bits  sequence within the millisecond
+ *   2 bits  variant (10)
+ *  62 bits  random
+ * </pre>
+ *
+ * {@link #next()} is monotonic within the JVM: the timestamp and sequence are one
+ * {@code AtomicLong} advanced with compare-and-set, so concurrent callers never block
+ * and never see a smaller key than one already handed out. If more than 4096 keys are
+ * asked for in one millisecond the sequence carries into the timestamp, which runs
+ * slightly ahead of the clock until it catches up.
+ *
+ * New keys land at the right-hand edge of the primary-key B-trees instead of at
+ * random pages, and there is no shared {@code SecureRandom} to contend on. The random
+ * bits come from {@link ThreadLocalRandom}; these keys are identifiers, not secrets.
+ */
+public final class Uuid7 {
+
+    private static final int SEQUENCE_BITS = 12;
+
+    /** {@code (epochMillis << 12) | sequence} of the last key handed out. */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private Uuid7() {
+    }
+
+    /**
+     * @return a new key, greater than every key this JVM returned before
+     */
+    public static UUID next() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        long last;
+        long next;
+        do {
+            last = LAST.get();
+            next = now > last ? now : last + 1;
+        } while (!LAST.compareAndSet(last, next));
+        return build(next >>> SEQUENCE_BITS, next, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * A key for a row created at {@code epochMillis}, with caller-supplied bits for the
+     * sequence and random fields. Used to mint reproducible keys, e.g. by the bulk loader.
+     */
+    public static UUID of(long epochMillis, long sequence, long random) {
+        return build(epochMillis, sequence, random);
+    }
+
+    /**
+     * @return the millisecond timestamp embedded in a version 7 key
+     * @throws IllegalArgumentException for any other UUID version
+     */
+    public static long timestampMillis(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id);
+        }
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    private static UUID build(long epochMillis, long sequence, long random) {
+        long msb = (epochMillis << 16) | 0x7000L | (sequence & 0xFFFL);
+        long lsb = (random & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
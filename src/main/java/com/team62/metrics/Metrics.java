@@ -0,0 +1,274 @@
+package com.team62.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of per-operation metrics.
+ *
+ * Controller methods run their body through {@link #time} or {@link #run}, or open a
+ * {@link Scope} with {@link #begin(String)} in a try-with-resources block when they
+ * need to {@link Scope#fail() fail} it. While a scope is open on the current thread, the
+ * JDBC layer attributes SQL round trips, opened connections and SQL errors to it.
+ *
+ * Each operation is published as an MXBean and the whole table is written to the
+ * {@code com.team62.metrics} logger every {@code team62.metrics.dumpSeconds}
+ * seconds (default 300, 0 disables). Set {@code -Dteam62.metrics.jmx=false} to
+ * skip JMX registration.
+ */
+public final class Metrics {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.metrics");
+    private static final Map<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final boolean JMX_ENABLED =
+            Boolean.parseBoolean(System.getProperty("team62.metrics.jmx", "true"));
+    private static final List<ActionObserver> OBSERVERS = new CopyOnWriteArrayList<>();
+
+    static {
+        long dumpSeconds = Long.getLong("team62.metrics.dumpSeconds", 300L);
+        if (dumpSeconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-dump");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(Metrics::dumpToLog, dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Starts timing {@code operation} on the current thread. Close the returned scope
+     * (try-with-resources) when the operation returns.
+     */
+    public static Scope begin(String operation) {
+        Scope parent = CURRENT.get();
+        Scope scope = new Scope(stats(operation), parent);
+        CURRENT.set(scope);
+        if (parent == null) {
+            for (ActionObserver observer : OBSERVERS) {
+                observer.actionStarted(operation);
+            }
+        }
+        return scope;
+    }
+
+    /**
+     * Runs {@code work} as {@code operation}: a {@link #begin} scope that is closed when
+     * {@code work} returns or throws.
+     */
+    public static <T> T time(String operation, Supplier<T> work) {
+        Scope scope = begin(operation);
+        try {
+            return work.get();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * {@link #time(String, Supplier)} for work that returns nothing.
+     */
+    public static void run(String operation, Runnable work) {
+        Scope scope = begin(operation);
+        try {
+            work.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Registers an observer that is told when an outermost operation (a user action
+     * such as {@code processOrder}) starts and finishes on a thread.
+     */
+    public static void addActionObserver(ActionObserver observer) {
+        OBSERVERS.add(observer);
+    }
+
+    /**
+     * Returns (creating and registering on first use) the stats for {@code operation}.
+     */
+    public static OperationStats stats(String operation) {
+        OperationStats existing = OPERATIONS.get(operation);
+        if (existing != null) {
+            return existing;
+        }
+        return OPERATIONS.computeIfAbsent(operation, name -> {
+            OperationStats created = new OperationStats(name);
+            registerMBean(created);
+            return created;
+        });
+    }
+
+    /**
+     * Called by the JDBC layer for every statement execution, commit or rollback.
+     */
+    public static void recordSqlRoundTrip() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.roundTrips++;
+            scope.stats.recordSqlRoundTrips(1);
+        }
+    }
+
+    /**
+     * Called by the JDBC layer whenever a new physical connection is opened.
+     */
+    public static void recordConnectionOpened() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.stats.recordConnectionOpened();
+        }
+    }
+
+    /**
+     * Marks the operation running on the current thread as failed. The JDBC layer
+     * calls this for every {@link java.sql.SQLException}, so controller methods that
+     * swallow exceptions are still counted.
+     */
+    public static void recordError() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.failed = true;
+        }
+    }
+
+    /**
+     * @return the innermost operation open on this thread, or null
+     */
+    public static String currentOperation() {
+        Scope scope = CURRENT.get();
+        return scope == null ? null : scope.stats.getName();
+    }
+
+    /**
+     * @return the outermost operation open on this thread (the user action), or null
+     */
+    public static String currentAction() {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return null;
+        }
+        while (scope.parent != null) {
+            scope = scope.parent;
+        }
+        return scope.stats.getName();
+    }
+
+    public static List<OperationStats> snapshot() {
+        List<OperationStats> list = new ArrayList<>(OPERATIONS.values());
+        list.sort(Comparator.comparing(OperationStats::getName));
+        return list;
+    }
+
+    /**
+     * @return a plain-text table of every operation seen so far
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %8s %6s %9s %9s %9s %9s %9s %8s\n",
+                "Operation", "Calls", "Errors", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms", "SQL/call"));
+        for (OperationStats s : snapshot()) {
+            if (s.getCalls() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-28s %8d %6d %9.2f %9.2f %9.2f %9.2f %9.2f %8.1f\n",
+                    s.getName(), s.getCalls(), s.getErrors(),
+                    s.getMeanMillis(), s.getP50Millis(), s.getP90Millis(), s.getP99Millis(), s.getMaxMillis(),
+                    s.getRoundTripsPerCall()));
+        }
+        return sb.toString();
+    }
+
+    private static void dumpToLog() {
+        try {
+            LOG.info("Controller operation metrics\n" + report());
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Failed to dump metrics", e);
+        }
+    }
+
+    private static void registerMBean(OperationStats stats) {
+        if (!JMX_ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.team62:type=Operation,name=" + ObjectName.quote(stats.getName()));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Could not register MBean for " + stats.getName(), e);
+        }
+    }
+
+    /**
+     * Callback for outermost operations. Both methods run on the thread that ran the action.
+     */
+    public interface ActionObserver {
+        void actionStarted(String action);
+
+        void actionFinished(String action, boolean failed);
+    }
+
+    /**
+     * One in-flight call of an operation. Not thread-safe; owned by the thread that opened it.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final OperationStats stats;
+        private final Scope parent;
+        private final long startNanos = System.nanoTime();
+        private int roundTrips;
+        private boolean failed;
+
+        private Scope(OperationStats stats, Scope parent) {
+            this.stats = stats;
+            this.parent = parent;
+        }
+
+        /**
+         * Marks this call as failed even though no SQL error was seen (e.g. a rejected order).
+         */
+        public void fail() {
+            failed = true;
+        }
+
+        public int getRoundTrips() {
+            return roundTrips;
+        }
+
+        @Override
+        public void close() {
+            stats.recordCall(System.nanoTime() - startNanos, failed);
+            if (parent == null) {
+                CURRENT.remove();
+                for (ActionObserver observer : OBSERVERS) {
+                    observer.actionFinished(stats.getName(), failed);
+                }
+            } else {
+                // Nested operations also count towards the caller's round trips.
+                parent.roundTrips += roundTrips;
+                parent.stats.recordSqlRoundTrips(roundTrips);
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
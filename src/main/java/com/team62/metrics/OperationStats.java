@@ -0,0 +1,105 @@
+package com.team62.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram for a single operation (e.g. {@code processOrder}).
+ */
+public class OperationStats implements OperationStatsMXBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder sqlRoundTrips = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    void recordCall(long nanos, boolean failed) {
+        calls.increment();
+        latency.recordNanos(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    void recordSqlRoundTrips(int count) {
+        sqlRoundTrips.add(count);
+    }
+
+    void recordConnectionOpened() {
+        connectionsOpened.increment();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getSqlRoundTrips() {
+        return sqlRoundTrips.sum();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanMicros() / 1000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getPercentileMicros(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.getPercentileMicros(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getPercentileMicros(99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxMicros() / 1000.0;
+    }
+
+    @Override
+    public double getRoundTripsPerCall() {
+        long n = calls.sum();
+        return n == 0 ? 0.0 : sqlRoundTrips.sum() / (double) n;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        errors.reset();
+        sqlRoundTrips.reset();
+        connectionsOpened.reset();
+    }
+}
@@ -0,0 +1,32 @@
+package com.team62.metrics;
+
+/**
+ * JMX view of one instrumented controller operation.
+ * Registered as {@code com.team62:type=Operation,name=<operation>}.
+ */
+public interface OperationStatsMXBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getSqlRoundTrips();
+
+    long getConnectionsOpened();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    double getRoundTripsPerCall();
+
+    void reset();
+}
@@ -0,0 +1,71 @@
+package com.team62.model;
+
+/**
+ * Loyalty customer looked up at checkout.
+ *
+ * {@code dbId} holds the real UUID primary key from the database; {@code points} is the
+ * current loyalty balance.
+ */
+public class Customer {
+    private String dbId;
+    private String name;
+    private String phoneNumber;
+    private String email;
+    private int points;
+
+    public Customer() {
+    }
+
+    public Customer(String dbId, String name, String phoneNumber, String email, int points) {
+        this.dbId = dbId;
+        this.name = name;
+        this.phoneNumber = phoneNumber;
+        this.email = email;
+        this.points = points;
+    }
+
+    public String getDbId() {
+        return dbId;
+    }
+
+    public void setDbId(String dbId) {
+        this.dbId = dbId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + points + " pts)";
+    }
+}
@@ -7,15 +7,17 @@ import java.math.BigDecimal;
  *
  * {@code menuItemId} is a simple UI-friendly integer id used only inside the JavaFX
  * application. {@code dbId} holds the real UUID primary key from the database.
+ * The price is kept in cents ({@link Money}).
  */
 public class MenuItem {
     private int menuItemId;
     private String dbId; // backing UUID from "Item".item_id (as String)
     private String name;
     private String category;
-    private BigDecimal basePrice;
+    private long basePriceCents;
     private boolean isActive;
     private boolean outOfStock;
+    private int makeable = -1; // how many the stock on hand can make; -1 when no ingredient limits it
     
     public MenuItem() {
     }
@@ -24,7 +26,7 @@ public class MenuItem {
         this.menuItemId = menuItemId;
         this.name = name;
         this.category = category;
-        this.basePrice = basePrice;
+        this.basePriceCents = Money.of(basePrice);
         this.isActive = isActive;
     }
     
@@ -62,11 +64,15 @@ public class MenuItem {
     }
     
     public BigDecimal getBasePrice() {
-        return basePrice;
+        return Money.toBigDecimal(basePriceCents);
     }
     
     public void setBasePrice(BigDecimal basePrice) {
-        this.basePrice = basePrice;
+        this.basePriceCents = Money.of(basePrice);
+    }
+    
+    public long getBasePriceCents() {
+        return basePriceCents;
     }
     
     public boolean isActive() {
@@ -79,7 +85,7 @@ public class MenuItem {
     
     @Override
     public String toString() {
-        return name + " - $" + basePrice;
+        return name + " - $" + Money.format(basePriceCents);
     }
 
     public boolean isOutOfStock() { 
@@ -89,4 +95,12 @@ public class MenuItem {
     public void setOutOfStock(boolean outOfStock) { 
         this.outOfStock = outOfStock; 
     }
+
+    public int getMakeable() {
+        return makeable;
+    }
+
+    public void setMakeable(int makeable) {
+        this.makeable = makeable;
+    }
 }
@@ -0,0 +1,268 @@
+package com.team62.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drink customizations (milk, ice, sugar, toppings) and their upcharges, defined once in
+ * {@code pos_modifier} and compiled into flat price tables per menu item.
+ *
+ * Each modifier owns one bit (its {@code modifier_id}, 0-62), so a line's customization is
+ * one {@code long} mask, stored in {@code "Order_Item".modifiers}. Milk, ice and sugar
+ * take exactly one choice each; a line that leaves one out gets the default
+ * ({@code is_default}). Toppings are optional, at most {@code team62.modifiers.maxToppings}
+ * (default 3). {@code pos_item_modifier} can take a modifier away from an item
+ * ({@code allowed = FALSE}) or give it another upcharge there; every other active
+ * modifier applies to every item.
+ *
+ * A {@link Table} holds each item's allowed mask, default mask and per-bit upcharge in
+ * cents, so pricing and checking a line is a few bit operations. The backend's
+ * {@code ModifierRepository} builds it with {@link #compile}. Lines written before
+ * modifiers existed have mask 0.
+ */
+public final class Modifiers {
+
+    /** A kind of modifier; a line takes exactly one of an exclusive group. */
+    public enum Group {
+        MILK(true), ICE(true), SUGAR(true), TOPPING(false);
+
+        private final boolean exclusive;
+
+        Group(boolean exclusive) {
+            this.exclusive = exclusive;
+        }
+
+        public boolean isExclusive() {
+            return exclusive;
+        }
+
+        public String label() {
+            return name().charAt(0) + name().substring(1).toLowerCase();
+        }
+    }
+
+    /** Modifier ids run from 0 to this, so masks stay positive. */
+    public static final int MAX_ID = 62;
+    public static final int MAX_TOPPINGS = Integer.getInteger("team62.modifiers.maxToppings", 3);
+
+    /** A table with no modifiers and no items, for a backend without them or a database that cannot be read. */
+    public static final Table EMPTY = new Table(List.of());
+
+    private Modifiers() {
+    }
+
+    /**
+     * One modifier.
+     */
+    public record Modifier(int id, Group group, String name, long upchargeCents, boolean isDefault) {
+        public long bit() {
+            return 1L << id;
+        }
+    }
+
+    /**
+     * One item's compiled prices.
+     */
+    private static final class Item {
+        final long baseCents;
+        final long allowed;
+        final long defaults;
+        final int[] upchargeCents = new int[MAX_ID + 1];
+
+        Item(long baseCents, long allowed, long defaults) {
+            this.baseCents = baseCents;
+            this.allowed = allowed;
+            this.defaults = defaults;
+        }
+    }
+
+    /**
+     * An immutable set of modifiers with every item's compiled prices.
+     */
+    public static final class Table {
+        private final List<Modifier> modifiers;
+        private final Modifier[] byId = new Modifier[MAX_ID + 1];
+        private final long[] groupMasks = new long[Group.values().length];
+        private final Map<String, Item> items = new HashMap<>();
+
+        private Table(List<Modifier> modifiers) {
+            this.modifiers = List.copyOf(modifiers);
+            for (Modifier m : modifiers) {
+                byId[m.id()] = m;
+                groupMasks[m.group().ordinal()] |= m.bit();
+            }
+        }
+
+        /**
+         * @return every active modifier, by id
+         */
+        public List<Modifier> modifiers() {
+            return modifiers;
+        }
+
+        /**
+         * @return the modifiers {@code itemId} ({@code "Item".item_id}) can take, by id;
+         *         none for an item this table does not know
+         */
+        public List<Modifier> allowed(String itemId) {
+            Item item = items.get(itemId);
+            List<Modifier> result = new ArrayList<>();
+            for (long m = item == null ? 0 : item.allowed; m != 0; m &= m - 1) {
+                result.add(byId[Long.numberOfTrailingZeros(m)]);
+            }
+            return result;
+        }
+
+        public boolean knows(String itemId) {
+            return items.containsKey(itemId);
+        }
+
+        /**
+         * @return {@code mask} with the item's default for each exclusive group it leaves
+         *         out; {@code mask} itself for an unknown item
+         */
+        public long complete(String itemId, long mask) {
+            Item item = items.get(itemId);
+            if (item == null) {
+                return mask;
+            }
+            for (Group group : Group.values()) {
+                long groupMask = groupMasks[group.ordinal()];
+                if (group.isExclusive() && (mask & groupMask) == 0) {
+                    mask |= item.defaults & groupMask;
+                }
+            }
+            return mask;
+        }
+
+        /**
+         * @return why {@code mask} (already {@link #complete completed}) is not a valid
+         *         customization of the item, or null if it is
+         */
+        public String check(String itemId, long mask) {
+            Item item = items.get(itemId);
+            if (item == null) {
+                return mask == 0 ? null : "unknown item";
+            }
+            long notAllowed = mask & ~item.allowed;
+            if (notAllowed != 0) {
+                int id = Long.numberOfTrailingZeros(notAllowed);
+                Modifier modifier = id <= MAX_ID ? byId[id] : null;
+                return (modifier == null ? "modifier " + id : modifier.name()) + " is not available";
+            }
+            for (Group group : Group.values()) {
+                int chosen = Long.bitCount(mask & groupMasks[group.ordinal()]);
+                if (group.isExclusive() && chosen > 1) {
+                    return "choose one " + group.label().toLowerCase();
+                }
+                if (!group.isExclusive() && chosen > MAX_TOPPINGS) {
+                    return "at most " + MAX_TOPPINGS + " " + group.label().toLowerCase() + "s";
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the item's price with {@code mask}'s upcharges, in cents; the item's
+         *         defaults count when {@code mask} leaves a group out
+         */
+        public long unitCents(String itemId, long mask) {
+            Item item = items.get(itemId);
+            if (item == null) {
+                return 0;
+            }
+            long cents = item.baseCents;
+            for (long m = complete(itemId, mask) & item.allowed; m != 0; m &= m - 1) {
+                cents += item.upchargeCents[Long.numberOfTrailingZeros(m)];
+            }
+            return cents;
+        }
+
+        /**
+         * @return what {@code modifier} adds to the item's price
+         */
+        public BigDecimal upcharge(String itemId, Modifier modifier) {
+            Item item = items.get(itemId);
+            return Money.toBigDecimal(item == null ? modifier.upchargeCents() : item.upchargeCents[modifier.id()]);
+        }
+
+        /**
+         * @return the choices in {@code mask} that differ from the item's defaults, e.g.
+         *         {@code "Oat milk, Less ice, +Pudding"}; empty for the standard drink
+         */
+        public String describe(String itemId, long mask) {
+            Item item = items.get(itemId);
+            long changed = mask & ~(item == null ? 0 : item.defaults);
+            List<String> parts = new ArrayList<>();
+            for (long m = changed; m != 0; m &= m - 1) {
+                Modifier modifier = byId[Long.numberOfTrailingZeros(m)];
+                if (modifier != null) {
+                    parts.add(modifier.group().isExclusive() ? modifier.name() : "+" + modifier.name());
+                }
+            }
+            return String.join(", ", parts);
+        }
+
+        /**
+         * @return the mask of the given modifier ids, or -1 if one is not a modifier
+         */
+        public long mask(Collection<Integer> ids) {
+            long mask = 0;
+            for (int id : ids) {
+                if (id < 0 || id > MAX_ID || byId[id] == null) {
+                    return -1;
+                }
+                mask |= byId[id].bit();
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * Compiles every item's prices.
+     *
+     * @param modifiers the active modifiers
+     * @param prices    each item's price in cents without modifiers, by {@code "Item".item_id}
+     * @param denied    per item, the mask of modifiers it cannot take
+     * @param overrides per item, upcharges in cents that replace the modifier's own, by modifier id
+     */
+    public static Table compile(List<Modifier> modifiers, Map<String, Long> prices, Map<String, Long> denied,
+                                Map<String, Map<Integer, Long>> overrides) {
+        Table table = new Table(modifiers);
+        long active = 0;
+        for (Modifier m : modifiers) {
+            active |= m.bit();
+        }
+        for (var entry : prices.entrySet()) {
+            String itemId = entry.getKey();
+            long allowed = active & ~denied.getOrDefault(itemId, 0L);
+            // Each exclusive group's default, or its first allowed choice if the default is not.
+            long defaults = 0;
+            for (Group group : Group.values()) {
+                long groupAllowed = allowed & table.groupMasks[group.ordinal()];
+                if (!group.isExclusive() || groupAllowed == 0) {
+                    continue;
+                }
+                long fallback = Long.lowestOneBit(groupAllowed);
+                for (Modifier m : modifiers) {
+                    if (m.group() == group && m.isDefault() && (groupAllowed & m.bit()) != 0) {
+                        fallback = m.bit();
+                        break;
+                    }
+                }
+                defaults |= fallback;
+            }
+            Item item = new Item(entry.getValue(), allowed, defaults);
+            Map<Integer, Long> itemOverrides = overrides.getOrDefault(itemId, Map.of());
+            for (Modifier m : modifiers) {
+                item.upchargeCents[m.id()] = (int) (long) itemOverrides.getOrDefault(m.id(), m.upchargeCents());
+            }
+            table.items.put(itemId, item);
+        }
+        return table;
+    }
+}
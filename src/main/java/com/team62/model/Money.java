@@ -0,0 +1,86 @@
+package com.team62.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a {@code long} count of cents, with the arithmetic prices, carts and reports need.
+ *
+ * Every amount in the database is {@code NUMERIC(_,2)}, so cents are exact. Java has no
+ * value types yet, and a wrapper object would allocate as much as the {@link BigDecimal}
+ * it replaces, so amounts are plain {@code long}s and this class only has static methods.
+ * {@link BigDecimal} is still used at the edges: JDBC columns, JSON and user input.
+ *
+ * Rounding is half up (half away from zero), like {@code BigDecimal}'s
+ * {@link RoundingMode#HALF_UP} and Postgres' {@code NUMERIC} rounding. Overflow throws
+ * {@link ArithmeticException} instead of wrapping.
+ */
+public final class Money {
+
+    /** Rates are given in basis points: 1/10000, so 8% is 800. */
+    public static final long BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * @return {@code amount} in cents, rounded half up; 0 for null
+     */
+    public static long of(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * @return {@code cents} times {@code basisPoints}/10000, rounded half up to a cent
+     */
+    public static long rate(long cents, long basisPoints) {
+        long product = Math.multiplyExact(cents, basisPoints);
+        long whole = product / BASIS_POINTS;
+        long rest = product % BASIS_POINTS;
+        if (Math.abs(rest) * 2 >= BASIS_POINTS) {
+            whole += Long.signum(product);
+        }
+        return whole;
+    }
+
+    /**
+     * @return {@code rate} (e.g. 0.0825) in basis points
+     * @throws ArithmeticException if it has more than four decimal places
+     */
+    public static long basisPoints(BigDecimal rate) {
+        return rate.movePointRight(4).longValueExact();
+    }
+
+    /**
+     * @return e.g. {@code "1234.50"} or {@code "-0.05"}, the same text as
+     *         {@code toBigDecimal(cents).toString()}
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+
+    /**
+     * Appends {@link #format(long) format(cents)} to {@code sb} without creating any objects.
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        // Work with negative numbers, which reach further than positive ones (Long.MIN_VALUE).
+        long negative = cents < 0 ? cents : -cents;
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long rest = -(negative % 100);
+        sb.append(-(negative / 100)).append('.');
+        if (rest < 10) {
+            sb.append('0');
+        }
+        return sb.append(rest);
+    }
+}
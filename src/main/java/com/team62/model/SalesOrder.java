@@ -6,13 +6,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Model representing a sales order
+ * Model representing a sales order. The total is kept in cents ({@link Money}).
  */
 public class SalesOrder {
     private long orderId;
     private Timestamp orderDatetime;
-    private BigDecimal totalAmount;
+    private long totalCents;
     private String paymentMethod;
+    private String customerDbId;
+    private String orderKey;
     private List<SalesOrderItem> orderItems;
     
     public SalesOrder() {
@@ -22,7 +24,7 @@ public class SalesOrder {
     public SalesOrder(long orderId, Timestamp orderDatetime, BigDecimal totalAmount, String paymentMethod) {
         this.orderId = orderId;
         this.orderDatetime = orderDatetime;
-        this.totalAmount = totalAmount;
+        this.totalCents = Money.of(totalAmount);
         this.paymentMethod = paymentMethod;
         this.orderItems = new ArrayList<>();
     }
@@ -45,11 +47,19 @@ public class SalesOrder {
     }
     
     public BigDecimal getTotalAmount() {
-        return totalAmount;
+        return Money.toBigDecimal(totalCents);
     }
     
     public void setTotalAmount(BigDecimal totalAmount) {
-        this.totalAmount = totalAmount;
+        this.totalCents = Money.of(totalAmount);
+    }
+    
+    public long getTotalCents() {
+        return totalCents;
+    }
+    
+    public void setTotalCents(long totalCents) {
+        this.totalCents = totalCents;
     }
     
     public String getPaymentMethod() {
@@ -60,6 +70,30 @@ public class SalesOrder {
         this.paymentMethod = paymentMethod;
     }
     
+    /**
+     * @return the loyalty customer's UUID, or null for a walk-up sale
+     */
+    public String getCustomerDbId() {
+        return customerDbId;
+    }
+    
+    public void setCustomerDbId(String customerDbId) {
+        this.customerDbId = customerDbId;
+    }
+    
+    /**
+     * @return the UUID the order is recorded under, chosen by the register before the
+     *         first attempt so a retry with the same key is never recorded twice; null
+     *         to have one assigned
+     */
+    public String getOrderKey() {
+        return orderKey;
+    }
+    
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+    
     public List<SalesOrderItem> getOrderItems() {
         return orderItems;
     }
@@ -6,7 +6,9 @@ import java.math.BigDecimal;
  * Model representing a sales order item.
  *
  * {@code menuItemId} is the UI id; {@code itemDbId} stores the real UUID
- * primary key from the {@code "Item"} table as a String.
+ * primary key from the {@code "Item"} table as a String. {@code modifiers} is the
+ * line's milk/ice/sugar/topping choices as a bit mask (see {@code Modifiers}), 0 for
+ * the item's standard build. The unit price is kept in cents ({@link Money}).
  */
 public class SalesOrderItem {
     private long orderItemId;
@@ -14,17 +16,22 @@ public class SalesOrderItem {
     private int menuItemId;
     private String itemDbId;
     private int quantity;
-    private BigDecimal unitPrice;
+    private long unitPriceCents;
+    private long modifiers;
     
     public SalesOrderItem() {
     }
     
     public SalesOrderItem(long orderItemId, long orderId, int menuItemId, int quantity, BigDecimal unitPrice) {
+        this(orderItemId, orderId, menuItemId, quantity, Money.of(unitPrice));
+    }
+    
+    public SalesOrderItem(long orderItemId, long orderId, int menuItemId, int quantity, long unitPriceCents) {
         this.orderItemId = orderItemId;
         this.orderId = orderId;
         this.menuItemId = menuItemId;
         this.quantity = quantity;
-        this.unitPrice = unitPrice;
+        this.unitPriceCents = unitPriceCents;
     }
     
     // Getters and Setters
@@ -69,14 +76,34 @@ public class SalesOrderItem {
     }
     
     public BigDecimal getUnitPrice() {
-        return unitPrice;
+        return Money.toBigDecimal(unitPriceCents);
     }
     
     public void setUnitPrice(BigDecimal unitPrice) {
-        this.unitPrice = unitPrice;
+        this.unitPriceCents = Money.of(unitPrice);
+    }
+    
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+    
+    public void setUnitPriceCents(long unitPriceCents) {
+        this.unitPriceCents = unitPriceCents;
+    }
+    
+    public long getModifiers() {
+        return modifiers;
+    }
+    
+    public void setModifiers(long modifiers) {
+        this.modifiers = modifiers;
     }
     
     public BigDecimal getLineTotal() {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        return Money.toBigDecimal(getLineTotalCents());
+    }
+    
+    public long getLineTotalCents() {
+        return Money.times(unitPriceCents, quantity);
     }
 }
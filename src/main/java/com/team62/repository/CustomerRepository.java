@@ -0,0 +1,28 @@
+package com.team62.repository;
+
+import com.team62.model.Customer;
+import com.team62.model.SalesOrder;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Loyalty customers and their point balances.
+ */
+public interface CustomerRepository {
+
+    /**
+     * @param phoneOrEmail an email (contains '@', any case) or an exact phone number
+     * @return the customer with their current points, or null if there is none
+     */
+    Customer find(String phoneOrEmail) throws SQLException;
+
+    /**
+     * Enrolls {@code customer} with a zero balance and sets its database id.
+     */
+    void add(Customer customer) throws SQLException;
+
+    /**
+     * @return the customer's latest {@code limit} orders, newest first (order id is a row number)
+     */
+    List<SalesOrder> recentOrders(String customerId, int limit) throws SQLException;
+}
@@ -0,0 +1,28 @@
+package com.team62.repository;
+
+import com.team62.model.Employee;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Staff ({@code "Employee"}).
+ */
+public interface EmployeeRepository {
+
+    /**
+     * @return every employee, by name
+     */
+    List<Employee> findAll() throws SQLException;
+
+    /**
+     * Inserts {@code employee}, starting today, and sets its database id.
+     */
+    void add(Employee employee) throws SQLException;
+
+    void update(Employee employee) throws SQLException;
+
+    /**
+     * @return false, deleting nothing, if the employee appears in recorded orders
+     */
+    boolean delete(String employeeId) throws SQLException;
+}
@@ -0,0 +1,959 @@
+package com.team62.repository;
+
+import com.team62.db.Stores;
+import com.team62.db.Uuid7;
+import com.team62.model.Customer;
+import com.team62.model.Employee;
+import com.team62.model.InventoryItem;
+import com.team62.model.InventoryUsage;
+import com.team62.model.MenuItem;
+import com.team62.model.Modifiers;
+import com.team62.model.Money;
+import com.team62.model.SalesOrder;
+import com.team62.model.SalesOrderItem;
+import com.team62.repository.ReportRepository.ClosedDay;
+import com.team62.repository.ReportRepository.DayTotals;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Every repository held in memory: no database, nothing kept after exit. For training and
+ * demos, and for benchmarks, load tests and profiles of the business rules without the
+ * I/O. Each {@link #create} starts from the same seeded menu, stock, staff and walk-up
+ * customer, so runs are repeatable; give it a fixed {@link Clock} to pin the dates too.
+ *
+ * The rules are the Postgres backend's: an order key is recorded once, an order takes all
+ * of its ingredients or fails with the same shortfall message, items are taken off the
+ * menu when an ingredient falls to its minimum, and a closed day keeps its activity so it
+ * can be reopened. One lock guards all of the state.
+ *
+ * Every seeded ingredient starts at {@code -Dteam62.memory.stock} (default 10000) units.
+ */
+public final class InMemoryRepositories {
+
+    private static final int STOCK = Integer.getInteger("team62.memory.stock", 10_000);
+    private static final int POINTS_PER_DOLLAR = Integer.getInteger("team62.loyalty.pointsPerDollar", 1);
+    private static final int FORECAST_WEEKS = Math.max(1, Integer.getInteger("team62.forecast.weeks", 6));
+    private static final int LEAD_DAYS = Integer.getInteger("team62.forecast.leadDays", 2);
+    private static final int COVER_DAYS = Integer.getInteger("team62.forecast.coverDays", 7);
+    private static final int HORIZON_DAYS = 28;
+
+    private static final class Item {
+        final String id = Uuid7.next().toString();
+        String name;
+        String category;
+        BigDecimal price;
+        boolean active = true;
+    }
+
+    private static final class Ingredient {
+        final String id = Uuid7.next().toString();
+        String name;
+        String unit;
+        int quantity;
+        int minimum;
+        boolean onMenu;
+        BigDecimal basePrice = BigDecimal.ZERO;
+        // The item addToMenu made for this ingredient, if any.
+        String menuItemId;
+    }
+
+    private static final class Member {
+        final String id = Uuid7.next().toString();
+        String name;
+        String phone;
+        String email;
+        int points;
+    }
+
+    private record Staff(String id, String name, String role, boolean active) {
+    }
+
+    private record Line(String itemId, String itemName, int quantity, long unitCents) {
+    }
+
+    private record Sale(String orderId, String customerId, OffsetDateTime time, LocalDate date, long total, long tax,
+            int items, String payment, List<Line> lines) {
+    }
+
+    private record Need(int line, String itemName, String inventoryId, int quantity) {
+    }
+
+    private record Used(LocalDate date, String inventoryId, int quantity) {
+    }
+
+    private record Activity(OffsetDateTime time, long amount, long tax, String payment, int items) {
+    }
+
+    private record Closed(OffsetDateTime closedAt, DayTotals totals, List<Activity> rows) {
+    }
+
+    private final Object lock = new Object();
+    private final Clock clock;
+    private final Map<String, Item> items = new LinkedHashMap<>();
+    private final Map<String, Ingredient> ingredients = new LinkedHashMap<>();
+    // Item id to ingredient id to units per drink.
+    private final Map<String, Map<String, Integer>> recipes = new HashMap<>();
+    private final Map<String, Staff> staff = new LinkedHashMap<>();
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    private final Set<String> orderKeys = new HashSet<>();
+    private final List<Sale> sales = new ArrayList<>();
+    private final List<Used> usage = new ArrayList<>();
+    private final Map<LocalDate, List<Activity>> activity = new HashMap<>();
+    private final Map<LocalDate, Closed> closed = new TreeMap<>();
+    private final Map<LocalDate, String> zReports = new HashMap<>();
+    private final Set<String> atMinimum = new HashSet<>();
+    private final String cashier;
+    private final String walkUp;
+
+    private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "memory-86");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private InMemoryRepositories(Clock clock) {
+        this.clock = clock;
+        cashier = hire("Demo Employee", "Cashier");
+        hire("Alex Manager", "Manager");
+        hire("Sam Cashier", "Cashier");
+        Member guest = new Member();
+        guest.name = "Walk-up Customer";
+        members.put(guest.id, guest);
+        walkUp = guest.id;
+        seedMenu();
+    }
+
+    public static Repositories create() {
+        return create(Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock stamps every order and decides which day is today
+     */
+    public static Repositories create(Clock clock) {
+        InMemoryRepositories state = new InMemoryRepositories(clock);
+        return new Repositories(Repositories.MEMORY, Set.of(Stores.terminal()), state.new Menu(),
+                state.new Inventory(), state.new Recipes(), state.new Orders(), state.new Employees(),
+                state.new Customers(), state.new Reports(), new NoModifiers());
+    }
+
+    private String hire(String name, String role) {
+        Staff s = new Staff(Uuid7.next().toString(), name, role, true);
+        staff.put(s.id(), s);
+        return s.id();
+    }
+
+    private void seedMenu() {
+        String[][] stock = {
+                {"Black Tea", "oz"}, {"Green Tea", "oz"}, {"Oolong Tea", "oz"}, {"Milk", "oz"},
+                {"Tapioca Pearls", "scoops"}, {"Taro Powder", "scoops"}, {"Mango Syrup", "pumps"},
+                {"Brown Sugar Syrup", "pumps"}, {"Matcha Powder", "scoops"}, {"Cups", "units"}};
+        for (String[] s : stock) {
+            ingredient(s[0], s[1], STOCK, STOCK / 50);
+        }
+        drink("Classic Milk Tea", "Milk Tea", "4.75", "Black Tea", 8, "Milk", 4, "Tapioca Pearls", 1);
+        drink("Taro Milk Tea", "Milk Tea", "5.25", "Taro Powder", 2, "Milk", 8, "Tapioca Pearls", 1);
+        drink("Brown Sugar Milk Tea", "Milk Tea", "5.50", "Black Tea", 6, "Milk", 6, "Brown Sugar Syrup", 2);
+        drink("Mango Milk Tea", "Milk Tea", "5.50", "Green Tea", 6, "Milk", 4, "Mango Syrup", 2);
+        drink("Oolong Milk Tea", "Milk Tea", "5.50", "Oolong Tea", 8, "Milk", 4);
+        drink("Jasmine Green Tea", "Brewed Tea", "3.75", "Green Tea", 12);
+        drink("Oolong Tea", "Brewed Tea", "3.75", "Oolong Tea", 12);
+        drink("Mango Green Tea", "Fruit Tea", "5.25", "Green Tea", 10, "Mango Syrup", 3);
+        drink("Brown Sugar Boba Milk", "Specialty", "5.75", "Milk", 12, "Brown Sugar Syrup", 3, "Tapioca Pearls", 2);
+        drink("Matcha Latte", "Specialty", "5.75", "Matcha Powder", 2, "Milk", 10);
+    }
+
+    private Ingredient ingredient(String name, String unit, int quantity, int minimum) {
+        Ingredient ing = new Ingredient();
+        ing.name = name;
+        ing.unit = unit;
+        ing.quantity = quantity;
+        ing.minimum = minimum;
+        ingredients.put(ing.id, ing);
+        return ing;
+    }
+
+    // recipe: ingredient name, units, ... ; every drink also takes one cup.
+    private void drink(String name, String category, String price, Object... recipe) {
+        Item item = new Item();
+        item.name = name;
+        item.category = category;
+        item.price = new BigDecimal(price);
+        items.put(item.id, item);
+        Map<String, Integer> uses = new LinkedHashMap<>();
+        for (int i = 0; i < recipe.length; i += 2) {
+            uses.put(byName((String) recipe[i]).id, (Integer) recipe[i + 1]);
+        }
+        uses.put(byName("Cups").id, 1);
+        recipes.put(item.id, uses);
+    }
+
+    private Ingredient byName(String name) {
+        for (Ingredient ing : ingredients.values()) {
+            if (ing.name.equalsIgnoreCase(name)) {
+                return ing;
+            }
+        }
+        return null;
+    }
+
+    private MenuItem toMenuItem(Item item, int uiId) {
+        MenuItem mi = new MenuItem(uiId, item.name, item.category, item.price, item.active);
+        mi.setDbId(item.id);
+        return mi;
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    // ============================
+    // Menu, stock and recipes
+    // ============================
+
+    private final class Menu implements MenuRepository {
+
+        @Override
+        public List<MenuItem> findActive() {
+            synchronized (lock) {
+                List<Item> active = new ArrayList<>();
+                for (Item item : items.values()) {
+                    if (item.active) {
+                        active.add(item);
+                    }
+                }
+                active.sort(Comparator.comparing(i -> i.name));
+                List<MenuItem> out = new ArrayList<>();
+                for (Item item : active) {
+                    out.add(toMenuItem(item, out.size() + 1));
+                }
+                return out;
+            }
+        }
+
+        @Override
+        public void add(MenuItem item) {
+            synchronized (lock) {
+                Item row = new Item();
+                row.name = item.getName();
+                row.category = item.getCategory();
+                row.price = item.getBasePrice();
+                row.active = item.isActive();
+                items.put(row.id, row);
+                item.setDbId(row.id);
+            }
+        }
+
+        @Override
+        public void addWithIngredients(MenuItem item, List<String> ingredientNames, int quantityUsed,
+                int startingQuantity, int minQuantity) {
+            synchronized (lock) {
+                Item row = new Item();
+                row.name = item.getName();
+                row.category = item.getCategory();
+                row.price = item.getBasePrice();
+                Map<String, Integer> uses = new LinkedHashMap<>();
+                for (String name : ingredientNames) {
+                    Ingredient ing = byName(name);
+                    if (ing == null) {
+                        ing = ingredient(name, "units", startingQuantity, minQuantity);
+                    }
+                    uses.put(ing.id, quantityUsed);
+                }
+                items.put(row.id, row);
+                recipes.put(row.id, uses);
+                item.setDbId(row.id);
+            }
+        }
+
+        @Override
+        public void update(MenuItem item) {
+            synchronized (lock) {
+                Item row = items.get(item.getDbId());
+                if (row != null) {
+                    row.name = item.getName();
+                    row.category = item.getCategory();
+                    row.price = item.getBasePrice();
+                    row.active = item.isActive();
+                }
+            }
+        }
+
+        @Override
+        public boolean delete(String itemId) {
+            synchronized (lock) {
+                for (Sale sale : sales) {
+                    for (Line line : sale.lines()) {
+                        if (line.itemId().equals(itemId)) {
+                            return false;
+                        }
+                    }
+                }
+                items.remove(itemId);
+                recipes.remove(itemId);
+                return true;
+            }
+        }
+
+        @Override
+        public void addFromInventory(String inventoryId, String name, String category, BigDecimal price) {
+            synchronized (lock) {
+                Ingredient ing = ingredients.get(inventoryId);
+                if (ing == null) {
+                    return;
+                }
+                Item row = ing.menuItemId == null ? null : items.get(ing.menuItemId);
+                if (row == null) {
+                    row = new Item();
+                    row.name = name;
+                    row.category = category;
+                    items.put(row.id, row);
+                    recipes.put(row.id, new LinkedHashMap<>(Map.of(inventoryId, 1)));
+                    ing.menuItemId = row.id;
+                }
+                row.active = true;
+                row.price = price;
+                ing.onMenu = true;
+                ing.basePrice = price;
+            }
+        }
+
+        @Override
+        public void removeFromInventory(String inventoryId) {
+            synchronized (lock) {
+                Ingredient ing = ingredients.get(inventoryId);
+                if (ing == null) {
+                    return;
+                }
+                Item row = ing.menuItemId == null ? null : items.get(ing.menuItemId);
+                if (row != null) {
+                    row.active = false;
+                }
+                ing.onMenu = false;
+            }
+        }
+    }
+
+    private final class Inventory implements InventoryRepository {
+
+        @Override
+        public List<InventoryItem> findAll() {
+            synchronized (lock) {
+                List<InventoryItem> out = new ArrayList<>();
+                for (Ingredient ing : ingredients.values()) {
+                    InventoryItem inv = new InventoryItem(out.size() + 1, ing.name, ing.unit, ing.quantity,
+                            ing.minimum, ing.minimum, true);
+                    inv.setDbId(ing.id);
+                    inv.setOnMenu(ing.onMenu);
+                    inv.setBasePrice(ing.basePrice);
+                    out.add(inv);
+                }
+                return out;
+            }
+        }
+
+        @Override
+        public void add(InventoryItem item) {
+            synchronized (lock) {
+                Ingredient ing = ingredient(item.getName(), item.getUnit() == null ? "" : item.getUnit(),
+                        item.getCurrentQuantity(), item.getParLevel());
+                item.setDbId(ing.id);
+            }
+        }
+
+        @Override
+        public void update(InventoryItem item) {
+            synchronized (lock) {
+                Ingredient ing = ingredients.get(item.getDbId());
+                if (ing != null) {
+                    ing.name = item.getName();
+                    ing.unit = item.getUnit() == null ? "" : item.getUnit();
+                    ing.quantity = item.getCurrentQuantity();
+                    ing.minimum = item.getParLevel();
+                }
+            }
+        }
+
+        @Override
+        public void delete(String inventoryId) {
+            synchronized (lock) {
+                ingredients.remove(inventoryId);
+                atMinimum.remove(inventoryId);
+                for (Map<String, Integer> uses : recipes.values()) {
+                    uses.remove(inventoryId);
+                }
+                usage.removeIf(u -> u.inventoryId().equals(inventoryId));
+            }
+        }
+    }
+
+    private final class Recipes implements RecipeRepository {
+
+        @Override
+        public void applyStock(List<MenuItem> menu) {
+            synchronized (lock) {
+                for (MenuItem item : menu) {
+                    Map<String, Integer> uses = recipes.get(item.getDbId());
+                    if (uses != null && !uses.isEmpty()) {
+                        int makeable = makeable(uses);
+                        item.setMakeable(makeable);
+                        item.setOutOfStock(makeable == 0 || atMinimum(uses));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int makeable(String itemId) {
+            synchronized (lock) {
+                Map<String, Integer> uses = recipes.get(itemId);
+                return uses == null || uses.isEmpty() ? -1 : makeable(uses);
+            }
+        }
+
+        private int makeable(Map<String, Integer> uses) {
+            int count = Integer.MAX_VALUE;
+            for (var use : uses.entrySet()) {
+                count = Math.min(count, Math.max(ingredients.get(use.getKey()).quantity, 0) / use.getValue());
+            }
+            return count;
+        }
+
+        private boolean atMinimum(Map<String, Integer> uses) {
+            for (String id : uses.keySet()) {
+                Ingredient ing = ingredients.get(id);
+                if (ing.quantity <= ing.minimum) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ============================
+    // Orders
+    // ============================
+
+    private final class Orders implements OrderRepository {
+
+        @Override
+        public void addSoldOutListener(Consumer<Set<String>> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public List<OrderResult> write(List<SalesOrder> orders) {
+            List<OrderResult> results = new ArrayList<>(orders.size());
+            Set<String> soldOut = new LinkedHashSet<>();
+            synchronized (lock) {
+                for (SalesOrder order : orders) {
+                    results.add(record(order, soldOut));
+                }
+            }
+            if (!soldOut.isEmpty() && !listeners.isEmpty()) {
+                Set<String> ids = Set.copyOf(soldOut);
+                notifier.execute(() -> listeners.forEach(l -> l.accept(ids)));
+            }
+            return results;
+        }
+
+        private OrderResult record(SalesOrder order, Set<String> soldOut) {
+            if (orderKeys.contains(order.getOrderKey())) {
+                return OrderResult.alreadyRecorded();
+            }
+            String customerId = order.getCustomerDbId() == null ? walkUp : order.getCustomerDbId();
+            Member member = members.get(customerId);
+            if (member == null) {
+                return OrderResult.invalid("Unknown customer " + customerId);
+            }
+
+            // What each line uses, then the total per ingredient.
+            List<String> unlinked = new ArrayList<>();
+            List<Need> needs = new ArrayList<>();
+            Map<String, Integer> totals = new LinkedHashMap<>();
+            List<Line> lines = new ArrayList<>();
+            long subtotal = 0;
+            int itemCount = 0;
+            int lineNo = 0;
+            for (SalesOrderItem line : order.getOrderItems()) {
+                subtotal += line.getLineTotalCents();
+                itemCount += line.getQuantity();
+                if (line.getItemDbId() == null) {
+                    continue;
+                }
+                lineNo++;
+                Item item = items.get(line.getItemDbId());
+                String itemName = item == null ? line.getItemDbId() : item.name;
+                lines.add(new Line(line.getItemDbId(), itemName, line.getQuantity(), line.getUnitPriceCents()));
+                Map<String, Integer> uses = recipes.get(line.getItemDbId());
+                if (uses == null || uses.isEmpty()) {
+                    unlinked.add(itemName + ": no inventory is linked to this item");
+                    continue;
+                }
+                for (var use : uses.entrySet()) {
+                    int quantity = Math.max(line.getQuantity() * use.getValue(), 1);
+                    needs.add(new Need(lineNo, itemName, use.getKey(), quantity));
+                    totals.merge(use.getKey(), quantity, Integer::sum);
+                }
+            }
+            if (!unlinked.isEmpty()) {
+                return OrderResult.insufficientStock(unlinked);
+            }
+            List<String> shortfalls = new ArrayList<>();
+            for (Need need : needs) {
+                Ingredient ing = ingredients.get(need.inventoryId());
+                if (ing.quantity < totals.get(ing.id)) {
+                    shortfalls.add(String.format("Line %d, %s: needs %d %s, only %d left",
+                            need.line(), need.itemName(), need.quantity(), ing.name, Math.max(0, ing.quantity)));
+                }
+            }
+            if (!shortfalls.isEmpty()) {
+                return OrderResult.insufficientStock(shortfalls);
+            }
+
+            OffsetDateTime now = OffsetDateTime.now(clock);
+            LocalDate date = now.toLocalDate();
+            for (var total : totals.entrySet()) {
+                Ingredient ing = ingredients.get(total.getKey());
+                ing.quantity -= total.getValue();
+                usage.add(new Used(date, ing.id, total.getValue()));
+                checkMinimum(ing, soldOut);
+            }
+            orderKeys.add(order.getOrderKey());
+            long tax = Math.max(order.getTotalCents() - subtotal, 0);
+            String payment = order.getPaymentMethod() == null ? "Cash" : order.getPaymentMethod();
+            sales.add(new Sale(order.getOrderKey(), customerId, now, date, order.getTotalCents(), tax, itemCount,
+                    payment, List.copyOf(lines)));
+            activity.computeIfAbsent(date, d -> new ArrayList<>())
+                    .add(new Activity(now, order.getTotalCents(), tax, payment, itemCount));
+            if (order.getCustomerDbId() != null) {
+                member.points += (int) Math.floorDiv(order.getTotalCents() * POINTS_PER_DOLLAR, 100);
+            }
+            return OrderResult.processed();
+        }
+
+        /**
+         * Takes {@code ing}, if it is on the menu, and every active item that uses it off
+         * the menu the first time it reaches its minimum; it is forgotten once a sale sees
+         * it above again.
+         */
+        private void checkMinimum(Ingredient ing, Set<String> soldOut) {
+            if (ing.quantity > ing.minimum) {
+                atMinimum.remove(ing.id);
+                return;
+            }
+            if (!atMinimum.add(ing.id) || !ing.onMenu) {
+                return;
+            }
+            ing.onMenu = false;
+            for (var recipe : recipes.entrySet()) {
+                Item item = items.get(recipe.getKey());
+                if (item != null && item.active && recipe.getValue().containsKey(ing.id)) {
+                    item.active = false;
+                    soldOut.add(item.id);
+                }
+            }
+        }
+    }
+
+    // ============================
+    // Staff and customers
+    // ============================
+
+    private final class Employees implements EmployeeRepository {
+
+        @Override
+        public List<Employee> findAll() {
+            synchronized (lock) {
+                List<Staff> sorted = new ArrayList<>(staff.values());
+                sorted.sort(Comparator.comparing(Staff::name));
+                List<Employee> out = new ArrayList<>();
+                for (Staff s : sorted) {
+                    Employee emp = new Employee(out.size() + 1, s.name(), s.role(), s.active());
+                    emp.setDbId(s.id());
+                    out.add(emp);
+                }
+                return out;
+            }
+        }
+
+        @Override
+        public void add(Employee employee) {
+            synchronized (lock) {
+                Staff s = new Staff(Uuid7.next().toString(), employee.getName(), employee.getRole(), employee.isActive());
+                staff.put(s.id(), s);
+                employee.setDbId(s.id());
+            }
+        }
+
+        @Override
+        public void update(Employee employee) {
+            synchronized (lock) {
+                staff.computeIfPresent(employee.getDbId(),
+                        (id, s) -> new Staff(id, employee.getName(), employee.getRole(), employee.isActive()));
+            }
+        }
+
+        @Override
+        public boolean delete(String employeeId) {
+            synchronized (lock) {
+                // Every order is booked to the demo cashier, as on Postgres.
+                if (employeeId.equals(cashier) && !sales.isEmpty()) {
+                    return false;
+                }
+                staff.remove(employeeId);
+                return true;
+            }
+        }
+    }
+
+    private final class Customers implements CustomerRepository {
+
+        @Override
+        public Customer find(String phoneOrEmail) {
+            synchronized (lock) {
+                boolean email = phoneOrEmail.contains("@");
+                for (Member m : members.values()) {
+                    if (email ? phoneOrEmail.equalsIgnoreCase(m.email) : phoneOrEmail.equals(m.phone)) {
+                        return new Customer(m.id, m.name, m.phone, m.email, m.points);
+                    }
+                }
+                return null;
+            }
+        }
+
+        @Override
+        public void add(Customer customer) {
+            synchronized (lock) {
+                Member m = new Member();
+                m.name = customer.getName();
+                m.phone = customer.getPhoneNumber();
+                m.email = customer.getEmail();
+                members.put(m.id, m);
+                customer.setDbId(m.id);
+                customer.setPoints(0);
+            }
+        }
+
+        @Override
+        public List<SalesOrder> recentOrders(String customerId, int limit) {
+            synchronized (lock) {
+                List<SalesOrder> out = new ArrayList<>();
+                for (int i = sales.size() - 1; i >= 0 && out.size() < limit; i--) {
+                    Sale sale = sales.get(i);
+                    if (sale.customerId().equals(customerId)) {
+                        out.add(new SalesOrder(out.size() + 1, Timestamp.from(sale.time().toInstant()),
+                                Money.toBigDecimal(sale.total()), sale.payment()));
+                    }
+                }
+                return out;
+            }
+        }
+    }
+
+    // ============================
+    // Reports
+    // ============================
+
+    private final class Reports implements ReportRepository {
+
+        @Override
+        public long salesForDate(LocalDate date) {
+            synchronized (lock) {
+                long total = 0;
+                for (Sale sale : sales) {
+                    if (sale.date().equals(date)) {
+                        for (Line line : sale.lines()) {
+                            total += line.unitCents() * line.quantity();
+                        }
+                    }
+                }
+                return total;
+            }
+        }
+
+        @Override
+        public long orderCountForDate(LocalDate date) {
+            synchronized (lock) {
+                return sales.stream().filter(s -> s.date().equals(date)).count();
+            }
+        }
+
+        @Override
+        public List<InventoryUsage> usage(LocalDate start, LocalDate end) {
+            Map<String, Integer> used = new HashMap<>();
+            synchronized (lock) {
+                for (Used u : usage) {
+                    if (!u.date().isBefore(start) && !u.date().isAfter(end)) {
+                        used.merge(ingredients.get(u.inventoryId()).name, u.quantity(), Integer::sum);
+                    }
+                }
+            }
+            List<InventoryUsage> out = new ArrayList<>();
+            used.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .forEach(e -> out.add(new InventoryUsage(e.getKey(), e.getValue())));
+            return out;
+        }
+
+        @Override
+        public DayTotals liveTotals(LocalDate date) {
+            synchronized (lock) {
+                return tally(activity.getOrDefault(date, List.of()));
+            }
+        }
+
+        private DayTotals tally(List<Activity> rows) {
+            int count = 0;
+            int itemCount = 0;
+            long amount = 0;
+            long tax = 0;
+            long cash = 0;
+            int[] hourlyCount = new int[24];
+            long[] hourlySales = new long[24];
+            long[] hourlyTax = new long[24];
+            for (Activity a : rows) {
+                int hour = a.time().atZoneSameInstant(clock.getZone()).getHour();
+                count++;
+                itemCount += a.items();
+                amount += a.amount();
+                tax += a.tax();
+                cash += a.payment().equalsIgnoreCase("cash") ? a.amount() : 0;
+                hourlyCount[hour]++;
+                hourlySales[hour] += a.amount();
+                hourlyTax[hour] += a.tax();
+            }
+            return new DayTotals(count, itemCount, amount, tax, cash, amount - cash, hourlyCount, hourlySales, hourlyTax);
+        }
+
+        @Override
+        public String version(LocalDate date) {
+            return ""; // every change is made in this process, which drops its own reports
+        }
+
+        @Override
+        public ClosedDay closedDay(LocalDate date) {
+            synchronized (lock) {
+                Closed day = closed.get(date);
+                return day == null ? null : new ClosedDay(date, day.closedAt(), day.totals());
+            }
+        }
+
+        @Override
+        public List<ClosedDay> closedDays(LocalDate start, LocalDate end) {
+            synchronized (lock) {
+                List<ClosedDay> out = new ArrayList<>();
+                for (var day : closed.entrySet()) {
+                    if (!day.getKey().isBefore(start) && !day.getKey().isAfter(end)) {
+                        out.add(new ClosedDay(day.getKey(), day.getValue().closedAt(), day.getValue().totals()));
+                    }
+                }
+                return out;
+            }
+        }
+
+        @Override
+        public String zReport(LocalDate date) {
+            synchronized (lock) {
+                return zReports.get(date);
+            }
+        }
+
+        @Override
+        public String closeDay(LocalDate date, Function<DayTotals, String> reportText) {
+            synchronized (lock) {
+                List<Activity> rows = activity.remove(date);
+                rows = rows == null ? List.of() : rows;
+                DayTotals totals = tally(rows);
+                String text = reportText.apply(totals);
+                closed.put(date, new Closed(OffsetDateTime.now(clock), totals, rows));
+                zReports.put(date, text);
+                return text;
+            }
+        }
+
+        /**
+         * Puts the snapshot's rows back. A day reopened without a snapshot is rebuilt
+         * from its orders.
+         */
+        @Override
+        public Reopened reopenDay(LocalDate date) {
+            synchronized (lock) {
+                boolean deleted = zReports.remove(date) != null;
+                Closed day = closed.remove(date);
+                if (day != null) {
+                    activity.computeIfAbsent(date, d -> new ArrayList<>()).addAll(day.rows());
+                    return new Reopened(deleted, true, day.rows().size());
+                }
+                List<Activity> rows = new ArrayList<>();
+                for (Sale sale : sales) {
+                    if (sale.date().equals(date)) {
+                        rows.add(new Activity(sale.time(), sale.total(), sale.tax(), sale.payment(), sale.items()));
+                    }
+                }
+                activity.put(date, rows);
+                return new Reopened(deleted, false, rows.size());
+            }
+        }
+
+        @Override
+        public List<ItemSales> itemSales(LocalDate start, LocalDate end) {
+            Map<String, long[]> byName = new HashMap<>();
+            synchronized (lock) {
+                for (Sale sale : sales) {
+                    if (sale.date().isBefore(start) || sale.date().isAfter(end)) {
+                        continue;
+                    }
+                    for (Line line : sale.lines()) {
+                        Item item = items.get(line.itemId());
+                        long[] t = byName.computeIfAbsent(item == null ? line.itemName() : item.name, n -> new long[2]);
+                        t[0] += line.quantity();
+                        t[1] += line.unitCents() * line.quantity();
+                    }
+                }
+            }
+            List<ItemSales> out = new ArrayList<>();
+            byName.forEach((name, t) -> out.add(new ItemSales(name, (int) t[0], t[1])));
+            out.sort(Comparator.comparingLong(ItemSales::revenue).reversed()
+                    .thenComparing(Comparator.comparingInt(ItemSales::quantity).reversed())
+                    .thenComparing(ItemSales::name));
+            return out;
+        }
+
+        @Override
+        public List<SalesBucket> salesHistory(String resolution, LocalDate start, LocalDate end) {
+            ChronoUnit unit = switch (resolution) {
+                case "minute" -> ChronoUnit.MINUTES;
+                case "hour" -> ChronoUnit.HOURS;
+                case "day" -> ChronoUnit.DAYS;
+                default -> throw new IllegalArgumentException("Unknown resolution: " + resolution);
+            };
+            ZonedDateTime from = start.atStartOfDay(clock.getZone());
+            ZonedDateTime until = end.plusDays(1).atStartOfDay(clock.getZone());
+            ZonedDateTime now = ZonedDateTime.now(clock);
+            Map<ZonedDateTime, long[]> buckets = new HashMap<>();
+            synchronized (lock) {
+                for (Sale sale : sales) {
+                    ZonedDateTime time = sale.time().atZoneSameInstant(clock.getZone());
+                    if (!time.isBefore(from) && time.isBefore(until)) {
+                        long[] b = buckets.computeIfAbsent(time.truncatedTo(unit), t -> new long[3]);
+                        b[0]++;
+                        b[1] += sale.items();
+                        b[2] += sale.total();
+                    }
+                }
+            }
+            List<SalesBucket> out = new ArrayList<>();
+            for (ZonedDateTime t = from; t.isBefore(until) && !t.isAfter(now); t = t.plus(1, unit)) {
+                long[] b = buckets.getOrDefault(t, new long[3]);
+                out.add(new SalesBucket(t.toOffsetDateTime(), (int) b[0], (int) b[1], b[2]));
+            }
+            return out;
+        }
+
+        @Override
+        public List<Shortage> belowMinimum() {
+            synchronized (lock) {
+                List<Shortage> out = new ArrayList<>();
+                for (Ingredient ing : ingredients.values()) {
+                    if (ing.quantity < ing.minimum) {
+                        out.add(new Shortage(ing.name, ing.quantity, ing.minimum, ing.unit));
+                    }
+                }
+                out.sort(Comparator.comparingInt((Shortage s) -> s.minimum() - s.quantity()).reversed()
+                        .thenComparing(Shortage::name));
+                return out;
+            }
+        }
+
+        /**
+         * A flat daily rate over the last {@code team62.forecast.weeks} weeks, where the
+         * Postgres backend models each hour of the week.
+         */
+        @Override
+        public List<RestockLine> restockForecast() {
+            LocalDate since = today().minusDays(FORECAST_WEEKS * 7L - 1);
+            synchronized (lock) {
+                Map<String, Integer> used = new HashMap<>();
+                for (Used u : usage) {
+                    if (!u.date().isBefore(since)) {
+                        used.merge(u.inventoryId(), u.quantity(), Integer::sum);
+                    }
+                }
+                List<RestockLine> out = new ArrayList<>();
+                for (Ingredient ing : ingredients.values()) {
+                    double perDay = used.getOrDefault(ing.id, 0) / (FORECAST_WEEKS * 7.0);
+                    if (perDay == 0 && ing.quantity >= ing.minimum) {
+                        continue;
+                    }
+                    double daysLeft = perDay > 0 ? ing.quantity / perDay : Double.POSITIVE_INFINITY;
+                    if (daysLeft > HORIZON_DAYS) {
+                        daysLeft = Double.POSITIVE_INFINITY;
+                    }
+                    int suggested = (int) Math.ceil(perDay * (LEAD_DAYS + COVER_DAYS) + ing.minimum - ing.quantity);
+                    out.add(new RestockLine(ing.name, ing.unit, ing.quantity, ing.minimum, perDay, daysLeft,
+                            Math.max(suggested, 0)));
+                }
+                out.sort(Comparator.comparingDouble(RestockLine::daysLeft).thenComparing(RestockLine::name));
+                return out;
+            }
+        }
+
+        @Override
+        public Map<String, Integer> recentUnitsSold(int days) {
+            LocalDate since = today().minusDays(days - 1L);
+            synchronized (lock) {
+                Map<String, Integer> units = new HashMap<>();
+                for (Sale sale : sales) {
+                    if (!sale.date().isBefore(since)) {
+                        for (Line line : sale.lines()) {
+                            units.merge(line.itemId(), line.quantity(), Integer::sum);
+                        }
+                    }
+                }
+                return units;
+            }
+        }
+    }
+
+    // ============================
+    // Modifiers
+    // ============================
+
+    /** The demo menu has no modifiers, so only lines without any are valid. */
+    private static final class NoModifiers implements ModifierRepository {
+
+        @Override
+        public Modifiers.Table table() {
+            return Modifiers.EMPTY;
+        }
+
+        @Override
+        public Modifiers.Table table(Collection<String> itemIds) {
+            return Modifiers.EMPTY;
+        }
+    }
+}
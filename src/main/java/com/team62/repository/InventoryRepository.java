@@ -0,0 +1,25 @@
+package com.team62.repository;
+
+import com.team62.model.InventoryItem;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Ingredients and other stock, with the quantity on hand after every recorded sale.
+ */
+public interface InventoryRepository {
+
+    List<InventoryItem> findAll() throws SQLException;
+
+    /**
+     * Inserts {@code item} with its current quantity as the opening count.
+     */
+    void add(InventoryItem item) throws SQLException;
+
+    /**
+     * Saves {@code item}; its current quantity is a fresh count that replaces the stock on hand.
+     */
+    void update(InventoryItem item) throws SQLException;
+
+    void delete(String inventoryId) throws SQLException;
+}
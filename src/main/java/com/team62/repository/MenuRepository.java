@@ -0,0 +1,49 @@
+package com.team62.repository;
+
+import com.team62.model.MenuItem;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Menu items ({@code "Item"}). Stock-derived fields ({@code makeable}, out of stock)
+ * come from {@link RecipeRepository#applyStock}.
+ */
+public interface MenuRepository {
+
+    /**
+     * @return the active items, by name, with their database ids set
+     */
+    List<MenuItem> findActive() throws SQLException;
+
+    /**
+     * Inserts {@code item} and sets its database id.
+     */
+    void add(MenuItem item) throws SQLException;
+
+    /**
+     * Inserts {@code item} (active) with a recipe of {@code quantityUsed} of each named
+     * ingredient, all or nothing. An ingredient that does not exist yet is created with
+     * {@code startingQuantity} on hand and a minimum of {@code minQuantity}.
+     */
+    void addWithIngredients(MenuItem item, List<String> ingredientNames, int quantityUsed, int startingQuantity,
+            int minQuantity) throws SQLException;
+
+    void update(MenuItem item) throws SQLException;
+
+    /**
+     * @return false, deleting nothing, if the item appears in recorded orders
+     */
+    boolean delete(String itemId) throws SQLException;
+
+    /**
+     * Sells an inventory item as it is: reactivates the item made from it at {@code price},
+     * or creates one ({@code name}, {@code category}) that uses one unit of it.
+     */
+    void addFromInventory(String inventoryId, String name, String category, BigDecimal price) throws SQLException;
+
+    /**
+     * Deactivates the item made from an inventory item by {@link #addFromInventory}.
+     */
+    void removeFromInventory(String inventoryId) throws SQLException;
+}
@@ -0,0 +1,23 @@
+package com.team62.repository;
+
+import com.team62.model.Modifiers;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Drink modifiers (milk, ice, sugar, toppings) and what each costs on each menu item,
+ * compiled into a {@link Modifiers.Table}.
+ */
+public interface ModifierRepository {
+
+    /**
+     * @return the active modifiers with every item's compiled prices
+     */
+    Modifiers.Table table() throws SQLException;
+
+    /**
+     * Like {@link #table()}, for pricing or checking an order: may answer from a cached
+     * table without a query, but loads again once if it does not know one of {@code itemIds}.
+     */
+    Modifiers.Table table(Collection<String> itemIds) throws SQLException;
+}
@@ -0,0 +1,27 @@
+package com.team62.repository;
+
+import com.team62.model.SalesOrder;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Records orders: their lines, the stock they use, the day's sales activity and the
+ * customer's loyalty points.
+ */
+public interface OrderRepository {
+
+    /**
+     * Records each order once per order key, taking its ingredients or failing it alone
+     * when one is short. The orders are valid: each has a UUID order key and a positive total.
+     *
+     * @return one result per order, in order
+     */
+    List<OrderResult> write(List<SalesOrder> orders);
+
+    /**
+     * Calls {@code listener} with the item ids taken off the menu whenever an ingredient
+     * they use falls to its minimum. Called on a background thread.
+     */
+    void addSoldOutListener(Consumer<Set<String>> listener);
+}
@@ -0,0 +1,57 @@
+package com.team62.repository;
+
+import java.util.List;
+
+/**
+ * What became of one order: a {@link Status} for code that acts on the outcome (the
+ * HTTP API maps it to a status code) and the message shown to the cashier.
+ */
+public record OrderResult(Status status, String message) {
+
+    public enum Status {
+        /** Recorded now. */
+        PROCESSED,
+        /** Its order key was recorded before, so nothing was written. */
+        ALREADY_RECORDED,
+        /** Rejected before anything was written: the order, ids, modifiers or customer are wrong. */
+        INVALID,
+        /** An ingredient is short, or an item uses no inventory. */
+        INSUFFICIENT_STOCK,
+        /** The backend failed, e.g. a database error. */
+        FAILED
+    }
+
+    private static final OrderResult PROCESSED = new OrderResult(Status.PROCESSED, "Order processed successfully");
+    private static final OrderResult ALREADY_RECORDED = new OrderResult(Status.ALREADY_RECORDED,
+            "Order processed successfully (already recorded)");
+
+    public static OrderResult processed() {
+        return PROCESSED;
+    }
+
+    public static OrderResult alreadyRecorded() {
+        return ALREADY_RECORDED;
+    }
+
+    public static OrderResult invalid(String reason) {
+        return new OrderResult(Status.INVALID, "Error: " + reason);
+    }
+
+    /**
+     * @param problems one per short ingredient or unlinked item
+     */
+    public static OrderResult insufficientStock(List<String> problems) {
+        return new OrderResult(Status.INSUFFICIENT_STOCK, "Error: Insufficient inventory. " + String.join("; ", problems));
+    }
+
+    public static OrderResult failed(String reason) {
+        return new OrderResult(Status.FAILED, "Error: " + reason);
+    }
+
+    /**
+     * @return true if the order is recorded, now or before
+     */
+    public boolean recorded() {
+        return status == Status.PROCESSED || status == Status.ALREADY_RECORDED;
+    }
+}
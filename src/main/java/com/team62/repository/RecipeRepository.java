@@ -0,0 +1,23 @@
+package com.team62.repository;
+
+import com.team62.model.MenuItem;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * What each menu item uses from inventory, and so how many the stock can still make.
+ */
+public interface RecipeRepository {
+
+    /**
+     * Sets each item's makeable count and marks it out of stock when it can make none or
+     * an ingredient is at or below its minimum. Items without a recipe are left as they are.
+     */
+    void applyStock(List<MenuItem> items) throws SQLException;
+
+    /**
+     * @return how many of the item the stock on hand can still make, or -1 if no tracked
+     *         ingredient limits it or the item is unknown
+     */
+    int makeable(String itemId) throws SQLException;
+}
@@ -0,0 +1,132 @@
+package com.team62.repository;
+
+import com.team62.model.InventoryUsage;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The figures behind the manager's reports. Amounts are in cents ({@code Money}); date
+ * ranges include both ends.
+ */
+public interface ReportRepository {
+
+    /**
+     * Sales totals for one business date, from live activity or a day-close snapshot.
+     * The hourly arrays are indexed by hour of the day.
+     */
+    record DayTotals(int salesCount, int itemCount, long sales, long tax, long cash, long nonCash,
+            int[] hourlyCount, long[] hourlySales, long[] hourlyTax) {
+    }
+
+    /**
+     * A business date closed by a Z report.
+     */
+    record ClosedDay(LocalDate date, OffsetDateTime closedAt, DayTotals totals) {
+    }
+
+    /**
+     * What {@link #reopenDay} did: whether a Z report was deleted, and how many activity
+     * rows came back from the day-close snapshot or, for days closed before snapshots
+     * existed, were rebuilt from the orders.
+     */
+    record Reopened(boolean reportDeleted, boolean fromSnapshot, int rows) {
+    }
+
+    record ItemSales(String name, int quantity, long revenue) {
+    }
+
+    /** One minute, hour or day of the sales history, starting at {@code start}. */
+    record SalesBucket(OffsetDateTime start, int orders, int items, long sales) {
+    }
+
+    /** An ingredient below its minimum. */
+    record Shortage(String name, int quantity, int minimum, String unit) {
+    }
+
+    /**
+     * One row of the restock forecast. {@code daysLeft} is {@code Double.POSITIVE_INFINITY}
+     * when the stock outlasts the 28-day horizon.
+     */
+    record RestockLine(String name, String unit, int onHand, int minimum, double perDay, double daysLeft,
+            int suggested) {
+    }
+
+    /**
+     * @return the day's line revenue (quantity times unit price, before tax)
+     */
+    long salesForDate(LocalDate date) throws SQLException;
+
+    long orderCountForDate(LocalDate date) throws SQLException;
+
+    /**
+     * @return units used per ingredient, most used first
+     */
+    List<InventoryUsage> usage(LocalDate start, LocalDate end) throws SQLException;
+
+    /**
+     * @return the date's totals from its activity that has not been closed
+     */
+    DayTotals liveTotals(LocalDate date) throws SQLException;
+
+    /**
+     * @return the date's day-close snapshot, or null if it has not been closed
+     */
+    ClosedDay closedDay(LocalDate date) throws SQLException;
+
+    List<ClosedDay> closedDays(LocalDate start, LocalDate end) throws SQLException;
+
+    /**
+     * @return a value that changes whenever {@code date}'s sales, its Z report or the stock
+     *         levels change, from any process; reports built under the same value still hold
+     */
+    String version(LocalDate date) throws SQLException;
+
+    /**
+     * @return the Z report stored for {@code date}, or null if none has been run
+     */
+    String zReport(LocalDate date) throws SQLException;
+
+    /**
+     * Closes {@code date}: moves its activity into a day-close snapshot and stores
+     * {@code reportText} of the closed totals as its Z report, in one transaction.
+     *
+     * @return the stored report text
+     */
+    String closeDay(LocalDate date, Function<DayTotals, String> reportText) throws SQLException;
+
+    /**
+     * Deletes the date's Z report and puts its activity back, so it can be closed again.
+     */
+    Reopened reopenDay(LocalDate date) throws SQLException;
+
+    /**
+     * @return quantity and revenue per menu item, highest revenue first
+     */
+    List<ItemSales> itemSales(LocalDate start, LocalDate end) throws SQLException;
+
+    /**
+     * @param resolution {@code "minute"}, {@code "hour"} or {@code "day"}
+     * @return every bucket from {@code start} up to the end of {@code end} or now, in time
+     *         order, with empty ones as zeros
+     */
+    List<SalesBucket> salesHistory(String resolution, LocalDate start, LocalDate end) throws SQLException;
+
+    /**
+     * @return the ingredients below their minimum, furthest below first
+     */
+    List<Shortage> belowMinimum() throws SQLException;
+
+    /**
+     * @return days until each ingredient runs out at its usual rate, and how much to order now
+     */
+    List<RestockLine> restockForecast() throws SQLException;
+
+    /**
+     * @return units sold per item id over the last {@code days} days, today included
+     */
+    Map<String, Integer> recentUnitsSold(int days) throws SQLException;
+}
@@ -0,0 +1,33 @@
+package com.team62.repository;
+
+import java.util.Set;
+
+/**
+ * One backend's repositories. {@code MainController} holds the business rules and reaches
+ * data only through these, so the same rules run on Postgres or entirely in memory.
+ *
+ * The backend is chosen with {@code -Dteam62.backend=postgres} (default) or
+ * {@code memory} ({@link InMemoryRepositories}: no database, seeded with a demo menu, for
+ * training, demos, benchmarks and load tests).
+ *
+ * @param backend {@link #POSTGRES} or {@link #MEMORY}
+ * @param stores  the store codes this backend serves
+ */
+public record Repositories(String backend, Set<String> stores, MenuRepository menu, InventoryRepository inventory,
+        RecipeRepository recipes, OrderRepository orders, EmployeeRepository employees,
+        CustomerRepository customers, ReportRepository reports, ModifierRepository modifiers) {
+
+    public static final String POSTGRES = "postgres";
+    public static final String MEMORY = "memory";
+
+    /**
+     * @return {@code -Dteam62.backend}, {@link #POSTGRES} unless set
+     */
+    public static String configured() {
+        return System.getProperty("team62.backend", POSTGRES).trim().toLowerCase();
+    }
+
+    public boolean isPostgres() {
+        return POSTGRES.equals(backend);
+    }
+}
@@ -0,0 +1,440 @@
+package com.team62.repository.postgres;
+
+import com.team62.model.Money;
+import com.team62.repository.ReportRepository.DayTotals;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Day-close snapshots: what the Z report closed, kept instead of thrown away.
+ *
+ * Closing a day ({@link #close}) deletes the day's {@code pos_sales_activity} rows as
+ * before, but writes exactly the rows it deleted to one {@code pos_day_snapshot} row:
+ * the day's totals and per-hour figures as plain columns, plus the rows themselves in a
+ * compact binary form, gzipped, with a SHA-256 checksum. A snapshot is written once and
+ * never updated (a trigger rejects updates).
+ *
+ * Reports on a closed day read the totals columns ({@link #load}) and never touch the
+ * archived rows. Resetting a day ({@link #restore}) verifies the checksum and puts the
+ * archived rows back, payment methods and all, instead of rebuilding them from orders.
+ */
+final class DaySnapshots {
+
+    /** Created by {@link PostgresRepositories} on startup. */
+    static final String[] DDL = {
+            """
+            CREATE TABLE IF NOT EXISTS pos_day_snapshot (
+                business_date DATE PRIMARY KEY,
+                closed_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                sales_count INTEGER NOT NULL,
+                item_count INTEGER NOT NULL,
+                sales_total NUMERIC(12,2) NOT NULL,
+                tax_total NUMERIC(12,2) NOT NULL,
+                cash_total NUMERIC(12,2) NOT NULL,
+                non_cash_total NUMERIC(12,2) NOT NULL,
+                hourly_count INTEGER[] NOT NULL,
+                hourly_sales NUMERIC(12,2)[] NOT NULL,
+                hourly_tax NUMERIC(12,2)[] NOT NULL,
+                activity_rows INTEGER NOT NULL,
+                activity_gz BYTEA NOT NULL,
+                activity_sha256 BYTEA NOT NULL
+            )
+            """,
+            """
+            CREATE OR REPLACE FUNCTION pos_day_snapshot_read_only() RETURNS trigger LANGUAGE plpgsql AS $$
+            BEGIN
+                RAISE EXCEPTION 'pos_day_snapshot rows are immutable; reset the day instead';
+            END
+            $$
+            """,
+            """
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'pos_day_snapshot_read_only') THEN
+                    CREATE TRIGGER pos_day_snapshot_read_only BEFORE UPDATE ON pos_day_snapshot
+                        FOR EACH ROW EXECUTE FUNCTION pos_day_snapshot_read_only();
+                END IF;
+            END
+            $$
+            """
+    };
+
+    // Leads the uncompressed archive; bump the version if the row layout changes.
+    private static final int FORMAT = 0x54363201;
+
+    private DaySnapshots() {
+    }
+
+    /**
+     * A stored snapshot's totals, without its archived rows.
+     */
+    record Snapshot(LocalDate date, OffsetDateTime closedAt, DayTotals totals, int rows) {
+    }
+
+    // One pos_sales_activity row; hour is EXTRACT(HOUR FROM event_time) in the session's time zone.
+    private record Activity(UUID activityId, OffsetDateTime eventTime, int hour, String type, UUID orderId,
+            long amount, long tax, String paymentMethod, int itemCount) {
+    }
+
+    // Adds up SALE rows, or per-hour sums of them, into DayTotals.
+    private static final class Tally {
+        int salesCount;
+        int itemCount;
+        long sales;
+        long tax;
+        long cash;
+        long nonCash;
+        final int[] hourlyCount = new int[24];
+        final long[] hourlySales = new long[24];
+        final long[] hourlyTax = new long[24];
+
+        void add(int hour, int count, int items, long amount, long taxAmount, long cashAmount) {
+            salesCount += count;
+            itemCount += items;
+            sales += amount;
+            tax += taxAmount;
+            cash += cashAmount;
+            nonCash += amount - cashAmount;
+            hourlyCount[hour] += count;
+            hourlySales[hour] += amount;
+            hourlyTax[hour] += taxAmount;
+        }
+
+        void add(Activity a) {
+            if (a.type().equals("SALE")) {
+                add(a.hour(), 1, a.itemCount(), a.amount(), a.tax(),
+                        a.paymentMethod().equalsIgnoreCase("cash") ? a.amount() : 0);
+            }
+        }
+
+        DayTotals totals() {
+            return new DayTotals(salesCount, itemCount, sales, tax, cash, nonCash, hourlyCount, hourlySales, hourlyTax);
+        }
+    }
+
+    /**
+     * Live totals for {@code date}: the day's {@code pos_sales_activity} rows so far.
+     */
+    static DayTotals live(Connection conn, LocalDate date) throws SQLException {
+        Tally tally = new Tally();
+        try (var ps = conn.prepareStatement("""
+                SELECT EXTRACT(HOUR FROM event_time)::INTEGER AS hr,
+                       COUNT(*) AS sales_count,
+                       COALESCE(SUM(item_count), 0) AS item_count,
+                       COALESCE(SUM(amount), 0) AS sales_total,
+                       COALESCE(SUM(tax_amount), 0) AS tax_total,
+                       COALESCE(SUM(CASE WHEN LOWER(payment_method) = 'cash' THEN amount ELSE 0 END), 0) AS cash_total
+                  FROM pos_sales_activity
+                 WHERE business_date = ? AND activity_type = 'SALE'
+                 GROUP BY hr
+                """)) {
+            ps.setObject(1, date);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    tally.add(rs.getInt("hr"), rs.getInt("sales_count"), rs.getInt("item_count"),
+                            Money.of(rs.getBigDecimal("sales_total")), Money.of(rs.getBigDecimal("tax_total")),
+                            Money.of(rs.getBigDecimal("cash_total")));
+                }
+            }
+        }
+        return tally.totals();
+    }
+
+    /**
+     * Closes {@code date} in {@code conn}'s transaction: deletes its activity rows and
+     * archives exactly those rows. The caller commits.
+     *
+     * @return the closed day's totals
+     */
+    static DayTotals close(Connection conn, LocalDate date) throws SQLException {
+        List<Activity> rows = new ArrayList<>();
+        try (var ps = conn.prepareStatement("""
+                DELETE FROM pos_sales_activity
+                 WHERE business_date = ?
+                RETURNING activity_id, event_time, EXTRACT(HOUR FROM event_time)::INTEGER AS hr, activity_type,
+                          order_id, amount, tax_amount, payment_method, item_count
+                """)) {
+            ps.setObject(1, date);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(activity(rs));
+                }
+            }
+        }
+        Tally tally = new Tally();
+        for (Activity a : rows) {
+            tally.add(a);
+        }
+        DayTotals totals = tally.totals();
+        byte[] raw = encode(rows);
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO pos_day_snapshot
+                    (business_date, sales_count, item_count, sales_total, tax_total, cash_total, non_cash_total,
+                     hourly_count, hourly_sales, hourly_tax, activity_rows, activity_gz, activity_sha256)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """)) {
+            ps.setObject(1, date);
+            ps.setInt(2, totals.salesCount());
+            ps.setInt(3, totals.itemCount());
+            ps.setBigDecimal(4, Money.toBigDecimal(totals.sales()));
+            ps.setBigDecimal(5, Money.toBigDecimal(totals.tax()));
+            ps.setBigDecimal(6, Money.toBigDecimal(totals.cash()));
+            ps.setBigDecimal(7, Money.toBigDecimal(totals.nonCash()));
+            ps.setArray(8, conn.createArrayOf("int4", Arrays.stream(totals.hourlyCount()).boxed().toArray()));
+            ps.setArray(9, conn.createArrayOf("numeric", Arrays.stream(totals.hourlySales()).mapToObj(Money::toBigDecimal).toArray()));
+            ps.setArray(10, conn.createArrayOf("numeric", Arrays.stream(totals.hourlyTax()).mapToObj(Money::toBigDecimal).toArray()));
+            ps.setInt(11, rows.size());
+            ps.setBytes(12, gzip(raw));
+            ps.setBytes(13, sha256(raw));
+            ps.executeUpdate();
+        }
+        return totals;
+    }
+
+    /**
+     * @return the snapshot's totals, or null if {@code date} has not been closed
+     */
+    static Snapshot load(Connection conn, LocalDate date) throws SQLException {
+        List<Snapshot> found = list(conn, date, date);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * @return the snapshots for closed days from {@code start} through {@code end}, oldest first
+     */
+    static List<Snapshot> list(Connection conn, LocalDate start, LocalDate end) throws SQLException {
+        List<Snapshot> snapshots = new ArrayList<>();
+        try (var ps = conn.prepareStatement("""
+                SELECT business_date, closed_at, sales_count, item_count, sales_total, tax_total, cash_total,
+                       non_cash_total, hourly_count, hourly_sales, hourly_tax, activity_rows
+                  FROM pos_day_snapshot
+                 WHERE business_date BETWEEN ? AND ?
+                 ORDER BY business_date
+                """)) {
+            ps.setObject(1, start);
+            ps.setObject(2, end);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Integer[] counts = (Integer[]) rs.getArray("hourly_count").getArray();
+                    DayTotals totals = new DayTotals(rs.getInt("sales_count"), rs.getInt("item_count"),
+                            Money.of(rs.getBigDecimal("sales_total")), Money.of(rs.getBigDecimal("tax_total")),
+                            Money.of(rs.getBigDecimal("cash_total")), Money.of(rs.getBigDecimal("non_cash_total")),
+                            Arrays.stream(counts).mapToInt(Integer::intValue).toArray(),
+                            cents((BigDecimal[]) rs.getArray("hourly_sales").getArray()),
+                            cents((BigDecimal[]) rs.getArray("hourly_tax").getArray()));
+                    snapshots.add(new Snapshot(rs.getObject("business_date", LocalDate.class),
+                            rs.getObject("closed_at", OffsetDateTime.class), totals, rs.getInt("activity_rows")));
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Puts the activity rows archived for {@code date} back into
+     * {@code pos_sales_activity} and deletes the snapshot, in {@code conn}'s transaction.
+     * Rows logged after the close are kept.
+     *
+     * @return rows restored, or -1 if {@code date} has no snapshot
+     * @throws SQLException if the archive does not match its checksum or row count
+     */
+    static int restore(Connection conn, LocalDate date) throws SQLException {
+        byte[] raw;
+        int expectedRows;
+        try (var ps = conn.prepareStatement("""
+                DELETE FROM pos_day_snapshot
+                 WHERE business_date = ?
+                RETURNING activity_rows, activity_gz, activity_sha256
+                """)) {
+            ps.setObject(1, date);
+            try (var rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return -1;
+                }
+                expectedRows = rs.getInt("activity_rows");
+                raw = gunzip(rs.getBytes("activity_gz"));
+                byte[] expected = rs.getBytes("activity_sha256");
+                if (!MessageDigest.isEqual(expected, sha256(raw))) {
+                    throw new SQLException("Day-close snapshot for " + date + " does not match its checksum "
+                            + HexFormat.of().formatHex(expected));
+                }
+            }
+        }
+        List<Activity> rows = decode(raw);
+        if (rows.size() != expectedRows) {
+            throw new SQLException("Day-close snapshot for " + date + " has " + rows.size()
+                    + " rows, expected " + expectedRows);
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int n = rows.size();
+        Object[] ids = new Object[n];
+        Object[] times = new Object[n];
+        Object[] types = new Object[n];
+        Object[] orders = new Object[n];
+        Object[] amounts = new Object[n];
+        Object[] taxes = new Object[n];
+        Object[] payments = new Object[n];
+        Object[] itemCounts = new Object[n];
+        for (int i = 0; i < n; i++) {
+            Activity a = rows.get(i);
+            ids[i] = a.activityId();
+            times[i] = a.eventTime();
+            types[i] = a.type();
+            orders[i] = a.orderId();
+            amounts[i] = Money.toBigDecimal(a.amount());
+            taxes[i] = Money.toBigDecimal(a.tax());
+            payments[i] = a.paymentMethod();
+            itemCounts[i] = a.itemCount();
+        }
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO pos_sales_activity
+                    (activity_id, business_date, event_time, activity_type, order_id, amount, tax_amount, payment_method, item_count)
+                SELECT a.activity_id, ?, a.event_time, a.activity_type, a.order_id, a.amount, a.tax, a.payment, a.item_count
+                  FROM unnest(?::UUID[], ?::TIMESTAMPTZ[], ?::TEXT[], ?::UUID[], ?::NUMERIC[], ?::NUMERIC[], ?::TEXT[], ?::INTEGER[])
+                       AS a(activity_id, event_time, activity_type, order_id, amount, tax, payment, item_count)
+                ON CONFLICT (activity_id) DO NOTHING
+                """)) {
+            ps.setObject(1, date);
+            ps.setArray(2, conn.createArrayOf("uuid", ids));
+            ps.setArray(3, conn.createArrayOf("timestamptz", times));
+            ps.setArray(4, conn.createArrayOf("text", types));
+            ps.setArray(5, conn.createArrayOf("uuid", orders));
+            ps.setArray(6, conn.createArrayOf("numeric", amounts));
+            ps.setArray(7, conn.createArrayOf("numeric", taxes));
+            ps.setArray(8, conn.createArrayOf("text", payments));
+            ps.setArray(9, conn.createArrayOf("int4", itemCounts));
+            return ps.executeUpdate();
+        }
+    }
+
+    private static long[] cents(BigDecimal[] amounts) {
+        long[] cents = new long[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            cents[i] = Money.of(amounts[i]);
+        }
+        return cents;
+    }
+
+    private static Activity activity(ResultSet rs) throws SQLException {
+        return new Activity(
+                (UUID) rs.getObject("activity_id"),
+                rs.getObject("event_time", OffsetDateTime.class),
+                rs.getInt("hr"),
+                rs.getString("activity_type"),
+                (UUID) rs.getObject("order_id"),
+                Money.of(rs.getBigDecimal("amount")),
+                Money.of(rs.getBigDecimal("tax_amount")),
+                rs.getString("payment_method"),
+                rs.getInt("item_count"));
+    }
+
+    // ============================
+    // Archive format
+    // ============================
+
+    // Amounts are NUMERIC(12,2), so each is stored as a long count of cents.
+    private static byte[] encode(List<Activity> rows) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * 80);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(FORMAT);
+            out.writeInt(rows.size());
+            for (Activity a : rows) {
+                out.writeLong(a.activityId().getMostSignificantBits());
+                out.writeLong(a.activityId().getLeastSignificantBits());
+                Instant t = a.eventTime().toInstant();
+                out.writeLong(ChronoUnit.MICROS.between(Instant.EPOCH, t));
+                out.writeByte(a.hour());
+                out.writeUTF(a.type());
+                out.writeBoolean(a.orderId() != null);
+                if (a.orderId() != null) {
+                    out.writeLong(a.orderId().getMostSignificantBits());
+                    out.writeLong(a.orderId().getLeastSignificantBits());
+                }
+                out.writeLong(a.amount());
+                out.writeLong(a.tax());
+                out.writeUTF(a.paymentMethod());
+                out.writeInt(a.itemCount());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Activity> decode(byte[] raw) throws SQLException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            if (in.readInt() != FORMAT) {
+                throw new SQLException("Unknown day-close snapshot format");
+            }
+            int n = in.readInt();
+            List<Activity> rows = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                UUID activityId = new UUID(in.readLong(), in.readLong());
+                OffsetDateTime eventTime = Instant.EPOCH.plus(in.readLong(), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+                int hour = in.readByte();
+                String type = in.readUTF();
+                UUID orderId = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                long amount = in.readLong();
+                long tax = in.readLong();
+                String payment = in.readUTF();
+                int itemCount = in.readInt();
+                rows.add(new Activity(activityId, eventTime, hour, type, orderId, amount, tax, payment, itemCount));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new SQLException("Day-close snapshot is truncated or corrupt", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(raw.length / 3 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gz) throws SQLException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new SQLException("Day-close snapshot is not valid gzip", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] raw) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(raw);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.Stores;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+
+/**
+ * Striped inventory counters, so sales do not rewrite, or wait on, the same few hot
+ * {@code "Inventory_Quantity"} rows.
+ *
+ * Each ingredient's stock is split between its {@code "Inventory_Quantity"} row (the
+ * pool) and {@code team62.inventory.slots} (default 16) escrow rows in
+ * {@code pos_inventory_escrow}, each holding a balance that is never negative. A sale
+ * ({@link StockReservation}) takes stock only from its own slot, so it locks nothing
+ * another register's sale needs. The slot comes from the database session the sale runs
+ * on ({@link #slot}), or is fixed per register with {@code -Dteam62.inventory.slot=N}. When a slot runs short,
+ * {@link StockReservation#refill} moves stock into it from the pool, or back from the
+ * other slots, in a short transaction of its own.
+ *
+ * Every {@code team62.inventory.foldSeconds} (default 60) the escrow balances go back
+ * into the pool, so a register that stopped selling does not keep the stock it held.
+ *
+ * Reads go through the {@code pos_inventory_available} view (pool plus escrow), so
+ * availability checks and reports see the same totals as before.
+ */
+public final class InventoryCounters {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.inventory");
+    static final int SLOTS = Math.max(1, Integer.getInteger("team62.inventory.slots", 16));
+    private static final int FIXED_SLOT = Integer.getInteger("team62.inventory.slot", -1);
+    private static final long FOLD_SECONDS = Long.getLong("team62.inventory.foldSeconds", 60L);
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+
+    /** Created by {@link PostgresRepositories} on startup, after pos_inventory_meta. */
+    static final String[] DDL = {
+            """
+            CREATE TABLE IF NOT EXISTS pos_inventory_escrow (
+                inventory_id UUID NOT NULL REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
+                slot SMALLINT NOT NULL,
+                balance INTEGER NOT NULL DEFAULT 0 CHECK (balance >= 0),
+                PRIMARY KEY (inventory_id, slot)
+            )
+            """,
+            """
+            CREATE OR REPLACE VIEW pos_inventory_available AS
+            SELECT iq.inventory_id,
+                   GREATEST(iq.quantity + COALESCE(e.balance, 0), 0)::INTEGER AS quantity
+              FROM \"Inventory_Quantity\" iq
+              LEFT JOIN (SELECT inventory_id, SUM(balance) AS balance
+                           FROM pos_inventory_escrow
+                          GROUP BY inventory_id) e ON e.inventory_id = iq.inventory_id
+            """,
+            // Tops up one slot so it holds what a sale needs (plus a share of the pool, so the
+            // next sales need no refill), taking back the other slots' balances when the pool
+            // alone is short. Ingredients go in id order, each pool row before its slot rows,
+            // as every other writer locks them. Returns what the slot holds afterwards.
+            """
+            CREATE OR REPLACE FUNCTION pos_escrow_refill(ids UUID[], wanted INTEGER[], my_slot SMALLINT, slots INTEGER)
+            RETURNS TABLE (ingredient UUID, held INTEGER) LANGUAGE plpgsql AS $$
+            DECLARE
+                i INTEGER;
+                pool INTEGER;
+                have INTEGER;
+                spare INTEGER;
+                moved INTEGER;
+            BEGIN
+                FOR i IN SELECT u.n FROM unnest(ids) WITH ORDINALITY AS u(id, n) ORDER BY u.id LOOP
+                    SELECT quantity INTO pool FROM \"Inventory_Quantity\"
+                     WHERE inventory_id = ids[i]
+                       FOR NO KEY UPDATE;
+                    IF NOT FOUND THEN
+                        CONTINUE;
+                    END IF;
+                    INSERT INTO pos_inventory_escrow (inventory_id, slot, balance)
+                    VALUES (ids[i], my_slot, 0)
+                    ON CONFLICT (inventory_id, slot) DO NOTHING;
+                    SELECT balance INTO have FROM pos_inventory_escrow
+                     WHERE inventory_id = ids[i] AND slot = my_slot
+                       FOR NO KEY UPDATE;
+                    IF have < wanted[i] AND pool < wanted[i] - have THEN
+                        SELECT COALESCE(SUM(s.balance), 0) INTO spare
+                          FROM (SELECT balance FROM pos_inventory_escrow
+                                 WHERE inventory_id = ids[i] AND slot <> my_slot AND balance > 0
+                                 ORDER BY slot
+                                   FOR NO KEY UPDATE) s;
+                        UPDATE pos_inventory_escrow SET balance = 0
+                         WHERE inventory_id = ids[i] AND slot <> my_slot AND balance > 0;
+                        pool := pool + spare;
+                    END IF;
+                    IF have < wanted[i] THEN
+                        moved := LEAST(GREATEST(pool, 0), wanted[i] - have + GREATEST(pool, 0) / (2 * slots));
+                        UPDATE \"Inventory_Quantity\" SET quantity = pool - moved WHERE inventory_id = ids[i];
+                        UPDATE pos_inventory_escrow SET balance = have + moved
+                         WHERE inventory_id = ids[i] AND slot = my_slot;
+                        have := have + moved;
+                    END IF;
+                    ingredient := ids[i];
+                    held := have;
+                    RETURN NEXT;
+                END LOOP;
+            END
+            $$
+            """
+    };
+
+    private InventoryCounters() {
+    }
+
+    /**
+     * Gives every inventory row its full set of slot rows up front. Run on startup;
+     * cheap when the rows already exist.
+     */
+    static void seedSlots(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO pos_inventory_escrow (inventory_id, slot, balance)
+                SELECT iq.inventory_id, s.slot, 0
+                  FROM \"Inventory_Quantity\" iq
+                 CROSS JOIN generate_series(0, ? - 1) AS s(slot)
+                ON CONFLICT (inventory_id, slot) DO NOTHING
+                """)) {
+            ps.setInt(1, SLOTS);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Empties the escrow of one item, for when its quantity is set outright (a
+     * manager's count replaces whatever the slots held). Update the
+     * {@code "Inventory_Quantity"} row first, so the locks are taken in the same order
+     * as a refill's; an open sale holding a slot is waited for.
+     */
+    static void discardEscrow(Connection conn, UUID inventoryId) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                UPDATE pos_inventory_escrow SET balance = 0 WHERE inventory_id = ? AND balance <> 0
+                """)) {
+            ps.setObject(1, inventoryId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Moves the escrow balances back into {@code "Inventory_Quantity"} atomically. A
+     * slot an open sale holds, and an item a refill holds, are skipped and picked up by
+     * the next fold, so folding never waits on the registers.
+     *
+     * @return number of inventory rows updated
+     */
+    public static int fold(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            // Pool rows first, like a refill.
+            List<UUID> locked = new ArrayList<>();
+            try (var ps = conn.prepareStatement("""
+                    SELECT iq.inventory_id
+                      FROM \"Inventory_Quantity\" iq
+                     WHERE EXISTS (SELECT 1 FROM pos_inventory_escrow e
+                                    WHERE e.inventory_id = iq.inventory_id AND e.balance <> 0)
+                     ORDER BY iq.inventory_id
+                       FOR NO KEY UPDATE SKIP LOCKED
+                    """);
+                    var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    locked.add((UUID) rs.getObject(1));
+                }
+            }
+            int folded = 0;
+            if (!locked.isEmpty()) {
+                try (var ps = conn.prepareStatement("""
+                        WITH idle AS (
+                            SELECT inventory_id, slot, balance
+                              FROM pos_inventory_escrow
+                             WHERE inventory_id = ANY(?) AND balance <> 0
+                             ORDER BY inventory_id, slot
+                               FOR NO KEY UPDATE SKIP LOCKED
+                        ), drained AS (
+                            UPDATE pos_inventory_escrow e SET balance = 0
+                              FROM idle
+                             WHERE e.inventory_id = idle.inventory_id AND e.slot = idle.slot
+                        ), totals AS (
+                            SELECT inventory_id, SUM(balance) AS balance FROM idle GROUP BY inventory_id
+                        )
+                        UPDATE \"Inventory_Quantity\" iq
+                           SET quantity = GREATEST(iq.quantity + totals.balance, 0)
+                          FROM totals
+                         WHERE iq.inventory_id = totals.inventory_id
+                        """)) {
+                    ps.setArray(1, conn.createArrayOf("uuid", locked.toArray()));
+                    folded = ps.executeUpdate();
+                }
+            }
+            conn.commit();
+            return folded;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Folds every {@code foldSeconds} on a daemon thread (0 disables). Only the first
+     * call schedules anything.
+     */
+    static void scheduleFold() {
+        if (FOLD_SECONDS <= 0 || !SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService folder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-fold");
+            t.setDaemon(true);
+            return t;
+        });
+        folder.scheduleWithFixedDelay(InventoryCounters::foldQuietly, FOLD_SECONDS, FOLD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Each store's fold sees only its own ingredients.
+    private static void foldQuietly() {
+        for (String store : Database.stores()) {
+            try {
+                Stores.call(store, () -> {
+                    try (Connection conn = Database.getConnection()) {
+                        return fold(conn);
+                    }
+                });
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Inventory fold failed for store " + store, e);
+            }
+        }
+    }
+
+    /**
+     * The slot for sales on {@code conn}: the fixed one, or else one picked by the
+     * server process behind the connection. That stays the same for as long as the
+     * pooled connection lives, however often it is borrowed, and consecutive backends
+     * land on different slots.
+     */
+    static int slot(Connection conn) throws SQLException {
+        if (FIXED_SLOT >= 0) {
+            return FIXED_SLOT % SLOTS;
+        }
+        return Math.floorMod(conn.unwrap(PGConnection.class).getBackendPID(), SLOTS);
+    }
+}
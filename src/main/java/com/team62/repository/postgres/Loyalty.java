@@ -0,0 +1,110 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.StatementRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loyalty points: an append-only ledger plus one running balance per customer.
+ *
+ * Every order booked to a customer adds a {@code pos_loyalty_ledger} row and bumps
+ * {@code pos_loyalty_balance}, so an order costs the same two small writes however long
+ * the customer's history is ({@code "Customer".purchase_history} is no longer written).
+ * Recent purchases are read from {@code "Order"} through
+ * {@code idx_order_customer_date (customer_id, date DESC)}.
+ *
+ * Customers earn {@code team62.loyalty.pointsPerDollar} (default 1) points per whole
+ * dollar of the order total, the same rule the seed data uses. {@code "Customer".points}
+ * is only read once, as a customer's opening balance.
+ */
+public final class Loyalty {
+
+    private static final int POINTS_PER_DOLLAR = Integer.getInteger("team62.loyalty.pointsPerDollar", 1);
+
+    /** Created by {@link PostgresRepositories} on startup. */
+    static final String[] DDL = {
+            """
+            CREATE TABLE IF NOT EXISTS pos_loyalty_ledger (
+                entry_id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+                customer_id UUID NOT NULL REFERENCES \"Customer\"(customer_id) ON DELETE CASCADE,
+                order_id UUID,
+                created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                points INTEGER NOT NULL,
+                reason TEXT NOT NULL
+            )
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_loyalty_ledger_customer
+                ON pos_loyalty_ledger (customer_id, created_at DESC)
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS pos_loyalty_balance (
+                customer_id UUID PRIMARY KEY REFERENCES \"Customer\"(customer_id) ON DELETE CASCADE,
+                points INTEGER NOT NULL DEFAULT 0 CHECK (points >= 0),
+                lifetime_points INTEGER NOT NULL DEFAULT 0,
+                updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+            )
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_order_customer_date ON \"Order\" (customer_id, date DESC)
+            """,
+            """
+            DROP INDEX IF EXISTS idx_order_customer
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_customer_phone ON \"Customer\" (phone_number)
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_customer_email ON \"Customer\" (LOWER(email))
+            """
+    };
+
+    private Loyalty() {
+    }
+
+    /**
+     * Gives every customer without a balance row one, opened at {@code "Customer".points}
+     * with a matching {@code OPENING} ledger entry. Run on startup and after bulk loads.
+     *
+     * @return number of balances opened
+     */
+    public static int openBalances(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                WITH opened AS (
+                    INSERT INTO pos_loyalty_balance (customer_id, points, lifetime_points)
+                    SELECT c.customer_id, c.points, c.points
+                      FROM \"Customer\" c
+                     WHERE NOT EXISTS (SELECT 1 FROM pos_loyalty_balance b WHERE b.customer_id = c.customer_id)
+                    ON CONFLICT (customer_id) DO NOTHING
+                    RETURNING customer_id, points
+                ), logged AS (
+                    INSERT INTO pos_loyalty_ledger (customer_id, points, reason)
+                    SELECT customer_id, points, 'OPENING' FROM opened WHERE points <> 0
+                )
+                SELECT COUNT(*) FROM opened
+                """);
+                var rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Books the points for a group of orders: one ledger row per order, one balance
+     * update per customer. The three lists are parallel.
+     */
+    static void accrue(Connection conn, List<UUID> customerIds, List<UUID> orderIds, List<Long> totalCents)
+            throws SQLException {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.ACCRUE_POINTS)) {
+            ps.setInt(1, POINTS_PER_DOLLAR);
+            ps.setArray(2, conn.createArrayOf("uuid", customerIds.toArray()));
+            ps.setArray(3, conn.createArrayOf("uuid", orderIds.toArray()));
+            ps.setArray(4, conn.createArrayOf("int8", totalCents.toArray()));
+            ps.executeUpdate();
+        }
+    }
+}
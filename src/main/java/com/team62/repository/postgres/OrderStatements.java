@@ -0,0 +1,244 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.StatementRegistry;
+import com.team62.db.StatementRegistry.Named;
+
+/**
+ * The SQL behind taking an order, from the cashier's menu to commit, declared once in
+ * the {@link StatementRegistry}. All of it is prepared on startup
+ * ({@link StatementRegistry#warmUp}) and reused on every pooled connection after that.
+ */
+final class OrderStatements {
+
+    private OrderStatements() {
+    }
+
+    // ============================
+    // Cashier screen
+    // ============================
+
+    static final Named MENU = StatementRegistry.declare("menu.active", """
+            SELECT item_id, name, category, price, is_active
+              FROM "Item"
+             WHERE is_active = TRUE
+             ORDER BY name
+            """, true);
+
+    static final Named CUSTOMER_BY_EMAIL = StatementRegistry.declare("customer.byEmail", """
+            SELECT c.customer_id, c.name, c.phone_number, c.email, COALESCE(b.points, c.points) AS points
+              FROM "Customer" c
+              LEFT JOIN pos_loyalty_balance b ON b.customer_id = c.customer_id
+             WHERE LOWER(c.email) = LOWER(?)
+             LIMIT 1
+            """, true);
+
+    static final Named CUSTOMER_BY_PHONE = StatementRegistry.declare("customer.byPhone", """
+            SELECT c.customer_id, c.name, c.phone_number, c.email, COALESCE(b.points, c.points) AS points
+              FROM "Customer" c
+              LEFT JOIN pos_loyalty_balance b ON b.customer_id = c.customer_id
+             WHERE c.phone_number = ?
+             LIMIT 1
+            """, true);
+
+    // ============================
+    // Recipes and stock (RecipeCache, StockReservation)
+    // ============================
+
+    // Loaded by RecipeCache, rarely: not worth warming.
+    static final Named RECIPES = StatementRegistry.declare("recipe.all", """
+            SELECT i.item_id, i.name, src.inventory_id, src.quantity_used,
+                   COALESCE(meta.display_name, 'inventory ' || LEFT(src.inventory_id::TEXT, 8)) AS inventory_name,
+                   COALESCE(meta.min_quantity, 0) AS min_qty
+              FROM "Item" i
+              LEFT JOIN LATERAL (
+                    SELECT r.inventory_id, GREATEST(r.quantity_used, 1) AS quantity_used
+                      FROM pos_menu_inventory r
+                     WHERE r.menu_item_id = i.item_id
+                    UNION ALL
+                    SELECT ii.inventory_id, 1
+                      FROM "Item_Inventory" ii
+                     WHERE ii.item_id = i.item_id
+                       AND NOT EXISTS (SELECT 1 FROM pos_menu_inventory r WHERE r.menu_item_id = i.item_id)
+              ) src ON TRUE
+              LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = src.inventory_id
+            """, false);
+
+    static final Named STOCK_LEVELS = StatementRegistry.declare("stock.levels", """
+            SELECT iq.inventory_id, iq.quantity, COALESCE(meta.min_quantity, 0) AS min_qty
+              FROM pos_inventory_available iq
+              LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
+            """, true);
+
+    // Takes a ticket's stock from this register's escrow slot, all or nothing: the slot
+    // rows are locked in id order, and the update runs only if every one holds enough.
+    // "available" is the ingredient's whole stock before this ticket, as of the statement.
+    static final Named RESERVE_STOCK = StatementRegistry.declare("stock.reserve", """
+            WITH need AS (
+                SELECT n.*, ?::SMALLINT AS slot FROM unnest(?::UUID[], ?::INTEGER[]) AS n(inventory_id, needed)
+            ), mine AS (
+                SELECT e.inventory_id, e.balance, n.needed
+                  FROM pos_inventory_escrow e
+                  JOIN need n ON n.inventory_id = e.inventory_id AND n.slot = e.slot
+                 ORDER BY e.inventory_id
+                   FOR NO KEY UPDATE OF e
+            ), enough AS (
+                SELECT COUNT(*) = (SELECT COUNT(*) FROM need) AS ok FROM mine WHERE balance >= needed
+            ), taken AS (
+                UPDATE pos_inventory_escrow e SET balance = e.balance - m.needed
+                  FROM mine m, enough, need n
+                 WHERE enough.ok AND e.inventory_id = m.inventory_id
+                   AND n.inventory_id = m.inventory_id AND e.slot = n.slot
+            )
+            SELECT n.inventory_id, n.needed, enough.ok AS taken,
+                   COALESCE(m.balance, 0) AS held,
+                   COALESCE(iq.quantity, 0) + COALESCE(m.balance, 0)
+                     + COALESCE((SELECT SUM(o.balance) FROM pos_inventory_escrow o
+                                  WHERE o.inventory_id = n.inventory_id AND o.slot <> n.slot), 0) AS available
+              FROM need n
+             CROSS JOIN enough
+              LEFT JOIN mine m ON m.inventory_id = n.inventory_id
+              LEFT JOIN "Inventory_Quantity" iq ON iq.inventory_id = n.inventory_id
+            """, true);
+
+    static final Named REFILL_STOCK = StatementRegistry.declare("stock.refill", """
+            SELECT ingredient, held FROM pos_escrow_refill(?::UUID[], ?::INTEGER[], ?::SMALLINT, ?)
+            """, false);
+
+    // Takes a depleted ingredient off the menu if it is on it (pos_inventory_meta.is_on_menu),
+    // and with it every item using it, given as (ingredient, item) pairs. Tells every
+    // process listening (ThresholdWatcher) once the transaction commits.
+    static final Named EIGHTY_SIX = StatementRegistry.declare("menu.eightySix", """
+            WITH off_menu AS (
+                UPDATE pos_inventory_meta SET is_on_menu = FALSE
+                 WHERE inventory_id = ANY(?) AND is_on_menu
+                RETURNING inventory_id
+            ), items AS (
+                UPDATE "Item" SET is_active = FALSE
+                 WHERE is_active
+                   AND item_id IN (SELECT p.item_id
+                                     FROM unnest(?::UUID[], ?::UUID[]) AS p(inventory_id, item_id)
+                                     JOIN off_menu o ON o.inventory_id = p.inventory_id)
+                RETURNING item_id
+            )
+            SELECT item_id, pg_notify('pos_menu_86', item_id::TEXT) FROM items
+            """, true);
+
+    // ============================
+    // Writing the order
+    // ============================
+
+    static final Named DEMO_EMPLOYEE = StatementRegistry.declare("order.demoEmployee", """
+            SELECT employee_id
+              FROM "Employee"
+             ORDER BY start_date
+             LIMIT 1
+            """, true);
+
+    static final Named DEMO_CUSTOMER = StatementRegistry.declare("order.demoCustomer", """
+            SELECT customer_id
+              FROM "Customer"
+             ORDER BY customer_id
+             LIMIT 1
+            """, true);
+
+    // Claims each order's key; the keys it does not return were recorded before.
+    // Sorted, so two transactions claiming the same keys wait on each other instead of deadlocking.
+    static final Named CLAIM_KEYS = StatementRegistry.declare("order.claimKeys", """
+            INSERT INTO pos_order_key (order_id)
+            SELECT k FROM unnest(?::UUID[]) AS k ORDER BY k
+            ON CONFLICT (order_id) DO NOTHING
+            RETURNING order_id
+            """, true);
+
+    // Gives back the keys of orders that were claimed but then came up short of stock.
+    static final Named RELEASE_KEYS = StatementRegistry.declare("order.releaseKeys", """
+            DELETE FROM pos_order_key WHERE order_id = ANY(?::UUID[])
+            """, false);
+
+    // The order, line and usage inserts also queue the batch's totals for the sales
+    // series (SalesSeries), in the same statement so it costs no extra round trip.
+    // Amounts arrive in cents (Money) and become NUMERIC(_,2) exactly: cents * 0.01.
+    static final Named INSERT_ORDERS = StatementRegistry.declare("order.insert", """
+            WITH o AS (
+                SELECT * FROM unnest(?::UUID[], ?::UUID[], ?::BIGINT[], ?::INTEGER[], ?::TEXT[])
+                    AS o(order_id, customer_id, total_cents, item_count, payment)
+            ), inserted AS (
+                INSERT INTO "Order" (order_id, employee_id, customer_id, date, total_price, item_quantity, payment_method)
+                SELECT o.order_id, ?, o.customer_id, NOW(), o.total_cents * 0.01, o.item_count, o.payment
+                  FROM o
+            )
+            INSERT INTO pos_series_pending (kind, orders, quantity, amount)
+            SELECT 'order', COUNT(*), SUM(item_count), SUM(total_cents) * 0.01 FROM o
+            """, true);
+
+    static final Named INSERT_LINES = StatementRegistry.declare("order.insertLines", """
+            WITH l AS (
+                SELECT * FROM unnest(?::UUID[], ?::UUID[], ?::UUID[], ?::INTEGER[], ?::BIGINT[], ?::BIGINT[])
+                    AS l(id, order_id, item_id, quantity, unit_cents, modifiers)
+            ), inserted AS (
+                INSERT INTO "Order_Item" (id, order_id, order_date, item_id, quantity, unit_price, modifiers)
+                SELECT l.id, l.order_id, NOW(), l.item_id, l.quantity, l.unit_cents * 0.01, l.modifiers
+                  FROM l
+            )
+            INSERT INTO pos_series_pending (kind, ref_id, quantity, amount)
+            SELECT 'item', item_id, SUM(quantity), SUM(quantity * unit_cents) * 0.01 FROM l GROUP BY item_id
+            """, true);
+
+    static final Named INSERT_USAGE = StatementRegistry.declare("order.insertUsage", """
+            WITH u AS (
+                SELECT * FROM unnest(?::UUID[], ?::UUID[], ?::UUID[], ?::UUID[], ?::INTEGER[])
+                    AS u(usage_id, order_id, menu_item_id, inventory_id, quantity)
+            ), inserted AS (
+                INSERT INTO pos_inventory_usage
+                    (usage_id, usage_time, business_date, order_id, menu_item_id, inventory_id, quantity_used)
+                SELECT u.usage_id, NOW(), CURRENT_DATE, u.order_id, u.menu_item_id, u.inventory_id, u.quantity
+                  FROM u
+            )
+            INSERT INTO pos_series_pending (kind, ref_id, quantity)
+            SELECT 'usage', inventory_id, SUM(quantity) FROM u GROUP BY inventory_id
+            """, true);
+
+    static final Named INSERT_ACTIVITY = StatementRegistry.declare("order.insertActivity", """
+            INSERT INTO pos_sales_activity
+            (activity_id, business_date, event_time, activity_type, order_id, amount, tax_amount, payment_method, item_count)
+            SELECT a.activity_id, CURRENT_DATE, NOW(), 'SALE', a.order_id, a.amount_cents * 0.01, a.tax_cents * 0.01,
+                   a.payment, a.item_count
+              FROM unnest(?::UUID[], ?::UUID[], ?::BIGINT[], ?::BIGINT[], ?::TEXT[], ?::INTEGER[])
+                   AS a(activity_id, order_id, amount_cents, tax_cents, payment, item_count)
+            """, true);
+
+    // ============================
+    // Loyalty
+    // ============================
+
+    static final Named ACCRUE_POINTS = StatementRegistry.declare("loyalty.accrue", """
+            WITH earned AS (
+                SELECT e.customer_id, e.order_id, FLOOR(e.total_cents * 0.01 * ?)::INTEGER AS points
+                  FROM unnest(?::UUID[], ?::UUID[], ?::BIGINT[]) AS e(customer_id, order_id, total_cents)
+            ), logged AS (
+                INSERT INTO pos_loyalty_ledger (customer_id, order_id, points, reason)
+                SELECT customer_id, order_id, points, 'ORDER' FROM earned WHERE points > 0
+            )
+            INSERT INTO pos_loyalty_balance (customer_id, points, lifetime_points)
+            SELECT customer_id, SUM(points), SUM(points)
+              FROM earned
+             WHERE points > 0
+             GROUP BY customer_id
+             ORDER BY customer_id
+            ON CONFLICT (customer_id) DO UPDATE
+               SET points = pos_loyalty_balance.points + EXCLUDED.points,
+                   lifetime_points = pos_loyalty_balance.lifetime_points + EXCLUDED.lifetime_points,
+                   updated_at = NOW()
+            """, true);
+
+    /**
+     * Prepares all of the above on {@code team62.db.warmConnections} (default 4) pooled
+     * connections, in the background so startup does not wait for it.
+     */
+    static void warmUp() {
+        Thread t = new Thread(() -> StatementRegistry.warmUp(Integer.getInteger("team62.db.warmConnections", 4)),
+                "statement-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+}
@@ -0,0 +1,91 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.StatementRegistry;
+import com.team62.db.Uuid7;
+import com.team62.model.Customer;
+import com.team62.model.SalesOrder;
+import com.team62.repository.CustomerRepository;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link CustomerRepository} on {@code "Customer"}, with balances in {@code pos_loyalty_balance} ({@link Loyalty}).
+ */
+final class PostgresCustomerRepository implements CustomerRepository {
+
+    @Override
+    public Customer find(String phoneOrEmail) throws SQLException {
+        try (var conn = Database.getConnection();
+                var ps = StatementRegistry.prepare(conn,
+                        phoneOrEmail.contains("@") ? OrderStatements.CUSTOMER_BY_EMAIL : OrderStatements.CUSTOMER_BY_PHONE)) {
+            ps.setString(1, phoneOrEmail);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new Customer(
+                            rs.getObject("customer_id").toString(),
+                            rs.getString("name"),
+                            rs.getString("phone_number"),
+                            rs.getString("email"),
+                            rs.getInt("points"));
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void add(Customer customer) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            UUID id = Uuid7.next();
+            try (var ps = conn.prepareStatement("""
+                    INSERT INTO "Customer" (customer_id, name, phone_number, email, points)
+                    VALUES (?, ?, ?, ?, 0)
+                    """)) {
+                ps.setObject(1, id);
+                ps.setString(2, customer.getName());
+                ps.setString(3, customer.getPhoneNumber());
+                ps.setString(4, customer.getEmail());
+                ps.executeUpdate();
+            }
+            try (var ps = conn.prepareStatement("""
+                    INSERT INTO pos_loyalty_balance (customer_id) VALUES (?)
+                    """)) {
+                ps.setObject(1, id);
+                ps.executeUpdate();
+            }
+            conn.commit();
+            customer.setDbId(id.toString());
+            customer.setPoints(0);
+        }
+    }
+
+    @Override
+    public List<SalesOrder> recentOrders(String customerId, int limit) throws SQLException {
+        List<SalesOrder> orders = new ArrayList<>();
+        // Served by idx_order_customer_date: one index probe per partition, newest first.
+        String sql = """
+                SELECT date, total_price, payment_method
+                  FROM "Order"
+                 WHERE customer_id = ?
+                 ORDER BY date DESC
+                 LIMIT ?
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, UUID.fromString(customerId));
+            ps.setInt(2, limit);
+            try (var rs = ps.executeQuery()) {
+                long row = 1;
+                while (rs.next()) {
+                    orders.add(new SalesOrder(row++, rs.getTimestamp("date"),
+                            rs.getBigDecimal("total_price"), rs.getString("payment_method")));
+                }
+            }
+        }
+        return orders;
+    }
+}
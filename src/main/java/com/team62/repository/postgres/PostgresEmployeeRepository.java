@@ -0,0 +1,100 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.Uuid7;
+import com.team62.model.Employee;
+import com.team62.repository.EmployeeRepository;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link EmployeeRepository} on {@code "Employee"}; role and active live in {@code work_history} JSONB.
+ */
+final class PostgresEmployeeRepository implements EmployeeRepository {
+
+    @Override
+    public List<Employee> findAll() throws SQLException {
+        List<Employee> list = new ArrayList<>();
+        String sql = """
+                SELECT employee_id,
+                       name,
+                       work_history->>'role' AS role,
+                       COALESCE((work_history->>'active')::boolean, TRUE) AS active
+                  FROM "Employee"
+                 ORDER BY name
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql);
+                var rs = ps.executeQuery()) {
+            int uiId = 1;
+            while (rs.next()) {
+                Employee emp = new Employee(
+                        uiId++,
+                        rs.getString("name"),
+                        rs.getString("role"),
+                        rs.getBoolean("active"));
+                Object dbId = rs.getObject("employee_id");
+                emp.setDbId(dbId != null ? dbId.toString() : null);
+                list.add(emp);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void add(Employee employee) throws SQLException {
+        String sql = """
+                INSERT INTO "Employee" (employee_id, name, start_date, work_history)
+                VALUES (?, ?, CURRENT_DATE, ?::jsonb)
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            UUID id = Uuid7.next();
+            employee.setDbId(id.toString());
+            ps.setObject(1, id);
+            ps.setString(2, employee.getName());
+            ps.setString(3, workHistory(employee));
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void update(Employee employee) throws SQLException {
+        String sql = """
+                UPDATE "Employee"
+                   SET name = ?, work_history = ?::jsonb
+                 WHERE employee_id = ?
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setString(1, employee.getName());
+            ps.setString(2, workHistory(employee));
+            ps.setObject(3, UUID.fromString(employee.getDbId()));
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public boolean delete(String employeeId) throws SQLException {
+        String sql = "DELETE FROM \"Employee\" WHERE employee_id = ?";
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, UUID.fromString(employeeId));
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("fk_order_employee")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static String workHistory(Employee employee) {
+        return String.format("{\"role\":\"%s\",\"active\":%s}",
+                employee.getRole() == null ? "" : employee.getRole(),
+                employee.isActive());
+    }
+}
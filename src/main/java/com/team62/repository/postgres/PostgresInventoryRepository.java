@@ -0,0 +1,132 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.Uuid7;
+import com.team62.model.InventoryItem;
+import com.team62.repository.InventoryRepository;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link InventoryRepository} on {@code "Inventory_Quantity"} and {@code pos_inventory_meta}.
+ * Quantities are read through {@code pos_inventory_available}, which includes the sales
+ * not yet folded in ({@link InventoryCounters}).
+ */
+final class PostgresInventoryRepository implements InventoryRepository {
+
+    @Override
+    public List<InventoryItem> findAll() throws SQLException {
+        List<InventoryItem> items = new ArrayList<>(); // changed unit to i.category
+        String sql = """
+                SELECT DISTINCT ON (iq.inventory_id)
+                    iq.inventory_id,
+                    COALESCE(meta.display_name, i.name, 'Inventory Item') AS name,
+                    COALESCE(meta.unit, i.category, '') AS unit,
+                    iq.quantity,
+                    COALESCE(meta.min_quantity, 0) AS min_quantity,
+                    COALESCE(meta.is_on_menu, FALSE) AS is_on_menu,
+                    COALESCE(meta.base_price, 0) AS base_price
+                FROM pos_inventory_available iq
+            LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
+            LEFT JOIN "Item_Inventory" ii ON ii.inventory_id = iq.inventory_id
+            LEFT JOIN "Item" i ON i.item_id = ii.item_id
+                ORDER BY iq.inventory_id, name
+            """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql);
+                var rs = ps.executeQuery()) {
+            int uiId = 1;
+            while (rs.next()) {
+                InventoryItem inv = new InventoryItem(
+                        uiId++,
+                        rs.getString("name"),
+                        rs.getString("unit"),
+                        rs.getInt("quantity"),
+                        rs.getInt("min_quantity"),
+                        rs.getInt("min_quantity"),
+                        true);
+                Object dbId = rs.getObject("inventory_id");
+                inv.setDbId(dbId != null ? dbId.toString() : null);
+                items.add(inv);
+                inv.setOnMenu(rs.getBoolean("is_on_menu"));
+                inv.setBasePrice(rs.getBigDecimal("base_price"));
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public void add(InventoryItem item) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            UUID inventoryId = Uuid7.next();
+            try (var ps = conn.prepareStatement("""
+                    INSERT INTO "Inventory_Quantity" (inventory_id, quantity, last_restocked, last_quantity)
+                    VALUES (?, ?, CURRENT_DATE, CURRENT_DATE)
+                    """)) {
+                ps.setObject(1, inventoryId);
+                ps.setInt(2, item.getCurrentQuantity());
+                ps.executeUpdate();
+            }
+            try (var ps = conn.prepareStatement("""
+                    INSERT INTO pos_inventory_meta (inventory_id, display_name, unit, min_quantity)
+                    VALUES (?, ?, ?, ?)
+                    """)) {
+                ps.setObject(1, inventoryId);
+                ps.setString(2, item.getName());
+                ps.setString(3, item.getUnit() == null ? "" : item.getUnit());
+                ps.setInt(4, item.getParLevel());
+                ps.executeUpdate();
+            }
+            conn.commit();
+        }
+    }
+
+    @Override
+    public void update(InventoryItem item) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var ps = conn.prepareStatement("""
+                    UPDATE "Inventory_Quantity"
+                       SET quantity = ?, last_quantity = CURRENT_DATE
+                     WHERE inventory_id = ?
+                    """)) {
+                ps.setInt(1, item.getCurrentQuantity());
+                ps.setObject(2, UUID.fromString(item.getDbId()));
+                ps.executeUpdate();
+            }
+            // The entered quantity is a fresh count of everything on hand, escrow included.
+            InventoryCounters.discardEscrow(conn, UUID.fromString(item.getDbId()));
+            try (var ps = conn.prepareStatement("""
+                    INSERT INTO pos_inventory_meta (inventory_id, display_name, unit, min_quantity)
+                    VALUES (?, ?, ?, ?)
+                    ON CONFLICT (inventory_id)
+                    DO UPDATE SET display_name = EXCLUDED.display_name,
+                                  unit = EXCLUDED.unit,
+                                  min_quantity = EXCLUDED.min_quantity
+                    """)) {
+                ps.setObject(1, UUID.fromString(item.getDbId()));
+                ps.setString(2, item.getName());
+                ps.setString(3, item.getUnit() == null ? "" : item.getUnit());
+                ps.setInt(4, item.getParLevel());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            // Recipes carry ingredient names for shortfall messages.
+            RecipeCache.invalidate();
+        }
+    }
+
+    @Override
+    public void delete(String inventoryId) throws SQLException {
+        String sql = "DELETE FROM \"Inventory_Quantity\" WHERE inventory_id = ?";
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, UUID.fromString(inventoryId));
+            ps.executeUpdate();
+            RecipeCache.invalidate();
+        }
+    }
+}
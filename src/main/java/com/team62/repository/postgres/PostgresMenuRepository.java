@@ -0,0 +1,290 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.StatementRegistry;
+import com.team62.db.Uuid7;
+import com.team62.model.MenuItem;
+import com.team62.repository.MenuRepository;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link MenuRepository} on {@code "Item"}, with recipes in {@code pos_menu_inventory}.
+ */
+final class PostgresMenuRepository implements MenuRepository {
+
+    @Override
+    public List<MenuItem> findActive() throws SQLException {
+        List<MenuItem> items = new ArrayList<>();
+        try (var conn = Database.getConnection();
+                var ps = StatementRegistry.prepare(conn, OrderStatements.MENU);
+                var rs = ps.executeQuery()) {
+            int uiId = 1;
+            while (rs.next()) {
+                MenuItem mi = new MenuItem(
+                        uiId++,
+                        rs.getString("name"),
+                        rs.getString("category"),
+                        rs.getBigDecimal("price"),
+                        rs.getBoolean("is_active"));
+                mi.setDbId(rs.getObject("item_id").toString());
+                items.add(mi);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public void add(MenuItem item) throws SQLException {
+        String sql = """
+                INSERT INTO "Item" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+
+            UUID id = Uuid7.next();
+            item.setDbId(id.toString());
+
+            ps.setObject(1, id);
+            ps.setString(2, item.getName());
+            ps.setString(3, item.getCategory());
+            ps.setBigDecimal(4, item.getBasePrice());
+            ps.setBoolean(5, item.isActive());
+            ps.setString(6, "whole");
+            ps.setInt(7, 1);
+            ps.setFloat(8, 1.0f);
+            ps.setArray(9, conn.createArrayOf("text", new Object[] {}));
+            ps.executeUpdate();
+            menuChanged();
+        }
+    }
+
+    @Override
+    public void addWithIngredients(MenuItem item, List<String> ingredientNames, int quantityUsed,
+            int startingQuantity, int minQuantity) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+
+            UUID menuItemId = Uuid7.next();
+            try (var ps = conn.prepareStatement("""
+                    INSERT INTO "Item" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)
+                    VALUES (?, ?, ?, ?, TRUE, 'whole', 1, 1.0, '{}'::text[])
+                    """)) {
+                ps.setObject(1, menuItemId);
+                ps.setString(2, item.getName());
+                ps.setString(3, item.getCategory());
+                ps.setBigDecimal(4, item.getBasePrice());
+                ps.executeUpdate();
+            }
+
+            for (String ingredientName : ingredientNames) {
+                UUID inventoryId = findOrCreateInventory(conn, ingredientName, "units", startingQuantity, minQuantity);
+                try (var ps = conn.prepareStatement("""
+                        INSERT INTO pos_menu_inventory (menu_item_id, inventory_id, quantity_used)
+                        VALUES (?, ?, ?)
+                        ON CONFLICT (menu_item_id, inventory_id)
+                        DO UPDATE SET quantity_used = EXCLUDED.quantity_used
+                        """)) {
+                    ps.setObject(1, menuItemId);
+                    ps.setObject(2, inventoryId);
+                    ps.setInt(3, quantityUsed);
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+            item.setDbId(menuItemId.toString());
+            menuChanged();
+        }
+    }
+
+    @Override
+    public void update(MenuItem item) throws SQLException {
+        String sql = """
+                UPDATE "Item"
+                   SET name = ?, category = ?, price = ?, is_active = ?
+                 WHERE item_id = ?
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setString(1, item.getName());
+            ps.setString(2, item.getCategory());
+            ps.setBigDecimal(3, item.getBasePrice());
+            ps.setBoolean(4, item.isActive());
+            ps.setObject(5, UUID.fromString(item.getDbId()));
+            ps.executeUpdate();
+            menuChanged();
+        }
+    }
+
+    @Override
+    public boolean delete(String itemId) throws SQLException {
+        String sql = "DELETE FROM \"Item\" WHERE item_id = ?";
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, UUID.fromString(itemId));
+            ps.executeUpdate();
+            menuChanged();
+            return true;
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("fk_order_item_item")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void addFromInventory(String inventoryId, String name, String category, BigDecimal price)
+            throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // Check if an Item already exists for this inventory entry
+            UUID existingMenuItemId = menuItemFor(conn, inventoryId);
+
+            if (existingMenuItemId != null) {
+                // Reactivate and update price
+                try (var ps = conn.prepareStatement("""
+                        UPDATE "Item" SET is_active = TRUE, price = ? WHERE item_id = ?
+                        """)) {
+                    ps.setBigDecimal(1, price);
+                    ps.setObject(2, existingMenuItemId);
+                    ps.executeUpdate();
+                }
+            } else {
+                // Create new Item record
+                UUID menuItemId = Uuid7.next();
+                try (var ps = conn.prepareStatement("""
+                        INSERT INTO "Item" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)
+                        VALUES (?, ?, ?, ?, TRUE, 'whole', 1, 1.0, '{}'::text[])
+                        """)) {
+                    ps.setObject(1, menuItemId);
+                    ps.setString(2, name);
+                    ps.setString(3, category);
+                    ps.setBigDecimal(4, price);
+                    ps.executeUpdate();
+                }
+                try (var ps = conn.prepareStatement("""
+                        INSERT INTO "Item_Inventory" (id, inventory_id, item_id)
+                        VALUES (?, ?, ?)
+                        ON CONFLICT DO NOTHING
+                        """)) {
+                    ps.setObject(1, Uuid7.next());
+                    ps.setObject(2, UUID.fromString(inventoryId));
+                    ps.setObject(3, menuItemId);
+                    ps.executeUpdate();
+                }
+                try (var ps = conn.prepareStatement("""
+                        INSERT INTO pos_menu_inventory (menu_item_id, inventory_id, quantity_used)
+                        VALUES (?, ?, 1)
+                        ON CONFLICT DO NOTHING
+                        """)) {
+                    ps.setObject(1, menuItemId);
+                    ps.setObject(2, UUID.fromString(inventoryId));
+                    ps.executeUpdate();
+                }
+            }
+
+            // Flip is_on_menu and base_price
+            try (var ps = conn.prepareStatement("""
+                    UPDATE pos_inventory_meta
+                    SET is_on_menu = TRUE, base_price = ?
+                    WHERE inventory_id = ?
+                    """)) {
+                ps.setBigDecimal(1, price);
+                ps.setObject(2, UUID.fromString(inventoryId));
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+            menuChanged();
+        }
+    }
+
+    @Override
+    public void removeFromInventory(String inventoryId) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+
+            UUID menuItemId = menuItemFor(conn, inventoryId);
+            if (menuItemId != null) {
+                try (var ps = conn.prepareStatement("""
+                        UPDATE "Item" SET is_active = FALSE WHERE item_id = ?
+                        """)) {
+                    ps.setObject(1, menuItemId);
+                    ps.executeUpdate();
+                }
+            }
+
+            try (var ps = conn.prepareStatement("""
+                    UPDATE pos_inventory_meta SET is_on_menu = FALSE WHERE inventory_id = ?
+                    """)) {
+                ps.setObject(1, UUID.fromString(inventoryId));
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+        }
+    }
+
+    /**
+     * Drops the cached recipes and modifier prices after a change to the menu.
+     */
+    static void menuChanged() {
+        RecipeCache.invalidate();
+        PostgresModifierRepository.invalidate();
+    }
+
+    private static UUID menuItemFor(Connection conn, String inventoryId) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                SELECT item_id FROM "Item_Inventory" WHERE inventory_id = ? LIMIT 1
+                """)) {
+            ps.setObject(1, UUID.fromString(inventoryId));
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? (UUID) rs.getObject("item_id") : null;
+            }
+        }
+    }
+
+    private static UUID findOrCreateInventory(Connection conn, String name, String unit, int quantity, int minQty)
+            throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                SELECT inventory_id
+                  FROM pos_inventory_meta
+                 WHERE LOWER(display_name) = LOWER(?)
+                 LIMIT 1
+                """)) {
+            ps.setString(1, name);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return (UUID) rs.getObject("inventory_id");
+                }
+            }
+        }
+        UUID inventoryId = Uuid7.next();
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO "Inventory_Quantity" (inventory_id, quantity, last_restocked, last_quantity)
+                VALUES (?, ?, CURRENT_DATE, CURRENT_DATE)
+                """)) {
+            ps.setObject(1, inventoryId);
+            ps.setInt(2, quantity);
+            ps.executeUpdate();
+        }
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO pos_inventory_meta (inventory_id, display_name, unit, min_quantity)
+                VALUES (?, ?, ?, ?)
+                """)) {
+            ps.setObject(1, inventoryId);
+            ps.setString(2, name);
+            ps.setString(3, unit == null ? "" : unit);
+            ps.setInt(4, minQty);
+            ps.executeUpdate();
+        }
+        return inventoryId;
+    }
+}
@@ -0,0 +1,213 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.StatementRegistry;
+import com.team62.db.StatementRegistry.Named;
+import com.team62.db.Stores;
+import com.team62.model.Modifiers;
+import com.team62.model.Modifiers.Group;
+import com.team62.model.Modifiers.Modifier;
+import com.team62.model.Modifiers.Table;
+import com.team62.model.Money;
+import com.team62.repository.ModifierRepository;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ModifierRepository} on {@code pos_modifier} and {@code pos_item_modifier}.
+ *
+ * Tables are cached per store and reloaded like {@link RecipeCache}: after
+ * {@link #invalidate()}, every {@code team62.modifiers.maxAgeSeconds} (default 300), and
+ * when an order names an item the table has not seen.
+ */
+final class PostgresModifierRepository implements ModifierRepository {
+
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("team62.modifiers.maxAgeSeconds", 300L));
+    private static final long MISS_RELOAD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final AtomicLong GENERATION = new AtomicLong();
+    private static final Map<String, Loaded> CURRENT = new ConcurrentHashMap<>();
+
+    /** Created by {@link PostgresRepositories} on startup, before {@link Stores#DDL}. */
+    static final String[] DDL = {
+            """
+            CREATE TABLE IF NOT EXISTS pos_modifier (
+                modifier_id SMALLINT PRIMARY KEY CHECK (modifier_id BETWEEN 0 AND 62),
+                group_name TEXT NOT NULL CHECK (group_name IN ('milk', 'ice', 'sugar', 'topping')),
+                name TEXT NOT NULL,
+                upcharge NUMERIC(10,2) NOT NULL DEFAULT 0 CHECK (upcharge >= 0),
+                is_default BOOLEAN NOT NULL DEFAULT FALSE,
+                is_active BOOLEAN NOT NULL DEFAULT TRUE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS pos_item_modifier (
+                item_id UUID NOT NULL REFERENCES \"Item\"(item_id) ON DELETE CASCADE,
+                modifier_id SMALLINT NOT NULL CHECK (modifier_id BETWEEN 0 AND 62),
+                allowed BOOLEAN NOT NULL DEFAULT TRUE,
+                upcharge NUMERIC(10,2) CHECK (upcharge >= 0),
+                PRIMARY KEY (item_id, modifier_id)
+            )
+            """,
+            // No table rewrite: a constant default is stored once in the catalog.
+            """
+            ALTER TABLE \"Order_Item\" ADD COLUMN IF NOT EXISTS modifiers BIGINT NOT NULL DEFAULT 0
+            """,
+            // An order has one line per item and customization, no longer one per item.
+            """
+            CREATE UNIQUE INDEX IF NOT EXISTS uq_order_item_line ON \"Order_Item\" (order_id, item_id, modifiers, order_date)
+            """,
+            """
+            DROP INDEX IF EXISTS uq_order_item_pair
+            """,
+            // The standard choices, for a store that has none yet. Ids leave room to add
+            // more to each group.
+            """
+            INSERT INTO pos_modifier (modifier_id, group_name, name, upcharge, is_default)
+            SELECT * FROM (VALUES
+                    (0, 'milk', 'Whole milk', 0.00, TRUE),
+                    (1, 'milk', 'Oat milk', 0.75, FALSE),
+                    (2, 'milk', 'Almond milk', 0.75, FALSE),
+                    (3, 'milk', 'Lactose-free milk', 0.50, FALSE),
+                    (12, 'ice', 'Regular ice', 0.00, TRUE),
+                    (13, 'ice', 'Less ice', 0.00, FALSE),
+                    (14, 'ice', 'No ice', 0.00, FALSE),
+                    (15, 'ice', 'Extra ice', 0.00, FALSE),
+                    (20, 'sugar', '100% sugar', 0.00, TRUE),
+                    (21, 'sugar', '75% sugar', 0.00, FALSE),
+                    (22, 'sugar', '50% sugar', 0.00, FALSE),
+                    (23, 'sugar', '25% sugar', 0.00, FALSE),
+                    (24, 'sugar', '0% sugar', 0.00, FALSE),
+                    (32, 'topping', 'Tapioca pearls', 0.50, FALSE),
+                    (33, 'topping', 'Lychee jelly', 0.50, FALSE),
+                    (34, 'topping', 'Pudding', 0.75, FALSE),
+                    (35, 'topping', 'Red bean', 0.75, FALSE),
+                    (36, 'topping', 'Cheese foam', 1.00, FALSE)
+                ) AS m(modifier_id, group_name, name, upcharge, is_default)
+             WHERE NOT EXISTS (SELECT 1 FROM pos_modifier)
+            """
+    };
+
+    // Loaded rarely: not worth warming.
+    private static final Named ALL = StatementRegistry.declare("modifier.all", """
+            SELECT modifier_id, group_name, name, upcharge, is_default
+              FROM pos_modifier
+             WHERE is_active
+             ORDER BY modifier_id
+            """, false);
+
+    private static final Named ITEMS = StatementRegistry.declare("modifier.items", """
+            SELECT i.item_id, i.price, im.modifier_id, im.allowed, im.upcharge
+              FROM "Item" i
+              LEFT JOIN pos_item_modifier im ON im.item_id = i.item_id
+            """, false);
+
+    private record Loaded(Table table, long loadedAt) {
+        boolean fresh() {
+            return System.nanoTime() - loadedAt < MAX_AGE_NANOS;
+        }
+
+        // A table that missed an item less than a second ago is not reloaded for it yet.
+        boolean recent() {
+            return System.nanoTime() - loadedAt < MISS_RELOAD_NANOS;
+        }
+    }
+
+    @Override
+    public Table table() throws SQLException {
+        Loaded loaded = CURRENT.get(Stores.current());
+        if (loaded != null && loaded.fresh()) {
+            return loaded.table();
+        }
+        try (var conn = Database.getConnection()) {
+            return reload(conn, loaded).table();
+        }
+    }
+
+    @Override
+    public Table table(Collection<String> itemIds) throws SQLException {
+        Loaded loaded = CURRENT.get(Stores.current());
+        if (loaded != null && loaded.fresh() && knowsAll(loaded, itemIds)) {
+            return loaded.table();
+        }
+        try (var conn = Database.getConnection()) {
+            if (loaded == null || !loaded.fresh()) {
+                loaded = reload(conn, loaded);
+            }
+            return knowsAll(loaded, itemIds) ? loaded.table() : reload(conn, loaded).table();
+        }
+    }
+
+    private static boolean knowsAll(Loaded loaded, Collection<String> itemIds) {
+        if (loaded.recent()) {
+            return true;
+        }
+        for (String itemId : itemIds) {
+            if (!loaded.table().knows(itemId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the cached tables; the next caller loads them again.
+     */
+    static void invalidate() {
+        GENERATION.incrementAndGet();
+        CURRENT.clear();
+    }
+
+    private static synchronized Loaded reload(Connection conn, Loaded seen) throws SQLException {
+        String store = Stores.current();
+        Loaded loaded = CURRENT.get(store);
+        if (loaded != null && loaded != seen) {
+            return loaded; // another thread just loaded it
+        }
+        long generation = GENERATION.get();
+        loaded = new Loaded(load(conn), System.nanoTime());
+        if (GENERATION.get() == generation) {
+            CURRENT.put(store, loaded);
+        }
+        return loaded;
+    }
+
+    private static Table load(Connection conn) throws SQLException {
+        List<Modifier> modifiers = new ArrayList<>();
+        try (var ps = StatementRegistry.prepare(conn, ALL);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                modifiers.add(new Modifier(rs.getInt("modifier_id"),
+                        Group.valueOf(rs.getString("group_name").toUpperCase()), rs.getString("name"),
+                        Money.of(rs.getBigDecimal("upcharge")), rs.getBoolean("is_default")));
+            }
+        }
+        Map<String, Long> prices = new HashMap<>();
+        Map<String, Long> denied = new HashMap<>();
+        Map<String, Map<Integer, Long>> overrides = new HashMap<>();
+        try (var ps = StatementRegistry.prepare(conn, ITEMS);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String itemId = rs.getString("item_id");
+                prices.put(itemId, Money.of(rs.getBigDecimal("price")));
+                int id = rs.getInt("modifier_id");
+                if (rs.wasNull()) {
+                    continue;
+                }
+                if (!rs.getBoolean("allowed")) {
+                    denied.merge(itemId, 1L << id, (a, b) -> a | b);
+                } else if (rs.getBigDecimal("upcharge") != null) {
+                    overrides.computeIfAbsent(itemId, k -> new HashMap<>()).put(id, Money.of(rs.getBigDecimal("upcharge")));
+                }
+            }
+        }
+        return Modifiers.compile(modifiers, prices, denied, overrides);
+    }
+}
@@ -0,0 +1,352 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.StatementRegistry;
+import com.team62.db.Uuid7;
+import com.team62.model.SalesOrder;
+import com.team62.repository.OrderRepository;
+import com.team62.repository.OrderResult;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * {@link OrderRepository} on {@code "Order"} and {@code "Order_Item"}, taking stock
+ * through {@link StockReservation} and 86ing items through {@link ThresholdWatcher}.
+ */
+final class PostgresOrderRepository implements OrderRepository {
+
+    private final ThresholdWatcher thresholds = new ThresholdWatcher();
+
+    @Override
+    public void addSoldOutListener(Consumer<Set<String>> listener) {
+        thresholds.addListener(listener);
+    }
+
+    /**
+     * Writes a group of orders in one transaction, one multi-row insert per table.
+     * An order that is short of stock fails on its own. If the transaction fails for
+     * any other reason, each order is retried in a transaction of its own, so one bad
+     * order cannot take the others down with it.
+     */
+    @Override
+    public List<OrderResult> write(List<SalesOrder> orders) {
+        OrderResult[] results = new OrderResult[orders.size()];
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            ThresholdWatcher.Trip trip = write(conn, orders, results);
+            conn.commit();
+            thresholds.committed(trip);
+            return List.of(results);
+        } catch (SQLException e) {
+            if (orders.size() == 1) {
+                e.printStackTrace();
+                return List.of(OrderResult.failed(e.getMessage()));
+            }
+            List<OrderResult> retried = new ArrayList<>();
+            for (SalesOrder order : orders) {
+                retried.addAll(write(List.of(order)));
+            }
+            return retried;
+        }
+    }
+
+    private ThresholdWatcher.Trip write(Connection conn, List<SalesOrder> orders, OrderResult[] results)
+            throws SQLException {
+        boolean[] accepted = new boolean[orders.size()];
+        int[] duplicateOf = new int[orders.size()];
+        Arrays.fill(duplicateOf, -1);
+        // What every line uses, from the recipe (quantity_used) or the legacy link.
+        List<StockReservation.Need> needs = StockReservation.plan(conn, orders);
+        List<List<StockReservation.Need>> byOrder = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            byOrder.add(new ArrayList<>());
+        }
+        for (var need : needs) {
+            byOrder.get(need.order()).add(need);
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            List<String> unlinked = StockReservation.unlinked(byOrder.get(i));
+            accepted[i] = unlinked.isEmpty();
+            results[i] = accepted[i] ? OrderResult.processed() : OrderResult.insufficientStock(unlinked);
+        }
+        claimKeys(conn, orders, accepted, duplicateOf, results);
+
+        // Usually this register's slot holds enough for the whole group: take it in one
+        // statement, then write every order.
+        Map<UUID, Integer> remaining = new HashMap<>();
+        List<StockReservation.Need> taken = acceptedNeeds(byOrder, accepted);
+        if (!StockReservation.reserve(conn, taken, remaining).isEmpty()) {
+            // The slot is short: top it up in a short transaction of its own and start over.
+            conn.rollback();
+            boolean enough = StockReservation.refill(conn, taken);
+            claimKeys(conn, orders, accepted, duplicateOf, results);
+            taken = acceptedNeeds(byOrder, accepted);
+            if (!enough || !StockReservation.reserve(conn, taken, remaining).isEmpty()) {
+                // The store itself is short: take stock order by order, writing only the
+                // orders that got theirs. The others give their keys back, so a retry once
+                // stock has arrived is written rather than taken as already recorded.
+                List<UUID> released = new ArrayList<>();
+                for (int i = 0; i < orders.size(); i++) {
+                    if (!accepted[i]) {
+                        continue;
+                    }
+                    List<String> shortfalls = StockReservation.reserve(conn, byOrder.get(i), remaining);
+                    if (!shortfalls.isEmpty()) {
+                        accepted[i] = false;
+                        results[i] = OrderResult.insufficientStock(shortfalls);
+                        released.add(UUID.fromString(orders.get(i).getOrderKey()));
+                    }
+                }
+                releaseKeys(conn, released);
+            }
+        }
+        UUID[] orderIds = insertOrders(conn, orders, accepted, byOrder);
+        // After the stock, so every writer locks escrow rows before balance rows.
+        List<UUID> members = new ArrayList<>();
+        List<UUID> memberOrders = new ArrayList<>();
+        List<Long> memberTotals = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (accepted[i] && orders.get(i).getCustomerDbId() != null) {
+                members.add(UUID.fromString(orders.get(i).getCustomerDbId()));
+                memberOrders.add(orderIds[i]);
+                memberTotals.add(orders.get(i).getTotalCents());
+            }
+        }
+        Loyalty.accrue(conn, members, memberOrders, memberTotals);
+        // A key sent twice in one group shares the fate of its first copy.
+        for (int i = 0; i < orders.size(); i++) {
+            if (duplicateOf[i] >= 0) {
+                results[i] = accepted[duplicateOf[i]] ? OrderResult.alreadyRecorded() : results[duplicateOf[i]];
+            }
+        }
+        return thresholds.check(conn, remaining);
+    }
+
+    private static List<StockReservation.Need> acceptedNeeds(List<List<StockReservation.Need>> byOrder,
+                                                             boolean[] accepted) {
+        List<StockReservation.Need> needs = new ArrayList<>();
+        for (int i = 0; i < accepted.length; i++) {
+            if (accepted[i]) {
+                needs.addAll(byOrder.get(i));
+            }
+        }
+        return needs;
+    }
+
+    /**
+     * Claims the order key of every accepted order in {@code pos_order_key}, in one
+     * statement. An order whose key was already recorded, or which repeats a key earlier
+     * in {@code orders} (noted in {@code duplicateOf}), is no longer accepted.
+     * The claim commits or rolls back with the order, and is released again if the
+     * order then comes up short of stock, so a key is taken exactly when its order is
+     * recorded. A concurrent attempt with the same key waits for the first to finish.
+     */
+    private static void claimKeys(Connection conn, List<SalesOrder> orders, boolean[] accepted, int[] duplicateOf,
+                                  OrderResult[] results) throws SQLException {
+        Map<UUID, Integer> firstWithKey = new HashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (!accepted[i]) {
+                continue;
+            }
+            Integer first = firstWithKey.putIfAbsent(UUID.fromString(orders.get(i).getOrderKey()), i);
+            if (first != null) {
+                accepted[i] = false;
+                duplicateOf[i] = first;
+            }
+        }
+        if (firstWithKey.isEmpty()) {
+            return;
+        }
+        Set<UUID> claimed = new HashSet<>();
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.CLAIM_KEYS)) {
+            ps.setArray(1, conn.createArrayOf("uuid", firstWithKey.keySet().toArray()));
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    claimed.add((UUID) rs.getObject("order_id"));
+                }
+            }
+        }
+        for (var entry : firstWithKey.entrySet()) {
+            if (!claimed.contains(entry.getKey())) {
+                accepted[entry.getValue()] = false;
+                results[entry.getValue()] = OrderResult.alreadyRecorded();
+            }
+        }
+    }
+
+    /** Deletes the claims {@link #claimKeys} made for {@code keys} in this transaction. */
+    private static void releaseKeys(Connection conn, List<UUID> keys) throws SQLException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.RELEASE_KEYS)) {
+            ps.setArray(1, conn.createArrayOf("uuid", keys.toArray()));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Inserts the accepted orders with their lines, inventory usage and sales activity.
+     * All rows share the transaction's NOW(), which is also the partition key of both
+     * "Order" and "Order_Item".
+     *
+     * @return the new order ids by position in {@code orders} (null where not accepted)
+     */
+    private static UUID[] insertOrders(Connection conn, List<SalesOrder> orders, boolean[] accepted,
+                              List<List<StockReservation.Need>> needs) throws SQLException {
+        UUID[] written = new UUID[orders.size()];
+        List<UUID> orderIds = new ArrayList<>();
+        List<String> customers = new ArrayList<>();
+        // Amounts in cents, bound as BIGINT arrays.
+        List<Long> totals = new ArrayList<>();
+        List<Long> taxes = new ArrayList<>();
+        List<Integer> itemCounts = new ArrayList<>();
+        List<String> payments = new ArrayList<>();
+        List<UUID> activityIds = new ArrayList<>();
+        List<UUID> lineIds = new ArrayList<>();
+        List<UUID> lineOrders = new ArrayList<>();
+        List<UUID> lineItems = new ArrayList<>();
+        List<Integer> lineQuantities = new ArrayList<>();
+        List<Long> linePrices = new ArrayList<>();
+        List<Long> lineModifiers = new ArrayList<>();
+        List<UUID> usageIds = new ArrayList<>();
+        List<UUID> usageOrders = new ArrayList<>();
+        List<UUID> usageItems = new ArrayList<>();
+        List<UUID> usageInventory = new ArrayList<>();
+        List<Integer> usageQuantities = new ArrayList<>();
+
+        for (int i = 0; i < orders.size(); i++) {
+            if (!accepted[i]) {
+                continue;
+            }
+            SalesOrder order = orders.get(i);
+            UUID orderId = UUID.fromString(order.getOrderKey());
+            long subtotal = 0;
+            int itemCount = 0;
+            for (var item : order.getOrderItems()) {
+                subtotal += item.getLineTotalCents();
+                itemCount += item.getQuantity();
+                if (item.getItemDbId() != null) {
+                    lineIds.add(Uuid7.next());
+                    lineOrders.add(orderId);
+                    lineItems.add(UUID.fromString(item.getItemDbId()));
+                    lineQuantities.add(item.getQuantity());
+                    linePrices.add(item.getUnitPriceCents());
+                    lineModifiers.add(item.getModifiers());
+                }
+            }
+            written[i] = orderId;
+            orderIds.add(orderId);
+            customers.add(order.getCustomerDbId());
+            totals.add(order.getTotalCents());
+            taxes.add(Math.max(order.getTotalCents() - subtotal, 0));
+            itemCounts.add(itemCount);
+            payments.add(order.getPaymentMethod() == null ? "Cash" : order.getPaymentMethod());
+            activityIds.add(Uuid7.next());
+            for (var need : needs.get(i)) {
+                usageIds.add(Uuid7.next());
+                usageOrders.add(orderId);
+                usageItems.add(need.menuItemId());
+                usageInventory.add(need.inventoryId());
+                usageQuantities.add(need.quantity());
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return written;
+        }
+
+        UUID employeeId = ensureDemoEmployee(conn);
+        // Walk-up sales are booked to the demo customer.
+        UUID walkUp = ensureDemoCustomer(conn);
+        List<UUID> customerIds = customers.stream().map(c -> c == null ? walkUp : UUID.fromString(c)).toList();
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.INSERT_ORDERS)) {
+            ps.setArray(1, conn.createArrayOf("uuid", orderIds.toArray()));
+            ps.setArray(2, conn.createArrayOf("uuid", customerIds.toArray()));
+            ps.setArray(3, conn.createArrayOf("int8", totals.toArray()));
+            ps.setArray(4, conn.createArrayOf("int4", itemCounts.toArray()));
+            ps.setArray(5, conn.createArrayOf("text", payments.toArray()));
+            ps.setObject(6, employeeId);
+            ps.executeUpdate();
+        }
+        if (!lineIds.isEmpty()) {
+            try (var ps = StatementRegistry.prepare(conn, OrderStatements.INSERT_LINES)) {
+                ps.setArray(1, conn.createArrayOf("uuid", lineIds.toArray()));
+                ps.setArray(2, conn.createArrayOf("uuid", lineOrders.toArray()));
+                ps.setArray(3, conn.createArrayOf("uuid", lineItems.toArray()));
+                ps.setArray(4, conn.createArrayOf("int4", lineQuantities.toArray()));
+                ps.setArray(5, conn.createArrayOf("int8", linePrices.toArray()));
+                ps.setArray(6, conn.createArrayOf("int8", lineModifiers.toArray()));
+                ps.executeUpdate();
+            }
+        }
+        if (!usageIds.isEmpty()) {
+            try (var ps = StatementRegistry.prepare(conn, OrderStatements.INSERT_USAGE)) {
+                ps.setArray(1, conn.createArrayOf("uuid", usageIds.toArray()));
+                ps.setArray(2, conn.createArrayOf("uuid", usageOrders.toArray()));
+                ps.setArray(3, conn.createArrayOf("uuid", usageItems.toArray()));
+                ps.setArray(4, conn.createArrayOf("uuid", usageInventory.toArray()));
+                ps.setArray(5, conn.createArrayOf("int4", usageQuantities.toArray()));
+                ps.executeUpdate();
+            }
+        }
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.INSERT_ACTIVITY)) {
+            ps.setArray(1, conn.createArrayOf("uuid", activityIds.toArray()));
+            ps.setArray(2, conn.createArrayOf("uuid", orderIds.toArray()));
+            ps.setArray(3, conn.createArrayOf("int8", totals.toArray()));
+            ps.setArray(4, conn.createArrayOf("int8", taxes.toArray()));
+            ps.setArray(5, conn.createArrayOf("text", payments.toArray()));
+            ps.setArray(6, conn.createArrayOf("int4", itemCounts.toArray()));
+            ps.executeUpdate();
+        }
+        return written;
+    }
+
+    private static UUID ensureDemoEmployee(Connection conn) throws SQLException {
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.DEMO_EMPLOYEE);
+                var rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return (UUID) rs.getObject("employee_id");
+            }
+        }
+        UUID id = Uuid7.next();
+        String json = "{\"role\":\"Cashier\",\"active\":true}";
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO "Employee" (employee_id, name, start_date, work_history)
+                VALUES (?, ?, CURRENT_DATE, ?::jsonb)
+                """)) {
+            ps.setObject(1, id);
+            ps.setString(2, "Demo Employee");
+            ps.setString(3, json);
+            ps.executeUpdate();
+        }
+        return id;
+    }
+
+    private static UUID ensureDemoCustomer(Connection conn) throws SQLException {
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.DEMO_CUSTOMER);
+                var rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return (UUID) rs.getObject("customer_id");
+            }
+        }
+        UUID id = Uuid7.next();
+        try (var ps = conn.prepareStatement("""
+                INSERT INTO "Customer" (customer_id, name, phone_number, email, points, purchase_history)
+                VALUES (?, ?, NULL, NULL, 0, '{}'::uuid[])
+                """)) {
+            ps.setObject(1, id);
+            ps.setString(2, "Walk-up Customer");
+            ps.executeUpdate();
+        }
+        return id;
+    }
+}
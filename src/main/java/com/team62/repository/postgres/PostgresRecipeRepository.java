@@ -0,0 +1,46 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.model.MenuItem;
+import com.team62.repository.RecipeRepository;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link RecipeRepository} from the compiled {@link RecipeCache}, so only the stock of
+ * the ingredients involved is read.
+ */
+final class PostgresRecipeRepository implements RecipeRepository {
+
+    @Override
+    public void applyStock(List<MenuItem> items) throws SQLException {
+        List<UUID> itemIds = new ArrayList<>();
+        for (MenuItem item : items) {
+            itemIds.add(UUID.fromString(item.getDbId()));
+        }
+        try (var conn = Database.getConnection()) {
+            RecipeCache.Recipes recipes = RecipeCache.get(conn, itemIds);
+            RecipeCache.Stock stock = RecipeCache.stock(conn, recipes);
+            for (int i = 0; i < items.size(); i++) {
+                RecipeCache.Recipe recipe = recipes.recipe(itemIds.get(i));
+                if (recipe != null) {
+                    int makeable = recipes.makeable(recipe, stock);
+                    items.get(i).setMakeable(makeable);
+                    items.get(i).setOutOfStock(makeable == 0 || recipes.atMinimum(recipe, stock));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int makeable(String itemId) throws SQLException {
+        UUID id = UUID.fromString(itemId);
+        try (var conn = Database.getConnection()) {
+            RecipeCache.Recipes recipes = RecipeCache.get(conn, List.of(id));
+            RecipeCache.Recipe recipe = recipes.recipe(id);
+            return recipe == null ? -1 : recipes.makeable(recipe, RecipeCache.stock(conn, recipes));
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.Stores;
+import com.team62.db.Uuid7;
+import com.team62.model.InventoryUsage;
+import com.team62.model.Money;
+import com.team62.repository.ReportRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link ReportRepository} on the sales activity, the day-close snapshots
+ * ({@link DaySnapshots}) and the sales series ({@link SalesSeries}).
+ */
+final class PostgresReportRepository implements ReportRepository {
+
+    // Range reports (sales, usage) may read a replica up to team62.db.read.maxLagSeconds
+    // behind; the restock reports only one that is nearly current. X/Z reports and the
+    // per-day totals stay on the primary, which they write to or are checked against
+    // right after writing.
+    private static final int STOCK_MAX_LAG_SECONDS = 5;
+
+    // Per store, since each model reads only its own store's usage.
+    private final Map<String, RestockForecast> restockForecasts = new ConcurrentHashMap<>();
+
+    @Override
+    public long salesForDate(LocalDate date) throws SQLException {
+        String sql = """
+                SELECT COALESCE(SUM(oi.quantity * oi.unit_price), 0) AS total
+                  FROM "Order" o
+                  JOIN "Order_Item" oi ON oi.order_id = o.order_id AND oi.order_date = o.date
+                 WHERE o.date >= ? AND o.date < ?
+                   AND oi.order_date >= ? AND oi.order_date < ?
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            bindDayRange(ps, 1, date, date);
+            bindDayRange(ps, 3, date, date);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? Money.of(rs.getBigDecimal("total")) : 0;
+            }
+        }
+    }
+
+    @Override
+    public long orderCountForDate(LocalDate date) throws SQLException {
+        String sql = """
+                SELECT COUNT(*) AS cnt
+                  FROM "Order"
+                 WHERE date >= ? AND date < ?
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            bindDayRange(ps, 1, date, date);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("cnt") : 0L;
+            }
+        }
+    }
+
+    @Override
+    public List<InventoryUsage> usage(LocalDate start, LocalDate end) throws SQLException {
+        List<InventoryUsage> out = new ArrayList<>();
+        try (var conn = Database.getReadConnection();
+                var ps = conn.prepareStatement(SalesSeries.USAGE_TOTALS)) {
+            bindDayRange(ps, 1, start, end);
+            bindDayRange(ps, 3, start, end);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new InventoryUsage(rs.getString("item_name"), rs.getInt("used_total")));
+                }
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public DayTotals liveTotals(LocalDate date) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            return DaySnapshots.live(conn, date);
+        }
+    }
+
+    @Override
+    public ClosedDay closedDay(LocalDate date) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            DaySnapshots.Snapshot snapshot = DaySnapshots.load(conn, date);
+            return snapshot == null ? null : closed(snapshot);
+        }
+    }
+
+    @Override
+    public List<ClosedDay> closedDays(LocalDate start, LocalDate end) throws SQLException {
+        List<ClosedDay> days = new ArrayList<>();
+        try (var conn = Database.getReadConnection()) {
+            for (DaySnapshots.Snapshot snapshot : DaySnapshots.list(conn, start, end)) {
+                days.add(closed(snapshot));
+            }
+        }
+        return days;
+    }
+
+    private static ClosedDay closed(DaySnapshots.Snapshot snapshot) {
+        return new ClosedDay(snapshot.date(), snapshot.closedAt(), snapshot.totals());
+    }
+
+    @Override
+    public String version(LocalDate date) throws SQLException {
+        // A sale adds an activity row, a Z close moves them into the snapshot and a reset
+        // moves them back; stock is fingerprinted, as any process can count it.
+        String sql = """
+                SELECT (SELECT generated_at FROM pos_z_report WHERE report_date = ?) AS closed_at,
+                       (SELECT COUNT(*) || '@' || COALESCE(MAX(event_time)::TEXT, '')
+                          FROM pos_sales_activity WHERE business_date = ?) AS sales,
+                       (SELECT COALESCE(SUM(hashtext(a.inventory_id || ':' || a.quantity || ':' || COALESCE(m.min_quantity, 0))), 0)
+                          FROM pos_inventory_available a
+                          LEFT JOIN pos_inventory_meta m ON m.inventory_id = a.inventory_id) AS stock
+                """;
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, date);
+            ps.setObject(2, date);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString("closed_at") + "/" + rs.getString("sales") + "/" + rs.getLong("stock");
+            }
+        }
+    }
+
+    @Override
+    public String zReport(LocalDate date) throws SQLException {
+        String sql = "SELECT report_text FROM pos_z_report WHERE report_date = ?";
+        try (var conn = Database.getConnection();
+                var ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, date);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    String txt = rs.getString("report_text");
+                    return txt == null ? "" : txt;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String closeDay(LocalDate date, Function<DayTotals, String> reportText) throws SQLException {
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            String text = reportText.apply(DaySnapshots.close(conn, date));
+            try (var insert = conn.prepareStatement("""
+                    INSERT INTO pos_z_report (report_date, report_text)
+                    VALUES (?, ?)
+                    """)) {
+                insert.setObject(1, date);
+                insert.setString(2, text);
+                insert.executeUpdate();
+            }
+            conn.commit();
+            return text;
+        }
+    }
+
+    /**
+     * Loads the day-close snapshot's rows back. Days closed before snapshots existed are
+     * rebuilt from historical orders; payment method is not stored in the shared schema's
+     * Order tables, so those rows default to "Cash".
+     */
+    @Override
+    public Reopened reopenDay(LocalDate date) throws SQLException {
+        String deleteZ = "DELETE FROM pos_z_report WHERE report_date = ?";
+        String deleteActivity = "DELETE FROM pos_sales_activity WHERE business_date = ?";
+
+        String ordersSql = """
+                SELECT order_id, date, total_price
+                  FROM \"Order\"
+                 WHERE date >= ? AND date < ?
+                 ORDER BY date
+                """;
+        String orderAggSql = """
+                SELECT COALESCE(SUM(quantity * unit_price), 0) AS subtotal,
+                       COALESCE(SUM(quantity), 0) AS item_count
+                  FROM \"Order_Item\"
+                 WHERE order_id = ? AND order_date = ?
+                """;
+
+        int rebuilt = 0;
+        try (var conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+
+            boolean deleted;
+            try (var ps = conn.prepareStatement(deleteZ)) {
+                ps.setObject(1, date);
+                deleted = ps.executeUpdate() > 0;
+            }
+
+            int restored = DaySnapshots.restore(conn, date);
+            if (restored >= 0) {
+                conn.commit();
+                return new Reopened(deleted, true, restored);
+            }
+
+            try (var ps = conn.prepareStatement(deleteActivity)) {
+                ps.setObject(1, date);
+                ps.executeUpdate();
+            }
+
+            try (var ordersPs = conn.prepareStatement(ordersSql);
+                    var aggPs = conn.prepareStatement(orderAggSql);
+                    var insertPs = conn.prepareStatement("""
+                            INSERT INTO pos_sales_activity
+                            (activity_id, business_date, event_time, activity_type, order_id, amount, tax_amount, payment_method, item_count)
+                            VALUES (?, ?, ?, 'SALE', ?, ?, ?, ?, ?)
+                            """)) {
+
+                bindDayRange(ordersPs, 1, date, date);
+                try (var rs = ordersPs.executeQuery()) {
+                    while (rs.next()) {
+                        Object orderIdObj = rs.getObject("order_id");
+                        if (orderIdObj == null) {
+                            continue;
+                        }
+
+                        UUID orderId = (UUID) orderIdObj;
+                        Timestamp ts = rs.getTimestamp("date");
+                        if (ts == null) {
+                            ts = Timestamp.valueOf(date.atStartOfDay());
+                        }
+                        BigDecimal total = rs.getBigDecimal("total_price");
+                        if (total == null) {
+                            total = BigDecimal.ZERO;
+                        }
+
+                        aggPs.setObject(1, orderId);
+                        aggPs.setObject(2, rs.getObject("date", OffsetDateTime.class));
+                        BigDecimal subtotal = BigDecimal.ZERO;
+                        int itemCount = 0;
+                        try (var aggRs = aggPs.executeQuery()) {
+                            if (aggRs.next()) {
+                                subtotal = aggRs.getBigDecimal("subtotal");
+                                if (subtotal == null) subtotal = BigDecimal.ZERO;
+                                itemCount = aggRs.getInt("item_count");
+                            }
+                        }
+                        BigDecimal tax = total.subtract(subtotal).max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+
+                        insertPs.setObject(1, Uuid7.next());
+                        insertPs.setObject(2, date);
+                        insertPs.setTimestamp(3, ts);
+                        insertPs.setObject(4, orderId);
+                        insertPs.setBigDecimal(5, total.setScale(2, RoundingMode.HALF_UP));
+                        insertPs.setBigDecimal(6, tax);
+                        insertPs.setString(7, "Cash");
+                        insertPs.setInt(8, itemCount);
+                        insertPs.addBatch();
+                        rebuilt++;
+                    }
+                }
+
+                insertPs.executeBatch();
+            }
+
+            conn.commit();
+            return new Reopened(deleted, false, rebuilt);
+        }
+    }
+
+    @Override
+    public List<ItemSales> itemSales(LocalDate start, LocalDate end) throws SQLException {
+        List<ItemSales> out = new ArrayList<>();
+        try (var conn = Database.getReadConnection();
+                var ps = conn.prepareStatement(SalesSeries.ITEM_TOTALS)) {
+            bindDayRange(ps, 1, start, end);
+            bindDayRange(ps, 3, start, end);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new ItemSales(rs.getString("name"), rs.getInt("qty"),
+                            Money.of(rs.getBigDecimal("revenue"))));
+                }
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public List<SalesBucket> salesHistory(String resolution, LocalDate start, LocalDate end) throws SQLException {
+        List<SalesBucket> out = new ArrayList<>();
+        try (var conn = Database.getReadConnection();
+                var ps = conn.prepareStatement(SalesSeries.history(resolution))) {
+            bindDayRange(ps, 1, start, end);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(new SalesBucket(rs.getObject("bucket", OffsetDateTime.class), rs.getInt("orders"),
+                            rs.getInt("items"), Money.of(rs.getBigDecimal("sales"))));
+                }
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public List<Shortage> belowMinimum() throws SQLException {
+        String sql = """
+                  SELECT COALESCE(meta.display_name, 'Inventory Item') AS item_name,
+                         iq.quantity,
+                         COALESCE(meta.min_quantity, 0) AS min_qty,
+                         COALESCE(meta.unit, '') AS unit
+                    FROM pos_inventory_available iq
+                    JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
+                   WHERE iq.quantity < COALESCE(meta.min_quantity, 0)
+                ORDER BY (COALESCE(meta.min_quantity, 0) - iq.quantity) DESC, item_name
+                """;
+        List<Shortage> out = new ArrayList<>();
+        try (var conn = Database.getReadConnection(STOCK_MAX_LAG_SECONDS);
+                var ps = conn.prepareStatement(sql);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                out.add(new Shortage(rs.getString("item_name"), rs.getInt("quantity"), rs.getInt("min_qty"),
+                        rs.getString("unit")));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Only reads the usage logged since the last call, so it is cheap to refresh every
+     * minute. That read goes to the primary, so no usage is skipped while a replica lags.
+     */
+    @Override
+    public List<RestockLine> restockForecast() throws SQLException {
+        RestockForecast restockForecast = restockForecasts.computeIfAbsent(Stores.current(), s -> new RestockForecast());
+        try (var conn = Database.getConnection()) {
+            restockForecast.refresh(conn);
+        }
+        List<RestockLine> out = new ArrayList<>();
+        try (var conn = Database.getReadConnection(STOCK_MAX_LAG_SECONDS)) {
+            for (RestockForecast.Line line : restockForecast.forecast(conn)) {
+                out.add(new RestockLine(line.name(), line.unit(), line.onHand(), line.minimum(), line.perDay(),
+                        line.daysLeft(), line.suggested()));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public Map<String, Integer> recentUnitsSold(int days) throws SQLException {
+        Map<String, Integer> units = new HashMap<>();
+        try (var conn = Database.getReadConnection();
+                var ps = conn.prepareStatement(SalesSeries.RECENT_UNITS)) {
+            ps.setInt(1, days);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    units.put(rs.getString("item_id"), rs.getInt("units"));
+                }
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Binds {@code [start, end + 1 day)} to two consecutive placeholders. Order reports
+     * compare the raw timestamp against this range instead of {@code date::date} so
+     * Postgres can skip the monthly partitions outside it.
+     */
+    private static void bindDayRange(PreparedStatement ps, int index, LocalDate start, LocalDate end) throws SQLException {
+        ps.setObject(index, start);
+        ps.setObject(index + 1, end.plusDays(1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.OrderPartitions;
+import com.team62.db.Stores;
+import com.team62.repository.Repositories;
+import java.sql.SQLException;
+
+/**
+ * The Postgres backend: creates the POS tables in every store's database, starts the
+ * background jobs (partitions, stock counters, sales series) and warms the order
+ * statements before handing out the repositories.
+ */
+public final class PostgresRepositories {
+
+    private PostgresRepositories() {
+    }
+
+    public static Repositories create() {
+        createSchema();
+        OrderPartitions.scheduleDaily();
+        InventoryCounters.scheduleFold();
+        SalesSeries.schedule();
+        OrderStatements.warmUp();
+        return new Repositories(Repositories.POSTGRES, Database.stores(), new PostgresMenuRepository(),
+                new PostgresInventoryRepository(), new PostgresRecipeRepository(), new PostgresOrderRepository(),
+                new PostgresEmployeeRepository(), new PostgresCustomerRepository(), new PostgresReportRepository(),
+                new PostgresModifierRepository());
+    }
+
+    /**
+     * Creates the POS tables, views and policies in every store's database, without
+     * starting anything. Tools that write to the database (the bulk loader) call it
+     * before their first statement.
+     */
+    public static void createSchema() {
+        for (String store : Database.stores()) {
+            Stores.call(store, () -> {
+                bootstrapPosExtensions();
+                return null;
+            });
+        }
+    }
+
+    // Run once per store: the store's own slots and balances, and its database's tables
+    // when it has one of its own.
+    private static void bootstrapPosExtensions() {
+        String[] ddl = new String[] {
+                """
+                CREATE TABLE IF NOT EXISTS pos_inventory_meta (
+                    inventory_id UUID PRIMARY KEY REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
+                    display_name TEXT NOT NULL,
+                    unit TEXT NOT NULL DEFAULT '',
+                    min_quantity INTEGER NOT NULL DEFAULT 0 CHECK (min_quantity >= 0)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS pos_menu_inventory (
+                    menu_item_id UUID NOT NULL REFERENCES \"Item\"(item_id) ON DELETE CASCADE,
+                    inventory_id UUID NOT NULL REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
+                    quantity_used INTEGER NOT NULL DEFAULT 1 CHECK (quantity_used > 0),
+                    PRIMARY KEY (menu_item_id, inventory_id)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS pos_sales_activity (
+                    activity_id UUID PRIMARY KEY,
+                    business_date DATE NOT NULL,
+                    event_time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                    activity_type TEXT NOT NULL,
+                    order_id UUID,
+                    amount NUMERIC(12,2) NOT NULL DEFAULT 0,
+                    tax_amount NUMERIC(12,2) NOT NULL DEFAULT 0,
+                    payment_method TEXT NOT NULL DEFAULT 'Cash',
+                    item_count INTEGER NOT NULL DEFAULT 0
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS pos_inventory_usage (
+                    usage_id UUID PRIMARY KEY,
+                    usage_time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                    business_date DATE NOT NULL,
+                    order_id UUID,
+                    menu_item_id UUID,
+                    inventory_id UUID NOT NULL REFERENCES \"Inventory_Quantity\"(inventory_id) ON DELETE CASCADE,
+                    quantity_used INTEGER NOT NULL CHECK (quantity_used > 0)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS pos_order_key (
+                    order_id UUID PRIMARY KEY,
+                    recorded_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS pos_z_report (
+                    report_date DATE PRIMARY KEY,
+                    generated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                    report_text TEXT NOT NULL
+                )
+                """
+        };
+
+        try (var conn = Database.getConnection()) {
+            for (String sql : ddl) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            for (String sql : InventoryCounters.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            // Returns what the slots still held when the last run stopped to the pool.
+            InventoryCounters.fold(conn);
+            InventoryCounters.seedSlots(conn);
+            for (String sql : Loyalty.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            Loyalty.openBalances(conn);
+            for (String sql : RestockForecast.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            for (String sql : DaySnapshots.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            for (String sql : PostgresModifierRepository.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            for (String sql : SalesSeries.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            for (String sql : Stores.DDL) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            // Needs the store columns, so after Stores.DDL.
+            SalesSeries.rebuildIfEmpty(conn);
+            // Make sure this month's Order/Order_Item partitions exist before taking orders.
+            OrderPartitions.maintain(conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.StatementRegistry;
+import com.team62.db.Stores;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every menu item's recipe (bill of materials), loaded once and kept in memory, so
+ * expanding a ticket into ingredient demand does not query the database.
+ *
+ * A recipe is the {@code pos_menu_inventory} rows for the item, or else one unit per
+ * {@code "Item_Inventory"} link, the same rule the order path always used. Each
+ * ingredient gets a small index, and each item is compiled into an {@code int[]} of
+ * (ingredient index, quantity) pairs.
+ *
+ * Each store ({@link Stores}) has its own menu, so recipes are cached per store.
+ *
+ * The Postgres repositories call {@link #invalidate()} after committing anything that
+ * changes a recipe or a name in one. Another process (the API server, another register)
+ * cannot do that, so the recipes are also reloaded every
+ * {@code team62.recipes.maxAgeSeconds} (default 300), and when a ticket names an item
+ * the cache has not seen.
+ */
+final class RecipeCache {
+
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("team62.recipes.maxAgeSeconds", 300L));
+    // An unknown item id reloads the recipes at most this often, so bad ids cannot keep forcing it.
+    private static final long MISS_RELOAD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+    private static final Map<String, Recipes> CURRENT = new ConcurrentHashMap<>();
+
+    private RecipeCache() {
+    }
+
+    /**
+     * One menu item's name and ingredients.
+     */
+    static final class Recipe {
+        private final String name;
+        // ingredient index, quantity, ingredient index, quantity, ...
+        private final int[] uses;
+
+        private Recipe(String name, int[] uses) {
+            this.name = name;
+            this.uses = uses;
+        }
+
+        String name() {
+            return name;
+        }
+
+        int ingredients() {
+            return uses.length / 2;
+        }
+
+        int ingredient(int i) {
+            return uses[2 * i];
+        }
+
+        int quantity(int i) {
+            return uses[2 * i + 1];
+        }
+    }
+
+    /**
+     * Stock on hand per ingredient index, read with {@link #stock}.
+     */
+    static final class Stock {
+        private final int[] available;
+        private final int[] minimum;
+
+        private Stock(int[] available, int[] minimum) {
+            this.available = available;
+            this.minimum = minimum;
+        }
+    }
+
+    /**
+     * An immutable set of compiled recipes.
+     */
+    static final class Recipes {
+        private final Map<UUID, Recipe> byItem;
+        private final UUID[] ingredientIds;
+        private final String[] ingredientNames;
+        private final int[] ingredientMinimums;
+        private final Map<UUID, Integer> ingredientIndex;
+        // Per ingredient index, the items whose recipe uses it
+        private final List<List<UUID>> usedBy;
+        private final long loadedAt = System.nanoTime();
+
+        private Recipes(Map<UUID, Recipe> byItem, UUID[] ingredientIds, String[] ingredientNames, int[] ingredientMinimums) {
+            this.byItem = byItem;
+            this.ingredientIds = ingredientIds;
+            this.ingredientNames = ingredientNames;
+            this.ingredientMinimums = ingredientMinimums;
+            this.ingredientIndex = new HashMap<>();
+            this.usedBy = new ArrayList<>();
+            for (int i = 0; i < ingredientIds.length; i++) {
+                ingredientIndex.put(ingredientIds[i], i);
+                usedBy.add(new ArrayList<>());
+            }
+            for (var entry : byItem.entrySet()) {
+                Recipe recipe = entry.getValue();
+                for (int i = 0; i < recipe.ingredients(); i++) {
+                    usedBy.get(recipe.ingredient(i)).add(entry.getKey());
+                }
+            }
+        }
+
+        /**
+         * @return the item's recipe, or null for an item this snapshot does not know
+         */
+        Recipe recipe(UUID itemId) {
+            return byItem.get(itemId);
+        }
+
+        UUID ingredientId(int index) {
+            return ingredientIds[index];
+        }
+
+        String ingredientName(int index) {
+            return ingredientNames[index];
+        }
+
+        /**
+         * @return the ingredient's index, or -1 if no recipe uses it
+         */
+        int ingredientIndex(UUID inventoryId) {
+            Integer index = ingredientIndex.get(inventoryId);
+            return index == null ? -1 : index;
+        }
+
+        /**
+         * @return the stock level ({@code min_quantity}) at which items using the ingredient come off the menu
+         */
+        int ingredientMinimum(int index) {
+            return ingredientMinimums[index];
+        }
+
+        List<UUID> itemsUsing(int index) {
+            return usedBy.get(index);
+        }
+
+        /**
+         * @return how many of the item the stock on hand can make, or -1 if it uses no
+         *         tracked ingredient
+         */
+        int makeable(Recipe recipe, Stock stock) {
+            if (recipe.ingredients() == 0) {
+                return -1;
+            }
+            int count = Integer.MAX_VALUE;
+            for (int i = 0; i < recipe.ingredients(); i++) {
+                count = Math.min(count, stock.available[recipe.ingredient(i)] / recipe.quantity(i));
+            }
+            return count;
+        }
+
+        /**
+         * @return true if any ingredient is at or below its minimum, the point at which
+         *         an item is taken off the menu
+         */
+        boolean atMinimum(Recipe recipe, Stock stock) {
+            for (int i = 0; i < recipe.ingredients(); i++) {
+                int ingredient = recipe.ingredient(i);
+                if (stock.available[ingredient] <= stock.minimum[ingredient]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return the current recipes, reloading them first if they are too old or invalidated
+     */
+    static Recipes get(Connection conn) throws SQLException {
+        Recipes recipes = CURRENT.get(Stores.current());
+        if (recipes != null && System.nanoTime() - recipes.loadedAt < MAX_AGE_NANOS) {
+            return recipes;
+        }
+        return reload(conn, recipes);
+    }
+
+    /**
+     * Like {@link #get(Connection)}, but reloads once if any of {@code itemIds} is
+     * missing, e.g. an item another process added since the last load.
+     */
+    static Recipes get(Connection conn, Collection<UUID> itemIds) throws SQLException {
+        Recipes recipes = get(conn);
+        for (UUID itemId : itemIds) {
+            if (recipes.recipe(itemId) == null) {
+                return System.nanoTime() - recipes.loadedAt < MISS_RELOAD_NANOS ? recipes : reload(conn, recipes);
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * Drops the cached recipes; the next caller loads them again.
+     */
+    static void invalidate() {
+        GENERATION.incrementAndGet();
+        CURRENT.clear();
+    }
+
+    /**
+     * Reads the stock on hand (pool plus escrow) for every ingredient in {@code recipes}.
+     * An ingredient that is no longer in stock at all counts as zero.
+     */
+    static Stock stock(Connection conn, Recipes recipes) throws SQLException {
+        int[] available = new int[recipes.ingredientIds.length];
+        int[] minimum = new int[recipes.ingredientIds.length];
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.STOCK_LEVELS);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Integer index = recipes.ingredientIndex.get((UUID) rs.getObject("inventory_id"));
+                if (index != null) {
+                    available[index] = rs.getInt("quantity");
+                    minimum[index] = rs.getInt("min_qty");
+                }
+            }
+        }
+        return new Stock(available, minimum);
+    }
+
+    private static synchronized Recipes reload(Connection conn, Recipes seen) throws SQLException {
+        String store = Stores.current();
+        Recipes recipes = CURRENT.get(store);
+        if (recipes != null && recipes != seen) {
+            return recipes; // another thread just loaded them
+        }
+        long generation = GENERATION.get();
+        recipes = load(conn);
+        if (GENERATION.get() == generation) {
+            CURRENT.put(store, recipes);
+        }
+        return recipes;
+    }
+
+    private static Recipes load(Connection conn) throws SQLException {
+        Map<UUID, String> names = new LinkedHashMap<>();
+        Map<UUID, Map<Integer, Integer>> uses = new HashMap<>();
+        Map<UUID, Integer> index = new HashMap<>();
+        List<UUID> ingredientIds = new ArrayList<>();
+        List<String> ingredientNames = new ArrayList<>();
+        List<Integer> ingredientMinimums = new ArrayList<>();
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.RECIPES);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                UUID itemId = (UUID) rs.getObject("item_id");
+                names.put(itemId, rs.getString("name"));
+                Map<Integer, Integer> recipe = uses.computeIfAbsent(itemId, k -> new LinkedHashMap<>());
+                UUID inventoryId = (UUID) rs.getObject("inventory_id");
+                if (inventoryId != null) {
+                    Integer ingredient = index.get(inventoryId);
+                    if (ingredient == null) {
+                        ingredient = ingredientIds.size();
+                        index.put(inventoryId, ingredient);
+                        ingredientIds.add(inventoryId);
+                        ingredientNames.add(rs.getString("inventory_name"));
+                        ingredientMinimums.add(rs.getInt("min_qty"));
+                    }
+                    recipe.merge(ingredient, rs.getInt("quantity_used"), Integer::sum);
+                }
+            }
+        }
+        Map<UUID, Recipe> byItem = new HashMap<>();
+        for (var entry : names.entrySet()) {
+            Map<Integer, Integer> recipe = uses.get(entry.getKey());
+            int[] compiled = new int[recipe.size() * 2];
+            int i = 0;
+            for (var use : recipe.entrySet()) {
+                compiled[i++] = use.getKey();
+                compiled[i++] = use.getValue();
+            }
+            byItem.put(entry.getKey(), new Recipe(entry.getValue(), compiled));
+        }
+        return new Recipes(byItem, ingredientIds.toArray(new UUID[0]), ingredientNames.toArray(new String[0]),
+                ingredientMinimums.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
@@ -0,0 +1,220 @@
+package com.team62.repository.postgres;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Forecasts when each ingredient runs out, from an hourly usage model that is updated
+ * incrementally instead of re-reading the usage history.
+ *
+ * Each ingredient keeps one exponentially weighted average of units used per hour for
+ * every weekday and hour of the day (168 buckets). {@link #refresh} reads only the
+ * {@code pos_inventory_usage} rows logged since the last refresh, summed per ingredient
+ * and hour; each adds to its ingredient's open hour in O(1), and when an hour ends its
+ * total (zero if nothing was used) is blended into that hour's bucket with weight
+ * {@code team62.forecast.alpha} (default 0.3). The first refresh reads the last
+ * {@code team62.forecast.weeks} (default 6) weeks to start the model.
+ *
+ * How far the model has read is kept in the database's clock, which also stamps
+ * {@code usage_time}, so a register or report machine whose clock is off neither skips
+ * nor re-reads usage. Refresh on the primary: a replica may not have the latest rows yet.
+ *
+ * The forecast walks the buckets forward from now against the stock on hand to find the
+ * days until stockout, and suggests ordering enough to cover
+ * {@code team62.forecast.leadDays} (default 2) plus {@code team62.forecast.coverDays}
+ * (default 7) days of use while staying above the minimum.
+ */
+public final class RestockForecast {
+
+    /** Created by {@link PostgresRepositories} on startup. */
+    static final String[] DDL = {
+            """
+            CREATE INDEX IF NOT EXISTS idx_inventory_usage_time ON pos_inventory_usage (usage_time)
+            """
+    };
+
+    private static final int BUCKETS = 7 * 24;
+    private static final int HORIZON_HOURS = 28 * 24;
+    private static final double ALPHA = Double.parseDouble(System.getProperty("team62.forecast.alpha", "0.3"));
+    private static final int HISTORY_WEEKS = Math.max(1, Integer.getInteger("team62.forecast.weeks", 6));
+    private static final int LEAD_DAYS = Integer.getInteger("team62.forecast.leadDays", 2);
+    private static final int COVER_DAYS = Integer.getInteger("team62.forecast.coverDays", 7);
+    // Usage newer than this may belong to orders that have not committed yet (usage_time is
+    // the order transaction's start); it is read next time.
+    private static final Duration SETTLE = Duration.ofSeconds(10);
+
+    /**
+     * One row of the forecast. {@code daysLeft} is {@code Double.POSITIVE_INFINITY}
+     * when the stock outlasts the 28-day horizon.
+     */
+    record Line(String name, String unit, int onHand, int minimum, double perDay, double daysLeft, int suggested) {
+    }
+
+    private static final class Model {
+        final double[] rate = new double[BUCKETS];
+        final boolean[] seen = new boolean[BUCKETS];
+        double open; // used so far in the open hour
+    }
+
+    public static int leadDays() {
+        return LEAD_DAYS;
+    }
+
+    public static int coverDays() {
+        return COVER_DAYS;
+    }
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<UUID, Model> models = new HashMap<>();
+    private Instant consumedUpTo;
+    private long openHour = -1; // epoch hour being accumulated
+
+    /**
+     * Reads the usage logged since the last call into the model.
+     *
+     * @param conn a primary connection
+     * @return number of (ingredient, hour) rows read
+     */
+    synchronized int refresh(Connection conn) throws SQLException {
+        Instant upTo;
+        try (var ps = conn.prepareStatement("SELECT NOW() - make_interval(secs => ?) AS up_to")) {
+            ps.setLong(1, SETTLE.toSeconds());
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                upTo = rs.getObject("up_to", OffsetDateTime.class).toInstant();
+            }
+        }
+        Instant from = consumedUpTo != null ? consumedUpTo
+                : upTo.minus(Duration.ofDays(7L * HISTORY_WEEKS)).truncatedTo(ChronoUnit.HOURS);
+        if (!upTo.isAfter(from)) {
+            return 0;
+        }
+        int rows = 0;
+        try (var ps = conn.prepareStatement("""
+                SELECT date_trunc('hour', usage_time) AS hour, inventory_id, SUM(quantity_used) AS used
+                  FROM pos_inventory_usage
+                 WHERE usage_time > ? AND usage_time <= ?
+                 GROUP BY 1, 2
+                 ORDER BY 1
+                """)) {
+            ps.setObject(1, from.atOffset(ZoneOffset.UTC));
+            ps.setObject(2, upTo.atOffset(ZoneOffset.UTC));
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    advanceTo(rs.getObject("hour", OffsetDateTime.class).toEpochSecond() / 3600);
+                    models.computeIfAbsent((UUID) rs.getObject("inventory_id"), k -> new Model()).open += rs.getLong("used");
+                    rows++;
+                }
+            }
+        }
+        advanceTo(upTo.getEpochSecond() / 3600);
+        consumedUpTo = upTo;
+        return rows;
+    }
+
+    /**
+     * @return one line per ingredient that has been used or is below its minimum,
+     *         soonest stockout first
+     */
+    synchronized List<Line> forecast(Connection conn) throws SQLException {
+        List<Line> lines = new ArrayList<>();
+        try (var ps = conn.prepareStatement("""
+                SELECT iq.inventory_id, iq.quantity,
+                       COALESCE(meta.display_name, 'Inventory Item') AS item_name,
+                       COALESCE(meta.min_quantity, 0) AS min_qty,
+                       COALESCE(meta.unit, '') AS unit
+                  FROM pos_inventory_available iq
+                  LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = iq.inventory_id
+                """);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Line line = line(models.get((UUID) rs.getObject("inventory_id")),
+                        rs.getString("item_name"), rs.getString("unit"), rs.getInt("quantity"), rs.getInt("min_qty"));
+                if (line.perDay() > 0 || line.onHand() < line.minimum()) {
+                    lines.add(line);
+                }
+            }
+        }
+        lines.sort(Comparator.comparingDouble(Line::daysLeft).thenComparing(Line::name));
+        return lines;
+    }
+
+    private Line line(Model model, String name, String unit, int onHand, int minimum) {
+        if (model == null) {
+            return new Line(name, unit, onHand, minimum, 0, Double.POSITIVE_INFINITY, minimum - onHand);
+        }
+        double perDay = 0;
+        for (double r : model.rate) {
+            perDay += r;
+        }
+        perDay /= 7;
+
+        // Walk forward an hour at a time; the open hour only has what is left of it to use.
+        double daysLeft = Double.POSITIVE_INFINITY;
+        double used = 0;
+        double orderWindow = 0;
+        int windowHours = (LEAD_DAYS + COVER_DAYS) * 24;
+        int start = bucket(openHour);
+        for (int h = 0; h < Math.max(HORIZON_HOURS, windowHours); h++) {
+            double expected = model.rate[(start + h) % BUCKETS];
+            if (h == 0) {
+                expected = Math.max(expected - model.open, 0);
+            }
+            if (h < windowHours) {
+                orderWindow += expected;
+            }
+            if (Double.isInfinite(daysLeft) && h < HORIZON_HOURS && expected > 0 && used + expected >= onHand) {
+                daysLeft = (h + (onHand - used) / expected) / 24.0;
+            }
+            used += expected;
+        }
+        int suggested = (int) Math.ceil(orderWindow + minimum - onHand);
+        return new Line(name, unit, onHand, minimum, perDay, daysLeft, Math.max(suggested, 0));
+    }
+
+    /**
+     * Closes every hour before {@code hour}, blending each ingredient's total for it
+     * into that hour's bucket.
+     */
+    private void advanceTo(long hour) {
+        if (openHour < 0) {
+            openHour = hour;
+            return;
+        }
+        // After a long gap, a few weeks of empty hours already zero every bucket.
+        long first = Math.max(openHour, hour - (long) BUCKETS * HISTORY_WEEKS);
+        for (long h = first; h < hour; h++) {
+            int b = bucket(h);
+            for (Model model : models.values()) {
+                double used = h == openHour ? model.open : 0;
+                model.rate[b] = model.seen[b] ? ALPHA * used + (1 - ALPHA) * model.rate[b] : used;
+                model.seen[b] = true;
+            }
+        }
+        if (hour > openHour) {
+            for (Model model : models.values()) {
+                model.open = 0;
+            }
+            openHour = hour;
+        }
+    }
+
+    // Weekday and hour of the day in local time
+    private int bucket(long epochHour) {
+        ZonedDateTime t = Instant.ofEpochSecond(epochHour * 3600).atZone(zone);
+        return (t.getDayOfWeek().getValue() - 1) * 24 + t.getHour();
+    }
+}
@@ -0,0 +1,428 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.Stores;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Orders, sales, items sold and ingredients used per minute, hour and day, so a chart
+ * over any range reads a few hundred pre-summed rows instead of every order.
+ *
+ * The statements that write an order batch ({@link OrderStatements#INSERT_ORDERS},
+ * {@code INSERT_LINES}, {@code INSERT_USAGE}) also append the batch's totals, one row
+ * per item and ingredient, to {@code pos_series_pending}. Every
+ * {@code team62.series.foldSeconds} (default 10) {@link #fold} moves those rows into the
+ * minute, hour and day buckets of {@code pos_sales_series}, {@code pos_item_series} and
+ * {@code pos_usage_series}. Queries add in the rows still pending, so they never wait
+ * for a fold.
+ *
+ * Minute buckets are kept for {@code team62.series.minuteDays} (default 7) days, hour
+ * buckets for {@code team62.series.hourDays} (default 90), day buckets forever. The fold
+ * writes every bucket size, so compaction ({@link #compact}, hourly) only has to drop
+ * the expired ones. A store with orders but no series yet is filled from its history on
+ * startup ({@link #rebuild}).
+ */
+public final class SalesSeries {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.series");
+    private static final int MINUTE_DAYS = Math.max(1, Integer.getInteger("team62.series.minuteDays", 7));
+    private static final int HOUR_DAYS = Math.max(MINUTE_DAYS, Integer.getInteger("team62.series.hourDays", 90));
+    private static final long FOLD_SECONDS = Long.getLong("team62.series.foldSeconds", 10L);
+    // "auto" picks the finest resolution that keeps a chart at or under this many buckets.
+    private static final int MAX_POINTS = 200;
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+
+    /** Bucket sizes, finest first; each is a {@code date_trunc} field. */
+    static final List<String> RESOLUTIONS = List.of("minute", "hour", "day");
+
+    /** Created by {@link PostgresRepositories} on startup, before {@link Stores#DDL}. */
+    static final String[] DDL = {
+            """
+            CREATE TABLE IF NOT EXISTS pos_series_pending (
+                event_time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                kind TEXT NOT NULL CHECK (kind IN ('order', 'item', 'usage')),
+                ref_id UUID,
+                orders INTEGER NOT NULL DEFAULT 0,
+                quantity INTEGER NOT NULL DEFAULT 0,
+                amount NUMERIC(14,2) NOT NULL DEFAULT 0
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS pos_sales_series (
+                resolution TEXT NOT NULL CHECK (resolution IN ('minute', 'hour', 'day')),
+                bucket TIMESTAMPTZ NOT NULL,
+                orders INTEGER NOT NULL DEFAULT 0,
+                items INTEGER NOT NULL DEFAULT 0,
+                sales NUMERIC(14,2) NOT NULL DEFAULT 0,
+                PRIMARY KEY (resolution, bucket)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS pos_item_series (
+                resolution TEXT NOT NULL CHECK (resolution IN ('minute', 'hour', 'day')),
+                bucket TIMESTAMPTZ NOT NULL,
+                item_id UUID NOT NULL,
+                quantity INTEGER NOT NULL DEFAULT 0,
+                revenue NUMERIC(14,2) NOT NULL DEFAULT 0,
+                PRIMARY KEY (resolution, bucket, item_id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS pos_usage_series (
+                resolution TEXT NOT NULL CHECK (resolution IN ('minute', 'hour', 'day')),
+                bucket TIMESTAMPTZ NOT NULL,
+                inventory_id UUID NOT NULL,
+                quantity INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (resolution, bucket, inventory_id)
+            )
+            """
+    };
+
+    // Each resolution with its retention in days (NULL: forever); bound by bindTiers.
+    private static final String TIERS = """
+            tiers AS (
+                SELECT * FROM (VALUES ('minute', ?::INTEGER), ('hour', ?::INTEGER), ('day', NULL::INTEGER))
+                    AS t(resolution, keep_days)
+            )""";
+
+    private static final String KEPT = "(t.keep_days IS NULL OR %s >= NOW() - make_interval(days => t.keep_days))";
+
+    private static final String FOLD = """
+            WITH %s, drained AS (
+                DELETE FROM pos_series_pending
+                RETURNING event_time, kind, ref_id, orders, quantity, amount
+            ), tiered AS (
+                SELECT t.resolution, date_trunc(t.resolution, d.event_time) AS bucket,
+                       d.kind, d.ref_id, d.orders, d.quantity, d.amount
+                  FROM drained d
+                 CROSS JOIN tiers t
+                 WHERE %s
+            ), sales AS (
+                INSERT INTO pos_sales_series AS s (resolution, bucket, orders, items, sales)
+                SELECT resolution, bucket, SUM(orders), SUM(quantity), SUM(amount)
+                  FROM tiered
+                 WHERE kind = 'order'
+                 GROUP BY resolution, bucket
+                ON CONFLICT (store_id, resolution, bucket) DO UPDATE
+                   SET orders = s.orders + EXCLUDED.orders,
+                       items = s.items + EXCLUDED.items,
+                       sales = s.sales + EXCLUDED.sales
+            ), items AS (
+                INSERT INTO pos_item_series AS s (resolution, bucket, item_id, quantity, revenue)
+                SELECT resolution, bucket, ref_id, SUM(quantity), SUM(amount)
+                  FROM tiered
+                 WHERE kind = 'item'
+                 GROUP BY resolution, bucket, ref_id
+                ON CONFLICT (store_id, resolution, bucket, item_id) DO UPDATE
+                   SET quantity = s.quantity + EXCLUDED.quantity,
+                       revenue = s.revenue + EXCLUDED.revenue
+            ), usage AS (
+                INSERT INTO pos_usage_series AS s (resolution, bucket, inventory_id, quantity)
+                SELECT resolution, bucket, ref_id, SUM(quantity)
+                  FROM tiered
+                 WHERE kind = 'usage'
+                 GROUP BY resolution, bucket, ref_id
+                ON CONFLICT (store_id, resolution, bucket, inventory_id) DO UPDATE
+                   SET quantity = s.quantity + EXCLUDED.quantity
+            )
+            SELECT COUNT(*) FROM drained
+            """.formatted(TIERS, KEPT.formatted("d.event_time"));
+
+    private static final String[] REBUILD = {
+            """
+            WITH %s, orders AS (
+                SELECT t.resolution, date_trunc(t.resolution, o.date) AS bucket,
+                       COUNT(*) AS orders, SUM(o.total_price) AS sales
+                  FROM \"Order\" o
+                 CROSS JOIN tiers t
+                 WHERE %s
+                 GROUP BY 1, 2
+            ), lines AS (
+                SELECT t.resolution, date_trunc(t.resolution, oi.order_date) AS bucket, SUM(oi.quantity) AS items
+                  FROM \"Order_Item\" oi
+                 CROSS JOIN tiers t
+                 WHERE %s
+                 GROUP BY 1, 2
+            )
+            INSERT INTO pos_sales_series (resolution, bucket, orders, items, sales)
+            SELECT o.resolution, o.bucket, o.orders, COALESCE(l.items, 0), o.sales
+              FROM orders o
+              LEFT JOIN lines l ON l.resolution = o.resolution AND l.bucket = o.bucket
+            """.formatted(TIERS, KEPT.formatted("o.date"), KEPT.formatted("oi.order_date")),
+            """
+            WITH %s
+            INSERT INTO pos_item_series (resolution, bucket, item_id, quantity, revenue)
+            SELECT t.resolution, date_trunc(t.resolution, oi.order_date), oi.item_id,
+                   SUM(oi.quantity), SUM(oi.quantity * oi.unit_price)
+              FROM \"Order_Item\" oi
+             CROSS JOIN tiers t
+             WHERE %s
+             GROUP BY 1, 2, 3
+            """.formatted(TIERS, KEPT.formatted("oi.order_date")),
+            """
+            WITH %s
+            INSERT INTO pos_usage_series (resolution, bucket, inventory_id, quantity)
+            SELECT t.resolution, date_trunc(t.resolution, u.usage_time), u.inventory_id, SUM(u.quantity_used)
+              FROM pos_inventory_usage u
+             CROSS JOIN tiers t
+             WHERE %s
+             GROUP BY 1, 2, 3
+            """.formatted(TIERS, KEPT.formatted("u.usage_time"))
+    };
+
+    private static final List<String> SERIES_TABLES = List.of("pos_sales_series", "pos_item_series", "pos_usage_series");
+
+    /**
+     * Items sold over {@code [?, ?)} twice (buckets, then pending rows), by menu item name.
+     */
+    static final String ITEM_TOTALS = """
+              SELECT i.name, SUM(s.quantity) AS qty, SUM(s.revenue) AS revenue
+                FROM (SELECT item_id, quantity, revenue
+                        FROM pos_item_series
+                       WHERE resolution = 'day' AND bucket >= ? AND bucket < ?
+                      UNION ALL
+                      SELECT ref_id, quantity, amount
+                        FROM pos_series_pending
+                       WHERE kind = 'item' AND event_time >= ? AND event_time < ?) s
+                JOIN \"Item\" i ON i.item_id = s.item_id
+            GROUP BY i.name
+            ORDER BY revenue DESC, qty DESC, i.name
+            """;
+
+    /**
+     * Ingredients used over {@code [?, ?)} twice (buckets, then pending rows), by name.
+     */
+    static final String USAGE_TOTALS = """
+               SELECT COALESCE(meta.display_name, 'Inventory Item') AS item_name,
+                      SUM(s.quantity) AS used_total
+                 FROM (SELECT inventory_id, quantity
+                         FROM pos_usage_series
+                        WHERE resolution = 'day' AND bucket >= ? AND bucket < ?
+                       UNION ALL
+                       SELECT ref_id, quantity
+                         FROM pos_series_pending
+                        WHERE kind = 'usage' AND event_time >= ? AND event_time < ?) s
+            LEFT JOIN pos_inventory_meta meta ON meta.inventory_id = s.inventory_id
+             GROUP BY item_name
+             ORDER BY used_total DESC, item_name
+            """;
+
+    /**
+     * Units sold per menu item over the last {@code ?} days, today included.
+     */
+    static final String RECENT_UNITS = """
+              SELECT s.item_id, SUM(s.quantity) AS units
+                FROM (SELECT item_id, quantity
+                        FROM pos_item_series
+                       WHERE resolution = 'day' AND bucket >= CURRENT_DATE - (? - 1)
+                      UNION ALL
+                      SELECT ref_id, quantity
+                        FROM pos_series_pending
+                       WHERE kind = 'item') s
+            GROUP BY s.item_id
+            """;
+
+    private SalesSeries() {
+    }
+
+    /**
+     * Orders, items and sales per bucket of {@code resolution} (one of {@link #RESOLUTIONS})
+     * from the day {@code ?} up to the day {@code ?} (exclusive) or now, with empty buckets
+     * as zeros.
+     */
+    static String history(String resolution) {
+        if (!RESOLUTIONS.contains(resolution)) {
+            throw new IllegalArgumentException("Unknown resolution: " + resolution);
+        }
+        return """
+                WITH span AS (
+                    SELECT ?::DATE::TIMESTAMPTZ AS start_at, LEAST(?::DATE::TIMESTAMPTZ, NOW()) AS end_at
+                ), b AS (
+                    SELECT s.bucket, s.orders, s.items, s.sales
+                      FROM pos_sales_series s, span
+                     WHERE s.resolution = '%1$s' AND s.bucket >= span.start_at AND s.bucket < span.end_at
+                    UNION ALL
+                    SELECT date_trunc('%1$s', p.event_time), p.orders, p.quantity, p.amount
+                      FROM pos_series_pending p, span
+                     WHERE p.kind = 'order' AND p.event_time >= span.start_at AND p.event_time < span.end_at
+                )
+                SELECT g.bucket, COALESCE(SUM(b.orders), 0) AS orders, COALESCE(SUM(b.items), 0) AS items,
+                       COALESCE(SUM(b.sales), 0) AS sales
+                  FROM span, generate_series(span.start_at, span.end_at, INTERVAL '1 %1$s') AS g(bucket)
+                  LEFT JOIN b ON b.bucket = g.bucket
+                 WHERE g.bucket < span.end_at
+                 GROUP BY g.bucket
+                 ORDER BY g.bucket
+                """.formatted(resolution);
+    }
+
+    /**
+     * The resolution to chart {@code start..end} (inclusive) at: {@code requested} if its
+     * buckets still cover {@code start}, otherwise the next coarser one that does. For
+     * {@code "auto"} (or null), the finest that keeps the chart to {@value #MAX_POINTS} buckets.
+     */
+    public static String resolution(String requested, LocalDate start, LocalDate end) {
+        long days = Math.max(1, end.toEpochDay() - start.toEpochDay() + 1);
+        long age = LocalDate.now().toEpochDay() - start.toEpochDay();
+        boolean auto = requested == null || "auto".equalsIgnoreCase(requested);
+        int from = auto ? 0 : Math.max(0, RESOLUTIONS.indexOf(requested.toLowerCase()));
+        for (int i = from; i < RESOLUTIONS.size() - 1; i++) {
+            String r = RESOLUTIONS.get(i);
+            long perDay = r.equals("minute") ? 24 * 60 : 24;
+            if (age <= keepDays(r) && (!auto || days * perDay <= MAX_POINTS)) {
+                return r;
+            }
+        }
+        return "day";
+    }
+
+    /**
+     * @return how many days buckets of {@code resolution} are kept ({@code Integer.MAX_VALUE} for days)
+     */
+    public static int keepDays(String resolution) {
+        return switch (resolution) {
+            case "minute" -> MINUTE_DAYS;
+            case "hour" -> HOUR_DAYS;
+            default -> Integer.MAX_VALUE;
+        };
+    }
+
+    /**
+     * Moves every pending row into its buckets, in one statement. Rows another fold has
+     * claimed are left to it.
+     *
+     * @return number of pending rows folded
+     */
+    public static int fold(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement(FOLD)) {
+            bindTiers(ps, 1);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Drops minute and hour buckets past their retention.
+     *
+     * @return number of buckets dropped
+     */
+    public static int compact(Connection conn) throws SQLException {
+        int dropped = 0;
+        for (String table : SERIES_TABLES) {
+            try (var ps = conn.prepareStatement("DELETE FROM " + table
+                    + " WHERE resolution = ? AND bucket < NOW() - make_interval(days => ?)")) {
+                for (String resolution : List.of("minute", "hour")) {
+                    ps.setString(1, resolution);
+                    ps.setInt(2, keepDays(resolution));
+                    dropped += ps.executeUpdate();
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Recomputes the current store's series from its orders, order lines and usage,
+     * e.g. after a bulk load. Runs in one repeatable-read transaction, so an order
+     * committed meanwhile is counted exactly once: by the rebuild if it committed first,
+     * otherwise by its pending rows.
+     */
+    public static void rebuild(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        int isolation = conn.getTransactionIsolation();
+        conn.setAutoCommit(false);
+        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try {
+            try (var st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM pos_series_pending");
+                for (String table : SERIES_TABLES) {
+                    st.executeUpdate("DELETE FROM " + table);
+                }
+            }
+            for (String sql : REBUILD) {
+                try (var ps = conn.prepareStatement(sql)) {
+                    bindTiers(ps, 1);
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setTransactionIsolation(isolation);
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * {@link #rebuild}s the current store's series if it has orders but no buckets yet
+     * (first start after upgrading). Cheap otherwise.
+     */
+    static void rebuildIfEmpty(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                SELECT NOT EXISTS (SELECT 1 FROM pos_sales_series) AND EXISTS (SELECT 1 FROM \"Order\")
+                """);
+                var rs = ps.executeQuery()) {
+            if (!rs.next() || !rs.getBoolean(1)) {
+                return;
+            }
+        }
+        long t0 = System.nanoTime();
+        rebuild(conn);
+        LOG.info(String.format("Built the sales series for store %s from its history in %.1fs",
+                Stores.current(), (System.nanoTime() - t0) / 1e9));
+    }
+
+    /**
+     * Folds every {@code foldSeconds} and compacts hourly, on a daemon thread (a fold
+     * interval of 0 disables both). Only the first call schedules anything.
+     */
+    static void schedule() {
+        if (FOLD_SECONDS <= 0 || !SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService folder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "series-fold");
+            t.setDaemon(true);
+            return t;
+        });
+        folder.scheduleWithFixedDelay(() -> forEachStore("fold", SalesSeries::fold),
+                FOLD_SECONDS, FOLD_SECONDS, TimeUnit.SECONDS);
+        folder.scheduleWithFixedDelay(() -> forEachStore("compaction", SalesSeries::compact), 1, 60, TimeUnit.MINUTES);
+    }
+
+    private interface Task {
+        int run(Connection conn) throws SQLException;
+    }
+
+    private static void forEachStore(String name, Task task) {
+        for (String store : Database.stores()) {
+            try {
+                Stores.call(store, () -> {
+                    try (Connection conn = Database.getConnection()) {
+                        return task.run(conn);
+                    }
+                });
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Sales series " + name + " failed for store " + store, e);
+            }
+        }
+    }
+
+    private static void bindTiers(PreparedStatement ps, int index) throws SQLException {
+        ps.setInt(index, MINUTE_DAYS);
+        ps.setInt(index + 1, HOUR_DAYS);
+    }
+}
@@ -0,0 +1,187 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.StatementRegistry;
+import com.team62.model.SalesOrder;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Checks and takes the stock for a whole ticket at once, so two registers can no
+ * longer both sell the last cup of an ingredient.
+ *
+ * {@link #plan} expands every line into the ingredients it uses (the
+ * {@code pos_menu_inventory} recipe with its {@code quantity_used}, else one unit per
+ * {@code "Item_Inventory"} link) from the {@link RecipeCache}. {@link #reserve} then,
+ * in a single statement, either takes everything the ticket needs from this register's
+ * escrow slot ({@link InventoryCounters}) or takes nothing. It locks only that slot's
+ * rows, so registers selling the same ingredients do not wait on each other.
+ *
+ * When the slot is short, roll back and call {@link #refill}, which moves stock into
+ * it in a transaction of its own and tells whether the store has enough at all.
+ */
+final class StockReservation {
+
+    /**
+     * One ingredient used by one order line. {@code order} indexes the list given to
+     * {@link #plan}; {@code inventoryId} is null when the item has no inventory link.
+     */
+    record Need(int order, int line, String itemName, UUID menuItemId, UUID inventoryId, String inventoryName,
+            int quantity) {
+    }
+
+    private StockReservation() {
+    }
+
+    /**
+     * Expands every line into its ingredients from the {@link RecipeCache}, without a
+     * database round trip unless the recipes need reloading.
+     *
+     * @return what each line of each order uses, in order; lines without a database id are skipped
+     */
+    static List<Need> plan(Connection conn, List<SalesOrder> orders) throws SQLException {
+        List<UUID> itemIds = new ArrayList<>();
+        for (SalesOrder order : orders) {
+            for (var line : order.getOrderItems()) {
+                if (line.getItemDbId() != null) {
+                    itemIds.add(UUID.fromString(line.getItemDbId()));
+                }
+            }
+        }
+        List<Need> needs = new ArrayList<>();
+        if (itemIds.isEmpty()) {
+            return needs;
+        }
+        RecipeCache.Recipes recipes = RecipeCache.get(conn, itemIds);
+        int next = 0;
+        for (int o = 0; o < orders.size(); o++) {
+            int lineNo = 0;
+            for (var line : orders.get(o).getOrderItems()) {
+                if (line.getItemDbId() == null) {
+                    continue;
+                }
+                lineNo++;
+                UUID itemId = itemIds.get(next++);
+                RecipeCache.Recipe recipe = recipes.recipe(itemId);
+                String itemName = recipe == null ? itemId.toString() : recipe.name();
+                if (recipe == null || recipe.ingredients() == 0) {
+                    needs.add(new Need(o, lineNo, itemName, itemId, null, null, 1));
+                    continue;
+                }
+                for (int i = 0; i < recipe.ingredients(); i++) {
+                    int ingredient = recipe.ingredient(i);
+                    needs.add(new Need(o, lineNo, itemName, itemId,
+                            recipes.ingredientId(ingredient), recipes.ingredientName(ingredient),
+                            Math.max(line.getQuantity() * recipe.quantity(i), 1)));
+                }
+            }
+        }
+        return needs;
+    }
+
+    /**
+     * @return one message per line whose item has no inventory linked to it
+     */
+    static List<String> unlinked(List<Need> needs) {
+        List<String> messages = new ArrayList<>();
+        for (Need need : needs) {
+            if (need.inventoryId() == null) {
+                messages.add(need.itemName() + ": no inventory is linked to this item");
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Takes the stock for every need from this connection's slot, or nothing if the
+     * slot is short of any ingredient.
+     *
+     * @param remaining receives each ingredient's stock after the reservation, if it succeeds
+     * @return one message per line that cannot be made from the slot, empty when the stock was taken
+     */
+    static List<String> reserve(Connection conn, List<Need> needs, Map<UUID, Integer> remaining) throws SQLException {
+        Map<UUID, Integer> totals = totals(needs);
+        if (totals.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Integer> held = new LinkedHashMap<>();
+        Map<UUID, Integer> after = new LinkedHashMap<>();
+        boolean taken = false;
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.RESERVE_STOCK)) {
+            ps.setShort(1, (short) InventoryCounters.slot(conn));
+            ps.setArray(2, conn.createArrayOf("uuid", totals.keySet().toArray()));
+            ps.setArray(3, conn.createArrayOf("int4", totals.values().toArray()));
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID inventoryId = (UUID) rs.getObject("inventory_id");
+                    taken = rs.getBoolean("taken");
+                    if (rs.getInt("held") < rs.getInt("needed")) {
+                        held.put(inventoryId, rs.getInt("held"));
+                    }
+                    after.put(inventoryId, rs.getInt("available") - rs.getInt("needed"));
+                }
+            }
+        }
+        if (taken) {
+            remaining.putAll(after);
+            return List.of();
+        }
+
+        List<String> shortfalls = new ArrayList<>();
+        for (Need need : needs) {
+            Integer left = need.inventoryId() == null ? null : held.get(need.inventoryId());
+            if (left != null) {
+                shortfalls.add(String.format("Line %d, %s: needs %d %s, only %d left",
+                        need.line(), need.itemName(), need.quantity(), need.inventoryName(), left));
+            }
+        }
+        return shortfalls;
+    }
+
+    /**
+     * Moves stock into this connection's slot until it holds everything {@code needs}
+     * uses, from the pool or, when that is short, from the other slots. Runs as one
+     * statement and commits it, so the ingredient rows are locked only for that long;
+     * call it with no transaction open.
+     *
+     * @return true if the slot now holds enough for all of {@code needs}, false if the store is short
+     */
+    static boolean refill(Connection conn, List<Need> needs) throws SQLException {
+        Map<UUID, Integer> totals = totals(needs);
+        if (totals.isEmpty()) {
+            return true;
+        }
+        int enough = 0;
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.REFILL_STOCK)) {
+            ps.setArray(1, conn.createArrayOf("uuid", totals.keySet().toArray()));
+            ps.setArray(2, conn.createArrayOf("int4", totals.values().toArray()));
+            ps.setShort(3, (short) InventoryCounters.slot(conn));
+            ps.setInt(4, InventoryCounters.SLOTS);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getInt("held") >= totals.get((UUID) rs.getObject("ingredient"))) {
+                        enough++;
+                    }
+                }
+            }
+        }
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+        return enough == totals.size();
+    }
+
+    private static Map<UUID, Integer> totals(List<Need> needs) {
+        Map<UUID, Integer> totals = new LinkedHashMap<>();
+        for (Need need : needs) {
+            if (need.inventoryId() != null) {
+                totals.merge(need.inventoryId(), need.quantity(), Integer::sum);
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,198 @@
+package com.team62.repository.postgres;
+
+import com.team62.db.Database;
+import com.team62.db.StatementRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Takes items off the menu ("86s" them) when an ingredient they use falls to its
+ * {@code min_quantity}, and tells the registers right away.
+ *
+ * The stock each sale leaves behind comes back from the reservation itself
+ * ({@link StockReservation#reserve}), so the check costs no queries. Sales on other
+ * registers still in flight are not counted, so a crossing can be noticed one sale late,
+ * but the next sale that sees it trips it. Ingredients already at their minimum are
+ * remembered, so later sales do not 86 the same items again; an ingredient is forgotten
+ * once a sale sees it above its minimum again (restocked).
+ *
+ * When an ingredient that is on the menu ({@code pos_inventory_meta.is_on_menu})
+ * crosses, it is taken off, and every item whose recipe uses it ({@link RecipeCache}) is
+ * deactivated in the same statement, which also sends a {@code pos_menu_86} notification
+ * per item. An ingredient already off the menu deactivates nothing. Postgres delivers
+ * those on commit to every process listening, so cashier screens on other registers and
+ * the API server hear about it as well as this one.
+ *
+ * The listening connection is retried with a growing delay while the database is
+ * unreachable. Notifications sent while it was down are lost, so after reconnecting the
+ * listeners are told about every item that is off the menu.
+ */
+final class ThresholdWatcher {
+
+    private static final Logger LOG = Logger.getLogger("com.team62.inventory");
+    static final String CHANNEL = "pos_menu_86";
+    private static final long RECONNECT_MIN_MILLIS = 1000;
+    private static final long RECONNECT_MAX_MILLIS = 60_000;
+    private static final int IDLE_CHECK_MILLIS = 30_000;
+
+    /**
+     * What one transaction took off the menu, for {@link #committed} once it commits.
+     */
+    record Trip(Set<UUID> ingredients, Set<String> items) {
+        static final Trip NONE = new Trip(Set.of(), Set.of());
+    }
+
+    private final Set<UUID> atMinimum = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean listening = new AtomicBoolean();
+
+    /**
+     * Deactivates, in {@code conn}'s transaction, every item using an ingredient that
+     * {@code remaining} shows at or below its minimum for the first time.
+     *
+     * @param remaining stock left per ingredient after this transaction's sales
+     */
+    Trip check(Connection conn, Map<UUID, Integer> remaining) throws SQLException {
+        if (remaining.isEmpty()) {
+            return Trip.NONE;
+        }
+        RecipeCache.Recipes recipes = RecipeCache.get(conn);
+        Set<UUID> crossed = new LinkedHashSet<>();
+        List<UUID> pairIngredients = new ArrayList<>();
+        List<UUID> pairItems = new ArrayList<>();
+        for (var entry : remaining.entrySet()) {
+            int ingredient = recipes.ingredientIndex(entry.getKey());
+            if (ingredient < 0) {
+                continue;
+            }
+            if (entry.getValue() > recipes.ingredientMinimum(ingredient)) {
+                atMinimum.remove(entry.getKey());
+            } else if (!atMinimum.contains(entry.getKey())) {
+                crossed.add(entry.getKey());
+                for (UUID item : recipes.itemsUsing(ingredient)) {
+                    pairIngredients.add(entry.getKey());
+                    pairItems.add(item);
+                }
+            }
+        }
+        if (crossed.isEmpty()) {
+            return Trip.NONE;
+        }
+        Set<String> deactivated = new LinkedHashSet<>();
+        try (var ps = StatementRegistry.prepare(conn, OrderStatements.EIGHTY_SIX)) {
+            ps.setArray(1, conn.createArrayOf("uuid", crossed.toArray()));
+            ps.setArray(2, conn.createArrayOf("uuid", pairIngredients.toArray()));
+            ps.setArray(3, conn.createArrayOf("uuid", pairItems.toArray()));
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    deactivated.add(rs.getObject("item_id").toString());
+                }
+            }
+        }
+        return new Trip(crossed, deactivated);
+    }
+
+    /**
+     * Call once {@code trip}'s transaction has committed.
+     */
+    void committed(Trip trip) {
+        atMinimum.addAll(trip.ingredients());
+        if (!trip.items().isEmpty()) {
+            publish(trip.items());
+        }
+    }
+
+    /**
+     * Calls {@code listener} with the item ids ({@code "Item".item_id}) whenever items
+     * are taken off the menu by any process. Called on a background thread, and may be
+     * called twice for the same items.
+     */
+    void addListener(Consumer<Set<String>> listener) {
+        listeners.add(listener);
+        if (listening.compareAndSet(false, true)) {
+            Thread t = new Thread(this::listen, "menu-86-listener");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    private void publish(Set<String> itemIds) {
+        for (Consumer<Set<String>> listener : listeners) {
+            try {
+                listener.accept(itemIds);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Menu listener failed", e);
+            }
+        }
+    }
+
+    // Holds one unpooled connection for LISTEN, reconnecting with backoff if it drops.
+    private void listen() {
+        long delay = RECONNECT_MIN_MILLIS;
+        boolean reconnect = false;
+        while (true) {
+            try (Connection conn = Database.getUnpooledConnection()) {
+                try (var st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                delay = RECONNECT_MIN_MILLIS;
+                if (reconnect) {
+                    catchUp(conn);
+                }
+                reconnect = true;
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (true) {
+                    PGNotification[] notifications = pg.getNotifications(IDLE_CHECK_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        if (!conn.isValid(5)) {
+                            break;
+                        }
+                        continue;
+                    }
+                    Set<String> itemIds = new LinkedHashSet<>();
+                    for (PGNotification n : notifications) {
+                        itemIds.add(n.getParameter());
+                    }
+                    publish(itemIds);
+                }
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Menu change listener lost its connection; reconnecting in "
+                        + delay + " ms", e);
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+            delay = Math.min(delay * 2, RECONNECT_MAX_MILLIS);
+        }
+    }
+
+    // Items 86ed while the listener was disconnected; listeners tolerate repeats.
+    private void catchUp(Connection conn) throws SQLException {
+        Set<String> itemIds = new LinkedHashSet<>();
+        try (var st = conn.createStatement();
+             var rs = st.executeQuery("SELECT item_id FROM \"Item\" WHERE NOT is_active")) {
+            while (rs.next()) {
+                itemIds.add(rs.getObject("item_id").toString());
+            }
+        }
+        if (!itemIds.isEmpty()) {
+            publish(itemIds);
+        }
+    }
+}
@@ -0,0 +1,836 @@
+package com.team62.tools;
+
+import com.team62.controller.MainController;
+import com.team62.db.Database;
+import com.team62.db.OrderPartitions;
+import com.team62.db.Stores;
+import com.team62.repository.postgres.Loyalty;
+import com.team62.repository.postgres.PostgresRepositories;
+import com.team62.repository.postgres.SalesSeries;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Java replacement for {@code sql/seed.py --execute} that can load 10-100x the default
+ * history in minutes.
+ *
+ * Days are generated in parallel by {@link SeedGenerator} and encoded straight into
+ * binary COPY rows. Each fact table ({@code "Order"}, {@code "Order_Item"},
+ * {@code pos_sales_activity}, {@code pos_inventory_usage}) streams through its own
+ * connection and {@link CopyManager}, fed by a bounded queue so generation never runs
+ * far ahead of the database. Primary keys, unique constraints, foreign keys and
+ * secondary indexes on those tables are dropped for the load and rebuilt afterwards
+ * (one connection per table), which is much cheaper than maintaining them row by row.
+ * When {@code "Order"} is partitioned ({@code sql/partitioning.sql}), the monthly
+ * partitions for the load range are created first.
+ *
+ * Rows are loaded into this process's store ({@code -Dteam62.store}, see {@link Stores}).
+ * COPY does not work under row-level security, so the load runs on
+ * {@link Database#getLoadConnection() load connections}, whose role must bypass the
+ * store policies; the policies stay in force for every other session. {@code --truncate-first}
+ * empties the tables for every store, so it refuses to run while another store has
+ * orders or items.
+ *
+ * Usage:
+ * <pre>
+ * java -cp build/classes:lib/postgresql-42.7.10.jar com.team62.tools.BulkLoader \
+ *      [--weeks 65] [--start YYYY-MM-DD] [--seed 42] [--target-sales 1250000] \
+ *      [--avg-ticket 10.25] [--peak-days 4] [--threads N] [--truncate-first] \
+ *      [--keep-indexes] [--dry-run] [--scale SF] [--manifest FILE] [--verify FILE]
+ * </pre>
+ * {@code --scale SF} starts from {@link GenConfig#forScale(double)} (later options still
+ * override it). {@code --manifest} writes the expected totals ({@link DatasetManifest}),
+ * also on a dry run; {@code --verify} checks an already loaded database against one.
+ */
+public class BulkLoader {
+
+    static final List<String> FACT_TABLES =
+            List.of("\"Order\"", "\"Order_Item\"", "pos_sales_activity", "pos_inventory_usage");
+    private static final byte[] END = new byte[0];
+    private static final int QUEUE_DEPTH = 32;
+
+    private final GenConfig cfg;
+    private final SeedGenerator gen;
+    private final int threads;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLongArray soldByMenu;
+    private Map<String, Map<String, String>> columns;
+    private Path manifestFile;
+
+    public BulkLoader(GenConfig cfg, int threads) {
+        this.cfg = cfg;
+        this.gen = new SeedGenerator(cfg);
+        this.threads = Math.max(1, threads);
+        this.soldByMenu = new AtomicLongArray(cfg.menu.size());
+    }
+
+    public static void main(String[] args) throws Exception {
+        GenConfig cfg = new GenConfig();
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--scale")) {
+                cfg = GenConfig.forScale(Double.parseDouble(args[i + 1]));
+            }
+        }
+        Path manifest = null;
+        Path verify = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean truncate = false;
+        boolean keepIndexes = false;
+        boolean dryRun = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--start" -> cfg.start = LocalDate.parse(args[++i]);
+                case "--weeks" -> cfg.weeks = Integer.parseInt(args[++i]);
+                case "--seed" -> cfg.seed = Long.parseLong(args[++i]);
+                case "--target-sales" -> cfg.targetSalesCents = Math.round(Double.parseDouble(args[++i]) * 100);
+                case "--avg-ticket" -> cfg.avgTicketCents = Math.round(Double.parseDouble(args[++i]) * 100);
+                case "--peak-days" -> cfg.peakDays = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--truncate-first" -> truncate = true;
+                case "--keep-indexes" -> keepIndexes = true;
+                case "--dry-run" -> dryRun = true;
+                case "--scale" -> i++;
+                case "--manifest" -> manifest = Path.of(args[++i]);
+                case "--verify" -> verify = Path.of(args[++i]);
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Options: --weeks N --start YYYY-MM-DD --seed N --target-sales D --avg-ticket D"
+                            + " --peak-days N --threads N --truncate-first --keep-indexes --dry-run"
+                            + " --scale SF --manifest FILE --verify FILE");
+                    System.exit(1);
+                }
+            }
+        }
+        if (cfg.start == null) {
+            cfg.start = GenConfig.defaultStartForWeeks(cfg.weeks);
+        }
+        if (verify != null) {
+            System.exit(verify(verify) ? 0 : 1);
+        }
+        BulkLoader loader = new BulkLoader(cfg, threads);
+        loader.manifestFile = manifest;
+        loader.run(truncate, keepIndexes, dryRun);
+    }
+
+    /**
+     * @return true when the database matches the manifest
+     */
+    static boolean verify(Path manifestFile) throws Exception {
+        DatasetManifest expected = DatasetManifest.read(manifestFile);
+        List<String> problems;
+        // Unpooled: verify() sets the session time zone.
+        try (Connection conn = Database.getUnpooledConnection()) {
+            problems = expected.verify(conn, new MainController());
+        }
+        boolean ok = true;
+        for (String p : problems) {
+            System.out.println((p.startsWith("note:") ? "" : "MISMATCH ") + p);
+            ok &= p.startsWith("note:");
+        }
+        System.out.printf("%s: %,d orders, $%,.2f expected%n", ok ? "Verified" : "Verification FAILED",
+                expected.getOrders(), expected.getSalesCents() / 100.0);
+        return ok;
+    }
+
+    public void run(boolean truncateFirst, boolean keepIndexes, boolean dryRun) throws Exception {
+        long t0 = System.nanoTime();
+        double factor = gen.priceFactor(unscaledTotal());
+        System.out.printf("Generated plan in %.1fs: %,d orders over %d days, %d menu items, price factor %.4f%n",
+                seconds(t0), gen.totalOrders(), cfg.days(), cfg.menu.size(), factor);
+        if (manifestFile != null) {
+            DatasetManifest manifest = DatasetManifest.compute(gen, factor, threads);
+            manifest.write(manifestFile);
+            System.out.printf("Wrote manifest %s (%,d orders, $%,.2f)%n",
+                    manifestFile, manifest.getOrders(), manifest.getSalesCents() / 100.0);
+        }
+        if (dryRun) {
+            System.out.println("Dry run: nothing written.");
+            return;
+        }
+
+        // The app creates the pos_* tables on startup; do the same so a fresh schema can be loaded.
+        PostgresRepositories.createSchema();
+
+        try (Connection conn = Database.getLoadConnection()) {
+            if (!Stores.bypassesRowSecurity(conn)) {
+                throw new IllegalStateException("COPY does not work under the store policies: set db.load.user"
+                        + " in db.properties to a role with BYPASSRLS that is a member of the tables' owner");
+            }
+            columns = loadColumns(conn);
+        }
+        if (truncateFirst) {
+            refuseIfOtherStores();
+        }
+        load(t0, truncateFirst, keepIndexes, factor);
+
+        // Under the policies, so only this store's history is summed.
+        long t5 = System.nanoTime();
+        try (Connection conn = Database.getConnection()) {
+            SalesSeries.rebuild(conn);
+        }
+        System.out.printf("Rebuilt the sales series in %.1fs%n", seconds(t5));
+    }
+
+    private void load(long t0, boolean truncateFirst, boolean keepIndexes, double factor) throws Exception {
+        List<String> restore = List.of();
+        LoadTotals totals;
+        try (Connection conn = Database.getLoadConnection()) {
+            if (truncateFirst) {
+                execute(conn, "TRUNCATE TABLE \"Order_Item\", \"Item_Inventory\", \"Order\", \"Inventory_Quantity\","
+                        + " \"Item\", \"Employee\", \"Customer\", pos_sales_activity, pos_inventory_usage,"
+                        + " pos_inventory_meta, pos_menu_inventory CASCADE");
+            }
+            long t1 = System.nanoTime();
+            loadDimensions(conn);
+            int partitions = OrderPartitions.ensure(conn, cfg.start, cfg.end());
+            System.out.printf("Loaded customers, employees, items and inventory in %.1fs (%d new partitions)%n",
+                    seconds(t1), partitions);
+            // Foreign keys always go: the fact tables load on separate connections, so an
+            // Order_Item row cannot see its (not yet committed) Order row.
+            restore = dropConstraintsAndIndexes(conn, !keepIndexes);
+        }
+
+        try {
+            long t2 = System.nanoTime();
+            totals = loadFacts(factor);
+            System.out.printf("Copied %,d orders / %,d lines (%,d MB) in %.1fs%n",
+                    totals.orders, totals.lines, totals.bytes >> 20, seconds(t2));
+        } finally {
+            if (!restore.isEmpty()) {
+                long t3 = System.nanoTime();
+                restoreConstraintsAndIndexes(restore);
+                System.out.printf("Rebuilt %d indexes/constraints in %.1fs%n", restore.size(), seconds(t3));
+            }
+        }
+
+        long t4 = System.nanoTime();
+        try (Connection conn = Database.getLoadConnection()) {
+            updateInventoryAndCustomers(conn);
+            for (String table : FACT_TABLES) {
+                execute(conn, "ANALYZE " + table);
+            }
+        }
+        System.out.printf("Updated inventory, customer points and statistics in %.1fs%n", seconds(t4));
+
+        System.out.printf("""
+                Load complete in %.1fs.
+                  Range:    %s .. %s  (%d weeks)
+                  Customers:%d
+                  Employees:%d
+                  Items:    %d
+                  Orders:   %,d
+                  Order_Item rows: %,d
+                  Peak days:%d  (%s)
+                  Sales ≈   $%,.2f
+                """, seconds(t0), cfg.start, cfg.end(), cfg.weeks, cfg.customerN, cfg.employeeN, cfg.menu.size(),
+                totals.orders, totals.lines, gen.peakDays.size(), gen.peakDays, totals.cents / 100.0);
+    }
+
+    // TRUNCATE ignores row-level security, so it would empty every store's tables.
+    // Only sees the other stores because the load role bypasses the policies.
+    private static void refuseIfOtherStores() throws SQLException {
+        try (Connection conn = Database.getLoadConnection();
+                var ps = conn.prepareStatement("""
+                        SELECT store_id FROM "Item" WHERE store_id <> pos_store()
+                        UNION
+                        SELECT store_id FROM "Order" WHERE store_id <> pos_store()
+                        LIMIT 1
+                        """);
+                var rs = ps.executeQuery()) {
+            if (rs.next()) {
+                throw new IllegalStateException("--truncate-first would also empty store "
+                        + rs.getString(1) + "; load into an empty database instead");
+            }
+        }
+    }
+
+    private long unscaledTotal() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> IntStream.range(0, cfg.days()).parallel()
+                    .mapToLong(d -> gen.generateDay(d, 1.0).getTotalCents())
+                    .sum()).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ============================
+    // Dimensions
+    // ============================
+
+    private void loadDimensions(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+
+            PgBinaryWriter w = begin(cfg.customerN * 160);
+            for (int i = 0; i < cfg.customerN; i++) {
+                w.startRow(6);
+                w.writeUuid(gen.customerIds[i]);
+                w.writeText(SeedGenerator.customerName(i));
+                w.writeText(SeedGenerator.customerPhone(i));
+                w.writeText(SeedGenerator.customerEmail(i));
+                w.writeInt4(0);
+                w.writeUuidArray(List.of());
+            }
+            copy(copy, "\"Customer\" (customer_id, name, phone_number, email, points, purchase_history)", w);
+
+            w = begin(cfg.employeeN * 160);
+            for (int i = 0; i < cfg.employeeN; i++) {
+                w.startRow(4);
+                w.writeUuid(gen.employeeIds[i]);
+                w.writeText(SeedGenerator.employeeName(i));
+                w.writeDate(gen.employeeStart[i]);
+                w.writeJsonb(SeedGenerator.employeeWorkHistory(i));
+            }
+            copy(copy, "\"Employee\" (employee_id, name, start_date, work_history)", w);
+
+            int menuN = cfg.menu.size();
+            boolean metaHasMenuColumns = columns.getOrDefault("pos_inventory_meta", Map.of()).containsKey("is_on_menu");
+            PgBinaryWriter items = begin(menuN * 200);
+            PgBinaryWriter inventory = begin(menuN * 80);
+            PgBinaryWriter links = begin(menuN * 80);
+            PgBinaryWriter meta = begin(menuN * 120);
+            PgBinaryWriter recipe = begin(menuN * 80);
+            for (int m = 0; m < menuN; m++) {
+                GenConfig.MenuSpec spec = cfg.menu.get(m);
+                items.startRow(9);
+                items.writeUuid(gen.itemIds[m]);
+                items.writeText(spec.name());
+                items.writeText(spec.category());
+                items.writeNumericCents(spec.priceCents());
+                items.writeBool(spec.active());
+                items.writeText(SeedGenerator.milk(spec));
+                items.writeInt2(SeedGenerator.ice(spec));
+                items.writeFloat4(SeedGenerator.sugar(spec));
+                items.writeTextArray(List.of(SeedGenerator.topping(spec)));
+
+                inventory.startRow(4);
+                inventory.writeUuid(gen.inventoryIds[m]);
+                inventory.writeInt4(gen.startQuantity[m]);
+                inventory.writeDate(cfg.start);
+                inventory.writeDate(cfg.start);
+
+                links.startRow(3);
+                links.writeUuid(gen.itemInventoryIds[m]);
+                links.writeUuid(gen.inventoryIds[m]);
+                links.writeUuid(gen.itemIds[m]);
+
+                meta.startRow(metaHasMenuColumns ? 6 : 4);
+                meta.writeUuid(gen.inventoryIds[m]);
+                meta.writeText(spec.name());
+                meta.writeText("cups");
+                meta.writeInt4(100);
+                if (metaHasMenuColumns) {
+                    meta.writeBool(true);
+                    meta.writeNumericCents(spec.priceCents());
+                }
+
+                recipe.startRow(3);
+                recipe.writeUuid(gen.itemIds[m]);
+                recipe.writeUuid(gen.inventoryIds[m]);
+                recipe.writeInt4(1);
+            }
+            copy(copy, "\"Item\" (item_id, name, category, price, is_active, milk, ice, sugar, toppings)", items);
+            copy(copy, "\"Inventory_Quantity\" (inventory_id, quantity, last_restocked, last_quantity)", inventory);
+            copy(copy, "\"Item_Inventory\" (id, inventory_id, item_id)", links);
+            copy(copy, "pos_inventory_meta (inventory_id, display_name, unit, min_quantity"
+                    + (metaHasMenuColumns ? ", is_on_menu, base_price)" : ")"), meta);
+            copy(copy, "pos_menu_inventory (menu_item_id, inventory_id, quantity_used)", recipe);
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static PgBinaryWriter begin(int capacity) {
+        return new PgBinaryWriter(capacity);
+    }
+
+    private static void copy(CopyManager copy, String target, PgBinaryWriter rows) throws SQLException {
+        byte[] header = PgBinaryWriter.header();
+        byte[] trailer = PgBinaryWriter.trailer();
+        byte[] all = new byte[header.length + rows.length() + trailer.length];
+        System.arraycopy(header, 0, all, 0, header.length);
+        System.arraycopy(rows.array(), 0, all, header.length, rows.length());
+        System.arraycopy(trailer, 0, all, header.length + rows.length(), trailer.length);
+        try {
+            copy.copyIn("COPY " + target + " FROM STDIN WITH (FORMAT binary)", new ByteArrayInputStream(all));
+        } catch (java.io.IOException e) {
+            throw new SQLException("COPY into " + target + " failed", e);
+        }
+    }
+
+    // ============================
+    // Facts
+    // ============================
+
+    private LoadTotals loadFacts(double factor) throws Exception {
+        boolean itemQuantityIsJson = "jsonb".equals(columns.get("Order").get("item_quantity"));
+        boolean orderHasPayment = columns.get("Order").containsKey("payment_method");
+        boolean orderItemHasDate = columns.getOrDefault("Order_Item", Map.of()).containsKey("order_date");
+
+        Map<String, TableSink> sinks = new LinkedHashMap<>();
+        sinks.put("Order", new TableSink("\"Order\" (order_id, item_quantity, employee_id, customer_id, date, total_price"
+                + (orderHasPayment ? ", payment_method)" : ")")));
+        sinks.put("Order_Item", new TableSink("\"Order_Item\" (id, order_id, item_id, quantity, unit_price"
+                + (orderItemHasDate ? ", order_date)" : ")")));
+        sinks.put("pos_sales_activity", new TableSink("pos_sales_activity (activity_id, business_date, event_time,"
+                + " activity_type, order_id, amount, tax_amount, payment_method, item_count)"));
+        sinks.put("pos_inventory_usage", new TableSink("pos_inventory_usage (usage_id, usage_time, business_date,"
+                + " order_id, menu_item_id, inventory_id, quantity_used)"));
+
+        List<Thread> writers = new ArrayList<>();
+        for (TableSink sink : sinks.values()) {
+            Thread t = new Thread(sink, "copy-" + sink.target.split(" ")[0].replace("\"", ""));
+            t.start();
+            writers.add(t);
+        }
+
+        LoadTotals totals = new LoadTotals();
+        LongAdder orders = new LongAdder();
+        LongAdder lines = new LongAdder();
+        LongAdder cents = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int d = 0; d < cfg.days(); d++) {
+                int day = d;
+                tasks.add(pool.submit(() -> {
+                    SeedGenerator.DayOrders batch = gen.generateDay(day, factor);
+                    encodeDay(batch, sinks, itemQuantityIsJson, orderHasPayment, orderItemHasDate);
+                    orders.add(batch.getOrderCount());
+                    lines.add(batch.getLineCount());
+                    cents.add(batch.getTotalCents());
+                    return null;
+                }));
+            }
+            for (Future<?> f : tasks) {
+                try {
+                    f.get();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e.getCause() != null ? e.getCause() : e);
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+            for (TableSink sink : sinks.values()) {
+                sink.finish();
+            }
+            for (Thread t : writers) {
+                t.join();
+            }
+        }
+
+        // Commit only when every table made it, so a failed load leaves no partial fact data.
+        Throwable error = failure.get();
+        for (TableSink sink : sinks.values()) {
+            sink.close(error == null);
+            totals.bytes += sink.bytes;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Bulk load failed", error);
+        }
+        totals.orders = orders.sum();
+        totals.lines = lines.sum();
+        totals.cents = cents.sum();
+        return totals;
+    }
+
+    private void encodeDay(SeedGenerator.DayOrders day, Map<String, TableSink> sinks,
+            boolean itemQuantityIsJson, boolean orderHasPayment, boolean orderItemHasDate) throws InterruptedException {
+        int n = day.getOrderCount();
+        PgBinaryWriter order = new PgBinaryWriter(n * 160);
+        PgBinaryWriter orderItem = new PgBinaryWriter(n * 110);
+        PgBinaryWriter activity = new PgBinaryWriter(n * 150);
+        PgBinaryWriter usage = new PgBinaryWriter(n * 150);
+
+        int line = 0;
+        StringBuilder json = new StringBuilder(128);
+        for (int o = 0; o < n; o++) {
+            String payment = day.cash[o] ? "Cash" : "Card";
+            int firstLine = line;
+            json.setLength(0);
+            json.append('{');
+            while (line < day.lines && day.lineOrder[line] == o) {
+                int m = day.lineMenu[line];
+                UUID itemId = gen.itemIds[m];
+                if (line > firstLine) {
+                    json.append(", ");
+                }
+                json.append('"').append(itemId).append("\": ").append(day.lineQty[line]);
+
+                orderItem.startRow(orderItemHasDate ? 6 : 5);
+                orderItem.writeUuid(day.lineIds[line]);
+                orderItem.writeUuid(day.orderIds[o]);
+                orderItem.writeUuid(itemId);
+                orderItem.writeInt4(day.lineQty[line]);
+                orderItem.writeNumericCents(day.lineUnitCents[line]);
+                if (orderItemHasDate) {
+                    orderItem.writeTimestamptz(day.epochMicros[o]);
+                }
+
+                usage.startRow(7);
+                usage.writeUuid(day.usageIds[line]);
+                usage.writeTimestamptz(day.epochMicros[o]);
+                usage.writeDate(day.day);
+                usage.writeUuid(day.orderIds[o]);
+                usage.writeUuid(itemId);
+                usage.writeUuid(gen.inventoryIds[m]);
+                usage.writeInt4(day.lineQty[line]);
+
+                soldByMenu.addAndGet(m, day.lineQty[line]);
+                line++;
+            }
+            json.append('}');
+
+            order.startRow(orderHasPayment ? 7 : 6);
+            order.writeUuid(day.orderIds[o]);
+            if (itemQuantityIsJson) {
+                order.writeJsonb(json.toString());
+            } else {
+                order.writeInt4(day.itemCount[o]);
+            }
+            order.writeUuid(gen.employeeIds[day.employee[o]]);
+            order.writeUuid(gen.customerIds[day.customer[o]]);
+            order.writeTimestamptz(day.epochMicros[o]);
+            order.writeNumericCents(day.totalCents[o]);
+            if (orderHasPayment) {
+                order.writeText(payment);
+            }
+
+            activity.startRow(9);
+            activity.writeUuid(day.activityIds[o]);
+            activity.writeDate(day.day);
+            activity.writeTimestamptz(day.epochMicros[o]);
+            activity.writeText("SALE");
+            activity.writeUuid(day.orderIds[o]);
+            activity.writeNumericCents(day.totalCents[o]);
+            activity.writeNumericCents(0);
+            activity.writeText(payment);
+            activity.writeInt4(day.itemCount[o]);
+        }
+
+        sinks.get("Order").put(order.toByteArray());
+        sinks.get("Order_Item").put(orderItem.toByteArray());
+        sinks.get("pos_sales_activity").put(activity.toByteArray());
+        sinks.get("pos_inventory_usage").put(usage.toByteArray());
+    }
+
+    /**
+     * One COPY stream on its own connection, fed by producer threads through a bounded queue.
+     */
+    private final class TableSink implements Runnable {
+        final String target;
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        long bytes;
+        private Connection conn;
+
+        TableSink(String target) {
+            this.target = target;
+        }
+
+        void put(byte[] chunk) throws InterruptedException {
+            while (!queue.offer(chunk, 200, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new IllegalStateException("Load aborted", failure.get());
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            // The writer always drains its queue, even after a failure, so this cannot block forever.
+            queue.put(END);
+        }
+
+        @Override
+        public void run() {
+            CopyIn in = null;
+            boolean drained = false;
+            try {
+                conn = Database.getLoadConnection();
+                conn.setAutoCommit(false);
+                execute(conn, "SET synchronous_commit = off");
+                in = conn.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY " + target + " FROM STDIN WITH (FORMAT binary)");
+                byte[] header = PgBinaryWriter.header();
+                in.writeToCopy(header, 0, header.length);
+                while (true) {
+                    byte[] chunk = queue.take();
+                    if (chunk == END) {
+                        drained = true;
+                        break;
+                    }
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    in.writeToCopy(chunk, 0, chunk.length);
+                    bytes += chunk.length;
+                }
+                if (failure.get() != null) {
+                    in.cancelCopy();
+                    return;
+                }
+                byte[] trailer = PgBinaryWriter.trailer();
+                in.writeToCopy(trailer, 0, trailer.length);
+                in.endCopy();
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                try {
+                    if (in != null && in.isActive()) {
+                        in.cancelCopy();
+                    }
+                } catch (SQLException ignored) {
+                }
+                // Keep draining so producers never block on a dead sink.
+                try {
+                    while (!drained && queue.take() != END) {
+                        // discard
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void close(boolean commit) {
+            if (conn == null) {
+                return;
+            }
+            try {
+                if (commit) {
+                    conn.commit();
+                } else {
+                    conn.rollback();
+                }
+            } catch (SQLException e) {
+                failure.compareAndSet(null, e);
+                e.printStackTrace();
+            } finally {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    // ============================
+    // Indexes and constraints
+    // ============================
+
+    /**
+     * @return table name (unquoted) to column name to type name ({@code udt_name}), for the
+     *         columns whose presence or type differs between schema.sql and databases the app has upgraded
+     */
+    private static Map<String, Map<String, String>> loadColumns(Connection conn) throws SQLException {
+        Map<String, Map<String, String>> result = new HashMap<>();
+        try (var ps = conn.prepareStatement("""
+                SELECT table_name, column_name, udt_name
+                  FROM information_schema.columns
+                 WHERE table_schema = current_schema()
+                   AND table_name IN ('Order', 'Order_Item', 'pos_inventory_meta')
+                """);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.computeIfAbsent(rs.getString("table_name"), k -> new HashMap<>())
+                        .put(rs.getString("column_name"), rs.getString("udt_name"));
+            }
+        }
+        if (!result.containsKey("Order")) {
+            throw new SQLException("Table \"Order\" not found; run sql/schema.sql first");
+        }
+        return result;
+    }
+
+    private static String factTableArray() {
+        return "ARRAY['" + String.join("','", FACT_TABLES) + "']::regclass[]";
+    }
+
+    /**
+     * Drops every FK constraint touching the fact tables and, with {@code keysAndIndexes},
+     * their PK/unique constraints and secondary indexes too.
+     *
+     * @return statements that recreate them, in a safe order (keys, indexes, then foreign keys)
+     */
+    private List<String> dropConstraintsAndIndexes(Connection conn, boolean keysAndIndexes) throws SQLException {
+        List<String> drops = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        List<String> foreignKeys = new ArrayList<>();
+        String tables = factTableArray();
+
+        try (var ps = conn.prepareStatement("""
+                SELECT conrelid::regclass::text AS tbl, conname, contype, pg_get_constraintdef(oid) AS def
+                  FROM pg_constraint
+                 WHERE contype IN (%s)
+                   AND conparentid = 0
+                   AND (conrelid = ANY(%s) OR (contype = 'f' AND confrelid = ANY(%s)))
+                 ORDER BY CASE contype WHEN 'f' THEN 0 ELSE 1 END
+                """.formatted(keysAndIndexes ? "'p', 'u', 'f'" : "'f'", tables, tables));
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String table = rs.getString("tbl");
+                String name = quoteIdent(rs.getString("conname"));
+                drops.add("ALTER TABLE " + table + " DROP CONSTRAINT IF EXISTS " + name);
+                String add = "ALTER TABLE " + table + " ADD CONSTRAINT " + name + " " + rs.getString("def");
+                if ("f".equals(rs.getString("contype"))) {
+                    foreignKeys.add(add);
+                } else {
+                    keys.add(add);
+                }
+            }
+        }
+        try (var ps = conn.prepareStatement(keysAndIndexes ? """
+                SELECT i.indexrelid::regclass::text AS idx, pg_get_indexdef(i.indexrelid) AS def
+                  FROM pg_index i
+                 WHERE i.indrelid = ANY(%s)
+                   AND NOT EXISTS (SELECT 1 FROM pg_constraint c
+                                    WHERE c.conindid = i.indexrelid AND c.conrelid = i.indrelid)
+                """.formatted(tables) : "SELECT NULL AS idx, NULL AS def WHERE FALSE");
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                drops.add("DROP INDEX IF EXISTS " + rs.getString("idx"));
+                // On a partitioned table the definition says ON ONLY; rebuild it on every partition.
+                indexes.add(rs.getString("def").replace(" ON ONLY ", " ON "));
+            }
+        }
+
+        List<String> restore = new ArrayList<>(keys);
+        restore.addAll(indexes);
+        restore.addAll(foreignKeys);
+        System.out.println("Dropping " + restore.size() + " indexes/constraints for the load. If the loader dies,"
+                + " recreate them with:");
+        for (String sql : restore) {
+            System.out.println("  " + sql + ";");
+        }
+        for (String sql : drops) {
+            execute(conn, sql);
+        }
+        return restore;
+    }
+
+    /**
+     * Rebuilds keys and indexes table by table in parallel, then foreign keys.
+     */
+    private void restoreConstraintsAndIndexes(List<String> restore) throws Exception {
+        Map<String, List<String>> byTable = new HashMap<>();
+        List<String> foreignKeys = new ArrayList<>();
+        for (String sql : restore) {
+            if (sql.contains(" FOREIGN KEY ")) {
+                foreignKeys.add(sql);
+                continue;
+            }
+            String table = sql.startsWith("ALTER TABLE ") ? sql.split(" ")[2]
+                    : sql.replaceAll("^.* ON (ONLY )?(\\S+) USING .*$", "$2").replaceFirst("^public\\.", "");
+            byTable.computeIfAbsent(table, k -> new ArrayList<>()).add(sql);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, byTable.size()));
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (List<String> statements : byTable.values()) {
+                tasks.add(pool.submit(() -> {
+                    try (Connection conn = Database.getUnpooledConnection()) {
+                        execute(conn, "SET maintenance_work_mem = '256MB'");
+                        for (String sql : statements) {
+                            execute(conn, sql);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : tasks) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        try (Connection conn = Database.getConnection()) {
+            for (String sql : foreignKeys) {
+                execute(conn, sql);
+            }
+        }
+    }
+
+    private static String quoteIdent(String name) {
+        return name.matches("[a-z_][a-z0-9_]*") ? name : "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    // ============================
+    // Follow-up updates
+    // ============================
+
+    private void updateInventoryAndCustomers(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("""
+                UPDATE "Inventory_Quantity"
+                   SET quantity = ?
+                 WHERE inventory_id = ?
+                """)) {
+            for (int m = 0; m < cfg.menu.size(); m++) {
+                ps.setInt(1, (int) Math.max(0, gen.startQuantity[m] - soldByMenu.get(m)));
+                ps.setObject(2, gen.inventoryIds[m]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // The generated history becomes each customer's opening loyalty balance; recent
+        // purchases are read from "Order" itself, so purchase_history stays empty.
+        execute(conn, """
+                UPDATE "Customer" AS c
+                   SET points = s.points
+                  FROM (SELECT customer_id,
+                               FLOOR(SUM(total_price))::INTEGER AS points
+                          FROM "Order"
+                         GROUP BY customer_id) AS s
+                 WHERE c.customer_id = s.customer_id
+                """);
+        Loyalty.openBalances(conn);
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (var st = conn.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    private static final class LoadTotals {
+        long orders;
+        long lines;
+        long cents;
+        long bytes;
+    }
+}
@@ -0,0 +1,320 @@
+package com.team62.tools;
+
+import com.team62.controller.MainController;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Expected aggregate totals for a generated dataset, so report output can be checked
+ * for correctness at any scale factor.
+ *
+ * The manifest is computed from {@link SeedGenerator} alone (no database), written as
+ * a plain-text file next to the load, and later compared against the loaded tables by
+ * {@link #verify}. Days are UTC calendar days, matching the timestamps the loader writes.
+ *
+ * File layout: {@code key=value} header lines, then tab-separated sections
+ * ({@code [daily]}, {@code [menu]}, {@code [hourly]}) with money in cents.
+ */
+public class DatasetManifest {
+
+    final Map<String, String> header = new LinkedHashMap<>();
+    final TreeMap<LocalDate, long[]> daily = new TreeMap<>(); // orders, items, cents
+    final Map<String, long[]> menu = new TreeMap<>();         // quantity, cents
+    final long[][] hourly = new long[24][2];                  // orders, cents
+
+    long orders;
+    long lines;
+    long items;
+    long salesCents;
+    long cashCents;
+
+    /**
+     * Generates every day (in parallel, without touching the database) and totals it.
+     */
+    public static DatasetManifest compute(SeedGenerator gen, double priceFactor, int threads) throws Exception {
+        GenConfig cfg = gen.cfg;
+        int menuN = cfg.menu.size();
+        long[][] dayMenuQty = new long[cfg.days()][];
+        long[][] dayMenuCents = new long[cfg.days()][];
+        long[][][] dayHourly = new long[cfg.days()][][];
+        long[][] dayTotals = new long[cfg.days()][];
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            pool.submit(() -> IntStream.range(0, cfg.days()).parallel().forEach(d -> {
+                SeedGenerator.DayOrders day = gen.generateDay(d, priceFactor);
+                long[] qty = new long[menuN];
+                long[] cents = new long[menuN];
+                long[][] hours = new long[24][2];
+                long itemCount = 0;
+                long cash = 0;
+                for (int l = 0; l < day.lines; l++) {
+                    qty[day.lineMenu[l]] += day.lineQty[l];
+                    cents[day.lineMenu[l]] += day.lineQty[l] * day.lineUnitCents[l];
+                }
+                for (int o = 0; o < day.orders; o++) {
+                    int hour = (int) ((day.epochMicros[o] / 3_600_000_000L) % 24);
+                    hours[hour][0]++;
+                    hours[hour][1] += day.totalCents[o];
+                    itemCount += day.itemCount[o];
+                    if (day.cash[o]) {
+                        cash += day.totalCents[o];
+                    }
+                }
+                dayMenuQty[d] = qty;
+                dayMenuCents[d] = cents;
+                dayHourly[d] = hours;
+                dayTotals[d] = new long[] { day.orders, itemCount, day.getTotalCents(), day.lines, cash };
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        DatasetManifest m = new DatasetManifest();
+        m.header.put("scale_factor", String.valueOf(cfg.scaleFactor));
+        m.header.put("seed", String.valueOf(cfg.seed));
+        m.header.put("start", cfg.start.toString());
+        m.header.put("end", cfg.end().toString());
+        m.header.put("weeks", String.valueOf(cfg.weeks));
+        m.header.put("timezone", "UTC");
+        m.header.put("price_factor", String.valueOf(priceFactor));
+        m.header.put("customers", String.valueOf(cfg.customerN));
+        m.header.put("employees", String.valueOf(cfg.employeeN));
+        m.header.put("menu_items", String.valueOf(menuN));
+        m.header.put("peak_days", gen.peakDays.toString());
+
+        long[] menuQty = new long[menuN];
+        long[] menuCents = new long[menuN];
+        for (int d = 0; d < cfg.days(); d++) {
+            long[] t = dayTotals[d];
+            m.daily.put(cfg.start.plusDays(d), new long[] { t[0], t[1], t[2] });
+            m.orders += t[0];
+            m.items += t[1];
+            m.salesCents += t[2];
+            m.lines += t[3];
+            m.cashCents += t[4];
+            for (int i = 0; i < menuN; i++) {
+                menuQty[i] += dayMenuQty[d][i];
+                menuCents[i] += dayMenuCents[d][i];
+            }
+            for (int h = 0; h < 24; h++) {
+                m.hourly[h][0] += dayHourly[d][h][0];
+                m.hourly[h][1] += dayHourly[d][h][1];
+            }
+        }
+        for (int i = 0; i < menuN; i++) {
+            m.menu.put(cfg.menu.get(i).name(), new long[] { menuQty[i], menuCents[i] });
+        }
+        return m;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getSalesCents() {
+        return salesCents;
+    }
+
+    // ============================
+    // File format
+    // ============================
+
+    public void write(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Team 62 dataset manifest: expected totals for a generated load. Money in cents.\n");
+        header.forEach((k, v) -> sb.append(k).append('=').append(v).append('\n'));
+        sb.append("orders=").append(orders).append('\n');
+        sb.append("order_lines=").append(lines).append('\n');
+        sb.append("items_sold=").append(items).append('\n');
+        sb.append("sales_cents=").append(salesCents).append('\n');
+        sb.append("cash_cents=").append(cashCents).append('\n');
+        sb.append("non_cash_cents=").append(salesCents - cashCents).append('\n');
+        sb.append("\n[daily]\n# date\torders\titems\tsales_cents\n");
+        daily.forEach((d, v) -> sb.append(d).append('\t').append(v[0]).append('\t').append(v[1])
+                .append('\t').append(v[2]).append('\n'));
+        sb.append("\n[menu]\n# name\tquantity\trevenue_cents\n");
+        menu.forEach((n, v) -> sb.append(n).append('\t').append(v[0]).append('\t').append(v[1]).append('\n'));
+        sb.append("\n[hourly]\n# hour_utc\torders\tsales_cents\n");
+        for (int h = 0; h < 24; h++) {
+            if (hourly[h][0] > 0) {
+                sb.append(h).append('\t').append(hourly[h][0]).append('\t').append(hourly[h][1]).append('\n');
+            }
+        }
+        Files.writeString(file, sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    public static DatasetManifest read(Path file) throws IOException {
+        DatasetManifest m = new DatasetManifest();
+        String section = "";
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[")) {
+                section = line;
+                continue;
+            }
+            String[] f = line.split("\t");
+            switch (section) {
+                case "[daily]" -> m.daily.put(LocalDate.parse(f[0]),
+                        new long[] { Long.parseLong(f[1]), Long.parseLong(f[2]), Long.parseLong(f[3]) });
+                case "[menu]" -> m.menu.put(f[0], new long[] { Long.parseLong(f[1]), Long.parseLong(f[2]) });
+                case "[hourly]" -> {
+                    int h = Integer.parseInt(f[0]);
+                    m.hourly[h][0] = Long.parseLong(f[1]);
+                    m.hourly[h][1] = Long.parseLong(f[2]);
+                }
+                default -> {
+                    int eq = line.indexOf('=');
+                    String key = line.substring(0, eq);
+                    String value = line.substring(eq + 1);
+                    switch (key) {
+                        case "orders" -> m.orders = Long.parseLong(value);
+                        case "order_lines" -> m.lines = Long.parseLong(value);
+                        case "items_sold" -> m.items = Long.parseLong(value);
+                        case "sales_cents" -> m.salesCents = Long.parseLong(value);
+                        case "cash_cents" -> m.cashCents = Long.parseLong(value);
+                        case "non_cash_cents" -> {
+                            // derived
+                        }
+                        default -> m.header.put(key, value);
+                    }
+                }
+            }
+        }
+        return m;
+    }
+
+    // ============================
+    // Verification
+    // ============================
+
+    /**
+     * Compares the loaded tables (and the controller's own per-day report methods on the
+     * peak days) against this manifest.
+     *
+     * @return human-readable mismatches; empty when the database matches
+     */
+    public List<String> verify(Connection conn, MainController controller) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (var st = conn.createStatement()) {
+            st.execute("SET TIME ZONE 'UTC'");
+        }
+
+        long[] totals = queryLongs(conn, """
+                SELECT COUNT(*), COALESCE(SUM(total_price) * 100, 0)::BIGINT FROM "Order"
+                """);
+        check(problems, "orders", orders, totals[0]);
+        check(problems, "sales_cents (Order.total_price)", salesCents, totals[1]);
+
+        long[] lineTotals = queryLongs(conn, """
+                SELECT COUNT(*), COALESCE(SUM(quantity), 0), COALESCE(SUM(quantity * unit_price) * 100, 0)::BIGINT
+                  FROM "Order_Item"
+                """);
+        check(problems, "order_lines", lines, lineTotals[0]);
+        check(problems, "items_sold", items, lineTotals[1]);
+        check(problems, "sales_cents (Order_Item)", salesCents, lineTotals[2]);
+
+        long[] payments = queryLongs(conn, """
+                SELECT COALESCE(SUM(CASE WHEN LOWER(payment_method) = 'cash' THEN amount ELSE 0 END) * 100, 0)::BIGINT,
+                       COALESCE(SUM(amount) * 100, 0)::BIGINT
+                  FROM pos_sales_activity
+                 WHERE activity_type = 'SALE'
+                """);
+        check(problems, "cash_cents (pos_sales_activity)", cashCents, payments[0]);
+        check(problems, "sales_cents (pos_sales_activity)", salesCents, payments[1]);
+
+        Map<LocalDate, long[]> actualDaily = new TreeMap<>();
+        try (var ps = conn.prepareStatement("""
+                SELECT date::date AS d, COUNT(*) AS orders, (SUM(total_price) * 100)::BIGINT AS cents
+                  FROM "Order"
+                 GROUP BY 1
+                """);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                actualDaily.put(rs.getObject("d", LocalDate.class), new long[] { rs.getLong("orders"), rs.getLong("cents") });
+            }
+        }
+        for (Map.Entry<LocalDate, long[]> e : daily.entrySet()) {
+            long[] actual = actualDaily.getOrDefault(e.getKey(), new long[2]);
+            check(problems, "orders on " + e.getKey(), e.getValue()[0], actual[0]);
+            check(problems, "sales_cents on " + e.getKey(), e.getValue()[2], actual[1]);
+        }
+
+        try (var ps = conn.prepareStatement("""
+                SELECT i.name, SUM(oi.quantity) AS qty, (SUM(oi.quantity * oi.unit_price) * 100)::BIGINT AS cents
+                  FROM "Order_Item" oi
+                  JOIN "Item" i ON i.item_id = oi.item_id
+                 GROUP BY i.name
+                """);
+                var rs = ps.executeQuery()) {
+            Map<String, long[]> actualMenu = new TreeMap<>();
+            while (rs.next()) {
+                actualMenu.put(rs.getString("name"), new long[] { rs.getLong("qty"), rs.getLong("cents") });
+            }
+            for (Map.Entry<String, long[]> e : menu.entrySet()) {
+                long[] actual = actualMenu.getOrDefault(e.getKey(), new long[2]);
+                check(problems, "quantity of " + e.getKey(), e.getValue()[0], actual[0]);
+                check(problems, "revenue_cents of " + e.getKey(), e.getValue()[1], actual[1]);
+            }
+        }
+
+        // The report methods group by the session time zone, which the driver takes from the
+        // JVM, so only compare them when running with -Duser.timezone=UTC.
+        if (controller != null && TimeZone.getDefault().getRawOffset() == 0 && !TimeZone.getDefault().useDaylightTime()) {
+            List<LocalDate> days = new ArrayList<>();
+            for (String d : header.getOrDefault("peak_days", "[]").replaceAll("[\\[\\] ]", "").split(",")) {
+                if (!d.isEmpty()) {
+                    days.add(LocalDate.parse(d));
+                }
+            }
+            if (!daily.isEmpty()) {
+                days.add(daily.firstKey());
+                days.add(daily.lastKey());
+            }
+            for (LocalDate d : days) {
+                long[] expected = daily.getOrDefault(d, new long[3]);
+                check(problems, "getOrderCountForDate(" + d + ")", expected[0], controller.getOrderCountForDate(d));
+                BigDecimal sales = controller.getTotalSalesForDate(d);
+                check(problems, "getTotalSalesForDate(" + d + ")", expected[2], sales.movePointRight(2).longValueExact());
+            }
+        } else if (controller != null) {
+            problems.add("note: JVM time zone is not UTC; skipped controller report checks");
+        }
+        return problems;
+    }
+
+    private static long[] queryLongs(Connection conn, String sql) throws SQLException {
+        try (var ps = conn.prepareStatement(sql);
+                var rs = ps.executeQuery()) {
+            rs.next();
+            int n = rs.getMetaData().getColumnCount();
+            long[] out = new long[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = rs.getLong(i + 1);
+            }
+            return out;
+        }
+    }
+
+    private static void check(List<String> problems, String what, long expected, long actual) {
+        if (expected != actual) {
+            problems.add(what + ": expected " + expected + ", found " + actual);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.team62.tools;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator settings, mirroring {@code GenConfig} in {@code sql/seed.py} so the Java
+ * loader and the Python seeder describe a dataset with the same knobs.
+ *
+ * Money is kept in cents. {@link #forScale(double)} builds the TPC-style scaled
+ * variant used for performance testing.
+ */
+public class GenConfig {
+
+    /** One menu entry; same fields as {@code MENU_ITEMS} in seed.py. */
+    public record MenuSpec(int menuItemId, String name, String category, long priceCents, boolean active) {
+    }
+
+    public static final List<MenuSpec> DEFAULT_MENU = List.of(
+            new MenuSpec(1, "Classic Milk Tea", "Milk Tea", 475, true),
+            new MenuSpec(2, "Taro Milk Tea", "Milk Tea", 525, true),
+            new MenuSpec(3, "Thai Tea", "Milk Tea", 500, true),
+            new MenuSpec(4, "Jasmine Green Tea", "Brewed Tea", 375, true),
+            new MenuSpec(5, "Oolong Tea", "Brewed Tea", 375, true),
+            new MenuSpec(6, "Wintermelon Tea", "Fruit Tea", 450, true),
+            new MenuSpec(7, "Mango Green Tea", "Fruit Tea", 525, true),
+            new MenuSpec(8, "Strawberry Tea", "Fruit Tea", 525, true),
+            new MenuSpec(9, "Passion Fruit Tea", "Fruit Tea", 500, true),
+            new MenuSpec(10, "Brown Sugar Boba Milk", "Specialty", 575, true),
+            new MenuSpec(11, "Matcha Latte", "Specialty", 575, true),
+            new MenuSpec(12, "Honey Lemon Tea", "Fruit Tea", 475, true),
+            new MenuSpec(13, "Lychee Tea", "Fruit Tea", 500, true),
+            new MenuSpec(14, "Peach Oolong Tea", "Fruit Tea", 525, true),
+            new MenuSpec(15, "Brown Sugar Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(16, "Mango Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(17, "Strawberry Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(18, "Honeydew Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(19, "Wintermelon Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(20, "Grape Chia", "Milk Tea", 550, true),
+            new MenuSpec(21, "Passion Fruit", "Milk Tea", 550, true),
+            new MenuSpec(22, "Oolong Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(23, "Honey Lemon Milk Tea", "Milk Tea", 550, true),
+            new MenuSpec(24, "Peach Milk Tea", "Milk Tea", 550, true));
+
+    public LocalDate start;
+    public int weeks = 65;
+    public long seed = 42;
+
+    public long targetSalesCents = 125_000_000L;
+    public long avgTicketCents = 1025;
+
+    public int peakDays = 4;
+    public double peakMultiplier = 4.5;
+
+    public int openHour = 11;
+    public int closeHour = 21;
+
+    public int customerN = 2000;
+    public int employeeN = 20;
+
+    public double[] dowMult = { 0.90, 0.95, 1.00, 1.05, 1.15, 1.30, 1.20 };
+    public double[] monthMult = { 1.00, 0.98, 1.00, 1.02, 1.04, 1.06, 1.05, 1.05, 1.03, 1.05, 1.15, 1.18 };
+    public double dailyNoiseSigma = 0.12;
+
+    /** Share of orders paid in cash (the app records a payment method per order). */
+    public double cashShare = 0.35;
+
+    public List<MenuSpec> menu = DEFAULT_MENU;
+
+    /** Multiplier on each inventory item's starting quantity. */
+    public double inventoryScale = 1.0;
+
+    /** The scale factor this config was built for (1 = the seed.py defaults). */
+    public double scaleFactor = 1.0;
+
+    private static final String[] VARIANTS = { "Large", "Lite", "Oat", "Brown Sugar", "Cheese Foam", "Iced", "Hot" };
+
+    /**
+     * Scale factor {@code sf} keeps the calendar (weeks, peak days, seasonality) and
+     * multiplies volume: sales, customers and employees grow linearly, the menu grows
+     * with sqrt(sf) (24 items at SF 1, 96 at SF 10, 240 at SF 100) as size/style variants
+     * of the base drinks, and inventory grows so each item starts with stock
+     * proportional to its share of sales, as at SF 1.
+     */
+    public static GenConfig forScale(double sf) {
+        if (sf <= 0) {
+            throw new IllegalArgumentException("Scale factor must be positive: " + sf);
+        }
+        GenConfig cfg = new GenConfig();
+        cfg.scaleFactor = sf;
+        cfg.targetSalesCents = Math.round(cfg.targetSalesCents * sf);
+        cfg.customerN = (int) Math.max(1, Math.round(cfg.customerN * sf));
+        cfg.employeeN = (int) Math.max(1, Math.round(cfg.employeeN * sf));
+        int copies = (int) Math.max(1, Math.ceil(Math.sqrt(sf)));
+        cfg.menu = scaledMenu(copies);
+        cfg.inventoryScale = sf / copies;
+        return cfg;
+    }
+
+    /**
+     * The default menu plus {@code copies - 1} variants of every drink, each 25 cents
+     * dearer than the previous one (capped at +$2.00).
+     */
+    static List<MenuSpec> scaledMenu(int copies) {
+        List<MenuSpec> menu = new ArrayList<>(DEFAULT_MENU);
+        for (int k = 1; k < copies; k++) {
+            String variant = k <= VARIANTS.length ? VARIANTS[k - 1] : "Variant " + k;
+            for (MenuSpec base : DEFAULT_MENU) {
+                menu.add(new MenuSpec(k * DEFAULT_MENU.size() + base.menuItemId(),
+                        base.name() + " (" + variant + ")", base.category(),
+                        base.priceCents() + 25L * Math.min(k, 8), base.active()));
+            }
+        }
+        return menu;
+    }
+
+    public LocalDate end() {
+        return start.plusDays(weeks * 7L - 1);
+    }
+
+    public int days() {
+        return weeks * 7;
+    }
+
+    /**
+     * Start date so the range ends today, like {@code default_start_for_weeks} in seed.py.
+     */
+    public static LocalDate defaultStartForWeeks(int weeks) {
+        return LocalDate.now().minusDays(weeks * 7L - 1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.team62.tools;
+
+import com.team62.db.Database;
+import com.team62.db.Uuid7;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Compares random (version 4) and time-ordered ({@link Uuid7}) primary keys: how fast
+ * each is minted from many threads, and how fast rows keyed by each go into a UUID
+ * primary-key B-tree, with the resulting index size and WAL volume.
+ *
+ * Usage:
+ * <pre>
+ * java -cp build/classes:lib/postgresql-42.7.10.jar \
+ *      com.team62.tools.KeyBenchmark [--rows 1000000] [--threads 8] [--batch 500]
+ * </pre>
+ * The insert test uses a scratch table ({@code pos_key_bench}) that is dropped afterwards.
+ *
+ * {@code --batch 1} matches the app (one order per transaction). With large batches on
+ * many connections each batch's keys fall behind the other connections' newer keys, so
+ * UUIDv7 pages split in the middle and the index grows instead of shrinking.
+ */
+public class KeyBenchmark {
+
+    private static final String TABLE = "pos_key_bench";
+
+    private final int rows;
+    private final int threads;
+    private final int batch;
+
+    KeyBenchmark(int rows, int threads, int batch) {
+        this.rows = rows;
+        this.threads = threads;
+        this.batch = batch;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batch = 500;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown option " + args[i] + "; options: --rows N --threads N --batch N");
+                    System.exit(2);
+                }
+            }
+        }
+        new KeyBenchmark(rows, Math.max(1, threads), Math.max(1, batch)).run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("Key generation, %d threads x %,d keys%n", threads, rows);
+        for (int round = 0; round < 2; round++) {   // first round is warm-up
+            double v4 = mint(UUID::randomUUID);
+            double v7 = mint(Uuid7::next);
+            if (round == 1) {
+                System.out.printf("  %-14s %,12.0f keys/s%n", "UUID v4", v4);
+                System.out.printf("  %-14s %,12.0f keys/s%n", "UUIDv7", v7);
+            }
+        }
+
+        System.out.printf("%nInserts into a UUID primary key, %,d rows, %d connections, batches of %d%n",
+                rows, threads, batch);
+        System.out.printf("  %-14s %12s %12s %12s%n", "Key", "rows/s", "index MB", "WAL MB");
+        insert("UUID v4", UUID::randomUUID);
+        insert("UUIDv7", Uuid7::next);
+    }
+
+    /**
+     * @return keys minted per second across all threads
+     */
+    private double mint(Supplier<UUID> keys) throws Exception {
+        int perThread = rows / threads;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(pool.submit(() -> {
+                    long sink = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        sink ^= keys.get().getLeastSignificantBits();
+                    }
+                    return sink;
+                }));
+            }
+            for (Future<Long> f : tasks) {
+                f.get();
+            }
+            return (double) perThread * threads / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void insert(String label, Supplier<UUID> keys) throws Exception {
+        try (Connection conn = Database.getConnection()) {
+            execute(conn, "DROP TABLE IF EXISTS " + TABLE);
+            execute(conn, "CREATE TABLE " + TABLE + " (id UUID PRIMARY KEY,"
+                    + " created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(), payload INTEGER NOT NULL)");
+            try {
+                execute(conn, "CHECKPOINT");   // so both runs start with the same full-page-write state
+            } catch (SQLException e) {
+                // needs superuser or pg_checkpoint; the comparison is still fair enough without it
+            }
+        }
+        String walBefore = currentWal();
+        int perThread = rows / threads;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(pool.submit(() -> {
+                    try (Connection conn = Database.getConnection();
+                            var ps = conn.prepareStatement("INSERT INTO " + TABLE + " (id, payload) VALUES (?, ?)")) {
+                        conn.setAutoCommit(false);
+                        for (int i = 0; i < perThread; i++) {
+                            ps.setObject(1, keys.get());
+                            ps.setInt(2, i);
+                            ps.addBatch();
+                            if ((i + 1) % batch == 0 || i == perThread - 1) {
+                                ps.executeBatch();
+                                conn.commit();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : tasks) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try (Connection conn = Database.getConnection();
+                var ps = conn.prepareStatement("""
+                        SELECT pg_relation_size(?::regclass) AS index_bytes,
+                               pg_wal_lsn_diff(pg_current_wal_lsn(), ?::pg_lsn) AS wal_bytes
+                        """)) {
+            ps.setString(1, TABLE + "_pkey");
+            ps.setString(2, walBefore);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                System.out.printf("  %-14s %,12.0f %12.1f %12.1f%n", label, perThread * threads / seconds,
+                        rs.getLong("index_bytes") / 1048576.0, rs.getDouble("wal_bytes") / 1048576.0);
+            }
+            execute(conn, "DROP TABLE " + TABLE);
+        }
+    }
+
+    private static String currentWal() throws SQLException {
+        try (Connection conn = Database.getConnection();
+                var ps = conn.prepareStatement("SELECT pg_current_wal_lsn()::text");
+                var rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (var st = conn.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.team62.tools;
+
+import com.team62.controller.OrderPricing;
+import com.team62.model.Money;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Checks that the cents arithmetic ({@link Money}, the {@code long} methods of
+ * {@link OrderPricing}) gives exactly what the {@link BigDecimal} rules give, then times
+ * both on the register's cart math (line totals, subtotal, tax and total).
+ *
+ * Usage:
+ * <pre>
+ * java -cp build/classes com.team62.tools.MoneyBench [--cases 1000000] [--carts 2000000] [--lines 4] [--seed N]
+ * </pre>
+ * The checks run random amounts, quantities and rates plus the edge cases (half cents,
+ * negatives, {@code Long.MIN_VALUE}/{@code MAX_VALUE} formatting). Any mismatch is printed
+ * and the tool exits with status 1, so it can run as a build step. Needs no database.
+ */
+public class MoneyBench {
+
+    private static final int MAX_REPORTED = 10;
+
+    // Keeps the timed results live, so the JIT cannot drop the work.
+    private static volatile long sink;
+
+    private final Random random;
+    private int checks;
+    private int mismatches;
+
+    MoneyBench(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) {
+        int cases = 1_000_000;
+        int carts = 2_000_000;
+        int lines = 4;
+        long seed = System.nanoTime();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--cases" -> cases = Integer.parseInt(args[++i]);
+                case "--carts" -> carts = Integer.parseInt(args[++i]);
+                case "--lines" -> lines = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> {
+                    System.err.println("Unknown option " + args[i]
+                            + "; options: --cases N --carts N --lines N --seed N");
+                    System.exit(2);
+                }
+            }
+        }
+
+        MoneyBench bench = new MoneyBench(seed);
+        bench.edgeCases();
+        bench.randomCases(cases);
+        System.out.printf("Equivalence: %,d checks, %d mismatches (seed %d)%n", bench.checks, bench.mismatches, seed);
+        if (bench.mismatches > 0) {
+            System.exit(1);
+        }
+        bench.timeCarts(carts, lines);
+    }
+
+    private void edgeCases() {
+        long[] cents = {0, 1, -1, 5, -5, 9, 10, 99, -99, 100, -100, 101, 12_345, -12_345, 625, 1_250,
+                Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE / 10_000, Long.MIN_VALUE / 10_000};
+        for (long c : cents) {
+            checkFormat(c);
+        }
+        for (String amount : new String[] {"1.005", "-1.005", "1.0049", "-1.0049", "0.995", "-0.995",
+                "0.5", "0.004", "-0.004", "123456789.125", "7", "-0.001"}) {
+            BigDecimal value = new BigDecimal(amount);
+            expect("of(" + amount + ")", value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+                    Money.of(value));
+        }
+        expect("of(null)", 0, Money.of(null));
+        // Exact half cents, both signs: 50 bp of 1 cent is 0.005 cents, 5000 bp of 1 cent is 0.5.
+        for (long c : new long[] {1, -1, 3, -3, 101, -101}) {
+            for (long bp : new long[] {50, 5_000, 2_500, 7_500, 800, 825, 0, 10_000}) {
+                checkRate(c, bp);
+            }
+        }
+        for (long c : new long[] {0, 1, 6, 7, 19, 31, 625, 1_875, -625, -1_875}) {
+            checkPricing(c);
+        }
+        expectThrows("rate overflow", () -> Money.rate(Long.MAX_VALUE, 800));
+        expectThrows("times overflow", () -> Money.times(Long.MAX_VALUE, 2));
+        expectThrows("basisPoints(0.00001)", () -> Money.basisPoints(new BigDecimal("0.00001")));
+    }
+
+    private void randomCases(int cases) {
+        for (int i = 0; i < cases; i++) {
+            // Mostly register-sized amounts, some very large and some negative (refunds).
+            long c = switch (i % 4) {
+                case 0, 1 -> random.nextInt(100_000);
+                case 2 -> random.nextLong() / 100_000;
+                default -> -random.nextInt(100_000);
+            };
+            checkFormat(c);
+            checkPricing(c);
+            checkRate(c, random.nextInt(10_001));
+            int quantity = 1 + random.nextInt(20);
+            expect("lineTotal(" + c + ", " + quantity + ")",
+                    Money.of(OrderPricing.lineTotal(Money.toBigDecimal(c), quantity)),
+                    OrderPricing.lineTotal(c, quantity));
+            BigDecimal scaled = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, 2 + random.nextInt(4));
+            expect("of(" + scaled + ")", scaled.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+                    Money.of(scaled));
+        }
+    }
+
+    private void checkFormat(long c) {
+        checks++;
+        String expected = BigDecimal.valueOf(c, 2).toString();
+        String actual = Money.format(c);
+        if (!expected.equals(actual)) {
+            mismatch("format(" + c + ")", expected, actual);
+        }
+        expect("of(toBigDecimal(" + c + "))", c, Money.of(Money.toBigDecimal(c)));
+    }
+
+    private void checkRate(long c, long bp) {
+        BigDecimal expected = Money.toBigDecimal(c)
+                .multiply(BigDecimal.valueOf(bp, 4))
+                .setScale(2, RoundingMode.HALF_UP);
+        expect("rate(" + c + ", " + bp + ")", Money.of(expected), Money.rate(c, bp));
+    }
+
+    private void checkPricing(long subtotal) {
+        BigDecimal reference = Money.toBigDecimal(subtotal);
+        expect("taxTip(" + subtotal + ")", Money.of(OrderPricing.taxTip(reference)), OrderPricing.taxTip(subtotal));
+        expect("total(" + subtotal + ")", Money.of(OrderPricing.total(reference)), OrderPricing.total(subtotal));
+    }
+
+    private void expect(String what, long expected, long actual) {
+        checks++;
+        if (expected != actual) {
+            mismatch(what, String.valueOf(expected), String.valueOf(actual));
+        }
+    }
+
+    private void expectThrows(String what, Runnable action) {
+        checks++;
+        try {
+            action.run();
+            mismatch(what, "ArithmeticException", "no exception");
+        } catch (ArithmeticException expected) {
+            // as it should
+        }
+    }
+
+    private void mismatch(String what, String expected, String actual) {
+        if (++mismatches <= MAX_REPORTED) {
+            System.out.printf("  MISMATCH %s: expected %s, got %s%n", what, expected, actual);
+        }
+    }
+
+    /**
+     * Times the cart math both ways on the same random carts, reporting time and bytes
+     * allocated per cart (allocation from the JVM's per-thread counter).
+     */
+    private void timeCarts(int carts, int lines) {
+        int size = 1024;
+        long[][] unitCents = new long[size][lines];
+        BigDecimal[][] unitPrices = new BigDecimal[size][lines];
+        int[][] quantities = new int[size][lines];
+        for (int i = 0; i < size; i++) {
+            for (int l = 0; l < lines; l++) {
+                unitCents[i][l] = 350 + random.nextInt(600);
+                unitPrices[i][l] = Money.toBigDecimal(unitCents[i][l]);
+                quantities[i][l] = 1 + random.nextInt(3);
+            }
+        }
+
+        LongUnaryOperator bigDecimal = i -> {
+            int c = (int) (i & (size - 1));
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (int l = 0; l < lines; l++) {
+                subtotal = subtotal.add(OrderPricing.lineTotal(unitPrices[c][l], quantities[c][l]));
+            }
+            return OrderPricing.total(subtotal).unscaledValue().longValue();
+        };
+        LongUnaryOperator cents = i -> {
+            int c = (int) (i & (size - 1));
+            long subtotal = 0;
+            for (int l = 0; l < lines; l++) {
+                subtotal += OrderPricing.lineTotal(unitCents[c][l], quantities[c][l]);
+            }
+            return OrderPricing.total(subtotal);
+        };
+
+        System.out.printf("%nCart math, %,d carts of %d lines (subtotal, tax/tip, total)%n", carts, lines);
+        System.out.printf("  %-12s %10s %12s%n", "", "ns/cart", "bytes/cart");
+        // Warm up both first, so neither is timed while the JIT is still compiling.
+        sink = run(bigDecimal, carts / 4) + run(cents, carts / 4);
+        report("BigDecimal", bigDecimal, carts);
+        report("long cents", cents, carts);
+    }
+
+    private static void report(String label, LongUnaryOperator cart, int carts) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        sink = run(cart, carts);
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+        System.out.printf("  %-12s %10.1f %12.1f%n", label, (double) elapsed / carts, (double) bytes / carts);
+    }
+
+    private static long run(LongUnaryOperator cart, int carts) {
+        long sum = 0;
+        for (int i = 0; i < carts; i++) {
+            sum += cart.applyAsLong(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,263 @@
+package com.team62.tools;
+
+import com.team62.controller.MainController;
+import com.team62.controller.OrderPricing;
+import com.team62.db.Database;
+import com.team62.metrics.LatencyHistogram;
+import com.team62.model.MenuItem;
+import com.team62.model.SalesOrder;
+import com.team62.model.SalesOrderItem;
+import com.team62.repository.OrderResult;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Places orders from many simulated registers at once through
+ * {@link MainController#processOrder} and checks that no ingredient was oversold.
+ *
+ * Usage:
+ * <pre>
+ * java -cp build/classes:lib/postgresql-42.7.10.jar \
+ *      com.team62.tools.OrderLoad [--registers 8] [--orders 200] [--lines 2] [--stock N] [--seed 62]
+ * </pre>
+ * Each register submits {@code --orders} tickets of {@code --lines} different random
+ * menu items. {@code --stock N} first sets every ingredient of the active menu to N
+ * units, so the run ends in a sell-out (it changes real stock; use a scratch database).
+ *
+ * Afterwards every ingredient must satisfy {@code before - after = usage logged}; an
+ * ingredient whose logged usage exceeds what actually left stock was oversold.
+ */
+public class OrderLoad {
+
+    private final int registers;
+    private final int orders;
+    private final int lines;
+    private final Integer stock;
+    private final long seed;
+
+    OrderLoad(int registers, int orders, int lines, Integer stock, long seed) {
+        this.registers = registers;
+        this.orders = orders;
+        this.lines = lines;
+        this.stock = stock;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int registers = 8;
+        int orders = 200;
+        int lines = 2;
+        Integer stock = null;
+        long seed = 62;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--registers" -> registers = Integer.parseInt(args[++i]);
+                case "--orders" -> orders = Integer.parseInt(args[++i]);
+                case "--lines" -> lines = Integer.parseInt(args[++i]);
+                case "--stock" -> stock = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> {
+                    System.err.println("Unknown option " + args[i]
+                            + "; options: --registers N --orders N --lines N --stock N --seed N");
+                    System.exit(2);
+                }
+            }
+        }
+        boolean clean = new OrderLoad(Math.max(1, registers), Math.max(1, orders), Math.max(1, lines), stock, seed).run();
+        System.exit(clean ? 0 : 1);
+    }
+
+    /**
+     * @return true when no ingredient was oversold
+     */
+    boolean run() throws Exception {
+        MainController controller = new MainController();
+        List<MenuItem> menu = controller.getAllMenuItems().stream().filter(m -> m.getDbId() != null).toList();
+        if (menu.isEmpty()) {
+            System.err.println("No active menu items to order");
+            return false;
+        }
+        if (stock != null) {
+            restock(menu, stock);
+        }
+
+        OffsetDateTime startedAt;
+        Map<UUID, Integer> before;
+        try (Connection conn = Database.getConnection()) {
+            startedAt = now(conn);
+            before = available(conn);
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger shortfalls = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(registers);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int r = 0; r < registers; r++) {
+                Random random = new Random(seed + r);
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < orders; i++) {
+                        SalesOrder order = ticket(menu, random);
+                        long t0 = System.nanoTime();
+                        OrderResult result = controller.processOrder(order);
+                        latency.recordNanos(System.nanoTime() - t0);
+                        if (result.recorded()) {
+                            accepted.incrementAndGet();
+                        } else if (result.status() == OrderResult.Status.INSUFFICIENT_STOCK) {
+                            shortfalls.incrementAndGet();
+                        } else if (errors.incrementAndGet() <= 3) {
+                            System.err.println(result.message());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : tasks) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d registers x %d tickets of %d lines in %.1f s%n", registers, orders, lines, seconds);
+        System.out.printf("  accepted %,d (%,.0f orders/s), short of stock %,d, errors %,d%n",
+                accepted.get(), accepted.get() / seconds, shortfalls.get(), errors.get());
+        System.out.printf("  latency ms  p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n",
+                latency.getPercentileMicros(50) / 1000.0, latency.getPercentileMicros(95) / 1000.0,
+                latency.getPercentileMicros(99) / 1000.0, latency.getMaxMicros() / 1000.0);
+
+        try (Connection conn = Database.getConnection()) {
+            return checkStock(conn, before, available(conn), usedSince(conn, startedAt));
+        }
+    }
+
+    private SalesOrder ticket(List<MenuItem> menu, Random random) {
+        SalesOrder order = new SalesOrder(System.currentTimeMillis(), new Timestamp(System.currentTimeMillis()), null, "Card");
+        long subtotal = 0;
+        // Distinct items: an order holds each item once ("Order_Item" is unique on the pair).
+        List<MenuItem> picks = new ArrayList<>(menu);
+        Collections.shuffle(picks, random);
+        for (int l = 0; l < Math.min(lines, picks.size()); l++) {
+            MenuItem item = picks.get(l);
+            int quantity = 1 + random.nextInt(2);
+            SalesOrderItem oi = new SalesOrderItem(l + 1, order.getOrderId(), item.getMenuItemId(), quantity, item.getBasePriceCents());
+            oi.setItemDbId(item.getDbId());
+            order.addOrderItem(oi);
+            subtotal += OrderPricing.lineTotal(item.getBasePriceCents(), quantity);
+        }
+        order.setTotalCents(OrderPricing.total(subtotal));
+        return order;
+    }
+
+    private static boolean checkStock(Connection conn, Map<UUID, Integer> before, Map<UUID, Integer> after,
+            Map<UUID, Integer> used) throws SQLException {
+        System.out.printf("%n  %-24s %10s %10s %10s %10s%n", "Ingredient", "before", "after", "used", "oversold");
+        Map<UUID, String> names = names(conn);
+        boolean clean = true;
+        for (var e : used.entrySet()) {
+            UUID id = e.getKey();
+            int was = before.getOrDefault(id, 0);
+            int now = after.getOrDefault(id, 0);
+            int oversold = e.getValue() - (was - now);
+            clean &= oversold == 0;
+            System.out.printf("  %-24s %10d %10d %10d %10d%n",
+                    names.getOrDefault(id, id.toString().substring(0, 8)), was, now, e.getValue(), oversold);
+        }
+        System.out.println(clean ? "OK: stock and logged usage agree" : "OVERSOLD: more usage logged than stock taken");
+        return clean;
+    }
+
+    private static void restock(List<MenuItem> menu, int quantity) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            var ids = conn.createArrayOf("uuid", menu.stream().map(m -> UUID.fromString(m.getDbId())).toArray());
+            try (var ps = conn.prepareStatement("""
+                    WITH used AS (
+                        SELECT inventory_id FROM pos_menu_inventory WHERE menu_item_id = ANY(?)
+                        UNION
+                        SELECT inventory_id FROM "Item_Inventory" WHERE item_id = ANY(?)
+                    ), cleared AS (
+                        DELETE FROM pos_inventory_escrow WHERE inventory_id IN (SELECT inventory_id FROM used)
+                    )
+                    UPDATE "Inventory_Quantity" SET quantity = ?
+                     WHERE inventory_id IN (SELECT inventory_id FROM used)
+                    """)) {
+                ps.setArray(1, ids);
+                ps.setArray(2, ids);
+                ps.setInt(3, quantity);
+                System.out.println("Set " + ps.executeUpdate() + " ingredients to " + quantity + " units");
+            }
+            conn.commit();
+        }
+    }
+
+    private static Map<UUID, Integer> available(Connection conn) throws SQLException {
+        return idToInt(conn, "SELECT inventory_id, quantity FROM pos_inventory_available");
+    }
+
+    private static Map<UUID, Integer> usedSince(Connection conn, OffsetDateTime since) throws SQLException {
+        Map<UUID, Integer> used = new LinkedHashMap<>();
+        try (var ps = conn.prepareStatement("""
+                SELECT inventory_id, SUM(quantity_used)::INTEGER
+                  FROM pos_inventory_usage
+                 WHERE usage_time >= ?
+                 GROUP BY inventory_id
+                 ORDER BY inventory_id
+                """)) {
+            ps.setObject(1, since);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    used.put((UUID) rs.getObject(1), rs.getInt(2));
+                }
+            }
+        }
+        return used;
+    }
+
+    private static Map<UUID, String> names(Connection conn) throws SQLException {
+        Map<UUID, String> names = new LinkedHashMap<>();
+        try (var ps = conn.prepareStatement("SELECT inventory_id, display_name FROM pos_inventory_meta");
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                names.put((UUID) rs.getObject(1), rs.getString(2));
+            }
+        }
+        return names;
+    }
+
+    private static Map<UUID, Integer> idToInt(Connection conn, String sql) throws SQLException {
+        Map<UUID, Integer> map = new LinkedHashMap<>();
+        try (var ps = conn.prepareStatement(sql);
+                var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                map.put((UUID) rs.getObject(1), rs.getInt(2));
+            }
+        }
+        return map;
+    }
+
+    private static OffsetDateTime now(Connection conn) throws SQLException {
+        try (var ps = conn.prepareStatement("SELECT NOW()");
+                var rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getObject(1, OffsetDateTime.class);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.team62.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes rows in PostgreSQL's binary COPY format ({@code COPY ... FROM STDIN WITH (FORMAT binary)}).
+ *
+ * Only the types the seed tables use are supported. Each writer is a growable byte
+ * buffer owned by one thread; the bytes can be streamed to {@code CopyIn.writeToCopy}
+ * in any number of chunks, as long as the header comes first and the trailer last.
+ */
+final class PgBinaryWriter {
+
+    private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+    private static final long PG_EPOCH_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final long PG_EPOCH_MICROS = PG_EPOCH_DAY * 86_400L * 1_000_000L;
+    private static final int TEXT_OID = 25;
+    private static final int UUID_OID = 2950;
+
+    private byte[] buf;
+    private int len;
+
+    PgBinaryWriter(int initialCapacity) {
+        buf = new byte[Math.max(64, initialCapacity)];
+    }
+
+    static byte[] header() {
+        PgBinaryWriter w = new PgBinaryWriter(19);
+        w.put(SIGNATURE, 0, SIGNATURE.length);
+        w.int32(0);
+        w.int32(0);
+        return w.toByteArray();
+    }
+
+    static byte[] trailer() {
+        return new byte[] { (byte) 0xFF, (byte) 0xFF };
+    }
+
+    byte[] array() {
+        return buf;
+    }
+
+    int length() {
+        return len;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    void startRow(int fields) {
+        int16(fields);
+    }
+
+    void writeNull() {
+        int32(-1);
+    }
+
+    void writeUuid(UUID v) {
+        if (v == null) {
+            writeNull();
+            return;
+        }
+        int32(16);
+        int64(v.getMostSignificantBits());
+        int64(v.getLeastSignificantBits());
+    }
+
+    void writeText(String v) {
+        if (v == null) {
+            writeNull();
+            return;
+        }
+        byte[] b = v.getBytes(StandardCharsets.UTF_8);
+        int32(b.length);
+        put(b, 0, b.length);
+    }
+
+    void writeJsonb(String json) {
+        byte[] b = json.getBytes(StandardCharsets.UTF_8);
+        int32(b.length + 1);
+        ensure(1);
+        buf[len++] = 1; // jsonb binary format version
+        put(b, 0, b.length);
+    }
+
+    void writeInt2(short v) {
+        int32(2);
+        int16(v);
+    }
+
+    void writeInt4(int v) {
+        int32(4);
+        int32(v);
+    }
+
+    void writeFloat4(float v) {
+        int32(4);
+        int32(Float.floatToIntBits(v));
+    }
+
+    void writeBool(boolean v) {
+        int32(1);
+        ensure(1);
+        buf[len++] = (byte) (v ? 1 : 0);
+    }
+
+    void writeDate(LocalDate d) {
+        int32(4);
+        int32((int) (d.toEpochDay() - PG_EPOCH_DAY));
+    }
+
+    /**
+     * @param epochMicros microseconds since 1970-01-01T00:00Z
+     */
+    void writeTimestamptz(long epochMicros) {
+        int32(8);
+        int64(epochMicros - PG_EPOCH_MICROS);
+    }
+
+    /**
+     * Writes {@code cents / 100} as NUMERIC with two decimal places.
+     */
+    void writeNumericCents(long cents) {
+        long abs = Math.abs(cents);
+        long intPart = abs / 100;
+        int fraction = (int) (abs % 100);
+
+        short[] groups = new short[6];
+        int intGroups = 0;
+        short[] reversed = new short[5];
+        while (intPart > 0) {
+            reversed[intGroups++] = (short) (intPart % 10_000);
+            intPart /= 10_000;
+        }
+        int n = 0;
+        for (int i = intGroups - 1; i >= 0; i--) {
+            groups[n++] = reversed[i];
+        }
+        groups[n++] = (short) (fraction * 100);
+        int weight = intGroups - 1;
+
+        int first = 0;
+        while (first < n && groups[first] == 0) {
+            first++;
+            weight--;
+        }
+        while (n > first && groups[n - 1] == 0) {
+            n--;
+        }
+        int digits = n - first;
+        if (digits == 0) {
+            weight = 0;
+        }
+
+        int32(8 + digits * 2);
+        int16(digits);
+        int16(weight);
+        int16(cents < 0 && digits > 0 ? 0x4000 : 0);
+        int16(2);
+        for (int i = first; i < n; i++) {
+            int16(groups[i]);
+        }
+    }
+
+    void writeTextArray(List<String> values) {
+        byte[][] encoded = new byte[values.size()][];
+        int size = 12 + (values.isEmpty() ? 0 : 8);
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+            size += 4 + encoded[i].length;
+        }
+        int32(size);
+        arrayHeader(values.size(), TEXT_OID);
+        for (byte[] b : encoded) {
+            int32(b.length);
+            put(b, 0, b.length);
+        }
+    }
+
+    void writeUuidArray(List<UUID> values) {
+        int32(12 + (values.isEmpty() ? 0 : 8) + values.size() * 20);
+        arrayHeader(values.size(), UUID_OID);
+        for (UUID v : values) {
+            writeUuid(v);
+        }
+    }
+
+    private void arrayHeader(int count, int elementOid) {
+        int32(count == 0 ? 0 : 1);
+        int32(0);
+        int32(elementOid);
+        if (count > 0) {
+            int32(count);
+            int32(1);
+        }
+    }
+
+    private void int16(int v) {
+        ensure(2);
+        buf[len++] = (byte) (v >>> 8);
+        buf[len++] = (byte) v;
+    }
+
+    private void int32(int v) {
+        ensure(4);
+        buf[len++] = (byte) (v >>> 24);
+        buf[len++] = (byte) (v >>> 16);
+        buf[len++] = (byte) (v >>> 8);
+        buf[len++] = (byte) v;
+    }
+
+    private void int64(long v) {
+        int32((int) (v >>> 32));
+        int32((int) v);
+    }
+
+    private void put(byte[] b, int off, int n) {
+        ensure(n);
+        System.arraycopy(b, off, buf, len, n);
+        len += n;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.team62.tools;
+
+import com.team62.db.Database;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs the analytics queries in {@code sql/queries} through
+ * {@link Database#getReadConnection()}, so with {@code db.read.url} set they run on the
+ * replica instead of competing with checkout on the primary.
+ *
+ * Usage:
+ * <pre>
+ * java -cp build/classes:lib/postgresql-42.7.10.jar \
+ *      com.team62.tools.QueryPack [--rows N] [file.sql | directory ...]
+ * </pre>
+ * Prints each query's row count and time, and its first {@code --rows} rows (default 0).
+ * With no paths it runs every file in {@code sql/queries}.
+ */
+public class QueryPack {
+
+    public static void main(String[] args) throws Exception {
+        int rows = 0;
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rows")) {
+                rows = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println("Unknown option " + args[i] + "; options: --rows N [file.sql | directory ...]");
+                System.exit(2);
+            } else {
+                paths.add(Path.of(args[i]));
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.add(Path.of("sql", "queries"));
+        }
+
+        // Give the replica's first heartbeat a moment; until then reads go to the primary.
+        double lag = Database.replicaLagSeconds();
+        for (int i = 0; i < 30 && Double.isInfinite(lag); i++) {
+            Thread.sleep(100);
+            lag = Database.replicaLagSeconds();
+        }
+        System.out.println(Double.isNaN(lag) ? "No read replica configured; reading from the primary"
+                : Double.isInfinite(lag) ? "Replica lag unknown; reading from the primary"
+                : String.format("Replica lag %.1f s", lag));
+
+        boolean failed = false;
+        try (Connection conn = Database.getReadConnection()) {
+            for (Path file : sqlFiles(paths)) {
+                failed |= !run(conn, file, rows);
+            }
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static boolean run(Connection conn, Path file, int printRows) throws IOException {
+        String sql = Files.readString(file).strip();
+        if (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1);
+        }
+        long t0 = System.nanoTime();
+        try (var st = conn.createStatement();
+                var rs = st.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            List<String> shown = new ArrayList<>();
+            long count = 0;
+            while (rs.next()) {
+                if (count++ < printRows) {
+                    StringBuilder row = new StringBuilder("    ");
+                    for (int c = 1; c <= columns; c++) {
+                        row.append(c > 1 ? " | " : "").append(rs.getString(c));
+                    }
+                    shown.add(row.toString());
+                }
+            }
+            System.out.printf("%-28s %8d rows %10.1f ms%n", file.getFileName(), count, (System.nanoTime() - t0) / 1e6);
+            shown.forEach(System.out::println);
+            return true;
+        } catch (SQLException e) {
+            System.out.printf("%-28s FAILED: %s%n", file.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<Path> sqlFiles(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(p -> p.toString().endsWith(".sql")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,394 @@
+package com.team62.tools;
+
+import com.team62.db.Uuid7;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Deterministic port of the distributions in {@code sql/seed.py}: day-of-week and
+ * month multipliers, log-normal daily noise, peak days, menu popularity weights,
+ * 1-3 distinct items per order and the bounded rescale towards {@code targetSales}.
+ *
+ * Dimension rows (customers, employees, items), peak days and per-day order counts come
+ * from one master stream seeded with {@code cfg.seed}. Orders for a day come from their
+ * own stream seeded with {@code (seed, day)}, so days can be generated on any number
+ * of threads, in any order, and still produce identical rows. The output matches
+ * seed.py in distribution, not row for row (the RNGs differ).
+ */
+public class SeedGenerator {
+
+    private static final String[] MILK_OPTIONS = { "Whole", "Oat", "Almond", "None" };
+    private static final String[] TOPPING_OPTIONS = { "Boba", "Lychee Jelly", "Popping Boba", "Chia", "Aloe" };
+    private static final String[] ROLES = { "Barista", "Shift Lead", "Manager" };
+    private static final int[] MINUTES = { 0, 5, 10, 12, 15, 18, 20, 25, 30, 35, 40, 45, 50, 55 };
+    private static final int[] SECONDS = { 0, 0, 0, 30 };
+    private static final long[] PRICE_JITTER_CENTS = { 0, 0, 25, 50, -25 };
+    private static final double[] ITEMS_PER_ORDER = { 0.55, 0.33, 0.12 };
+    private static final double[] QTY_PER_LINE = { 0.78, 0.20, 0.02 };
+    private static final long MIN_UNIT_CENTS = 250;
+
+    final GenConfig cfg;
+    final UUID[] customerIds;
+    final UUID[] employeeIds;
+    final LocalDate[] employeeStart;
+    final UUID[] itemIds;
+    final UUID[] inventoryIds;
+    final UUID[] itemInventoryIds;
+    final int[] startQuantity;
+    final List<LocalDate> peakDays;
+    final int[] dailyOrders;
+    private final double[] menuCumulativeWeights;
+
+    public SeedGenerator(GenConfig cfg) {
+        this.cfg = cfg;
+        SplittableRandom rng = new SplittableRandom(cfg.seed);
+
+        customerIds = new UUID[cfg.customerN];
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIds[i] = uuid(rng);
+        }
+
+        employeeIds = new UUID[cfg.employeeN];
+        employeeStart = new LocalDate[cfg.employeeN];
+        LocalDate base = LocalDate.of(2022, 1, 1);
+        for (int i = 0; i < employeeIds.length; i++) {
+            employeeIds[i] = uuid(rng);
+            employeeStart[i] = base.plusDays(((i + 1) * 19L) % 700);
+        }
+
+        int menuN = cfg.menu.size();
+        itemIds = new UUID[menuN];
+        inventoryIds = new UUID[menuN];
+        itemInventoryIds = new UUID[menuN];
+        startQuantity = new int[menuN];
+        menuCumulativeWeights = new double[menuN];
+        double acc = 0;
+        for (int m = 0; m < menuN; m++) {
+            GenConfig.MenuSpec spec = cfg.menu.get(m);
+            itemIds[m] = uuid(rng);
+            inventoryIds[m] = uuid(rng);
+            itemInventoryIds[m] = uuid(rng);
+            startQuantity[m] = (int) Math.round((8000 + (spec.menuItemId() * 137) % 2500) * cfg.inventoryScale);
+            acc += popularity(spec);
+            menuCumulativeWeights[m] = acc;
+        }
+
+        peakDays = pickPeakDays(rng);
+        dailyOrders = dailyOrderCounts(rng);
+    }
+
+    // ============================
+    // Dimension attributes (pure functions of the index, as in seed.py)
+    // ============================
+
+    static String customerName(int i) {
+        return "Customer " + (i + 1);
+    }
+
+    static String customerPhone(int i) {
+        int n = i + 1;
+        return String.format("(%03d) %03d-%04d", 100 + (n % 900), 100 + ((n * 7) % 900), (n * 97) % 10000);
+    }
+
+    static String customerEmail(int i) {
+        return "customer" + (i + 1) + "@example.com";
+    }
+
+    static String employeeName(int i) {
+        return "Employee " + (i + 1);
+    }
+
+    static String employeeWorkHistory(int i) {
+        return "{\"role\": \"" + ROLES[i % ROLES.length] + "\", \"notes\": \"Seeded employee record\"}";
+    }
+
+    static String milk(GenConfig.MenuSpec spec) {
+        return MILK_OPTIONS[spec.menuItemId() % MILK_OPTIONS.length];
+    }
+
+    static short ice(GenConfig.MenuSpec spec) {
+        return (short) ((spec.menuItemId() * 7) % 3);
+    }
+
+    static float sugar(GenConfig.MenuSpec spec) {
+        return (50 + ((spec.menuItemId() * 13) % 51)) / 100.0f;
+    }
+
+    static String topping(GenConfig.MenuSpec spec) {
+        return TOPPING_OPTIONS[spec.menuItemId() % TOPPING_OPTIONS.length];
+    }
+
+    private static double popularity(GenConfig.MenuSpec spec) {
+        String cat = spec.category().toLowerCase();
+        double w = 1.0;
+        if (cat.contains("milk")) {
+            w *= 1.25;
+        }
+        if (cat.contains("fruit")) {
+            w *= 1.10;
+        }
+        if (cat.contains("brew")) {
+            w *= 0.95;
+        }
+        return w;
+    }
+
+    // ============================
+    // Daily volume
+    // ============================
+
+    private List<LocalDate> pickPeakDays(SplittableRandom rng) {
+        int n = cfg.days();
+        if (cfg.peakDays <= 0) {
+            return List.of();
+        }
+        TreeSet<LocalDate> peaks = new TreeSet<>();
+        double step = n / (double) (cfg.peakDays + 1);
+        for (int k = 1; k <= cfg.peakDays; k++) {
+            int center = (int) Math.round(k * step);
+            int jitter = rng.nextInt(-5, 6);
+            int idx = Math.max(0, Math.min(n - 1, center + jitter));
+            peaks.add(cfg.start.plusDays(idx));
+        }
+        while (peaks.size() < Math.min(cfg.peakDays, n)) {
+            peaks.add(cfg.start.plusDays(rng.nextInt(n)));
+        }
+        return new ArrayList<>(peaks);
+    }
+
+    private int[] dailyOrderCounts(SplittableRandom rng) {
+        int n = cfg.days();
+        long approxOrdersTotal = Math.max(1, Math.round(cfg.targetSalesCents / (double) cfg.avgTicketCents));
+        double avgOrdersPerDay = approxOrdersTotal / (double) n;
+
+        double[] raw = new double[n];
+        double norm = 0;
+        for (int d = 0; d < n; d++) {
+            LocalDate day = cfg.start.plusDays(d);
+            double mult = cfg.dowMult[day.getDayOfWeek().getValue() - 1] * cfg.monthMult[day.getMonthValue() - 1];
+            double noise = Math.exp(rng.nextGaussian() * cfg.dailyNoiseSigma);
+            if (peakDays.contains(day)) {
+                mult *= cfg.peakMultiplier;
+            }
+            raw[d] = mult * noise;
+            norm += raw[d];
+        }
+        if (norm == 0) {
+            norm = 1;
+        }
+
+        int[] counts = new int[n];
+        for (int d = 0; d < n; d++) {
+            double lambda = Math.max(0.1, avgOrdersPerDay * (raw[d] / (norm / n)));
+            counts[d] = (int) Math.max(0, Math.round(lambda + rng.nextGaussian() * Math.sqrt(lambda)));
+        }
+        return counts;
+    }
+
+    public long totalOrders() {
+        long sum = 0;
+        for (int c : dailyOrders) {
+            sum += c;
+        }
+        return sum;
+    }
+
+    /**
+     * The global price factor seed.py applies after generation: target / generated,
+     * clamped to 0.75..1.25 and ignored within 2%. Needs the unscaled total of every day.
+     */
+    public double priceFactor(long unscaledTotalCents) {
+        double factor = cfg.targetSalesCents / (double) Math.max(1, unscaledTotalCents);
+        factor = Math.max(0.75, Math.min(1.25, factor));
+        return Math.abs(1.0 - factor) > 0.02 ? factor : 1.0;
+    }
+
+    // ============================
+    // Orders
+    // ============================
+
+    /**
+     * Generates every order of day {@code dayIndex} with unit prices multiplied by
+     * {@code priceFactor}. Thread-safe and deterministic.
+     */
+    public DayOrders generateDay(int dayIndex, double priceFactor) {
+        LocalDate day = cfg.start.plusDays(dayIndex);
+        SplittableRandom rng = new SplittableRandom(cfg.seed * 0x9E3779B97F4A7C15L + day.toEpochDay());
+        int count = dailyOrders[dayIndex];
+        DayOrders out = new DayOrders(day, count);
+        long dayStartMicros = day.atStartOfDay().toEpochSecond(ZoneOffset.UTC) * 1_000_000L;
+
+        int[] lineMenu = new int[3];
+        int[] lineQty = new int[3];
+        long[] linePrice = new long[3];
+        for (int o = 0; o < count; o++) {
+            int hour = rng.nextInt(cfg.openHour, cfg.closeHour);
+            int minute = MINUTES[rng.nextInt(MINUTES.length)];
+            int second = SECONDS[rng.nextInt(SECONDS.length)];
+            out.epochMicros[o] = dayStartMicros + ((hour * 60L + minute) * 60L + second) * 1_000_000L;
+            out.orderIds[o] = uuid7(out.epochMicros[o], rng);
+            out.activityIds[o] = uuid7(out.epochMicros[o], rng);
+            out.customer[o] = rng.nextInt(customerIds.length);
+            out.employee[o] = rng.nextInt(employeeIds.length);
+            out.cash[o] = rng.nextDouble() < cfg.cashShare;
+
+            int nItems = 1 + weighted(rng, ITEMS_PER_ORDER);
+            int lines = 0;
+            for (int i = 0; i < nItems; i++) {
+                int m = pickMenu(rng);
+                int qty = 1 + weighted(rng, QTY_PER_LINE);
+                long unit = Math.max(MIN_UNIT_CENTS,
+                        cfg.menu.get(m).priceCents() + PRICE_JITTER_CENTS[rng.nextInt(PRICE_JITTER_CENTS.length)]);
+                int existing = -1;
+                for (int l = 0; l < lines; l++) {
+                    if (lineMenu[l] == m) {
+                        existing = l;
+                    }
+                }
+                if (existing >= 0) {
+                    // Same item twice: merge quantities and keep the first price, as seed.py does.
+                    lineQty[existing] += qty;
+                } else {
+                    lineMenu[lines] = m;
+                    lineQty[lines] = qty;
+                    linePrice[lines] = unit;
+                    lines++;
+                }
+            }
+
+            long total = 0;
+            int itemCount = 0;
+            for (int l = 0; l < lines; l++) {
+                long unit = priceFactor == 1.0 ? linePrice[l] : Math.round(linePrice[l] * priceFactor);
+                out.addLine(o, uuid7(out.epochMicros[o], rng), uuid7(out.epochMicros[o], rng), lineMenu[l], lineQty[l], unit);
+                total += unit * lineQty[l];
+                itemCount += lineQty[l];
+            }
+            out.totalCents[o] = total;
+            out.itemCount[o] = itemCount;
+            out.dayTotalCents += total;
+        }
+        return out;
+    }
+
+    private int pickMenu(SplittableRandom rng) {
+        double pick = rng.nextDouble() * menuCumulativeWeights[menuCumulativeWeights.length - 1];
+        for (int m = 0; m < menuCumulativeWeights.length; m++) {
+            if (pick <= menuCumulativeWeights[m]) {
+                return m;
+            }
+        }
+        return menuCumulativeWeights.length - 1;
+    }
+
+    private static int weighted(SplittableRandom rng, double[] weights) {
+        double pick = rng.nextDouble();
+        double acc = 0;
+        for (int i = 0; i < weights.length; i++) {
+            acc += weights[i];
+            if (pick <= acc) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Fact rows get time-ordered keys stamped with the order time, like the app mints.
+     */
+    static UUID uuid7(long epochMicros, SplittableRandom rng) {
+        return Uuid7.of(epochMicros / 1000, rng.nextLong(), rng.nextLong());
+    }
+
+    static UUID uuid(SplittableRandom rng) {
+        long msb = (rng.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (rng.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Column-oriented orders and order lines for one day.
+     */
+    public static final class DayOrders {
+        final LocalDate day;
+        final int orders;
+        final UUID[] orderIds;
+        final UUID[] activityIds;
+        final long[] epochMicros;
+        final int[] customer;
+        final int[] employee;
+        final boolean[] cash;
+        final long[] totalCents;
+        final int[] itemCount;
+        long dayTotalCents;
+
+        int lines;
+        int[] lineOrder;
+        UUID[] lineIds;
+        UUID[] usageIds;
+        int[] lineMenu;
+        int[] lineQty;
+        long[] lineUnitCents;
+
+        DayOrders(LocalDate day, int orders) {
+            this.day = day;
+            this.orders = orders;
+            orderIds = new UUID[orders];
+            activityIds = new UUID[orders];
+            epochMicros = new long[orders];
+            customer = new int[orders];
+            employee = new int[orders];
+            cash = new boolean[orders];
+            totalCents = new long[orders];
+            itemCount = new int[orders];
+            int capacity = Math.max(4, orders * 3 / 2);
+            lineOrder = new int[capacity];
+            lineIds = new UUID[capacity];
+            usageIds = new UUID[capacity];
+            lineMenu = new int[capacity];
+            lineQty = new int[capacity];
+            lineUnitCents = new long[capacity];
+        }
+
+        void addLine(int order, UUID lineId, UUID usageId, int menu, int qty, long unitCents) {
+            if (lines == lineOrder.length) {
+                int capacity = lines * 2;
+                lineOrder = Arrays.copyOf(lineOrder, capacity);
+                lineIds = Arrays.copyOf(lineIds, capacity);
+                usageIds = Arrays.copyOf(usageIds, capacity);
+                lineMenu = Arrays.copyOf(lineMenu, capacity);
+                lineQty = Arrays.copyOf(lineQty, capacity);
+                lineUnitCents = Arrays.copyOf(lineUnitCents, capacity);
+            }
+            lineOrder[lines] = order;
+            lineIds[lines] = lineId;
+            usageIds[lines] = usageId;
+            lineMenu[lines] = menu;
+            lineQty[lines] = qty;
+            lineUnitCents[lines] = unitCents;
+            lines++;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public int getOrderCount() {
+            return orders;
+        }
+
+        public int getLineCount() {
+            return lines;
+        }
+
+        public long getTotalCents() {
+            return dayTotalCents;
+        }
+    }
+}
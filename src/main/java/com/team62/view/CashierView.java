@@ -1,74 +1,153 @@
 package com.team62.view;
 
 import com.team62.controller.MainController;
+import com.team62.controller.MenuSearch;
+import com.team62.controller.OrderPricing;
+import com.team62.db.Uuid7;
+import com.team62.model.Customer;
 import com.team62.model.MenuItem;
+import com.team62.model.Modifiers;
+import com.team62.model.Money;
 import com.team62.model.SalesOrder;
 import com.team62.model.SalesOrderItem;
+import com.team62.repository.OrderResult;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Dialog;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Separator;
+import javafx.scene.control.TextField;
 import javafx.scene.control.TextInputDialog;
+import javafx.scene.input.KeyCode;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.util.StringConverter;
 
 /**
  * Cashier view: grid of menu items (left) and order summary (right) for submitting orders.
  */
 public class CashierView extends BorderPane {
 
-    private static final BigDecimal TAX_RATE = new BigDecimal("0.08");
-    private static final BigDecimal TIP_RATE = new BigDecimal("0.00");
-
     private final MainController controller;
     private final List<OrderLine> currentOrder = new ArrayList<>();
     private final VBox orderItemsBox = new VBox(4);
     private final Label subtotalLabel = new Label("Subtotal: $0.00");
     private final Label taxTipLabel = new Label("Tax/Tip: $0.00");
     private final Label totalLabel = new Label("TOTAL: $0.00");
+    private final TextField customerField = new TextField();
+    private final Label customerLabel = new Label("Walk-up sale");
+    private Customer customer;
     private long nextOrderItemId = 1;
+    // Key for the order on screen; kept across retries so a resubmit is not recorded twice.
+    private String orderKey;
     private final FlowPane menuGrid;
+    private final Map<String, Button> menuButtons = new HashMap<>();
+    // Every menu item's button, shown or not, for the search box to pick from.
+    private final Map<MenuItem, Button> itemButtons = new IdentityHashMap<>();
+    private final TextField searchField = new TextField();
+    private MenuSearch search = new MenuSearch(List.of(), Map.of());
+    private Modifiers.Table modifiers;
+
+    private static final String OUT_OF_STOCK_STYLE =
+            "-fx-background-color: #ddd; -fx-text-fill: #999; -fx-border-color: #ccc; -fx-border-radius: 4; -fx-background-radius: 4;";
 
     public CashierView(MainController controller) {
         this.controller = controller;
         this.menuGrid = new FlowPane(12, 12);
         setStyle("-fx-background-color: #f5f0eb;");
         buildLayout();
+        // Grey out items the moment any register sells out an ingredient they need.
+        controller.addMenuListener(itemIds -> Platform.runLater(() -> markOutOfStock(itemIds)));
     }
 
     /**
      * Refreshes the menu item grid from the database (e.g. after Manager adds or edits items).
      */
     public void refreshMenu() {
-        menuGrid.getChildren().clear();
-        for (MenuItem item : controller.getAllMenuItems()) {
-            Button btn = new Button(item.getName() + "\n$" + item.getBasePrice());
+        menuButtons.clear();
+        itemButtons.clear();
+        List<MenuItem> items = controller.getAllMenuItems();
+        for (MenuItem item : items) {
+            Button btn = new Button(item.getName() + "\n$" + Money.format(item.getBasePriceCents()));
             btn.setPrefSize(120, 70);
             btn.setWrapText(true);
             btn.setAlignment(Pos.CENTER);
             btn.setTextAlignment(javafx.scene.text.TextAlignment.CENTER);
             if (item.isOutOfStock()) {
-                btn.setStyle("-fx-background-color: #ddd; -fx-text-fill: #999; -fx-border-color: #ccc; -fx-border-radius: 4; -fx-background-radius: 4;");
+                btn.setStyle(OUT_OF_STOCK_STYLE);
                 btn.setDisable(true);
             } else {
                 btn.setStyle("-fx-background-color: white; -fx-border-color: #ccc; -fx-border-radius: 4; -fx-background-radius: 4;");
                 btn.setOnAction(e -> addToOrder(item));
             }
-            menuGrid.getChildren().add(btn);
+            if (item.getDbId() != null) {
+                menuButtons.put(item.getDbId(), btn);
+            }
+            itemButtons.put(item, btn);
+        }
+        search = new MenuSearch(items, controller.getRecentUnitsSold());
+        modifiers = controller.getModifiers();
+        showMatches();
+    }
+
+    /**
+     * Shows the items matching the search box, best first, or the whole menu when it is empty.
+     */
+    private void showMatches() {
+        List<Node> shown = new ArrayList<>();
+        for (MenuItem item : search.find(searchField.getText())) {
+            shown.add(itemButtons.get(item));
+        }
+        menuGrid.getChildren().setAll(shown);
+    }
+
+    /**
+     * Adds the best match that is in stock, so a cashier can type a few letters and press Enter.
+     */
+    private void addTopMatch() {
+        for (MenuItem item : search.find(searchField.getText())) {
+            if (!itemButtons.get(item).isDisabled()) {
+                addToOrder(item);
+                searchField.clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Greys out the given items ({@code "Item"} ids) without reloading the menu.
+     */
+    private void markOutOfStock(Set<String> itemIds) {
+        for (String itemId : itemIds) {
+            Button btn = menuButtons.get(itemId);
+            if (btn != null) {
+                btn.setStyle(OUT_OF_STOCK_STYLE);
+                btn.setDisable(true);
+            }
         }
     }
 
@@ -83,6 +162,18 @@ public class CashierView extends BorderPane {
         menuScroll.setFitToWidth(true);
         menuScroll.setStyle("-fx-background-color: transparent; -fx-background: transparent;");
 
+        // Left: search box over the menu; typos are fine ("tapoica", "taro mi")
+        searchField.setPromptText("Search menu (name or category)");
+        searchField.textProperty().addListener((obs, old, text) -> showMatches());
+        searchField.setOnAction(e -> addTopMatch());
+        searchField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                searchField.clear();
+            }
+        });
+        VBox menuPanel = new VBox(8, searchField, menuScroll);
+        VBox.setVgrow(menuScroll, Priority.ALWAYS);
+
         // Right: order summary
         VBox orderPanel = new VBox(12);
         orderPanel.setPadding(new Insets(12));
@@ -96,6 +187,17 @@ public class CashierView extends BorderPane {
         orderPanel.getChildren().add(orderTitle);
         orderPanel.getChildren().add(new Separator());
 
+        customerField.setPromptText("Customer phone or email");
+        customerField.setOnAction(e -> findCustomer());
+        Button findBtn = new Button("Find");
+        findBtn.setOnAction(e -> findCustomer());
+        Button clearBtn = new Button("Clear");
+        clearBtn.setOnAction(e -> setCustomer(null));
+        HBox.setHgrow(customerField, Priority.ALWAYS);
+        customerLabel.setWrapText(true);
+        orderPanel.getChildren().addAll(new HBox(6, customerField, findBtn, clearBtn), customerLabel);
+        orderPanel.getChildren().add(new Separator());
+
         orderItemsBox.setPadding(new Insets(0, 0, 8, 0));
         VBox.setVgrow(orderItemsBox, Priority.ALWAYS);
         orderPanel.getChildren().add(orderItemsBox);
@@ -114,7 +216,7 @@ public class CashierView extends BorderPane {
         center.setAlignment(Pos.TOP_LEFT);
         Region leftSpacer = new Region();
         HBox.setHgrow(leftSpacer, Priority.ALWAYS);
-        center.getChildren().addAll(menuScroll, leftSpacer, orderPanel);
+        center.getChildren().addAll(menuPanel, leftSpacer, orderPanel);
 
         setCenter(center);
     }
@@ -123,35 +225,49 @@ public class CashierView extends BorderPane {
 
         MenuItem menuItem;
         int quantity;
+        // Milk, ice, sugar and toppings (Modifiers); 0 for the standard drink
+        long modifiers;
+        long unitCents;
 
-        OrderLine(MenuItem menuItem, int quantity) {
+        OrderLine(MenuItem menuItem, int quantity, long unitCents) {
             this.menuItem = menuItem;
             this.quantity = quantity;
+            this.unitCents = unitCents;
         }
     }
 
     private void addToOrder(MenuItem item) {
         for (OrderLine line : currentOrder) {
-            if (line.menuItem.getMenuItemId() == item.getMenuItemId()) {
+            if (line.menuItem.getMenuItemId() == item.getMenuItemId() && line.modifiers == 0) {
                 line.quantity++;
                 refreshOrderDisplay();
                 return;
             }
         }
-        currentOrder.add(new OrderLine(item, 1));
+        currentOrder.add(new OrderLine(item, 1, unitCents(item, 0)));
         refreshOrderDisplay();
     }
 
+    /**
+     * @return the item's price in cents with {@code mask}'s upcharges; the menu price for
+     *         an item the modifier table does not know yet
+     */
+    private long unitCents(MenuItem item, long mask) {
+        return modifiers.knows(item.getDbId()) ? modifiers.unitCents(item.getDbId(), mask) : item.getBasePriceCents();
+    }
+
     private void refreshOrderDisplay() {
+        orderKey = null; // a changed cart is a new order
         orderItemsBox.getChildren().clear();
         for (OrderLine line : currentOrder) {
             HBox row = new HBox(8);
             row.setAlignment(Pos.CENTER_LEFT);
+            String custom = line.modifiers == 0 ? "" : modifiers.describe(line.menuItem.getDbId(), line.modifiers);
             Label lbl = new Label(
                     line.quantity + "x " + line.menuItem.getName() + "  $"
-                            + line.menuItem.getBasePrice()
-                                    .multiply(BigDecimal.valueOf(line.quantity))
-                                    .setScale(2, RoundingMode.HALF_UP));
+                            + Money.format(OrderPricing.lineTotal(line.unitCents, line.quantity))
+                            + (custom.isEmpty() ? "" : "\n   " + custom));
+            lbl.setWrapText(true);
             lbl.setMaxWidth(Double.MAX_VALUE);
             HBox.setHgrow(lbl, Priority.ALWAYS);
 
@@ -159,28 +275,27 @@ public class CashierView extends BorderPane {
             editBtn.setStyle("-fx-font-size: 11;");
             editBtn.setOnAction(e -> editQuantity(line));
 
+            Button customBtn = new Button("Custom");
+            customBtn.setStyle("-fx-font-size: 11;");
+            customBtn.setDisable(modifiers.allowed(line.menuItem.getDbId()).isEmpty());
+            customBtn.setOnAction(e -> customize(line));
+
             Button removeBtn = new Button("Remove");
             removeBtn.setStyle("-fx-font-size: 11; -fx-text-fill: #c00;");
             removeBtn.setOnAction(e -> removeLine(line));
 
-            row.getChildren().addAll(lbl, editBtn, removeBtn);
+            row.getChildren().addAll(lbl, editBtn, customBtn, removeBtn);
             orderItemsBox.getChildren().add(row);
         }
 
-        BigDecimal subtotal = BigDecimal.ZERO;
+        long subtotal = 0;
         for (OrderLine line : currentOrder) {
-            subtotal = subtotal.add(
-                    line.menuItem.getBasePrice().multiply(BigDecimal.valueOf(line.quantity)));
+            subtotal += OrderPricing.lineTotal(line.unitCents, line.quantity);
         }
-        BigDecimal taxTip = subtotal.multiply(TAX_RATE)
-                .add(subtotal.multiply(TIP_RATE))
-                .setScale(2, RoundingMode.HALF_UP);
-        BigDecimal total = subtotal.add(taxTip).setScale(2, RoundingMode.HALF_UP);
 
-        subtotalLabel.setText("Subtotal: $"
-                + subtotal.setScale(2, RoundingMode.HALF_UP));
-        taxTipLabel.setText("Tax/Tip: $" + taxTip);
-        totalLabel.setText("TOTAL: $" + total);
+        subtotalLabel.setText("Subtotal: $" + Money.format(subtotal));
+        taxTipLabel.setText("Tax/Tip: $" + Money.format(OrderPricing.taxTip(subtotal)));
+        totalLabel.setText("TOTAL: $" + Money.format(OrderPricing.total(subtotal)));
     }
 
     private void editQuantity(OrderLine line) {
@@ -202,11 +317,169 @@ public class CashierView extends BorderPane {
         });
     }
 
+    /**
+     * Lets the cashier pick the line's milk, ice, sugar and toppings, showing the price as
+     * they go. A line that ends up like another one is merged into it.
+     */
+    private void customize(OrderLine line) {
+        String itemId = line.menuItem.getDbId();
+        long current = modifiers.complete(itemId, line.modifiers);
+        List<Modifiers.Modifier> allowed = modifiers.allowed(itemId);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.setPadding(new Insets(10));
+        List<ComboBox<Modifiers.Modifier>> choices = new ArrayList<>();
+        List<CheckBox> toppings = new ArrayList<>();
+        Label priceLabel = new Label();
+        int row = 0;
+        for (Modifiers.Group group : Modifiers.Group.values()) {
+            List<Modifiers.Modifier> options = allowed.stream().filter(m -> m.group() == group).toList();
+            if (options.isEmpty()) {
+                continue;
+            }
+            grid.add(new Label(group.label() + ":"), 0, row);
+            if (group.isExclusive()) {
+                ComboBox<Modifiers.Modifier> box = new ComboBox<>();
+                box.getItems().setAll(options);
+                box.setConverter(new StringConverter<>() {
+                    @Override
+                    public String toString(Modifiers.Modifier m) {
+                        return m == null ? "" : m.name() + upchargeText(itemId, m);
+                    }
+
+                    @Override
+                    public Modifiers.Modifier fromString(String s) {
+                        return null;
+                    }
+                });
+                options.stream().filter(m -> (current & m.bit()) != 0).findFirst().ifPresent(box::setValue);
+                choices.add(box);
+                grid.add(box, 1, row++);
+            } else {
+                VBox boxes = new VBox(4);
+                for (Modifiers.Modifier m : options) {
+                    CheckBox cb = new CheckBox(m.name() + upchargeText(itemId, m));
+                    cb.setSelected((current & m.bit()) != 0);
+                    cb.setUserData(m);
+                    toppings.add(cb);
+                    boxes.getChildren().add(cb);
+                }
+                grid.add(boxes, 1, row++);
+            }
+        }
+        grid.add(priceLabel, 0, row, 2, 1);
+
+        Dialog<ButtonType> d = new Dialog<>();
+        d.setTitle("Customize");
+        d.setHeaderText(line.menuItem.getName());
+        d.getDialogPane().setContent(grid);
+        d.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        Runnable update = () -> {
+            long mask = chosenMask(choices, toppings);
+            String problem = modifiers.check(itemId, mask);
+            priceLabel.setText(problem != null ? "Not allowed: " + problem
+                    : "Price: $" + Money.format(modifiers.unitCents(itemId, mask)));
+            d.getDialogPane().lookupButton(ButtonType.OK).setDisable(problem != null);
+        };
+        choices.forEach(box -> box.valueProperty().addListener((obs, old, v) -> update.run()));
+        toppings.forEach(cb -> cb.selectedProperty().addListener((obs, old, v) -> update.run()));
+        update.run();
+
+        d.showAndWait().filter(ButtonType.OK::equals).ifPresent(b -> {
+            long mask = chosenMask(choices, toppings);
+            // Back to 0 when it is the standard drink, so it merges with plain taps of the button.
+            long stored = mask == modifiers.complete(itemId, 0) ? 0 : mask;
+            for (OrderLine other : currentOrder) {
+                if (other != line && other.menuItem == line.menuItem && other.modifiers == stored) {
+                    other.quantity += line.quantity;
+                    currentOrder.remove(line);
+                    refreshOrderDisplay();
+                    return;
+                }
+            }
+            line.modifiers = stored;
+            line.unitCents = unitCents(line.menuItem, stored);
+            refreshOrderDisplay();
+        });
+    }
+
+    private static long chosenMask(List<ComboBox<Modifiers.Modifier>> choices, List<CheckBox> toppings) {
+        long mask = 0;
+        for (ComboBox<Modifiers.Modifier> box : choices) {
+            if (box.getValue() != null) {
+                mask |= box.getValue().bit();
+            }
+        }
+        for (CheckBox cb : toppings) {
+            if (cb.isSelected()) {
+                mask |= ((Modifiers.Modifier) cb.getUserData()).bit();
+            }
+        }
+        return mask;
+    }
+
+    private String upchargeText(String itemId, Modifiers.Modifier m) {
+        BigDecimal upcharge = modifiers.upcharge(itemId, m);
+        return upcharge.signum() == 0 ? "" : " (+$" + upcharge + ")";
+    }
+
     private void removeLine(OrderLine line) {
         currentOrder.remove(line);
         refreshOrderDisplay();
     }
 
+    /**
+     * Looks the customer up by phone or email; offers to enroll them if they are new.
+     */
+    private void findCustomer() {
+        String key = customerField.getText() == null ? "" : customerField.getText().trim();
+        if (key.isEmpty()) {
+            setCustomer(null);
+            return;
+        }
+        Customer found = controller.findCustomer(key);
+        if (found == null) {
+            TextInputDialog dialog = new TextInputDialog();
+            dialog.setTitle("New Customer");
+            dialog.setHeaderText("No customer with " + key + ". Enroll them?");
+            dialog.setContentText("Name:");
+            var name = dialog.showAndWait();
+            if (name.isEmpty() || name.get().isBlank()) {
+                return;
+            }
+            found = key.contains("@")
+                    ? new Customer(null, name.get(), null, key, 0)
+                    : new Customer(null, name.get(), key, null, 0);
+            String error = controller.addCustomer(found);
+            if (error != null) {
+                new Alert(Alert.AlertType.ERROR, error).showAndWait();
+                return;
+            }
+        }
+        setCustomer(found);
+    }
+
+    private void setCustomer(Customer c) {
+        if (!Objects.equals(customer == null ? null : customer.getDbId(), c == null ? null : c.getDbId())) {
+            orderKey = null; // a different customer is a new order too
+        }
+        customer = c;
+        if (c == null) {
+            customerField.clear();
+            customerLabel.setText("Walk-up sale");
+            return;
+        }
+        StringBuilder text = new StringBuilder(c.toString());
+        for (SalesOrder recent : controller.getRecentPurchases(c.getDbId(), 3)) {
+            text.append("\n  ").append(recent.getOrderDatetime().toLocalDateTime().toLocalDate())
+                    .append("  $").append(recent.getTotalAmount());
+        }
+        customerLabel.setText(text.toString());
+    }
+
     private void submitOrder() {
         if (currentOrder.isEmpty()) {
             new Alert(Alert.AlertType.WARNING,
@@ -214,37 +487,45 @@ public class CashierView extends BorderPane {
             return;
         }
 
-        BigDecimal subtotal = BigDecimal.ZERO;
+        long subtotal = 0;
         for (OrderLine line : currentOrder) {
-            subtotal = subtotal.add(
-                    line.menuItem.getBasePrice().multiply(BigDecimal.valueOf(line.quantity)));
+            subtotal += OrderPricing.lineTotal(line.unitCents, line.quantity);
         }
-        BigDecimal taxTip = subtotal.multiply(TAX_RATE)
-                .add(subtotal.multiply(TIP_RATE))
-                .setScale(2, RoundingMode.HALF_UP);
-        BigDecimal total = subtotal.add(taxTip).setScale(2, RoundingMode.HALF_UP);
 
+        if (orderKey == null) {
+            orderKey = Uuid7.next().toString();
+        }
         long orderId = System.currentTimeMillis();
         SalesOrder order = new SalesOrder(orderId,
-                new Timestamp(System.currentTimeMillis()), total, "Cash");
+                new Timestamp(System.currentTimeMillis()), null, "Cash");
+        order.setTotalCents(OrderPricing.total(subtotal));
+        order.setOrderKey(orderKey);
         for (OrderLine line : currentOrder) {
             SalesOrderItem oi = new SalesOrderItem(
                     nextOrderItemId++, orderId, line.menuItem.getMenuItemId(),
-                    line.quantity, line.menuItem.getBasePrice());
+                    line.quantity, line.unitCents);
             // carry the real DB UUID for this item so the controller
             // can persist into \"Order\" / \"Order_Item\"
             oi.setItemDbId(line.menuItem.getDbId());
+            oi.setModifiers(line.modifiers);
             order.addOrderItem(oi);
         }
+        if (customer != null) {
+            order.setCustomerDbId(customer.getDbId());
+        }
 
-        String result = controller.processOrder(order);
-        if (result.contains("success")) {
+        OrderResult result = controller.processOrder(order);
+        if (result.recorded()) {
+            for (OrderLine line : currentOrder) {
+                search.recordSale(line.menuItem, line.quantity);
+            }
             currentOrder.clear();
             refreshOrderDisplay();
+            setCustomer(null);
             new Alert(Alert.AlertType.INFORMATION,
-                    "Order submitted. Total: $" + total).showAndWait();
+                    "Order submitted. Total: $" + Money.format(order.getTotalCents())).showAndWait();
         } else {
-            new Alert(Alert.AlertType.ERROR, result).showAndWait();
+            new Alert(Alert.AlertType.ERROR, result.message()).showAndWait();
         }
     }
 }
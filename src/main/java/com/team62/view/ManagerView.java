@@ -7,12 +7,16 @@ import com.team62.model.InventoryUsage;
 import com.team62.model.MenuItem;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
@@ -32,6 +36,7 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.scene.control.TextInputDialog;
 
 /**
@@ -647,10 +652,18 @@ public class ManagerView extends BorderPane {
         DatePicker salesEnd = new DatePicker(LocalDate.now());
         TextArea salesOut = new TextArea();
         salesOut.setEditable(false);
+        salesOut.setFont(javafx.scene.text.Font.font("Courier New", 13));
         VBox.setVgrow(salesOut, Priority.ALWAYS);
+        // Chart resolution; minute and hour buckets only reach back 7 and 90 days.
+        ComboBox<String> salesResolution = new ComboBox<>(
+                javafx.collections.FXCollections.observableArrayList("auto", "minute", "hour", "day"));
+        salesResolution.setValue("auto");
         Button salesBtn = new Button("Generate / Refresh");
-        salesBtn.setOnAction(e -> salesOut.setText(controller.getSalesReport(salesStart.getValue(), salesEnd.getValue())));
-        HBox salesTop = new HBox(10, new Label("Start:"), salesStart, new Label("End:"), salesEnd, salesBtn);
+        salesBtn.setOnAction(e -> salesOut.setText(
+                controller.getSalesReport(salesStart.getValue(), salesEnd.getValue()) + "\n"
+                        + controller.getSalesHistoryChart(salesStart.getValue(), salesEnd.getValue(), salesResolution.getValue())));
+        HBox salesTop = new HBox(10, new Label("Start:"), salesStart, new Label("End:"), salesEnd,
+                new Label("Chart by:"), salesResolution, salesBtn);
         salesTop.setAlignment(Pos.CENTER_LEFT);
         Tab salesTab = new Tab("Sales Report", new VBox(10, salesTop, salesOut));
 
@@ -718,7 +731,29 @@ public class ManagerView extends BorderPane {
         restockTop.setAlignment(Pos.CENTER_LEFT);
         Tab restockTab = new Tab("Restock", new VBox(10, restockTop, restockOut));
 
-        tabs.getTabs().addAll(usageTab, salesTab, xTab, zTab, restockTab);
+        // Restock forecast tab, refreshed every minute while it is open
+        TextArea forecastOut = new TextArea();
+        forecastOut.setEditable(false);
+        forecastOut.setFont(javafx.scene.text.Font.font("Courier New", 13));
+        VBox.setVgrow(forecastOut, Priority.ALWAYS);
+        Button forecastBtn = new Button("Refresh");
+        forecastBtn.setOnAction(e -> forecastOut.setText(controller.getRestockForecastReport()));
+        HBox forecastTop = new HBox(10, forecastBtn, new Label("Updates every minute while open."));
+        forecastTop.setAlignment(Pos.CENTER_LEFT);
+        Tab forecastTab = new Tab("Restock Forecast", new VBox(10, forecastTop, forecastOut));
+        Timeline forecastRefresh = new Timeline(new KeyFrame(Duration.minutes(1),
+                e -> forecastOut.setText(controller.getRestockForecastReport())));
+        forecastRefresh.setCycleCount(Animation.INDEFINITE);
+        forecastTab.setOnSelectionChanged(e -> {
+            if (forecastTab.isSelected()) {
+                forecastOut.setText(controller.getRestockForecastReport());
+                forecastRefresh.play();
+            } else {
+                forecastRefresh.stop();
+            }
+        });
+
+        tabs.getTabs().addAll(usageTab, salesTab, xTab, zTab, restockTab, forecastTab);
         VBox.setVgrow(tabs, Priority.ALWAYS);
         reportsPane.getChildren().addAll(title, new Separator(), tabs);
 